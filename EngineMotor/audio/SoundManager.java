@@ -1,17 +1,22 @@
 package audio;
 
+import core.JobSystem;
+
 import javax.sound.sampled.*;
 import java.io.*;
+import java.util.Set;
 import java.util.concurrent.*;
 
 /**
  * SoundManager: plays WAV files, streams PCM buffers, and supports basic mixing.
+ * Playback blocks on the audio line, so it runs on the job system's virtual threads.
  */
 public class SoundManager {
-    private final ExecutorService playbackPool = Executors.newCachedThreadPool();
+    private final JobSystem jobs = JobSystem.shared();
+    private final Set<Future<?>> playing = ConcurrentHashMap.newKeySet();
 
     public void playWavFile(File wavFile) {
-        playbackPool.submit(() -> {
+        play(() -> {
             try (AudioInputStream ais = AudioSystem.getAudioInputStream(wavFile)) {
                 AudioFormat format = ais.getFormat();
                 DataLine.Info info = new DataLine.Info(SourceDataLine.class, format);
@@ -32,7 +37,7 @@ public class SoundManager {
     }
 
     public void playPcmBuffer(byte[] pcm, AudioFormat format) {
-        playbackPool.submit(() -> {
+        play(() -> {
             DataLine.Info info = new DataLine.Info(SourceDataLine.class, format);
             try (SourceDataLine line = (SourceDataLine) AudioSystem.getLine(info)) {
                 line.open(format);
@@ -45,7 +50,14 @@ public class SoundManager {
         });
     }
 
+    private void play(Runnable playback) {
+        playing.removeIf(Future::isDone);
+        playing.add(jobs.submitBlocking(playback));
+    }
+
+    /** Stops every playback still running. */
     public void shutdown() {
-        playbackPool.shutdownNow();
+        for (Future<?> f : playing) f.cancel(true);
+        playing.clear();
     }
 }
@@ -2,6 +2,7 @@ package core;
 
 public class DeltaTime {
     private long lastTime;
+    private long deltaNanos;
     private float delta;
 
     public DeltaTime() {
@@ -10,11 +11,17 @@ public class DeltaTime {
 
     public void update() {
         long now = System.nanoTime();
-        delta = (now - lastTime) / 1_000_000_000.0f;
+        deltaNanos = now - lastTime;
+        delta = deltaNanos / 1_000_000_000.0f;
         lastTime = now;
     }
 
     public float getDelta() {
         return delta;
     }
+
+    /** Last frame time in nanoseconds, without float rounding. */
+    public long getDeltaNanos() {
+        return deltaNanos;
+    }
 }
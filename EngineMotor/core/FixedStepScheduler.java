@@ -0,0 +1,197 @@
+package core;
+
+import utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fixed-timestep driver for simulation work.
+ *
+ * Each {@link Group} steps at its own rate (e.g. physics 120 Hz, AI 20 Hz, audio zones
+ * 10 Hz) with a constant {@code dt}, so results do not depend on the frame rate. Frame
+ * time is fed in through {@link #advance(long)}; steps of all groups are interleaved
+ * in simulated-time order (ties go to the group added first), which keeps the
+ * sequence identical however the frame time is sliced.
+ *
+ * Spiral-of-death protection: a frame never adds more than {@link #getMaxFrameNanos()}
+ * of time, and a group runs at most {@code maxSteps} steps per frame; backlog beyond
+ * that is dropped and counted. {@link #alpha(String)} gives the fraction of a step
+ * left over, for interpolating rendered state between the last two steps.
+ */
+public final class FixedStepScheduler {
+    private static final Logger logger = new Logger(FixedStepScheduler.class);
+
+    /** Work run once per fixed step. */
+    @FunctionalInterface
+    public interface Step {
+        void step(float dt);
+    }
+
+    /** One set of work stepped at a fixed rate. */
+    public static final class Group {
+        private final String name;
+        private final long stepNanos;
+        private final float dt;
+        private final int maxSteps;
+        private final Step step;
+
+        private long simulated;     // simulated time reached, in nanos since start
+        private long steps;
+        private long droppedSteps;
+        private int stepsThisFrame;
+
+        private Group(String name, double hz, int maxSteps, Step step) {
+            if (hz <= 0) throw new IllegalArgumentException("Rate must be positive: " + hz);
+            this.name = name;
+            this.stepNanos = Math.max(1L, Math.round(1_000_000_000.0 / hz));
+            this.dt = (float) (stepNanos / 1_000_000_000.0);
+            this.maxSteps = Math.max(1, maxSteps);
+            this.step = step;
+        }
+
+        public String name() { return name; }
+        public float dt() { return dt; }
+        public long stepNanos() { return stepNanos; }
+        /** Total steps run since start. */
+        public long steps() { return steps; }
+        /** Steps skipped by the per-frame cap. */
+        public long droppedSteps() { return droppedSteps; }
+        public int stepsThisFrame() { return stepsThisFrame; }
+    }
+
+    private final List<Group> groups = new ArrayList<>();
+    private long maxFrameNanos = 250_000_000L;
+    private long now;               // total (clamped) time fed in
+    private long clampedNanos;      // time discarded by the frame clamp
+
+    // -------------------------------------------------------------------------
+    // Configuration
+    // -------------------------------------------------------------------------
+
+    /** Adds a group running at {@code hz} with at most 8 steps per frame. */
+    public Group addGroup(String name, double hz, Step step) {
+        return addGroup(name, hz, 8, step);
+    }
+
+    public synchronized Group addGroup(String name, double hz, int maxStepsPerFrame, Step step) {
+        if (find(name) != null) throw new IllegalArgumentException("Duplicate group: " + name);
+        Group g = new Group(name, hz, maxStepsPerFrame, step);
+        g.simulated = now;
+        groups.add(g);
+        logger.info("Fixed-step group '" + name + "' at " + hz + " Hz (dt=" + g.dt + "s)");
+        return g;
+    }
+
+    /** Longest frame time accepted by {@link #advance(long)}; longer frames are clamped. */
+    public void setMaxFrameNanos(long nanos) {
+        this.maxFrameNanos = Math.max(1L, nanos);
+    }
+
+    public long getMaxFrameNanos() {
+        return maxFrameNanos;
+    }
+
+    // -------------------------------------------------------------------------
+    // Driving
+    // -------------------------------------------------------------------------
+
+    /** Same as {@link #advance(long)} with the frame time in seconds. */
+    public int advance(float frameSeconds) {
+        return advance((long) (frameSeconds * 1_000_000_000.0));
+    }
+
+    /**
+     * Adds one frame of wall time and runs every step that became due.
+     *
+     * @return number of steps run across all groups
+     */
+    public synchronized int advance(long frameNanos) {
+        long frame = Math.max(0L, frameNanos);
+        if (frame > maxFrameNanos) {
+            clampedNanos += frame - maxFrameNanos;
+            frame = maxFrameNanos;
+        }
+        now += frame;
+        for (Group g : groups) g.stepsThisFrame = 0;
+
+        int total = 0;
+        Group next;
+        while ((next = nextDue()) != null) {
+            next.step.step(next.dt);
+            next.simulated += next.stepNanos;
+            next.steps++;
+            next.stepsThisFrame++;
+            total++;
+        }
+
+        // Groups that hit their cap drop whole steps but keep the sub-step remainder
+        for (Group g : groups) {
+            long behind = (now - g.simulated) / g.stepNanos;
+            if (behind > 0) {
+                g.simulated += behind * g.stepNanos;
+                g.droppedSteps += behind;
+            }
+        }
+        return total;
+    }
+
+    /** Group with the earliest due step that is still under its per-frame cap. */
+    private Group nextDue() {
+        Group best = null;
+        long bestTime = Long.MAX_VALUE;
+        for (Group g : groups) {
+            if (g.stepsThisFrame >= g.maxSteps) continue;
+            long due = g.simulated + g.stepNanos;
+            if (due <= now && due < bestTime) {
+                best = g;
+                bestTime = due;
+            }
+        }
+        return best;
+    }
+
+    // -------------------------------------------------------------------------
+    // Inspection
+    // -------------------------------------------------------------------------
+
+    /** Fraction of a step accumulated since the group's last step, in {@code [0, 1)}. */
+    public synchronized float alpha(String group) {
+        Group g = require(group);
+        return (float) ((double) (now - g.simulated) / g.stepNanos);
+    }
+
+    /** Nanos until the earliest group has a step due; lets the main loop sleep instead of spin. */
+    public synchronized long nanosUntilNextStep() {
+        long min = Long.MAX_VALUE;
+        for (Group g : groups) min = Math.min(min, g.simulated + g.stepNanos - now);
+        return Math.max(0L, min);
+    }
+
+    public synchronized Group getGroup(String name) {
+        return find(name);
+    }
+
+    public synchronized List<Group> getGroups() {
+        return Collections.unmodifiableList(new ArrayList<>(groups));
+    }
+
+    /** Total time discarded by the frame clamp. */
+    public synchronized long getClampedNanos() {
+        return clampedNanos;
+    }
+
+    private Group find(String name) {
+        for (Group g : groups) {
+            if (g.name.equals(name)) return g;
+        }
+        return null;
+    }
+
+    private Group require(String name) {
+        Group g = find(name);
+        if (g == null) throw new IllegalArgumentException("Unknown group: " + name);
+        return g;
+    }
+}
@@ -0,0 +1,101 @@
+package core;
+
+import core.JobSystem.Job;
+import core.JobSystem.Priority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A fixed set of jobs with dependencies, built once and run every frame.
+ *
+ * A node can only depend on nodes added before it, so the graph is acyclic by
+ * construction. {@link #run(JobSystem)} starts every node as soon as its dependencies
+ * are done and returns when the whole graph has finished.
+ */
+public final class JobGraph {
+
+    /** One job of the graph. */
+    public static final class Node {
+        private final String name;
+        private final Priority priority;
+        private final Runnable work;
+        private final Node[] after;
+        private final int index;
+
+        private Node(String name, Priority priority, Runnable work, Node[] after, int index) {
+            this.name = name;
+            this.priority = priority;
+            this.work = work;
+            this.after = after;
+            this.index = index;
+        }
+
+        public String name() { return name; }
+    }
+
+    private final String name;
+    private final List<Node> nodes = new ArrayList<>();
+
+    public JobGraph(String name) {
+        this.name = name;
+    }
+
+    public Node add(String name, Runnable work, Node... after) {
+        return add(name, Priority.NORMAL, work, after);
+    }
+
+    public synchronized Node add(String name, Priority priority, Runnable work, Node... after) {
+        for (Node dep : after) {
+            if (dep.index >= nodes.size() || nodes.get(dep.index) != dep) {
+                throw new IllegalArgumentException("'" + name + "' depends on a node of another graph: " + dep.name);
+            }
+        }
+        Node n = new Node(name, priority, work, after.clone(), nodes.size());
+        nodes.add(n);
+        return n;
+    }
+
+    /** Runs every node once and waits; rethrows the first failure after all jobs have settled. */
+    public void run(JobSystem jobs) {
+        List<Node> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(nodes);
+        }
+        Job[] started = new Job[snapshot.size()];
+        for (Node n : snapshot) {
+            Job[] deps = new Job[n.after.length];
+            for (int i = 0; i < deps.length; i++) deps[i] = started[n.after[i].index];
+            started[n.index] = jobs.submit(n.priority, n.work, deps);
+        }
+
+        RuntimeException failure = null;
+        for (Job j : started) {
+            try {
+                j.join();
+            } catch (RuntimeException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    public synchronized List<Node> getNodes() {
+        return Collections.unmodifiableList(new ArrayList<>(nodes));
+    }
+
+    /** One line per node with its dependencies. */
+    public synchronized String describe() {
+        StringBuilder sb = new StringBuilder(name).append(":\n");
+        for (Node n : nodes) {
+            sb.append("  ").append(n.name).append(" [").append(n.priority).append("]");
+            if (n.after.length > 0) {
+                sb.append(" after");
+                for (Node d : n.after) sb.append(' ').append(d.name);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,315 @@
+package core;
+
+import utils.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Engine-wide job system: one work-stealing {@link ForkJoinPool} shared by the ECS,
+ * physics and audio, instead of a pool per subsystem.
+ *
+ * Jobs are queued by {@link Priority}; whenever a worker frees up it takes the oldest
+ * job of the highest non-empty priority. A job may wait for other jobs
+ * ({@link #submit(Priority, Runnable, Job...)}) and a failed job fails everything that
+ * depends on it. {@link #parallelFor} splits index ranges with fork/join, and
+ * {@link JobGraph} runs a fixed set of dependent jobs once per frame.
+ *
+ * Per-thread state of the thread that starts a {@link #parallelFor} (the ECS command
+ * source, the world being CPU-accounted) follows the ranges onto the workers that help
+ * with it, through the registered {@link ContextCarrier}s.
+ *
+ * Work that blocks for long stretches (streaming to an audio line, MIDI playback) goes
+ * through {@link #submitBlocking} onto virtual threads so it never holds a worker.
+ *
+ * The worker count comes from {@link #configure(int)}, else the {@value #THREADS_PROPERTY}
+ * system property, else one less than the number of cores.
+ */
+public final class JobSystem {
+    private static final Logger logger = new Logger(JobSystem.class);
+
+    /** System property read for the worker count when {@link #configure} was not called. */
+    public static final String THREADS_PROPERTY = "stryck.jobs.threads";
+
+    public enum Priority { HIGH, NORMAL, LOW }
+
+    /** Work run over {@code [from, to)} of an index space. */
+    @FunctionalInterface
+    public interface RangeTask {
+        void run(int from, int to);
+    }
+
+    /**
+     * Carries per-thread state from the thread that starts parallel work to the threads
+     * that run its ranges. {@link #carry} is called on the starting thread and returns a
+     * task that installs that state around each range (and restores it after), or
+     * {@code task} itself when there is nothing to carry.
+     */
+    @FunctionalInterface
+    public interface ContextCarrier {
+        RangeTask carry(RangeTask task);
+    }
+
+    /** Handle to a submitted job, usable as a dependency of later jobs. */
+    public static final class Job {
+        private final JobSystem owner;
+        private final CompletableFuture<Void> done;
+
+        private Job(JobSystem owner, CompletableFuture<Void> done) {
+            this.owner = owner;
+            this.done = done;
+        }
+
+        /** Runs {@code next} once this job has completed successfully. */
+        public Job then(Runnable next) {
+            return owner.submit(Priority.NORMAL, next, this);
+        }
+
+        public Job then(Priority priority, Runnable next) {
+            return owner.submit(priority, next, this);
+        }
+
+        public boolean isDone() {
+            return done.isDone();
+        }
+
+        public boolean isFailed() {
+            return done.isCompletedExceptionally();
+        }
+
+        /** Waits for the job; rethrows its failure (unchecked exceptions as-is). */
+        public void join() {
+            try {
+                done.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException re) throw re;
+                if (cause instanceof Error err) throw err;
+                throw e;
+            }
+        }
+
+        CompletableFuture<Void> future() {
+            return done;
+        }
+    }
+
+    private static int configuredThreads;
+    private static volatile JobSystem shared;
+    private static final List<ContextCarrier> carriers = new CopyOnWriteArrayList<>();
+
+    private final ForkJoinPool pool;
+    private final ExecutorService blocking;
+    private final List<Queue<Runnable>> queues; // indexed by Priority ordinal
+    private final Executor[] byPriority;
+
+    // -------------------------------------------------------------------------
+    // Shared instance
+    // -------------------------------------------------------------------------
+
+    /**
+     * Sets the worker count of the shared job system. Takes effect when it is first
+     * created; call before the engine starts. 0 or less restores the default.
+     */
+    public static synchronized void configure(int threads) {
+        if (shared != null) {
+            logger.warn("Job system already running with " + shared.getParallelism()
+                    + " workers; new count applies after shutdown");
+        }
+        configuredThreads = threads;
+    }
+
+    /** The engine-wide job system, created on first use. */
+    public static JobSystem shared() {
+        JobSystem js = shared;
+        if (js != null) return js;
+        synchronized (JobSystem.class) {
+            if (shared == null) shared = new JobSystem(defaultThreads());
+            return shared;
+        }
+    }
+
+    private static int defaultThreads() {
+        if (configuredThreads > 0) return configuredThreads;
+        Integer fromProperty = Integer.getInteger(THREADS_PROPERTY);
+        if (fromProperty != null && fromProperty > 0) return fromProperty;
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public JobSystem(int threads) {
+        int n = Math.max(1, threads);
+        this.pool = new ForkJoinPool(n, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("job-worker-" + t.getPoolIndex());
+            return t;
+        }, (t, e) -> logger.error("Uncaught job failure on " + t.getName(), e), false);
+        this.blocking = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("job-io-", 0).factory());
+        Priority[] priorities = Priority.values();
+        List<Queue<Runnable>> perPriority = new ArrayList<>(priorities.length);
+        this.byPriority = new Executor[priorities.length];
+        for (Priority p : priorities) {
+            perPriority.add(new ConcurrentLinkedQueue<>());
+            byPriority[p.ordinal()] = r -> execute(p, r);
+        }
+        this.queues = List.copyOf(perPriority);
+        logger.info("Job system started with " + n + " workers");
+    }
+
+    // -------------------------------------------------------------------------
+    // Jobs
+    // -------------------------------------------------------------------------
+
+    /** Queues {@code task} at {@code priority}; failures are logged. */
+    public void execute(Priority priority, Runnable task) {
+        queues.get(priority.ordinal()).add(task);
+        pool.execute(this::runNext);
+    }
+
+    /** One queued job, highest priority first. Exactly one of these is scheduled per queued job. */
+    private void runNext() {
+        for (Queue<Runnable> q : queues) {
+            Runnable task = q.poll();
+            if (task == null) continue;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.error("Job failed", t);
+            }
+            return;
+        }
+    }
+
+    public Job submit(Runnable task) {
+        return submit(Priority.NORMAL, task);
+    }
+
+    /** Runs {@code task} once every job in {@code after} has completed; fails if any of them failed. */
+    public Job submit(Priority priority, Runnable task, Job... after) {
+        CompletableFuture<Void> ready;
+        if (after.length == 0) {
+            ready = CompletableFuture.completedFuture(null);
+        } else if (after.length == 1) {
+            ready = after[0].future();
+        } else {
+            CompletableFuture<?>[] deps = new CompletableFuture<?>[after.length];
+            for (int i = 0; i < after.length; i++) deps[i] = after[i].future();
+            ready = CompletableFuture.allOf(deps);
+        }
+        return new Job(this, ready.thenRunAsync(task, byPriority[priority.ordinal()]));
+    }
+
+    /** Runs long-blocking work on a virtual thread; cancel the future to interrupt it. */
+    public Future<?> submitBlocking(Runnable task) {
+        return blocking.submit(task);
+    }
+
+    // -------------------------------------------------------------------------
+    // Context carried into parallel work
+    // -------------------------------------------------------------------------
+
+    /** Registers a carrier applied to every {@link #parallelFor} that is split across threads. */
+    public static void addContextCarrier(ContextCarrier carrier) {
+        carriers.add(Objects.requireNonNull(carrier, "carrier"));
+    }
+
+    /**
+     * {@code task} wrapped by every registered carrier. Call on the thread starting the
+     * work; for executors that hand ranges to other threads themselves.
+     */
+    public static RangeTask carryContext(RangeTask task) {
+        for (ContextCarrier c : carriers) task = c.carry(task);
+        return task;
+    }
+
+    // -------------------------------------------------------------------------
+    // Parallel for
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs {@code task} over {@code [0, count)} in ranges of at most {@code grain},
+     * split recursively and load-balanced by work stealing. Returns when all ranges
+     * are done and rethrows the first failure.
+     */
+    public void parallelFor(int count, int grain, RangeTask task) {
+        if (count <= 0) return;
+        int g = Math.max(1, grain);
+        if (count <= g) {
+            task.run(0, count);
+            return;
+        }
+        RangeAction root = new RangeAction(carryContext(task), 0, count, g);
+        if (onWorker()) root.invoke();
+        else pool.invoke(root);
+    }
+
+    private boolean onWorker() {
+        return Thread.currentThread() instanceof ForkJoinWorkerThread w && w.getPool() == pool;
+    }
+
+    private static final class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient RangeTask task;
+        private final int from, to, grain;
+
+        RangeAction(RangeTask task, int from, int to, int grain) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                task.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(task, from, mid, grain), new RangeAction(task, mid, to, grain));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors / lifecycle
+    // -------------------------------------------------------------------------
+
+    /** The worker pool, for APIs that take an {@link ExecutorService}. Do not shut it down directly. */
+    public ExecutorService executor() {
+        return pool;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /** Jobs queued but not yet started, across all priorities. */
+    public int getQueuedJobs() {
+        int n = 0;
+        for (Queue<Runnable> q : queues) n += q.size();
+        return n;
+    }
+
+    /** Stops all workers; the next {@link #shared()} call creates a fresh system. */
+    public void shutdown() {
+        synchronized (JobSystem.class) {
+            if (shared == this) shared = null;
+        }
+        pool.shutdownNow();
+        blocking.shutdownNow();
+        logger.info("Job system shut down");
+    }
+}
@@ -12,12 +12,21 @@ import ecs.components.TransformComponent;
 import ecs.components.VelocityComponent;
 import ecs.systems.MovementSystem;
 
+import java.util.concurrent.locks.LockSupport;
+
 public class StryckEngine {
     private static final Logger logger = new Logger(StryckEngine.class);
 
-    private boolean running = false;
+    // Fixed-rate system groups (see ECSManager#addSystem(SystemBase, String))
+    public static final String PHYSICS = "physics";
+    public static final String AI = "ai";
+    public static final String AUDIO = "audio";
+
+    private volatile boolean running = false;
     private final StryckEventManager eventManager = new StryckEventManager();
     private final DeltaTime deltaTime = new DeltaTime();
+    private final FixedStepScheduler simulation = new FixedStepScheduler();
+    private long minFrameNanos = 1_000_000_000L / 120;
 
     private MouvementHandler movementHandler;
     private CameraMouvementHandler cameraHandler;
@@ -26,12 +35,18 @@ public class StryckEngine {
 
     public void init() {
         logger.info("Initializing engine systems...");
+        JobSystem.shared();
 
         camera = new Camera();
         movementHandler = new MouvementHandler(eventManager, new MouvementParametres());
         cameraHandler = new CameraMouvementHandler(eventManager, camera);
         ecsManager = new ECSManager();
-        ecsManager.addSystem(new MovementSystem());
+        ecsManager.addSystem(new MovementSystem(), PHYSICS);
+
+        ECSManager ecs = ecsManager;
+        simulation.addGroup(PHYSICS, 120, dt -> ecs.updateGroup(PHYSICS, dt));
+        simulation.addGroup(AI, 20, dt -> ecs.updateGroup(AI, dt));
+        simulation.addGroup(AUDIO, 10, dt -> ecs.updateGroup(AUDIO, dt));
 
         // Create a player
         var player = ecsManager.createEntity();
@@ -47,17 +62,28 @@ public class StryckEngine {
         running = true;
 
         while (running) {
+            long frameStart = System.nanoTime();
             deltaTime.update();
+
+            // Fixed-rate groups catch up on simulated time, then per-frame work runs once
+            simulation.advance(deltaTime.getDeltaNanos());
             update(deltaTime.getDelta());
-            ecsManager.update(deltaTime.getDelta());
-            render();
+            render(simulation.alpha(PHYSICS));
+
+            pace(frameStart);
         }
 
         cleanup();
     }
 
+    /** Sleeps out the rest of the frame instead of spinning. */
+    private void pace(long frameStart) {
+        long remaining = frameStart + minFrameNanos - System.nanoTime();
+        if (remaining > 0) LockSupport.parkNanos(remaining);
+    }
+
     private void update(float dt) {
-        // --- ECS Updates ---
+        // --- ECS Updates (systems outside the fixed-rate groups) ---
         ecsManager.update(dt);
 
         // --- Player Movement ---
@@ -69,7 +95,11 @@ public class StryckEngine {
         // --- (CameraMouvementHandler updates itself via events) ---
     }
 
-    private void render() {
+    /**
+     * @param alpha fraction of a physics step elapsed since the last one; blend
+     *              previous and current transforms by it when extracting render state
+     */
+    private void render(float alpha) {
         // Later: integrate with renderer
         // For now, just debug
         logger.info("Camera position: " + camera.getPosition());
@@ -79,8 +109,27 @@ public class StryckEngine {
         running = false;
     }
 
+    /**
+     * Worker threads of the engine job system shared by ECS, physics and audio.
+     * Call before {@link #init()}; 0 or less uses one less than the core count.
+     */
+    public void setWorkerThreads(int threads) {
+        JobSystem.configure(threads);
+    }
+
+    /** Caps the render loop; 0 or less removes the cap. */
+    public void setMaxFps(int fps) {
+        this.minFrameNanos = fps > 0 ? 1_000_000_000L / fps : 0L;
+    }
+
+    public FixedStepScheduler getSimulation() {
+        return simulation;
+    }
+
     private void cleanup() {
         logger.info("Cleaning up engine resources...");
+        if (ecsManager != null) ecsManager.shutdown();
+        JobSystem.shared().shutdown();
     }
 
     public StryckEventManager getEventManager() {
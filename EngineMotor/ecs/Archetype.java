@@ -0,0 +1,154 @@
+package ecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All entities that own exactly the same set of component types.
+ * Entities are addressed by a dense slot index; slot {@code s} lives in
+ * chunk {@code s / CAPACITY} at row {@code s % CAPACITY}. Every chunk except
+ * the last one is always full, so a scan touches no holes.
+ */
+public final class Archetype {
+
+    private final ComponentMask mask;
+    private final int[] typeIndices;
+    private final int[] columnByType;
+    private final List<ArchetypeChunk> chunks = new ArrayList<>();
+    private int count;
+
+    // Cached transitions, indexed by component type index
+    private Archetype[] addEdges = new Archetype[0];
+    private Archetype[] removeEdges = new Archetype[0];
+
+    Archetype(ComponentMask mask) {
+        this.mask = mask;
+        this.typeIndices = mask.toIndices();
+        int maxType = typeIndices.length == 0 ? -1 : typeIndices[typeIndices.length - 1];
+        this.columnByType = new int[maxType + 1];
+        Arrays.fill(columnByType, -1);
+        for (int c = 0; c < typeIndices.length; c++) {
+            columnByType[typeIndices[c]] = c;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Public view
+    // -------------------------------------------------------------------------
+
+    public ComponentMask mask() {
+        return mask;
+    }
+
+    /** Number of entities in this archetype. */
+    public int size() {
+        return count;
+    }
+
+    /** Chunks in slot order; all but the last are full. */
+    public List<ArchetypeChunk> chunks() {
+        return Collections.unmodifiableList(chunks);
+    }
+
+    /** True if this archetype stores the given component type. */
+    public boolean has(int typeIndex) {
+        return columnOf(typeIndex) >= 0;
+    }
+
+    // -------------------------------------------------------------------------
+    // Storage (package-private, driven by ArchetypeStorage)
+    // -------------------------------------------------------------------------
+
+    int[] typeIndices() {
+        return typeIndices;
+    }
+
+    int columnOf(int typeIndex) {
+        return typeIndex < columnByType.length ? columnByType[typeIndex] : -1;
+    }
+
+    /** Appends an entity with empty columns and returns its slot. */
+    int add(int entityId) {
+        int chunkIndex = count >>> ArchetypeChunk.SHIFT;
+        if (chunkIndex == chunks.size()) {
+            chunks.add(new ArchetypeChunk(this));
+        }
+        chunks.get(chunkIndex).append(entityId);
+        return count++;
+    }
+
+    /**
+     * Appends {@code count} entities with their components ({@code columns[c][i]} in
+     * this archetype's column order), one array copy per column and chunk.
+     * Returns the slot of the first one; the rest follow consecutively.
+     */
+    int addAll(int[] ids, Component[][] columns, int count) {
+        int done = 0;
+        while (done < count) {
+            int chunkIndex = this.count >>> ArchetypeChunk.SHIFT;
+            if (chunkIndex == chunks.size()) chunks.add(new ArchetypeChunk(this));
+            int took = chunks.get(chunkIndex).appendRun(ids, columns, done, count - done);
+            this.count += took;
+            done += took;
+        }
+        return this.count - done;
+    }
+
+    /**
+     * Removes the entity at {@code slot} by moving the last entity into its place.
+     * @return id of the entity that now occupies {@code slot}, or -1 if none moved
+     */
+    int removeAt(int slot) {
+        int lastSlot = count - 1;
+        ArchetypeChunk lastChunk = chunks.get(lastSlot >>> ArchetypeChunk.SHIFT);
+        int moved = -1;
+        if (slot == lastSlot) {
+            lastChunk.dropLast();
+        } else {
+            moved = lastChunk.popInto(chunks.get(slot >>> ArchetypeChunk.SHIFT), slot & ArchetypeChunk.MASK);
+        }
+        count--;
+        if (lastChunk.size() == 0) {
+            chunks.remove(chunks.size() - 1);
+        }
+        return moved;
+    }
+
+    Component get(int slot, int column) {
+        return chunks.get(slot >>> ArchetypeChunk.SHIFT).getAt(column, slot & ArchetypeChunk.MASK);
+    }
+
+    void set(int slot, int column, Component c) {
+        chunks.get(slot >>> ArchetypeChunk.SHIFT).setAt(column, slot & ArchetypeChunk.MASK, c);
+    }
+
+    void clear() {
+        chunks.clear();
+        count = 0;
+    }
+
+    Archetype addEdge(int typeIndex) {
+        return typeIndex < addEdges.length ? addEdges[typeIndex] : null;
+    }
+
+    void setAddEdge(int typeIndex, Archetype target) {
+        if (typeIndex >= addEdges.length) addEdges = Arrays.copyOf(addEdges, typeIndex + 1);
+        addEdges[typeIndex] = target;
+    }
+
+    Archetype removeEdge(int typeIndex) {
+        return typeIndex < removeEdges.length ? removeEdges[typeIndex] : null;
+    }
+
+    void setRemoveEdge(int typeIndex, Archetype target) {
+        if (typeIndex >= removeEdges.length) removeEdges = Arrays.copyOf(removeEdges, typeIndex + 1);
+        removeEdges[typeIndex] = target;
+    }
+
+    @Override
+    public String toString() {
+        return "Archetype{" + mask + ", entities=" + count + ", chunks=" + chunks.size() + "}";
+    }
+}
@@ -0,0 +1,126 @@
+package ecs;
+
+import java.lang.reflect.Array;
+
+/**
+ * Fixed-size block of entities sharing one {@link Archetype}.
+ * Components are stored as parallel arrays: row {@code i} of every column
+ * belongs to {@code entityIds()[i]}. Rows {@code [0, size())} are always dense.
+ */
+public final class ArchetypeChunk implements ColumnView {
+
+    /** Rows per chunk. Power of two so slot to (chunk, row) is a shift and a mask. */
+    public static final int CAPACITY = 512;
+    static final int SHIFT = Integer.numberOfTrailingZeros(CAPACITY);
+    static final int MASK = CAPACITY - 1;
+
+    private final Archetype archetype;
+    private final int[] entities = new int[CAPACITY];
+    private final Component[][] columns;
+    private int size;
+
+    ArchetypeChunk(Archetype archetype) {
+        this.archetype = archetype;
+        int[] typeIndices = archetype.typeIndices();
+        this.columns = new Component[typeIndices.length][];
+        for (int c = 0; c < typeIndices.length; c++) {
+            // Typed arrays so column(Class) can hand out T[] without copying
+            columns[c] = (Component[]) Array.newInstance(ComponentTypes.typeOf(typeIndices[c]), CAPACITY);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Iteration API
+    // -------------------------------------------------------------------------
+
+    /** Number of occupied rows. */
+    public int size() {
+        return size;
+    }
+
+    /** Entity id stored at the given row. */
+    public int entityId(int row) {
+        return entities[row];
+    }
+
+    /** Backing entity id array; only the first {@link #size()} entries are valid. */
+    @Override
+    public int[] entityIds() {
+        return entities;
+    }
+
+    /**
+     * Backing column for a component type; only the first {@link #size()} entries are valid.
+     * @throws IllegalArgumentException if the archetype does not contain the type
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Component> T[] column(Class<T> type) {
+        int c = archetype.columnOf(ComponentTypes.indexOf(type));
+        if (c < 0) {
+            throw new IllegalArgumentException(type.getSimpleName() + " is not part of " + archetype.mask());
+        }
+        return (T[]) columns[c];
+    }
+
+    /** Component of the given type at a row, or null if the archetype lacks the type. */
+    public <T extends Component> T get(int row, Class<T> type) {
+        int c = archetype.columnOf(ComponentTypes.indexOf(type));
+        return c < 0 ? null : type.cast(columns[c][row]);
+    }
+
+    public Archetype archetype() {
+        return archetype;
+    }
+
+    // -------------------------------------------------------------------------
+    // Storage (package-private, driven by Archetype)
+    // -------------------------------------------------------------------------
+
+    int append(int entityId) {
+        entities[size] = entityId;
+        return size++;
+    }
+
+    /**
+     * Appends up to {@code n} rows copied from {@code ids[from..]} and
+     * {@code src[c][from..]} (columns in this archetype's order); returns how many fit.
+     */
+    int appendRun(int[] ids, Component[][] src, int from, int n) {
+        int take = Math.min(n, CAPACITY - size);
+        System.arraycopy(ids, from, entities, size, take);
+        for (int c = 0; c < columns.length; c++) {
+            System.arraycopy(src[c], from, columns[c], size, take);
+        }
+        size += take;
+        return take;
+    }
+
+    Component getAt(int column, int row) {
+        return columns[column][row];
+    }
+
+    void setAt(int column, int row, Component c) {
+        columns[column][row] = c;
+    }
+
+    /** Copies the last row into {@code row} of {@code dst} (may be this chunk) and drops it here. */
+    int popInto(ArchetypeChunk dst, int row) {
+        int last = --size;
+        int moved = entities[last];
+        dst.entities[row] = moved;
+        for (int c = 0; c < columns.length; c++) {
+            dst.columns[c][row] = columns[c][last];
+            columns[c][last] = null;
+        }
+        return moved;
+    }
+
+    /** Clears the last row without moving it anywhere. */
+    void dropLast() {
+        int last = --size;
+        for (Component[] column : columns) {
+            column[last] = null;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package ecs;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Archetype-based component storage used by {@link ComponentManager} in
+ * {@link StorageMode#ARCHETYPE} mode.
+ *
+ * Structural changes (add/remove of a component type) move the entity to the
+ * archetype matching its new component set; they are serialized on this object.
+ * Reads and chunk scans are lock-free and must not overlap structural changes,
+ * which is why systems should mutate structure through {@link ECSManager#commands()}.
+ */
+final class ArchetypeStorage {
+
+    private final Archetype root = new Archetype(ComponentMask.EMPTY);
+    private final Map<ComponentMask, Archetype> byMask = new HashMap<>();
+    private final List<Archetype> archetypes = new CopyOnWriteArrayList<>();
+
+    // Entity location, indexed by entity slot index; entityOwner holds the full id
+    // so a recycled index with an older generation resolves to nothing
+    private Archetype[] entityArchetype = new Archetype[1024];
+    private int[] entitySlot = new int[1024];
+    private int[] entityOwner = new int[1024];
+
+    // -------------------------------------------------------------------------
+    // Structural changes
+    // -------------------------------------------------------------------------
+
+    synchronized void add(int entityId, Component component) {
+        int type = ComponentTypes.indexOf(component.getClass());
+        Archetype from = archetypeOf(entityId);
+        if (from != null) {
+            int column = from.columnOf(type);
+            if (column >= 0) {
+                from.set(entitySlot[EntityId.index(entityId)], column, component);
+                return;
+            }
+        }
+        Archetype to = withType(from == null ? root : from, type);
+        int slot = moveTo(entityId, from, to);
+        to.set(slot, to.columnOf(type), component);
+    }
+
+    /**
+     * Places {@code count} entities that have no components yet straight into the
+     * archetype of {@code mask}, skipping the per-type moves of {@link #add}.
+     * {@code columns} are in the mask's type order. Entities that already have
+     * components are added one component at a time instead.
+     */
+    synchronized void addNew(int[] ids, int count, ComponentMask mask, Component[][] columns) {
+        int[] types = mask.toIndices();
+        Archetype to = archetypeFor(mask);
+        int fresh = 0;
+        for (int i = 0; i < count; i++) {
+            if (archetypeOf(ids[i]) == null) fresh++;
+        }
+        if (fresh < count) {
+            // Rare: some already have components. Split them off and add those one by one.
+            int[] freshIds = new int[fresh];
+            Component[][] freshColumns = new Component[types.length][];
+            for (int c = 0; c < types.length; c++) {
+                freshColumns[c] = (Component[]) Array.newInstance(columns[c].getClass().getComponentType(), fresh);
+            }
+            for (int i = 0, k = 0; i < count; i++) {
+                if (archetypeOf(ids[i]) != null) {
+                    for (int c = 0; c < types.length; c++) add(ids[i], columns[c][i]);
+                    continue;
+                }
+                freshIds[k] = ids[i];
+                for (int c = 0; c < types.length; c++) freshColumns[c][k] = columns[c][i];
+                k++;
+            }
+            if (fresh == 0) return;
+            ids = freshIds;
+            columns = freshColumns;
+            count = fresh;
+        }
+
+        int first = to.addAll(ids, columns, count);
+        ensureCapacity(maxIndex(ids, count));
+        for (int i = 0; i < count; i++) {
+            int index = EntityId.index(ids[i]);
+            entityArchetype[index] = to;
+            entitySlot[index] = first + i;
+            entityOwner[index] = ids[i];
+        }
+    }
+
+    private static int maxIndex(int[] ids, int count) {
+        int max = 0;
+        for (int i = 0; i < count; i++) max = Math.max(max, EntityId.index(ids[i]));
+        return max;
+    }
+
+    synchronized void remove(int entityId, int type) {
+        Archetype from = archetypeOf(entityId);
+        if (from == null || !from.has(type)) return;
+        Archetype to = withoutType(from, type);
+        if (to == root) {
+            detach(entityId, from);
+        } else {
+            moveTo(entityId, from, to);
+        }
+    }
+
+    synchronized void removeAll(int entityId) {
+        Archetype from = archetypeOf(entityId);
+        if (from != null) detach(entityId, from);
+    }
+
+    synchronized void clear() {
+        for (Archetype a : archetypes) a.clear();
+        Arrays.fill(entityArchetype, null);
+    }
+
+    // -------------------------------------------------------------------------
+    // Reads
+    // -------------------------------------------------------------------------
+
+    <T extends Component> T get(int entityId, Class<T> type) {
+        Archetype a = archetypeOf(entityId);
+        if (a == null) return null;
+        int column = a.columnOf(ComponentTypes.indexOf(type));
+        return column < 0 ? null : type.cast(a.get(entitySlot[EntityId.index(entityId)], column));
+    }
+
+    boolean has(int entityId, int type) {
+        Archetype a = archetypeOf(entityId);
+        return a != null && a.has(type);
+    }
+
+    /** Archetype currently holding the entity, or null if it has no components. */
+    Archetype archetypeOf(int entityId) {
+        if (entityId < 0) return null;
+        int index = EntityId.index(entityId);
+        Archetype[] loc = entityArchetype;
+        int[] owners = entityOwner;
+        if (index >= loc.length || index >= owners.length || owners[index] != entityId) return null;
+        return loc[index];
+    }
+
+    /** Non-empty chunks of every archetype containing all types of {@code filter}. */
+    List<ArchetypeChunk> chunksWith(ComponentMask filter) {
+        List<ArchetypeChunk> out = new ArrayList<>();
+        for (Archetype a : archetypes) {
+            if (a.size() > 0 && a.mask().containsAll(filter)) out.addAll(a.chunks());
+        }
+        return out;
+    }
+
+    /** Compatibility view for {@link ComponentManager#entriesForType}; allocates. */
+    <T extends Component> Collection<Entry<Integer, T>> entries(Class<T> type) {
+        List<Entry<Integer, T>> out = new ArrayList<>();
+        for (ArchetypeChunk chunk : chunksWith(ComponentMask.of(type))) {
+            T[] column = chunk.column(type);
+            for (int i = 0, n = chunk.size(); i < n; i++) {
+                out.add(new AbstractMap.SimpleImmutableEntry<>(chunk.entityId(i), column[i]));
+            }
+        }
+        return out;
+    }
+
+    /** Estimated bytes of the per-entity location arrays. */
+    long indexBytes() {
+        return Footprint.refArray(entityArchetype) + Footprint.intArray(entitySlot) + Footprint.intArray(entityOwner);
+    }
+
+    List<Archetype> archetypes() {
+        return Collections.unmodifiableList(archetypes);
+    }
+
+    // -------------------------------------------------------------------------
+    // Internals
+    // -------------------------------------------------------------------------
+
+    private int moveTo(int entityId, Archetype from, Archetype to) {
+        int slot = to.add(entityId);
+        if (from != null) {
+            int oldSlot = entitySlot[EntityId.index(entityId)];
+            int[] types = to.typeIndices();
+            for (int c = 0; c < types.length; c++) {
+                int src = from.columnOf(types[c]);
+                if (src >= 0) to.set(slot, c, from.get(oldSlot, src));
+            }
+            int moved = from.removeAt(oldSlot);
+            if (moved >= 0) entitySlot[EntityId.index(moved)] = oldSlot;
+        }
+        int index = EntityId.index(entityId);
+        ensureCapacity(index);
+        entityArchetype[index] = to;
+        entitySlot[index] = slot;
+        entityOwner[index] = entityId;
+        return slot;
+    }
+
+    private void detach(int entityId, Archetype from) {
+        int moved = from.removeAt(entitySlot[EntityId.index(entityId)]);
+        if (moved >= 0) entitySlot[EntityId.index(moved)] = entitySlot[EntityId.index(entityId)];
+        entityArchetype[EntityId.index(entityId)] = null;
+    }
+
+    private Archetype withType(Archetype from, int type) {
+        Archetype to = from.addEdge(type);
+        if (to == null) {
+            to = archetypeFor(from.mask().with(type));
+            from.setAddEdge(type, to);
+        }
+        return to;
+    }
+
+    private Archetype withoutType(Archetype from, int type) {
+        Archetype to = from.removeEdge(type);
+        if (to == null) {
+            ComponentMask mask = from.mask().without(type);
+            to = mask.isEmpty() ? root : archetypeFor(mask);
+            from.setRemoveEdge(type, to);
+        }
+        return to;
+    }
+
+    private Archetype archetypeFor(ComponentMask mask) {
+        return byMask.computeIfAbsent(mask, m -> {
+            Archetype a = new Archetype(m);
+            archetypes.add(a);
+            return a;
+        });
+    }
+
+    private void ensureCapacity(int index) {
+        if (index < entityArchetype.length) return;
+        int cap = Math.max(index + 1, entityArchetype.length * 2);
+        entityArchetype = Arrays.copyOf(entityArchetype, cap);
+        entitySlot = Arrays.copyOf(entitySlot, cap);
+        entityOwner = Arrays.copyOf(entityOwner, cap);
+    }
+}
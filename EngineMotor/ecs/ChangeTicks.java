@@ -0,0 +1,143 @@
+package ecs;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * "Added" and "changed" tick stamps for one component type, indexed by entity slot
+ * index, plus a log of the entities stamped since {@link #logFloor}.
+ *
+ * Stamping is lock-free: the first stamp of an entity in a tick appends to the log
+ * through an atomic cursor. If the log fills up it is flagged as overflowed and
+ * readers fall back to scanning the stamp array until the next tick, when the log
+ * grows. Arrays only grow under the component structure lock, which must not
+ * overlap system updates (same contract as the storages).
+ */
+final class ChangeTicks {
+
+    private int[] owners = new int[64];  // full id that owns the stamps at each index
+    private int[] added = new int[64];
+    private int[] changed = new int[64];
+
+    private int[] logIds = new int[256];
+    private int[] logTicks = new int[256];
+    private final AtomicInteger logSize = new AtomicInteger();
+    private volatile boolean overflowed;
+    private int logFloor;                 // log covers every stamp >= logFloor
+    private volatile int lastTick;        // latest add, change or removal of this type
+
+    // -------------------------------------------------------------------------
+    // Stamping
+    // -------------------------------------------------------------------------
+
+    /** Called under the structure lock when the component is added or replaced. */
+    void onAdded(int entityId, int tick) {
+        int index = EntityId.index(entityId);
+        if (index >= owners.length) {
+            int cap = Math.max(index + 1, owners.length * 2);
+            owners = Arrays.copyOf(owners, cap);
+            added = Arrays.copyOf(added, cap);
+            changed = Arrays.copyOf(changed, cap);
+        }
+        owners[index] = entityId;
+        added[index] = tick;
+        mark(entityId, tick);
+    }
+
+    /** Called under the structure lock when the component is removed. */
+    void onRemoved(int tick) {
+        lastTick = tick;
+    }
+
+    void mark(int entityId, int tick) {
+        int index = EntityId.index(entityId);
+        int[] ch = changed;
+        if (index >= ch.length || owners[index] != entityId || ch[index] == tick) return;
+        ch[index] = tick;
+        if (lastTick != tick) lastTick = tick;
+
+        int slot = logSize.getAndIncrement();
+        if (slot < logIds.length) {
+            logIds[slot] = entityId;
+            logTicks[slot] = tick;
+        } else {
+            overflowed = true;
+        }
+    }
+
+    /**
+     * Called when the world tick moves on, between stages. Resets the log once it is
+     * three quarters full, growing it if the last tick overflowed.
+     */
+    void advance(int newTick) {
+        if (overflowed) {
+            int cap = logIds.length * 2;
+            logIds = new int[cap];
+            logTicks = new int[cap];
+            overflowed = false;
+        } else if (logSize.get() <= logIds.length - (logIds.length >> 2)) {
+            return;
+        }
+        logSize.set(0);
+        logFloor = newTick;
+    }
+
+    void clear(int tick) {
+        Arrays.fill(owners, 0);
+        Arrays.fill(added, 0);
+        Arrays.fill(changed, 0);
+        logSize.set(0);
+        overflowed = false;
+        logFloor = tick;
+        lastTick = tick;
+    }
+
+    // -------------------------------------------------------------------------
+    // Reads
+    // -------------------------------------------------------------------------
+
+    boolean changedSince(int entityId, int since) {
+        int index = EntityId.index(entityId);
+        return index < changed.length && owners[index] == entityId && changed[index] > since;
+    }
+
+    boolean addedSince(int entityId, int since) {
+        int index = EntityId.index(entityId);
+        return index < added.length && owners[index] == entityId && added[index] > since;
+    }
+
+    int lastTick() {
+        return lastTick;
+    }
+
+    /**
+     * Calls {@code action} once for every entity stamped after {@code since}. Walks the
+     * log when it covers the range, otherwise scans the stamp array. The caller still
+     * has to check that the entity holds the component.
+     */
+    void forEachChangedSince(int since, IntConsumer action) {
+        if (!overflowed && since + 1 >= logFloor) {
+            int n = Math.min(logSize.get(), logIds.length);
+            for (int k = 0; k < n; k++) {
+                int tick = logTicks[k];
+                if (tick <= since) continue;
+                int id = logIds[k];
+                int index = EntityId.index(id);
+                // Later stamps of the same entity supersede this entry
+                if (owners[index] == id && changed[index] == tick) action.accept(id);
+            }
+            return;
+        }
+        int[] ch = changed;
+        for (int index = 0; index < ch.length; index++) {
+            if (ch[index] > since) action.accept(owners[index]);
+        }
+    }
+
+    /** Estimated bytes of the stamp arrays and the change log. */
+    long footprintBytes() {
+        return Footprint.intArray(owners) + Footprint.intArray(added) + Footprint.intArray(changed)
+                + Footprint.intArray(logIds) + Footprint.intArray(logTicks);
+    }
+}
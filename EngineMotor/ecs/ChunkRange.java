@@ -0,0 +1,9 @@
+package ecs;
+
+/** Rows {@code [start, end)} of a {@link ColumnView}; the unit {@link Query#chunks()} splits into. */
+public record ChunkRange(ColumnView chunk, int start, int end) {
+
+    public int size() {
+        return end - start;
+    }
+}
@@ -0,0 +1,22 @@
+package ecs;
+
+/**
+ * Block of entities with one component array per type, row {@code i} of every
+ * column belonging to {@code entityIds()[i]}. Handed out by {@link Query#chunks()}
+ * and {@link Query#forEachChunk}; only the rows of the given range are valid.
+ *
+ * The arrays are the storage itself ({@link ArchetypeChunk}) or a gathered copy of
+ * the component references (pooled storage), so components can be edited in place,
+ * but storing a new element into a column does not replace the entity's component.
+ */
+public interface ColumnView {
+
+    /** Entity id per row. */
+    int[] entityIds();
+
+    /**
+     * Component array of a type, aligned with {@link #entityIds()}.
+     * @throws IllegalArgumentException if the entities do not all have the type
+     */
+    <T extends Component> T[] column(Class<T> type);
+}
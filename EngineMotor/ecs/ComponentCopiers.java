@@ -0,0 +1,236 @@
+package ecs;
+
+import ecs.components.ParentComponent;
+import ecs.components.RigidbodyComponent;
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import math.Quat;
+import math.Vec3;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copy routines that {@link Prefab} uses to clone component prototypes.
+ *
+ * The plain-data components in {@code ecs.components} have hand-written copiers.
+ * Any other type gets one compiled on first use from its fields. It needs a no-arg
+ * constructor. Primitives, strings, enums and immutable values are shared, {@link Vec3}
+ * and {@link Quat} values are copied, primitive arrays are cloned, and transient fields
+ * keep their constructor defaults. Types with other mutable fields must
+ * {@link #register} a copier.
+ */
+public final class ComponentCopiers {
+
+    /** Fills {@code out[from, to)} with fresh, independent copies of {@code prototype}. */
+    @FunctionalInterface
+    public interface Copier<T extends Component> {
+        void copy(T prototype, T[] out, int from, int to);
+    }
+
+    private static final Map<Class<?>, Copier<?>> registered = new ConcurrentHashMap<>();
+
+    private static final ClassValue<Object> compiled = new ClassValue<>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            try {
+                return compile(type);
+            } catch (IllegalArgumentException e) {
+                return e; // remembered, rethrown on every lookup
+            }
+        }
+    };
+
+    private static final ClassValue<Boolean> immutable = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isImmutable(type, new HashSet<>());
+        }
+    };
+
+    static {
+        register(TransformComponent.class, (p, out, from, to) -> {
+            for (int i = from; i < to; i++) {
+                TransformComponent c = new TransformComponent();
+                c.position.set(p.position);
+                c.scale.set(p.scale);
+                c.rotation.set(p.rotation);
+                out[i] = c;
+            }
+        });
+        register(RigidbodyComponent.class, (p, out, from, to) -> {
+            for (int i = from; i < to; i++) {
+                RigidbodyComponent c = new RigidbodyComponent();
+                c.velocity.set(p.velocity);
+                c.acceleration.set(p.acceleration);
+                c.drag = p.drag;
+                c.useGravity = p.useGravity;
+                out[i] = c;
+            }
+        });
+        register(VelocityComponent.class, (p, out, from, to) -> {
+            for (int i = from; i < to; i++) {
+                VelocityComponent c = new VelocityComponent();
+                c.velocity.set(p.velocity);
+                out[i] = c;
+            }
+        });
+        register(ParentComponent.class, (p, out, from, to) -> {
+            for (int i = from; i < to; i++) out[i] = new ParentComponent(p.parent);
+        });
+    }
+
+    private ComponentCopiers() {}
+
+    /** Uses {@code copier} for {@code type} from now on; prefabs built earlier keep theirs. */
+    public static <T extends Component> void register(Class<T> type, Copier<T> copier) {
+        registered.put(type, copier);
+    }
+
+    /**
+     * Copier for {@code type}: the registered one, else one compiled from its fields.
+     *
+     * @throws IllegalArgumentException if the type cannot be copied field by field
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Component> Copier<T> get(Class<T> type) {
+        Copier<?> c = registered.get(type);
+        if (c != null) return (Copier<T>) c;
+        Object compiledCopier = compiled.get(type);
+        if (compiledCopier instanceof IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return (Copier<T>) compiledCopier;
+    }
+
+    /**
+     * True if instances can never change after construction: a record or a class whose
+     * fields, inherited ones included, are all final and of immutable types. Such
+     * components are shared by every prefab instance instead of copied.
+     */
+    public static boolean isImmutable(Class<?> type) {
+        return immutable.get(type);
+    }
+
+    // -------------------------------------------------------------------------
+    // Field-wise compilation
+    // -------------------------------------------------------------------------
+
+    /** Copies one field from the prototype into a fresh instance. */
+    @FunctionalInterface
+    private interface FieldCopy {
+        void copy(Object src, Object dst) throws Throwable;
+    }
+
+    private static Copier<?> compile(Class<?> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle ctor;
+        try {
+            Constructor<?> c = type.getDeclaredConstructor();
+            c.setAccessible(true);
+            ctor = lookup.unreflectConstructor(c);
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException(type.getName() + " has no usable no-arg constructor; register a copier");
+        }
+
+        List<FieldCopy> steps = new ArrayList<>();
+        for (Class<?> k = type; k != null && k != Object.class; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                int mod = f.getModifiers();
+                if (Modifier.isStatic(mod) || Modifier.isTransient(mod)) continue;
+                steps.add(fieldCopy(lookup, type, f));
+            }
+        }
+        FieldCopy[] plan = steps.toArray(new FieldCopy[0]);
+
+        return (Copier<Component>) (prototype, out, from, to) -> {
+            try {
+                for (int i = from; i < to; i++) {
+                    Object dst = ctor.invoke();
+                    for (FieldCopy step : plan) step.copy(prototype, dst);
+                    out[i] = (Component) dst;
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Copying " + type.getSimpleName() + " failed", t);
+            }
+        };
+    }
+
+    private static FieldCopy fieldCopy(MethodHandles.Lookup lookup, Class<?> owner, Field f) {
+        Class<?> ft = f.getType();
+        try {
+            f.setAccessible(true);
+            MethodHandle get = lookup.unreflectGetter(f);
+            if (Modifier.isFinal(f.getModifiers())) {
+                // The constructor already made the value; copy into it or keep it
+                if (ft == Vec3.class) return (src, dst) -> ((Vec3) get.invoke(dst)).set((Vec3) get.invoke(src));
+                if (ft == Quat.class) return (src, dst) -> ((Quat) get.invoke(dst)).set((Quat) get.invoke(src));
+                if (ft.isPrimitive() || isImmutable(ft)) {
+                    MethodHandle set = lookup.unreflectSetter(f);
+                    return (src, dst) -> set.invoke(dst, get.invoke(src));
+                }
+            } else {
+                MethodHandle set = lookup.unreflectSetter(f);
+                if (ft.isPrimitive() || isImmutable(ft)) return (src, dst) -> set.invoke(dst, get.invoke(src));
+                if (ft == Vec3.class) return (src, dst) -> {
+                    Vec3 v = (Vec3) get.invoke(src);
+                    set.invoke(dst, v == null ? null : new Vec3().set(v));
+                };
+                if (ft == Quat.class) return (src, dst) -> {
+                    Quat q = (Quat) get.invoke(src);
+                    set.invoke(dst, q == null ? null : new Quat().set(q));
+                };
+                if (ft.isArray() && ft.getComponentType().isPrimitive()) return (src, dst) -> {
+                    Object a = get.invoke(src);
+                    set.invoke(dst, a == null ? null : cloneArray(a));
+                };
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot access " + owner.getSimpleName() + "." + f.getName() + "; register a copier");
+        }
+        throw new IllegalArgumentException(owner.getSimpleName() + "." + f.getName() + " is a mutable "
+                + ft.getSimpleName() + "; register a copier or mark it transient");
+    }
+
+    private static Object cloneArray(Object a) {
+        return switch (a) {
+            case float[] f -> f.clone();
+            case int[] i -> i.clone();
+            case double[] d -> d.clone();
+            case long[] l -> l.clone();
+            case byte[] b -> b.clone();
+            case short[] s -> s.clone();
+            case char[] c -> c.clone();
+            case boolean[] z -> z.clone();
+            default -> throw new IllegalArgumentException("Not a primitive array: " + a.getClass());
+        };
+    }
+
+    private static boolean isImmutable(Class<?> type, Set<Class<?>> visiting) {
+        if (type.isPrimitive() || type.isEnum() || type == String.class || type == Integer.class
+                || type == Long.class || type == Float.class || type == Double.class || type == Boolean.class
+                || type == Short.class || type == Byte.class || type == Character.class) {
+            return true;
+        }
+        if (type.isArray() || type.isInterface() || !visiting.add(type)) return false;
+        if (!type.isRecord() && !Modifier.isFinal(type.getModifiers())) return false; // a subclass could add state
+        for (Class<?> k = type; k != null && k != Object.class; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers())) continue;
+                if (!Modifier.isFinal(f.getModifiers()) || !isImmutable(f.getType(), visiting)) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,22 +3,126 @@ package ecs;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
 
 /**
  * Manages all component pools by type and provides access to entity-component data.
+ * Storage is either one pool per type ({@link StorageMode#POOLED}, the default) or
+ * archetype chunks ({@link StorageMode#ARCHETYPE}); the public API is the same for both.
  * @author EmeJay
  */
 public class ComponentManager {
-    
+
     /** Maps each component type to its dedicated pool */
     private final Map<Class<? extends Component>, ComponentPool<? extends Component>> pools = new ConcurrentHashMap<>();
 
+    /** Archetype chunks, only used in ARCHETYPE mode */
+    private final ArchetypeStorage archetypes;
+    private final StorageMode mode;
+
+    /** Pool layout for types that were not configured through {@link #usePool} */
+    private volatile PoolType defaultPoolType = PoolType.HASH;
+
+    /** Serializes structural changes so signatures and queries stay consistent */
+    private final Object structureLock = new Object();
+
+    /** Component signature per entity slot index, with the full id that owns it */
+    private ComponentMask[] signatures = new ComponentMask[1024];
+    private int[] signatureOwners = new int[1024];
+
+    /** Registered queries, and for each type index the queries that mention it */
+    private final Map<QueryKey, Query> queries = new HashMap<>();
+    private List<Query>[] queriesByType = newQueryTable(16);
+
+    private record QueryKey(ComponentMask all, ComponentMask none) {}
+
+    /** World tick for change detection; starts at 1 so 0 means "never ran" */
+    private volatile int tick = 1;
+
+    /** Added/changed stamps per type index (created on first add) */
+    private ChangeTicks[] changeTicks = new ChangeTicks[16];
+
+    /** Bitset per {@link Tag} type index, null for other types */
+    private TagSet[] tagSets = new TagSet[16];
+
+    public ComponentManager() {
+        this(StorageMode.POOLED);
+    }
+
+    public ComponentManager(StorageMode mode) {
+        this.mode = Objects.requireNonNull(mode, "mode");
+        this.archetypes = mode == StorageMode.ARCHETYPE ? new ArchetypeStorage() : null;
+    }
+
     /**
      * Retrieve an existing pool for the given component type, or create it if missing.
      */
     @SuppressWarnings("unchecked")
     private <T extends Component> ComponentPool<T> getOrCreatePool(Class<T> type) {
-        return (ComponentPool<T>) pools.computeIfAbsent(type, k -> new ComponentPool<>());
+        return (ComponentPool<T>) pools.computeIfAbsent(type, k -> newPool(type, defaultPoolType));
+    }
+
+    private static <T extends Component> ComponentPool<T> newPool(Class<T> type, PoolType kind) {
+        return switch (kind) {
+            case HASH -> new MapComponentPool<>();
+            case SPARSE_SET -> new SparseSetPool<>(type);
+        };
+    }
+
+    // -------------------------------------------------------------------------
+    // Pool configuration
+    // -------------------------------------------------------------------------
+
+    /**
+     * Selects the pool layout for one component class. Existing components of that
+     * type are carried over, so this can be called at any point outside system updates.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component> void usePool(Class<T> type, PoolType kind) {
+        requirePooled("usePool");
+        synchronized (structureLock) {
+            ComponentPool<T> current = (ComponentPool<T>) pools.get(type);
+            if (current != null && current.type() == kind) return;
+
+            ComponentPool<T> next = newPool(type, kind);
+            if (current != null) {
+                for (Entry<Integer, T> e : current.entries()) {
+                    next.add(e.getKey(), e.getValue());
+                }
+            }
+            pools.put(type, next);
+        }
+    }
+
+    /** Pool layout used for component classes without an explicit {@link #usePool} call. */
+    public void setDefaultPoolType(PoolType kind) {
+        this.defaultPoolType = Objects.requireNonNull(kind, "kind");
+    }
+
+    /** The pool currently holding a component type, or null if none was created yet. */
+    @SuppressWarnings("unchecked")
+    public <T extends Component> ComponentPool<T> getPool(Class<T> type) {
+        return (ComponentPool<T>) pools.get(type);
+    }
+
+    /**
+     * Sparse-set pool for a type, or null if the type is not stored in one. Systems use it
+     * to loop over {@link SparseSetPool#denseComponents()} directly; select the layout
+     * beforehand with {@link #usePool}.
+     */
+    public <T extends Component> SparseSetPool<T> getSparsePool(Class<T> type) {
+        return getPool(type) instanceof SparseSetPool<T> sparse ? sparse : null;
+    }
+
+    /** Lock serializing structural changes; held by batched command flushes. */
+    Object structureLock() {
+        return structureLock;
+    }
+
+    private void requirePooled(String op) {
+        if (archetypes != null) {
+            throw new IllegalStateException(op + " requires StorageMode.POOLED");
+        }
     }
 
     /**
@@ -26,47 +130,252 @@ public class ComponentManager {
      */
     @SuppressWarnings("unchecked")
 	public <T extends Component> void addComponent(int entityId, T component) {
-        getOrCreatePool((Class<T>) component.getClass()).add(entityId, component);
+        if (component instanceof Tag) {
+            addTag(entityId, (Class<? extends Tag>) component.getClass());
+            return;
+        }
+        int type = ComponentTypes.indexOf(component.getClass());
+        synchronized (structureLock) {
+            if (archetypes != null) {
+                archetypes.add(entityId, component);
+            } else {
+                getOrCreatePool((Class<T>) component.getClass()).add(entityId, component);
+            }
+            ComponentMask before = getSignature(entityId);
+            updateSignature(entityId, before, before.with(type), type);
+            ticksFor(type).onAdded(entityId, tick);
+        }
+    }
+
+    /**
+     * Adds {@code components[i]} to {@code ids[i]} for the first {@code count} entries,
+     * taking the structure lock once and growing the signature table once.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component> void addComponents(int[] ids, T[] components, int count) {
+        if (count <= 0) return;
+        synchronized (structureLock) {
+            int maxIndex = 0;
+            for (int i = 0; i < count; i++) maxIndex = Math.max(maxIndex, EntityId.index(ids[i]));
+            if (maxIndex >= signatures.length) {
+                int cap = Math.max(maxIndex + 1, signatures.length * 2);
+                signatures = Arrays.copyOf(signatures, cap);
+                signatureOwners = Arrays.copyOf(signatureOwners, cap);
+            }
+            Class<?> lastClass = null;
+            int type = -1;
+            ComponentPool<T> pool = null;
+            for (int i = 0; i < count; i++) {
+                T component = components[i];
+                if (component.getClass() != lastClass) {
+                    lastClass = component.getClass();
+                    type = ComponentTypes.indexOf(component.getClass());
+                    pool = archetypes != null || component instanceof Tag ? null
+                            : getOrCreatePool((Class<T>) component.getClass());
+                }
+                int id = ids[i];
+                if (component instanceof Tag) {
+                    setTagLocked(id, type);
+                    continue;
+                }
+                if (archetypes != null) archetypes.add(id, component);
+                else pool.add(id, component);
+                ComponentMask before = getSignature(id);
+                updateSignature(id, before, before.with(type), type);
+                ticksFor(type).onAdded(id, tick);
+            }
+        }
+    }
+
+    /**
+     * Gives the first {@code count} ids the whole component set {@code signature} in one
+     * structural step, {@code columns[c][i]} being the component of type
+     * {@code signature.toIndices()[c]} for {@code ids[i]}. Meant for fresh entities
+     * (prefab spawns): in ARCHETYPE mode they land directly in their final archetype with
+     * one array copy per column and chunk instead of one move per component.
+     */
+    @SuppressWarnings("unchecked")
+    public void spawn(int[] ids, int count, ComponentMask signature, Component[][] columns) {
+        if (count <= 0) return;
+        int[] types = signature.toIndices();
+        if (types.length == 0) return;
+        synchronized (structureLock) {
+            int maxIndex = 0;
+            for (int i = 0; i < count; i++) maxIndex = Math.max(maxIndex, EntityId.index(ids[i]));
+            if (maxIndex >= signatures.length) {
+                int cap = Math.max(maxIndex + 1, signatures.length * 2);
+                signatures = Arrays.copyOf(signatures, cap);
+                signatureOwners = Arrays.copyOf(signatureOwners, cap);
+            }
+
+            if (archetypes != null) {
+                archetypes.addNew(ids, count, signature, columns);
+            } else {
+                for (int c = 0; c < types.length; c++) {
+                    ComponentPool<Component> pool = (ComponentPool<Component>) getOrCreatePool(
+                            (Class<? extends Component>) ComponentTypes.typeOf(types[c]));
+                    Component[] column = columns[c];
+                    for (int i = 0; i < count; i++) pool.add(ids[i], column[i]);
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                int id = ids[i];
+                ComponentMask before = getSignature(id);
+                ComponentMask after = before;
+                for (int type : types) after = after.with(type);
+                updateSignature(id, before, after, types[0]);
+                for (int t = 1; t < types.length; t++) notifyQueries(id, before, after, types[t]);
+            }
+            for (int type : types) {
+                ChangeTicks ticks = ticksFor(type);
+                for (int i = 0; i < count; i++) ticks.onAdded(ids[i], tick);
+            }
+        }
     }
 
     /**
      * Removes a component from the entity.
      */
     public <T extends Component> void removeComponent(int entityId, Class<T> type) {
-        ComponentPool<T> pool = getOrCreatePool(type);
-        pool.remove(entityId);
+        int typeIndex = ComponentTypes.indexOf(type);
+        synchronized (structureLock) {
+            ComponentMask before = getSignature(entityId);
+            if (!before.has(typeIndex)) return;
+            if (tagSetOrNull(typeIndex) != null) {
+                tagSets[typeIndex].clear(EntityId.index(entityId));
+            } else if (archetypes != null) {
+                archetypes.remove(entityId, typeIndex);
+            } else {
+                getPool(type).remove(entityId);
+            }
+            updateSignature(entityId, before, before.without(typeIndex), typeIndex);
+            changeTicks[typeIndex].onRemoved(tick);
+        }
     }
 
     /**
      * Retrieves a specific component from an entity.
      */
     public <T extends Component> T getComponent(int entityId, Class<T> type) {
-        ComponentPool<T> pool = getOrCreatePool(type);
-        return pool.get(entityId);
+        if (archetypes != null) return archetypes.get(entityId, type);
+        ComponentPool<T> pool = getPool(type);
+        return pool != null ? pool.get(entityId) : null;
     }
 
     /**
      * Checks if an entity has a component of the given type.
+     * Reads the entity signature only; never creates a pool.
      */
     public <T extends Component> boolean hasComponent(int entityId, Class<T> type) {
-        ComponentPool<T> pool = getOrCreatePool(type);
-        return pool.has(entityId);
+        return getSignature(entityId).has(ComponentTypes.indexOf(type));
+    }
+
+    /** Component signature of an entity ({@link ComponentMask#EMPTY} if it has none). */
+    public ComponentMask getSignature(int entityId) {
+        if (entityId < 0) return ComponentMask.EMPTY;
+        int index = EntityId.index(entityId);
+        ComponentMask[] sigs = signatures;
+        int[] owners = signatureOwners;
+        if (index >= sigs.length || index >= owners.length || owners[index] != entityId) {
+            return ComponentMask.EMPTY;
+        }
+        ComponentMask m = sigs[index];
+        return m != null ? m : ComponentMask.EMPTY;
     }
 
     /**
      * Returns all entity-component pairs for a specific component type.
+     * In ARCHETYPE mode this builds a list; prefer {@link #chunksWith} there.
      */
     public <T extends Component> Collection<Entry<Integer, T>> entriesForType(Class<T> type) {
-        ComponentPool<T> pool = getOrCreatePool(type);
+        if (archetypes != null) return archetypes.entries(type);
+        ComponentPool<T> pool = getPool(type);
         return pool != null ? pool.entries() : Collections.emptyList();
     }
-    
+
+    /**
+     * Returns the chunks of every archetype containing all the given types.
+     * Iterating them is a linear scan over parallel arrays with no per-entity lookup.
+     * @throws IllegalStateException if this manager is not in ARCHETYPE mode
+     */
+    @SafeVarargs
+    public final List<ArchetypeChunk> chunksWith(Class<? extends Component>... types) {
+        if (archetypes == null) {
+            throw new IllegalStateException("chunksWith requires StorageMode.ARCHETYPE");
+        }
+        return archetypes.chunksWith(ComponentMask.of(types));
+    }
+
+    /**
+     * Splits the matches of {@code q} into ranges of at most {@link ArchetypeChunk#CAPACITY}
+     * rows: the matching archetype chunks themselves in ARCHETYPE mode, gathered blocks
+     * of the query's entity list in POOLED mode or when the query mentions a {@link Tag}
+     * (archetypes do not store tags).
+     */
+    List<ChunkRange> chunkRanges(Query q) {
+        List<ChunkRange> out = new ArrayList<>();
+        if (archetypes != null && !mentionsTags(q)) {
+            for (Archetype a : archetypes.archetypes()) {
+                if (a.size() == 0 || !q.matches(a.mask())) continue;
+                for (ArchetypeChunk chunk : a.chunks()) {
+                    if (chunk.size() > 0) out.add(new ChunkRange(chunk, 0, chunk.size()));
+                }
+            }
+            return out;
+        }
+        int[] ids = q.entities();
+        for (int from = 0, n = q.size(); from < n; from += ArchetypeChunk.CAPACITY) {
+            int to = Math.min(n, from + ArchetypeChunk.CAPACITY);
+            out.add(new ChunkRange(new GatheredChunk(this, Arrays.copyOfRange(ids, from, to)), 0, to - from));
+        }
+        return out;
+    }
+
+    private boolean mentionsTags(Query q) {
+        for (int type : q.all().toIndices()) if (tagSetOrNull(type) != null) return true;
+        for (int type : q.none().toIndices()) if (tagSetOrNull(type) != null) return true;
+        return false;
+    }
+
+    /** All archetypes created so far (empty in POOLED mode). */
+    public List<Archetype> getArchetypes() {
+        return archetypes != null ? archetypes.archetypes() : Collections.emptyList();
+    }
+
+    public StorageMode getStorageMode() {
+        return mode;
+    }
+
     /**
      * Removes all components belonging to a specific entity across all pools.
      */
     public void removeAllComponents(int entityId) {
-        for (ComponentPool<? extends Component> pool : pools.values()) {
-            pool.remove(entityId);
+        synchronized (structureLock) {
+            removeAllLocked(entityId);
+        }
+    }
+
+    /** {@link #removeAllComponents(int)} for the first {@code count} ids under one lock. */
+    public void removeAllComponents(int[] ids, int count) {
+        synchronized (structureLock) {
+            for (int i = 0; i < count; i++) removeAllLocked(ids[i]);
+        }
+    }
+
+    private void removeAllLocked(int entityId) {
+        ComponentMask before = getSignature(entityId);
+        if (before.isEmpty()) return;
+        if (archetypes != null) archetypes.removeAll(entityId);
+        for (int type : before.toIndices()) {
+            TagSet tags = tagSetOrNull(type);
+            if (tags != null) tags.clear(EntityId.index(entityId));
+            else if (archetypes == null) pools.get(ComponentTypes.typeOf(type)).remove(entityId);
+        }
+        signatures[EntityId.index(entityId)] = null;
+        for (int type : before.toIndices()) {
+            notifyQueries(entityId, before, ComponentMask.EMPTY, type);
+            changeTicks[type].onRemoved(tick);
         }
     }
 
@@ -75,6 +384,391 @@ public class ComponentManager {
      * Clears all pools (used when resetting the ECS).
      */
     public void clear() {
-        pools.clear();
+        synchronized (structureLock) {
+            pools.clear();
+            if (archetypes != null) archetypes.clear();
+            Arrays.fill(signatures, null);
+            for (Query q : queries.values()) q.clear();
+            for (TagSet t : tagSets) {
+                if (t != null) t.clearAll();
+            }
+            for (ChangeTicks t : changeTicks) {
+                if (t != null) t.clear(tick);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Memory introspection
+    // -------------------------------------------------------------------------
+
+    /** Adds per-type, per-archetype and bookkeeping estimates to {@code report}. */
+    @SuppressWarnings("unchecked")
+    void reportMemory(MemoryReport report) {
+        synchronized (structureLock) {
+            int[] counts = new int[ComponentTypes.count()];
+            long signatureBytes = Footprint.refArray(signatures) + Footprint.intArray(signatureOwners);
+            for (ComponentMask sig : signatures) {
+                if (sig == null) continue;
+                signatureBytes += Footprint.shallow(ComponentMask.class) + Footprint.array(long.class, sig.wordCount());
+                for (int type : sig.toIndices()) if (type < counts.length) counts[type]++;
+            }
+
+            for (int type = 0; type < counts.length; type++) {
+                TagSet tags = tagSetOrNull(type);
+                if (tags != null) {
+                    if (tags.size() > 0) report.addType(new MemoryReport.TypeStats(ComponentTypes.typeOf(type).getName(),
+                            "TAG", tags.size(), 0, tags.footprintBytes(), 0));
+                } else if (archetypes == null) {
+                    reportPool(report, (Class<? extends Component>) ComponentTypes.typeOf(type));
+                } else if (counts[type] > 0) {
+                    reportColumn(report, type, counts[type]);
+                }
+            }
+
+            if (archetypes != null) {
+                for (Archetype a : archetypes.archetypes()) {
+                    int chunks = a.chunks().size();
+                    if (chunks == 0) continue;
+                    long perChunk = Footprint.shallow(ArchetypeChunk.class) + Footprint.array(int.class, ArchetypeChunk.CAPACITY)
+                            + Footprint.array(Object.class, a.typeIndices().length);
+                    report.addArchetype(new MemoryReport.ArchetypeStats(a.mask().toString(), a.size(), chunks,
+                            Footprint.shallow(Archetype.class) + chunks * perChunk,
+                            1.0 - a.size() / (double) (chunks * ArchetypeChunk.CAPACITY)));
+                }
+                signatureBytes += archetypes.indexBytes();
+            }
+
+            long tickBytes = 0;
+            for (ChangeTicks t : changeTicks) if (t != null) tickBytes += t.footprintBytes();
+            long queryBytes = 0;
+            for (Query q : queries.values()) queryBytes += q.footprintBytes();
+            report.setOverhead(signatureBytes, tickBytes, queryBytes, queries.size());
+        }
+    }
+
+    private <T extends Component> void reportPool(MemoryReport report, Class<T> type) {
+        ComponentPool<T> pool = getPool(type);
+        if (pool == null || pool.size() == 0) return;
+        int count = pool.size();
+        long storage;
+        double fragmentation;
+        if (pool instanceof SparseSetPool<T> sparse) {
+            storage = sparse.footprintBytes();
+            fragmentation = 1.0 - count / (double) sparse.capacity();
+        } else {
+            int buckets = Footprint.hashCapacity(count);
+            storage = (long) count * Footprint.HASH_ENTRY + Footprint.array(Object.class, buckets);
+            fragmentation = 1.0 - count / (double) buckets;
+        }
+        List<T> samples = new ArrayList<>(MemoryReport.SAMPLES);
+        for (T c : pool.values()) {
+            samples.add(c);
+            if (samples.size() == MemoryReport.SAMPLES) break;
+        }
+        report.addType(new MemoryReport.TypeStats(type.getName(), pool.type().name(), count,
+                estimateInstances(samples, count), storage, fragmentation));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void reportColumn(MemoryReport report, int type, int count) {
+        Class<? extends Component> cls = (Class<? extends Component>) ComponentTypes.typeOf(type);
+        int chunks = 0;
+        List<Component> samples = new ArrayList<>(MemoryReport.SAMPLES);
+        for (Archetype a : archetypes.archetypes()) {
+            if (!a.has(type)) continue;
+            chunks += a.chunks().size();
+            for (ArchetypeChunk chunk : a.chunks()) {
+                Component[] column = chunk.column(cls);
+                for (int i = 0; i < chunk.size() && samples.size() < MemoryReport.SAMPLES; i++) samples.add(column[i]);
+            }
+        }
+        long storage = chunks * Footprint.array(Object.class, ArchetypeChunk.CAPACITY);
+        report.addType(new MemoryReport.TypeStats(cls.getName(), "ARCHETYPE", count, estimateInstances(samples, count),
+                storage, chunks == 0 ? 0 : 1.0 - count / (double) (chunks * ArchetypeChunk.CAPACITY)));
+    }
+
+    /** Average deep size of the samples times {@code count}; shared instances are counted once. */
+    private static long estimateInstances(List<? extends Component> samples, int count) {
+        if (samples.isEmpty()) return 0;
+        Component first = samples.get(0);
+        boolean shared = true;
+        long sum = 0;
+        for (Component c : samples) {
+            sum += Footprint.deep(c);
+            shared &= c == first;
+        }
+        return shared && samples.size() > 1 ? Footprint.deep(first) : sum * count / samples.size();
+    }
+
+    // -------------------------------------------------------------------------
+    // Tags
+    // -------------------------------------------------------------------------
+
+    /** Sets a {@link Tag} on an entity: one signature bit, no stored object. */
+    public void addTag(int entityId, Class<? extends Tag> tag) {
+        int type = ComponentTypes.indexOf(tag);
+        synchronized (structureLock) {
+            setTagLocked(entityId, type);
+        }
+    }
+
+    /** Sets {@code tag} on the first {@code count} ids under one lock, e.g. when loading a snapshot. */
+    public void addTags(int[] ids, int count, Class<? extends Tag> tag) {
+        int type = ComponentTypes.indexOf(tag);
+        synchronized (structureLock) {
+            for (int i = 0; i < count; i++) setTagLocked(ids[i], type);
+        }
+    }
+
+    private void setTagLocked(int entityId, int type) {
+        ComponentMask before = getSignature(entityId);
+        if (before.has(type)) return;
+        tagSetFor(type).set(EntityId.index(entityId));
+        updateSignature(entityId, before, before.with(type), type);
+        ticksFor(type).onAdded(entityId, tick);
+    }
+
+    /** Clears a {@link Tag}; same as {@link #removeComponent}. */
+    public void removeTag(int entityId, Class<? extends Tag> tag) {
+        removeComponent(entityId, tag);
+    }
+
+    /** O(1) bit test; false for stale ids. */
+    public boolean hasTag(int entityId, Class<? extends Tag> tag) {
+        TagSet t = tagSetOrNull(ComponentTypes.indexOf(tag));
+        if (t == null || entityId < 0) return false;
+        int index = EntityId.index(entityId);
+        int[] owners = signatureOwners;
+        return t.get(index) && index < owners.length && owners[index] == entityId;
+    }
+
+    /** Tag types that have been set at least once (their bitset may be empty now). */
+    @SuppressWarnings("unchecked")
+    public List<Class<? extends Tag>> tagTypes() {
+        List<Class<? extends Tag>> out = new ArrayList<>();
+        TagSet[] t = tagSets;
+        for (int type = 0; type < t.length; type++) {
+            if (t[type] != null) out.add((Class<? extends Tag>) ComponentTypes.typeOf(type));
+        }
+        return out;
+    }
+
+    /** Bitset of a tag, or null if it was never set. */
+    public TagSet tagSet(Class<? extends Tag> tag) {
+        return tagSetOrNull(ComponentTypes.indexOf(tag));
+    }
+
+    /**
+     * Calls {@code action} with the id of every entity carrying all {@code tags}, ANDing
+     * their bitsets 64 entities at a time. Must not overlap structural changes.
+     *
+     * @return number of entities visited
+     */
+    @SafeVarargs
+    public final int forEachTagged(IntConsumer action, Class<? extends Tag>... tags) {
+        if (tags.length == 0) return 0;
+        long[][] sets = new long[tags.length][];
+        int words = Integer.MAX_VALUE;
+        for (int t = 0; t < tags.length; t++) {
+            TagSet set = tagSetOrNull(ComponentTypes.indexOf(tags[t]));
+            if (set == null || set.size() == 0) return 0;
+            sets[t] = set.words();
+            words = Math.min(words, sets[t].length);
+        }
+        int[] owners = signatureOwners;
+        int visited = 0;
+        for (int w = 0; w < words; w++) {
+            long bits = sets[0][w];
+            for (int t = 1; t < sets.length && bits != 0; t++) bits &= sets[t][w];
+            while (bits != 0) {
+                action.accept(owners[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private TagSet tagSetOrNull(int typeIndex) {
+        TagSet[] t = tagSets;
+        return typeIndex < t.length ? t[typeIndex] : null;
+    }
+
+    private TagSet tagSetFor(int typeIndex) {
+        if (typeIndex >= tagSets.length) {
+            tagSets = Arrays.copyOf(tagSets, Math.max(typeIndex + 1, tagSets.length * 2));
+        }
+        TagSet t = tagSets[typeIndex];
+        if (t == null) {
+            t = new TagSet();
+            tagSets[typeIndex] = t;
+        }
+        return t;
+    }
+
+    // -------------------------------------------------------------------------
+    // Change detection
+    // -------------------------------------------------------------------------
+
+    /** Current world tick; components added or marked changed now get this stamp. */
+    public int currentTick() {
+        return tick;
+    }
+
+    /**
+     * Moves to the next tick. The scheduler calls this before every stage and before
+     * flushing deferred commands; it must not overlap system updates.
+     */
+    public int advanceTick() {
+        synchronized (structureLock) {
+            int next = tick + 1;
+            for (ChangeTicks t : changeTicks) {
+                if (t != null) t.advance(next);
+            }
+            tick = next;
+            return next;
+        }
+    }
+
+    /** Returns the component and stamps it as changed in the current tick. */
+    public <T extends Component> T getMut(int entityId, Class<T> type) {
+        T c = getComponent(entityId, type);
+        if (c != null) markChanged(entityId, ComponentTypes.indexOf(type));
+        return c;
+    }
+
+    /** Stamps the entity's component as changed in the current tick. */
+    public void markChanged(int entityId, Class<? extends Component> type) {
+        markChanged(entityId, ComponentTypes.indexOf(type));
+    }
+
+    /** Same as {@link #markChanged(int, Class)} with a resolved type index, for hot loops. */
+    public void markChanged(int entityId, int typeIndex) {
+        ChangeTicks[] t = changeTicks;
+        if (typeIndex < t.length && t[typeIndex] != null) t[typeIndex].mark(entityId, tick);
+    }
+
+    /** True if the component was added or changed after {@code sinceTick}. */
+    public boolean isChanged(int entityId, Class<? extends Component> type, int sinceTick) {
+        ChangeTicks t = ticksOrNull(ComponentTypes.indexOf(type));
+        return t != null && t.changedSince(entityId, sinceTick) && hasComponent(entityId, type);
+    }
+
+    /** True if the component was added after {@code sinceTick}. */
+    public boolean isAdded(int entityId, Class<? extends Component> type, int sinceTick) {
+        ChangeTicks t = ticksOrNull(ComponentTypes.indexOf(type));
+        return t != null && t.addedSince(entityId, sinceTick) && hasComponent(entityId, type);
+    }
+
+    /** Latest tick in which a component of this type was added, changed or removed (0 if never). */
+    public int lastChangedTick(Class<? extends Component> type) {
+        ChangeTicks t = ticksOrNull(ComponentTypes.indexOf(type));
+        return t != null ? t.lastTick() : 0;
+    }
+
+    /**
+     * Calls {@code action} for every entity whose component was added or changed after
+     * {@code sinceTick}. Cost follows the number of changes, not the number of entities.
+     *
+     * @return number of entities visited
+     */
+    public int forEachChanged(Class<? extends Component> type, int sinceTick, IntConsumer action) {
+        return forEachChanged(type, sinceTick, null, action);
+    }
+
+    int forEachChanged(Class<? extends Component> type, int sinceTick, Query filter, IntConsumer action) {
+        int typeIndex = ComponentTypes.indexOf(type);
+        ChangeTicks t = ticksOrNull(typeIndex);
+        if (t == null || t.lastTick() <= sinceTick) return 0;
+        int[] visited = {0};
+        t.forEachChangedSince(sinceTick, id -> {
+            if (filter != null ? !filter.contains(id) : !getSignature(id).has(typeIndex)) return;
+            action.accept(id);
+            visited[0]++;
+        });
+        return visited[0];
+    }
+
+    private ChangeTicks ticksOrNull(int typeIndex) {
+        ChangeTicks[] t = changeTicks;
+        return typeIndex < t.length ? t[typeIndex] : null;
+    }
+
+    private ChangeTicks ticksFor(int typeIndex) {
+        if (typeIndex >= changeTicks.length) {
+            changeTicks = Arrays.copyOf(changeTicks, Math.max(typeIndex + 1, changeTicks.length * 2));
+        }
+        ChangeTicks t = changeTicks[typeIndex];
+        if (t == null) t = changeTicks[typeIndex] = new ChangeTicks();
+        return t;
+    }
+
+    // -------------------------------------------------------------------------
+    // Queries
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the registered query for the given masks, creating and populating it on first use.
+     * The same instance is returned for equal masks and is kept up to date from then on.
+     */
+    public Query query(ComponentMask all, ComponentMask none) {
+        synchronized (structureLock) {
+            QueryKey key = new QueryKey(all, none);
+            Query q = queries.get(key);
+            if (q != null) return q;
+
+            q = new Query(this, all, none);
+            for (int index = 0; index < signatures.length; index++) {
+                ComponentMask sig = signatures[index];
+                if (sig != null && q.matches(sig)) q.insert(signatureOwners[index]);
+            }
+            for (int type : all.toIndices()) indexQuery(type, q);
+            for (int type : none.toIndices()) indexQuery(type, q);
+            queries.put(key, q);
+            return q;
+        }
+    }
+
+    /** Query matching entities that have all the given component types. */
+    @SafeVarargs
+    public final Query query(Class<? extends Component>... all) {
+        return query(ComponentMask.of(all), ComponentMask.EMPTY);
+    }
+
+    private void updateSignature(int entityId, ComponentMask before, ComponentMask after, int changedType) {
+        if (before.equals(after)) return;
+        if (entityId < 0) throw new IllegalArgumentException("Negative entity id: " + entityId);
+        int index = EntityId.index(entityId);
+        if (index >= signatures.length) {
+            int cap = Math.max(index + 1, signatures.length * 2);
+            signatures = Arrays.copyOf(signatures, cap);
+            signatureOwners = Arrays.copyOf(signatureOwners, cap);
+        }
+        signatureOwners[index] = entityId;
+        signatures[index] = after;
+        notifyQueries(entityId, before, after, changedType);
+    }
+
+    private void notifyQueries(int entityId, ComponentMask before, ComponentMask after, int changedType) {
+        if (changedType >= queriesByType.length) return;
+        List<Query> interested = queriesByType[changedType];
+        if (interested == null) return;
+        for (int i = 0, n = interested.size(); i < n; i++) {
+            interested.get(i).onSignatureChanged(entityId, before, after);
+        }
+    }
+
+    private void indexQuery(int type, Query q) {
+        if (type >= queriesByType.length) {
+            queriesByType = Arrays.copyOf(queriesByType, Math.max(type + 1, queriesByType.length * 2));
+        }
+        if (queriesByType[type] == null) queriesByType[type] = new ArrayList<>();
+        queriesByType[type].add(q);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Query>[] newQueryTable(int size) {
+        return (List<Query>[]) new List<?>[size];
     }
 }
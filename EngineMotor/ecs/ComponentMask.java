@@ -0,0 +1,128 @@
+package ecs;
+
+import java.util.Arrays;
+
+/**
+ * Immutable bitset of component type indices (see {@link ComponentTypes}).
+ * Used as the identity of an archetype and as the filter of a chunk scan.
+ */
+public final class ComponentMask {
+
+    public static final ComponentMask EMPTY = new ComponentMask(new long[0]);
+
+    private final long[] words;
+
+    private ComponentMask(long[] words) {
+        this.words = words;
+    }
+
+    /** Builds a mask from component classes. */
+    @SafeVarargs
+    public static ComponentMask of(Class<? extends Component>... types) {
+        ComponentMask mask = EMPTY;
+        for (Class<? extends Component> t : types) {
+            mask = mask.with(ComponentTypes.indexOf(t));
+        }
+        return mask;
+    }
+
+    /** True if the given type index is set. */
+    public boolean has(int typeIndex) {
+        int w = typeIndex >>> 6;
+        return w < words.length && (words[w] & (1L << typeIndex)) != 0;
+    }
+
+    /** Returns a copy with the given type index set. */
+    public ComponentMask with(int typeIndex) {
+        if (has(typeIndex)) return this;
+        int w = typeIndex >>> 6;
+        long[] copy = Arrays.copyOf(words, Math.max(words.length, w + 1));
+        copy[w] |= 1L << typeIndex;
+        return new ComponentMask(copy);
+    }
+
+    /** Returns a copy with the given type index cleared. */
+    public ComponentMask without(int typeIndex) {
+        if (!has(typeIndex)) return this;
+        long[] copy = words.clone();
+        copy[typeIndex >>> 6] &= ~(1L << typeIndex);
+        return new ComponentMask(trim(copy));
+    }
+
+    /** True if every bit of {@code other} is also set here. */
+    public boolean containsAll(ComponentMask other) {
+        long[] o = other.words;
+        for (int i = 0; i < o.length; i++) {
+            long mine = i < words.length ? words[i] : 0L;
+            if ((mine & o[i]) != o[i]) return false;
+        }
+        return true;
+    }
+
+    /** True if at least one bit is set in both masks. */
+    public boolean intersects(ComponentMask other) {
+        long[] o = other.words;
+        int n = Math.min(words.length, o.length);
+        for (int i = 0; i < n; i++) {
+            if ((words[i] & o[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    /** Length of the backing word array, for footprint estimates. */
+    int wordCount() {
+        return words.length;
+    }
+
+    /** Number of set bits. */
+    public int cardinality() {
+        int n = 0;
+        for (long w : words) n += Long.bitCount(w);
+        return n;
+    }
+
+    /** Set type indices in ascending order. */
+    public int[] toIndices() {
+        int[] out = new int[cardinality()];
+        int k = 0;
+        for (int w = 0; w < words.length; w++) {
+            long bits = words[w];
+            while (bits != 0) {
+                out[k++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return out;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    private static long[] trim(long[] words) {
+        int n = words.length;
+        while (n > 0 && words[n - 1] == 0L) n--;
+        return n == words.length ? words : Arrays.copyOf(words, n);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ComponentMask m && Arrays.equals(words, m.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ComponentMask[");
+        int[] idx = toIndices();
+        for (int i = 0; i < idx.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(ComponentTypes.typeOf(idx[i]).getSimpleName());
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -1,42 +1,28 @@
 package ecs;
 
-import java.util.*;
+import java.util.Collection;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Stores components of one type in a contiguous structure.
- * Provides O(1) access by entityId and high cache locality.
+ * Storage for all components of one type, addressed by entity id.
+ * Implementations are picked per component class through {@link PoolType}.
  */
-@SuppressWarnings("hiding")
-public class ComponentPool<Component> {
-    private final Map<Integer, Component> components = new ConcurrentHashMap<>();
+public interface ComponentPool<T extends Component> {
 
-    public void add(int entityId, Component component) {
-        components.put(entityId, component);
-    }
+    void add(int entityId, T component);
 
-    public void remove(int entityId) {
-        components.remove(entityId);
-    }
+    void remove(int entityId);
 
-    public Component get(int entityId) {
-        return components.get(entityId);
-    }
+    T get(int entityId);
 
-    public boolean has(int entityId) {
-        return components.containsKey(entityId);
-    }
+    boolean has(int entityId);
 
-    public Collection<Entry<Integer, Component>> entries() {
-        return components.entrySet();
-    }
+    Collection<Entry<Integer, T>> entries();
 
-    public Collection<Component> values() {
-        return components.values();
-    }
+    Collection<T> values();
 
-    public int size() {
-        return components.size();
-    }
+    int size();
+
+    /** Layout of this pool. */
+    PoolType type();
 }
@@ -0,0 +1,47 @@
+package ecs;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Assigns every component class a small, dense, process-wide type index.
+ * Indices are stable for the lifetime of the JVM and are used as bit positions
+ * in {@link ComponentMask} signatures and as column keys in archetype storage.
+ */
+public final class ComponentTypes {
+
+    private static final Map<Class<?>, Integer> indices = new ConcurrentHashMap<>();
+    private static final List<Class<?>> types = new CopyOnWriteArrayList<>();
+
+    /** Per-class cache so hot paths never touch the map after the first lookup. */
+    private static final ClassValue<Integer> cache = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return indices.computeIfAbsent(type, ComponentTypes::register);
+        }
+    };
+
+    private ComponentTypes() {}
+
+    private static synchronized Integer register(Class<?> type) {
+        types.add(type);
+        return types.size() - 1;
+    }
+
+    /** Dense index of the given component class, registering it on first use. */
+    public static int indexOf(Class<? extends Component> type) {
+        return cache.get(type);
+    }
+
+    /** Component class registered under the given index. */
+    public static Class<?> typeOf(int index) {
+        return types.get(index);
+    }
+
+    /** Number of component types registered so far. */
+    public static int count() {
+        return types.size();
+    }
+}
@@ -1,25 +1,148 @@
 package ecs;
 
+import core.JobSystem;
+import utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Queues ECS mutations to apply after current system updates finish.
- * Bind to an ECSManager once, then enqueue Runnables or use the helpers below.
+ *
+ * Each recording thread gets its own {@link Recorder} holding compact typed
+ * commands (create, destroy, add component, remove component) in parallel arrays,
+ * so recording neither allocates a lambda nor contends with other threads. The
+ * recorders of threads that have exited are dropped at the next flush.
+ *
+ * {@link #flush()} merges all recorders and applies prefab spawns first, then sorts
+ * the commands by entity, then by
+ * kind (create, component ops by type, destroy), then by source ordinal (the
+ * system that recorded it, see {@link #setSource(int)}), then by position in the
+ * source's program order. The source belongs to the recording thread and follows
+ * the work into helper threads of {@link core.JobSystem#parallelFor} and the ECS
+ * parallel helpers, together with the loop and the range start the command was
+ * recorded in, so commands of a system's parallel loop sort as if the loop had run
+ * sequentially, whatever the split. Ties left after that keep drain order, which
+ * depends on when threads first recorded; only these have no fixed order:
+ * <ul>
+ *   <li>commands of one source recorded by several threads outside a system's
+ *       update, e.g. {@link #NO_SOURCE} commands from external threads or
+ *       {@link #ASYNC_SOURCE} commands of different async systems;</li>
+ *   <li>commands of a parallel loop started inside another parallel loop's range,
+ *       among themselves (they still sort with that enclosing range).</li>
+ * </ul>
+ * Typed commands are applied under a
+ * single structure lock: all creates become live in one step, then component ops
+ * run entity by entity, then all destroys happen in one step. Only the last
+ * add/remove of each component type is applied, and component ops on an entity
+ * destroyed in the same flush are skipped. A flush that creates or destroys
+ * entities logs one summary line. Plain {@link Runnable}s are still accepted and
+ * run after the typed commands, ordered by source.
+ *
+ * Recording is safe from any thread; flushing must not overlap system updates.
+ * A {@link Tap} sees every command a flush actually applies, in apply order.
  */
 public final class DeferredCommandBuffer {
-    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private static final Logger logger = new Logger(DeferredCommandBuffer.class);
+
+    // Command kinds, in per-entity apply order
+    private static final byte CREATE = 0;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte DESTROY = 3;
+    private static final byte RUN = 4;
+    private static final byte SPAWN = 5;
+
+    /** Source used for commands recorded outside a scheduled system. */
+    public static final int NO_SOURCE = -1;
+
+    /** Source of commands recorded by systems running on their own thread; sorts after scheduled systems. */
+    public static final int ASYNC_SOURCE = Integer.MAX_VALUE;
+
+    // Recording context of the calling thread, shared by every buffer: source, parallel
+    // loops started so far under it, and the start of the range being run (OUTSIDE_RANGE
+    // between loops). One array so recorders can hold it.
+    private static final int OUTSIDE_RANGE = Integer.MAX_VALUE; // sorts after the loop's ranges
+    private static final ThreadLocal<int[]> SOURCE =
+            ThreadLocal.withInitial(() -> new int[] { NO_SOURCE, 0, OUTSIDE_RANGE });
+
+    static {
+        JobSystem.addContextCarrier(task -> {
+            int[] slot = SOURCE.get();
+            int source = slot[0];
+            boolean nested = slot[2] != OUTSIDE_RANGE;
+            int loop = nested ? slot[1] : ++slot[1]; // a nested loop stays in its enclosing range
+            int enclosing = slot[2];
+            return (from, to) -> {
+                int[] ctx = SOURCE.get();
+                int s0 = ctx[0], s1 = ctx[1], s2 = ctx[2];
+                ctx[0] = source;
+                ctx[1] = loop;
+                ctx[2] = nested ? enclosing : from;
+                try {
+                    task.run(from, to);
+                } finally {
+                    ctx[0] = s0;
+                    ctx[1] = s1;
+                    ctx[2] = s2;
+                }
+            };
+        });
+    }
+
+    /** Kind of an applied command, as reported to a {@link Tap}. */
+    public enum Kind { CREATE, ADD, REMOVE, DESTROY, RUN, SPAWN }
+
+    /**
+     * Observer of applied commands, e.g. a frame recorder. Called on the flushing
+     * thread, under the structure lock except for {@link Kind#RUN}. Superseded and
+     * failed commands are not reported.
+     */
+    @FunctionalInterface
+    public interface Tap {
+        /**
+         * @param payload the {@link Entity} for CREATE/DESTROY, the {@link Component}
+         *                for ADD (the tag class for {@link #addTag}), its class for REMOVE, the {@link Runnable} for RUN, the
+         *                spawned {@code Entity[]} for SPAWN (stale handles included)
+         */
+        void applied(Kind kind, int entity, Object payload, int source);
+
+        /** Called after the last {@link #applied} call of each flush that had commands. */
+        default void flushed() {}
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
     private final ECSManager ecs;
+    private final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Recorder> local = ThreadLocal.withInitial(this::newRecorder);
+    private volatile Tap tap;
+
+    // Flush scratch, reused between frames (guarded by this)
+    private byte[] ops = new byte[64];
+    private int[] entities = new int[64];
+    private int[] types = new int[64];
+    private int[] sources = new int[64];
+    private long[] positions = new long[64];
+    private Object[] payloads = new Object[64];
+    private int[] order = new int[64];
+    private int[] sortTmp = new int[64];
 
     /** Bind the buffer to a specific ECS instance. */
     public DeferredCommandBuffer(ECSManager ecs) {
         this.ecs = Objects.requireNonNull(ecs, "ecs");
     }
 
-    /** Preferred: enqueue a custom command. */
+    // -------------------------------------------------------------------------
+    // Recording
+    // -------------------------------------------------------------------------
+
+    /** Enqueue a custom command; runs after typed commands at flush. */
     public void add(Runnable cmd) {
-        commands.add(Objects.requireNonNull(cmd, "cmd"));
+        local.get().record(RUN, -1, -1, Objects.requireNonNull(cmd, "cmd"));
     }
 
     /** Back-compat alias for older call sites. */
@@ -27,53 +150,438 @@ public final class DeferredCommandBuffer {
         add(cmd);
     }
 
-    // -------- Convenience helpers (no ecs param needed) --------
+    /**
+     * Defer: create an entity. The returned handle is usable in further deferred
+     * commands right away and becomes alive at flush.
+     */
+    public Entity createEntity() {
+        Entity e = ecs.reserveEntity();
+        addEntity(e);
+        return e;
+    }
 
-    /** Defer: register an existing entity instance. */
+    /** Defer: register an existing (reserved) entity instance. */
     public void addEntity(Entity e) {
-        add(() -> ecs.registerEntity(e));
+        local.get().record(CREATE, e.getId(), -1, e);
     }
 
-    /** Defer: destroy an entity by ID. */
+    /**
+     * Defer: spawn {@code count} instances of a prefab. The handles are reserved now in
+     * one step and usable in further deferred commands right away. At flush every spawn
+     * is applied before the other commands, with one structural change per spawn.
+     */
+    public Entity[] spawnPrefab(Prefab prefab, int count) {
+        Entity[] handles = ecs.reserveEntities(count);
+        local.get().record(SPAWN, -1, -1, new PendingSpawn(prefab, handles));
+        return handles;
+    }
+
+    private record PendingSpawn(Prefab prefab, Entity[] handles) {}
+
+    /** Defer: destroy an entity; applied after every other command for it. */
     public void destroyEntity(Entity e) {
-        add(() -> ecs.destroyEntity(e));
+        local.get().record(DESTROY, e.getId(), -1, e);
     }
 
-    /** Defer: add a component to an entity now (at flush). */
+    /** Defer: add a component to an entity (at flush). */
     public <T extends Component> void addComponent(int id, T c) {
-        add(() -> ecs.addComponentNow(id, c));
+        local.get().record(ADD, id, ComponentTypes.indexOf(c.getClass()), c);
+    }
+
+    /** Defer: set a {@link Tag} on an entity (at flush); no instance is needed. */
+    public void addTag(int id, Class<? extends Tag> tag) {
+        local.get().record(ADD, id, ComponentTypes.indexOf(tag), tag);
     }
 
     /** Defer: remove a component type from an entity (at flush). */
     public <T extends Component> void removeComponent(int id, Class<T> type) {
-        add(() -> ecs.removeComponentNow(id, type));
+        local.get().record(REMOVE, id, ComponentTypes.indexOf(type), type);
+    }
+
+    /** Defer: clear a {@link Tag} (at flush); same as {@link #removeComponent}. */
+    public void removeTag(int id, Class<? extends Tag> tag) {
+        removeComponent(id, tag);
     }
 
-    /** Apply all queued commands. Continues on exceptions. */
-    public void flush() {
-        Runnable r;
-        while ((r = commands.poll()) != null) {
+    /**
+     * Tags commands recorded by the calling thread, in any buffer, with a source
+     * ordinal, used to order commands on the same entity and type. The
+     * {@code SystemScheduler} sets this to the system's registration index around each
+     * update. Also starts the source's program order afresh. Returns the previous
+     * source so callers can restore it.
+     */
+    public static int setSource(int source) {
+        int[] slot = SOURCE.get();
+        int previous = slot[0];
+        slot[0] = source;
+        slot[1] = 0;
+        slot[2] = OUTSIDE_RANGE;
+        return previous;
+    }
+
+    /**
+     * Like {@link #setSource(int)}, but returns the calling thread's whole recording
+     * context for {@link #exitSource}, for code that may run inside another source's
+     * parallel range (e.g. a worker that picks up a system while joining).
+     */
+    public static int[] enterSource(int source) {
+        int[] outer = SOURCE.get().clone();
+        setSource(source);
+        return outer;
+    }
+
+    /** Restores the context saved by {@link #enterSource}. */
+    public static void exitSource(int[] outer) {
+        System.arraycopy(outer, 0, SOURCE.get(), 0, outer.length);
+    }
+
+    /** Source the calling thread currently records with; see {@link #setSource(int)}. */
+    public static int currentSource() {
+        return SOURCE.get()[0];
+    }
+
+    /** Installs the observer of applied commands; null removes it. */
+    public void setTap(Tap tap) {
+        this.tap = tap;
+    }
+
+    // -------------------------------------------------------------------------
+    // Flush
+    // -------------------------------------------------------------------------
+
+    /**
+     * Apply all queued commands. Continues on exceptions, which are logged.
+     *
+     * @return number of commands applied; superseded component ops count as applied
+     */
+    public synchronized int flush() {
+        int n = drain();
+        if (n == 0) return 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) order[i] = i;
+        sort(n);
+
+        int applied = 0;
+        int created, destroyed;
+        int first = 0;
+        ComponentManager cm = ecs.getComponentManager();
+        synchronized (cm.structureLock()) {
+            while (first < n && ops[order[first]] == SPAWN) { // SPAWN sorts first
+                if (apply(order[first])) applied++;
+                first++;
+            }
+            int runStart = first;
+            while (runStart < n && ops[order[runStart]] != RUN) runStart++; // RUN sorts last
+
+            created = applyCreates(first, runStart);
+            int i = first;
+            while (i < runStart) {
+                int end = i + 1;
+                while (end < runStart && entities[order[end]] == entities[order[i]]) end++;
+                applied += applyEntity(i, end);
+                i = end;
+            }
+            destroyed = applyDestroys(first, runStart);
+            applied += created + destroyed;
+            first = runStart;
+        }
+        for (int i = first; i < n; i++) {
+            if (apply(order[i])) applied++;
+        }
+        Tap t = tap;
+        if (t != null) {
             try {
-                r.run();
-            } catch (Throwable t) {
-                // Keep going; you can swap this to your Logger if desired.
-                t.printStackTrace();
+                t.flushed();
+            } catch (Throwable e) {
+                logger.error("Command tap failed at end of flush", e);
             }
         }
+
+        Arrays.fill(payloads, 0, n, null);
+        if (created + destroyed > 0) {
+            logger.info(String.format("Flushed %d commands (%d created, %d destroyed) in %.2f ms",
+                    applied, created, destroyed, (System.nanoTime() - start) / 1_000_000.0));
+        }
+        return applied;
     }
 
     /** True if there are no pending commands. */
     public boolean isEmpty() {
-        return commands.isEmpty();
+        return size() == 0;
     }
 
     /** Number of pending commands. */
     public int size() {
-        return commands.size();
+        int total = 0;
+        for (Recorder r : recorders) total += r.count();
+        return total;
+    }
+
+    /** Number of per-thread recorders currently held. */
+    int recorderCount() {
+        return recorders.size();
     }
 
     /** Drop all queued commands without executing them. */
     public void clear() {
-        commands.clear();
+        for (Recorder r : recorders) r.reset();
+    }
+
+    // -------------------------------------------------------------------------
+    // Internals
+    // -------------------------------------------------------------------------
+
+    /**
+     * Applies the component ops among the sorted commands {@code [from, to)}, which all
+     * target one entity. Creates and destroys are applied in batches around this.
+     */
+    private int applyEntity(int from, int to) {
+        boolean destroyed = ops[order[to - 1]] == DESTROY;
+        int applied = 0;
+        for (int i = from; i < to; i++) {
+            int c = order[i];
+            if (!isComponentOp(ops[c])) continue;
+            boolean superseded = destroyed
+                    || (i + 1 < to && types[order[i + 1]] == types[c] && isComponentOp(ops[order[i + 1]]));
+            if (superseded || apply(c)) applied++;
+        }
+        return applied;
+    }
+
+    /** Makes every CREATE among the sorted commands {@code [from, to)} live in one step. */
+    private int applyCreates(int from, int to) {
+        int[] picked = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int c = order[i];
+            if (ops[c] != CREATE) continue;
+            if (((Entity) payloads[c]).world() != ecs) {
+                logger.warn("Deferred create skipped: entity " + entities[c] + " belongs to another world");
+                continue;
+            }
+            picked[count++] = c;
+        }
+        if (count == 0) return 0;
+
+        Entity[] handles = new Entity[count];
+        for (int k = 0; k < count; k++) handles[k] = (Entity) payloads[picked[k]];
+        int[] committed = new int[count];
+        int n;
+        try {
+            n = ecs.commitEntities(handles, committed);
+        } catch (Throwable t) {
+            logger.error("Deferred create batch failed (" + count + " entities)", t);
+            return 0;
+        }
+        // committed ids keep handle order, so a single walk matches them back to commands
+        for (int k = 0, p = 0; k < count && p < n; k++) {
+            if (handles[k].getId() == committed[p]) {
+                report(picked[k]);
+                p++;
+            }
+        }
+        return n;
+    }
+
+    /** Destroys every DESTROY target among the sorted commands {@code [from, to)} in one step. */
+    private int applyDestroys(int from, int to) {
+        int[] picked = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int c = order[i];
+            if (ops[c] == DESTROY) picked[count++] = c;
+        }
+        if (count == 0) return 0;
+
+        int[] ids = new int[count];
+        for (int k = 0; k < count; k++) ids[k] = entities[picked[k]];
+        int n;
+        try {
+            n = ecs.destroyEntitiesSilently(ids, count);
+        } catch (Throwable t) {
+            logger.error("Deferred destroy batch failed (" + count + " entities)", t);
+            return 0;
+        }
+        // destroyed ids are compacted to the front in command order
+        for (int k = 0, p = 0; k < count && p < n; k++) {
+            if (entities[picked[k]] == ids[p]) {
+                report(picked[k]);
+                p++;
+            }
+        }
+        return n;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean apply(int c) {
+        try {
+            switch (ops[c]) {
+                case ADD -> {
+                    if (payloads[c] instanceof Class<?> tag) ecs.addTag(entities[c], (Class<? extends Tag>) tag);
+                    else ecs.addComponentNow(entities[c], (Component) payloads[c]);
+                }
+                case REMOVE -> ecs.removeComponentNow(entities[c], (Class<? extends Component>) payloads[c]);
+                case SPAWN -> {
+                    PendingSpawn spawn = (PendingSpawn) payloads[c];
+                    ecs.spawnReserved(spawn.prefab(), spawn.handles());
+                }
+                default -> ((Runnable) payloads[c]).run();
+            }
+            report(c);
+            return true;
+        } catch (Throwable t) {
+            logger.error("Deferred command failed (entity " + entities[c] + ")", t);
+            return false;
+        }
+    }
+
+    private void report(int c) {
+        Tap t = tap;
+        if (t == null) return;
+        try {
+            Object payload = ops[c] == SPAWN ? ((PendingSpawn) payloads[c]).handles() : payloads[c];
+            t.applied(KINDS[ops[c]], entities[c], payload, sources[c]);
+        } catch (Throwable e) {
+            logger.error("Command tap failed (entity " + entities[c] + ")", e);
+        }
+    }
+
+    private static boolean isComponentOp(byte op) {
+        return op == ADD || op == REMOVE;
+    }
+
+    /**
+     * Moves every recorder's commands into the flush arrays, in recorder order, and
+     * drops the recorders of threads that have exited (they can never record again).
+     */
+    private int drain() {
+        int n = 0;
+        List<Recorder> retired = null;
+        for (Recorder r : recorders) {
+            boolean exited;
+            synchronized (r) {
+                exited = !r.owner.isAlive(); // checked first: an exited thread cannot refill it
+                int count = r.count;
+                if (count > 0) {
+                    ensureScratch(n + count);
+                    System.arraycopy(r.ops, 0, ops, n, count);
+                    System.arraycopy(r.entities, 0, entities, n, count);
+                    System.arraycopy(r.types, 0, types, n, count);
+                    System.arraycopy(r.sources, 0, sources, n, count);
+                    System.arraycopy(r.positions, 0, positions, n, count);
+                    System.arraycopy(r.payloads, 0, payloads, n, count);
+                    r.reset();
+                    n += count;
+                }
+            }
+            if (exited) {
+                if (retired == null) retired = new ArrayList<>();
+                retired.add(r);
+            }
+        }
+        if (retired != null) recorders.removeAll(retired);
+        return n;
+    }
+
+    /** Stable merge sort of {@code order[0, n)}; drain order breaks ties. */
+    private void sort(int n) {
+        int[] src = order, dst = sortTmp;
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n), hi = Math.min(lo + (width << 1), n);
+                int a = lo, b = mid, k = lo;
+                while (a < mid && b < hi) dst[k++] = compare(src[b], src[a]) < 0 ? src[b++] : src[a++];
+                while (a < mid) dst[k++] = src[a++];
+                while (b < hi) dst[k++] = src[b++];
+            }
+            int[] t = src; src = dst; dst = t;
+        }
+        if (src != order) System.arraycopy(src, 0, order, 0, n);
+    }
+
+    private int compare(int x, int y) {
+        boolean sx = ops[x] == SPAWN, sy = ops[y] == SPAWN;
+        if (sx != sy) return sx ? -1 : 1;
+        if (sx) return compareSource(x, y);
+        boolean rx = ops[x] == RUN, ry = ops[y] == RUN;
+        if (rx != ry) return rx ? 1 : -1;
+        if (rx) return compareSource(x, y);
+        int c = Integer.compare(entities[x], entities[y]);
+        if (c != 0) return c;
+        c = Integer.compare(rank(ops[x]), rank(ops[y]));
+        if (c != 0) return c;
+        c = Integer.compare(types[x], types[y]);
+        return c != 0 ? c : compareSource(x, y);
+    }
+
+    /** Source ordinal, then position in that source's program order. */
+    private int compareSource(int x, int y) {
+        int c = Integer.compare(sources[x], sources[y]);
+        return c != 0 ? c : Long.compare(positions[x], positions[y]);
+    }
+
+    private static int rank(byte op) {
+        return op == REMOVE ? ADD : op; // adds and removes of one type interleave by source
+    }
+
+    private void ensureScratch(int capacity) {
+        if (capacity <= ops.length) return;
+        int cap = Math.max(capacity, ops.length * 2);
+        ops = Arrays.copyOf(ops, cap);
+        entities = Arrays.copyOf(entities, cap);
+        types = Arrays.copyOf(types, cap);
+        sources = Arrays.copyOf(sources, cap);
+        positions = Arrays.copyOf(positions, cap);
+        payloads = Arrays.copyOf(payloads, cap);
+        order = new int[cap];
+        sortTmp = new int[cap];
+    }
+
+    private Recorder newRecorder() {
+        Recorder r = new Recorder();
+        recorders.add(r);
+        return r;
+    }
+
+    /** Commands recorded by one thread, stored column-wise. */
+    private static final class Recorder {
+        final Thread owner = Thread.currentThread();
+        byte[] ops = new byte[32];
+        int[] entities = new int[32];
+        int[] types = new int[32];
+        int[] sources = new int[32];
+        long[] positions = new long[32];
+        Object[] payloads = new Object[32];
+        int count;
+        final int[] source = SOURCE.get(); // the owner's context
+
+        synchronized void record(byte op, int entity, int type, Object payload) {
+            if (count == ops.length) {
+                int cap = count * 2;
+                ops = Arrays.copyOf(ops, cap);
+                entities = Arrays.copyOf(entities, cap);
+                types = Arrays.copyOf(types, cap);
+                sources = Arrays.copyOf(sources, cap);
+                positions = Arrays.copyOf(positions, cap);
+                payloads = Arrays.copyOf(payloads, cap);
+            }
+            ops[count] = op;
+            entities[count] = entity;
+            types[count] = type;
+            sources[count] = source[0];
+            positions[count] = (long) source[1] << 32 | source[2];
+            payloads[count] = payload;
+            count++;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized void reset() {
+            Arrays.fill(payloads, 0, count, null);
+            count = 0;
+        }
     }
 }
@@ -1,37 +1,87 @@
 package ecs;
 
+import core.JobSystem;
+import ecs.storage.MotionColumns;
 import ecs.systems.*;
 import utils.Logger;
 
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.management.ThreadMXBean;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 /**
  * Thread-safe ECS core:
  * - Entity creation/destruction through EntityManager
  * - Component storage and retrieval
  * - Deferred command buffer
- * - Parallel system updates
+ * - Parallel system updates, staged by declared component access
  */
 public final class ECSManager {
     private static final Logger logger = new Logger(ECSManager.class);
 
     // === Core Managers ===
     private final EntityManager entityManager = new EntityManager();
-    private final ComponentManager componentManager = new ComponentManager();
-    private final SystemManager systemManager = new SystemManager(Runtime.getRuntime().availableProcessors());
+    private final ComponentManager componentManager;
+    private final SystemManager systemManager;
     private final DeferredCommandBuffer commandBuffer = new DeferredCommandBuffer(this);
 
     // === Systems ===
     private final List<SystemBase> systems = new CopyOnWriteArrayList<>();
+    private final SystemScheduler scheduler = new SystemScheduler();
+    private final Map<String, SystemScheduler> groups = new ConcurrentHashMap<>();
+    private final List<SystemBase> asyncSystems = new CopyOnWriteArrayList<>();
 
-    // === Thread Pool ===
+    // === Frame observers (recorders, profilers) ===
+    private final List<FrameListener> frameListeners = new CopyOnWriteArrayList<>();
+
+    // === World singletons (FrameTime is set by update) ===
+    private final Resources resources = new Resources();
+    private final Resources.Resource<FrameTime> frameTime = resources.resource(FrameTime.class);
+
+    // === Optional struct-of-arrays stores kept in sync with entity lifetime ===
+    private final List<MotionColumns> columnStores = new CopyOnWriteArrayList<>();
+
+    // === Workers (shared engine job system) ===
+    private final JobSystem jobs;
     private final ExecutorService pool;
 
+    // === CPU accounting (off unless enabled, see WorldHost) ===
+    private static final ThreadMXBean THREAD_CPU = ManagementFactory.getThreadMXBean();
+    private static final ThreadLocal<long[]> NESTED_CPU = ThreadLocal.withInitial(() -> new long[1]);
+    private static final ThreadLocal<ECSManager> ACCOUNTED = new ThreadLocal<>(); // world charged right now
+    private final LongAdder cpuNanos = new LongAdder();
+    private volatile boolean cpuAccounting;
+
+    static {
+        // Ranges a system hands to other workers are charged to the world it runs in
+        JobSystem.addContextCarrier(task -> {
+            ECSManager world = ACCOUNTED.get();
+            if (world == null) return task;
+            return (from, to) -> world.accountCpu(() -> task.run(from, to));
+        });
+    }
+
     public ECSManager() {
-        final int threads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-        this.pool = Executors.newFixedThreadPool(threads);
+        this(StorageMode.POOLED);
+    }
+
+    /** Create an ECS world using the given component storage layout. */
+    public ECSManager(StorageMode storageMode) {
+        this(storageMode, JobSystem.shared());
+    }
+
+    /** Create an ECS world whose systems run on {@code jobs}. */
+    public ECSManager(StorageMode storageMode, JobSystem jobs) {
+        this.componentManager = new ComponentManager(storageMode);
+        this.jobs = jobs;
+        this.pool = jobs.executor();
+        this.systemManager = new SystemManager(jobs);
     }
 
     // -------------------------------------------------------------------------
@@ -39,30 +89,223 @@ public final class ECSManager {
     // -------------------------------------------------------------------------
     /** Create and register a new entity in the ECS. */
     public Entity createEntity() {
-        Entity e = new Entity();
-        entityManager.addEntity(e);
+        Entity e = entityManager.create(this);
         logger.info("Created Entity ID: " + e.getId());
         return e;
     }
-    
+
+    /**
+     * Creates {@code count} entities, each with one fresh component from every template.
+     * Ids are allocated in one step and the entities are placed with their whole
+     * component set through {@link ComponentManager#spawn}, so in ARCHETYPE mode they
+     * land in their final archetype at once. Tag templates, templates that mix classes
+     * and repeated types are added afterwards in one batch each. Logs one summary line.
+     */
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    public final Entity[] createEntities(int count, Supplier<? extends Component>... templates) {
+        long start = System.nanoTime();
+        Entity[] created = entityManager.createBatch(count, this);
+        if (count <= 0) return created;
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = created[i].getId();
+
+        ComponentMask signature = ComponentMask.EMPTY;
+        Component[][] made = new Component[templates.length][];
+        int[] madeType = new int[templates.length]; // -1: added after the spawn
+        for (int t = 0; t < templates.length; t++) {
+            made[t] = instantiate(templates[t], count);
+            Class<?> type = made[t].getClass().getComponentType();
+            int index = type == Component.class || Tag.class.isAssignableFrom(type) ? -1
+                    : ComponentTypes.indexOf((Class<? extends Component>) type);
+            if (index >= 0 && signature.has(index)) index = -1;
+            if (index >= 0) signature = signature.with(index);
+            madeType[t] = index;
+        }
+        int[] types = signature.toIndices(); // spawn takes columns in signature order
+        Component[][] columns = new Component[types.length][];
+        for (int c = 0; c < types.length; c++) {
+            for (int t = 0; t < templates.length; t++) {
+                if (madeType[t] == types[c]) columns[c] = made[t];
+            }
+        }
+        componentManager.spawn(ids, count, signature, columns);
+        for (int t = 0; t < templates.length; t++) {
+            if (madeType[t] < 0) componentManager.addComponents(ids, made[t], count);
+        }
+
+        logger.info(String.format("Created %d entities with %d components each in %.2f ms",
+                count, templates.length, (System.nanoTime() - start) / 1_000_000.0));
+        return created;
+    }
+
+    /** {@code count} fresh instances, in an array typed by their class ({@code Component[]} if it varies). */
+    private static Component[] instantiate(Supplier<? extends Component> template, int count) {
+        Component first = template.get();
+        Class<?> type = first.getClass();
+        Component[] column = (Component[]) Array.newInstance(type, count);
+        column[0] = first;
+        for (int i = 1; i < count; i++) {
+            Component c = template.get();
+            if (c.getClass() != type && column.getClass() != Component[].class) {
+                column = Arrays.copyOf(column, count, Component[].class);
+            }
+            column[i] = c;
+        }
+        return column;
+    }
+
+    /**
+     * Creates {@code count} instances of {@code prefab} right away: ids are allocated in
+     * one step and every instance gets the prefab's full component set in a single
+     * structural change. Logs one summary line. From inside systems use
+     * {@code commands().spawnPrefab(prefab, count)}.
+     */
+    public Entity[] spawnPrefab(Prefab prefab, int count) {
+        long start = System.nanoTime();
+        Entity[] created = entityManager.createBatch(count, this);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = created[i].getId();
+        componentManager.spawn(ids, count, prefab.signature(), prefab.instantiate(count));
+        logger.info(String.format("Spawned %d x %s in %.2f ms", count, prefab.name(),
+                (System.nanoTime() - start) / 1_000_000.0));
+        return created;
+    }
+
+    /** Makes reserved handles live and gives them the prefab's components; used by the command buffer. */
+    int spawnReserved(Prefab prefab, Entity[] handles) {
+        long start = System.nanoTime();
+        int[] ids = new int[handles.length];
+        int n = entityManager.addEntities(handles, ids);
+        componentManager.spawn(ids, n, prefab.signature(), prefab.instantiate(n));
+        logger.info(String.format("Spawned %d x %s in %.2f ms", n, prefab.name(),
+                (System.nanoTime() - start) / 1_000_000.0));
+        return n;
+    }
+
+    /**
+     * Makes reserved handles of this world live in one step, without logging; used by the
+     * command buffer. Committed ids go to the front of {@code committedIds}; returns how many.
+     */
+    int commitEntities(Entity[] handles, int[] committedIds) {
+        return entityManager.addEntities(handles, committedIds);
+    }
+
+    /** Allocates {@code count} handles at once without making them alive; see {@link #reserveEntity()}. */
+    public Entity[] reserveEntities(int count) {
+        return entityManager.reserveBatch(count, this);
+    }
+
+    /**
+     * Allocate an entity handle without making it alive yet, e.g. to reference it in
+     * deferred commands. It becomes alive through {@link #registerEntity(Entity)}
+     * (or {@code commands().addEntity(e)}).
+     */
+    public Entity reserveEntity() {
+        return entityManager.reserve(this);
+    }
+
+    /** Reserves exactly {@code id}, e.g. to replay a recorded create; fails if its index is in use. */
+    public Entity reserveEntity(int id) {
+        return entityManager.reserveExact(id, this);
+    }
+
+    /**
+     * Releases a handle from {@link #reserveEntity()} that will not be registered, so its
+     * index is reused. Returns false if the handle is stale, already live or from another world.
+     */
+    public boolean cancelReservation(Entity e) {
+        return e.world() == this && entityManager.cancelReservation(e);
+    }
+
 	public void registerEntity(Entity e) {
-		entityManager.addEntity(e);
-        logger.info("Created Entity ID: " + e.getId());
+		if (e.world() != this) {
+		    throw new IllegalArgumentException("Entity " + e.getId() + " belongs to another world");
+		}
+		if (entityManager.addEntity(e)) {
+		    logger.info("Created Entity ID: " + e.getId());
+		}
 	}
 
-    /** Destroy an entity and remove all its components. */
+    /**
+     * Destroy an entity and remove all its components. Stale handles and reserved ones
+     * that were never registered are ignored; see {@link #cancelReservation}.
+     * The index is freed under the structure lock, so a concurrent create that reuses
+     * it cannot add components before the old ones are gone.
+     */
     public void destroyEntity(Entity e) {
         if (e == null) return;
-        componentManager.removeAllComponents(e.getId());
-        entityManager.removeEntity(e);
+        synchronized (componentManager.structureLock()) {
+            if (!entityManager.removeEntity(e)) return;
+            componentManager.removeAllComponents(e.getId());
+            for (MotionColumns columns : columnStores) columns.remove(e.getId());
+        }
         logger.info("Destroyed Entity ID: " + e.getId());
     }
 
+    /** Destroys many entities with one summary log line. Handles that are not alive are ignored; returns how many were destroyed. */
+    public int destroyEntities(Collection<Entity> entities) {
+        int[] ids = new int[entities.size()];
+        int n = 0;
+        for (Entity e : entities) {
+            if (e != null) ids[n++] = e.getId();
+        }
+        return destroyEntities(ids, n);
+    }
+
+    public int destroyEntities(Entity... entities) {
+        return destroyEntities(Arrays.asList(entities));
+    }
+
+    /**
+     * Destroys the first {@code count} ids. {@code ids} is reordered: the ids that were
+     * alive end up at the front. Returns how many were destroyed.
+     */
+    public int destroyEntities(int[] ids, int count) {
+        long start = System.nanoTime();
+        int destroyed = destroyEntitiesSilently(ids, count);
+        logger.info(String.format("Destroyed %d entities in %.2f ms", destroyed,
+                (System.nanoTime() - start) / 1_000_000.0));
+        return destroyed;
+    }
+
+    /** {@link #destroyEntities(int[], int)} without the log line; the command buffer logs once per flush. */
+    int destroyEntitiesSilently(int[] ids, int count) {
+        synchronized (componentManager.structureLock()) {
+            int destroyed = entityManager.removeBatch(ids, count);
+            componentManager.removeAllComponents(ids, destroyed);
+            if (!columnStores.isEmpty()) {
+                for (int i = 0; i < destroyed; i++) {
+                    for (MotionColumns columns : columnStores) columns.remove(ids[i]);
+                }
+            }
+            return destroyed;
+        }
+    }
+
+    /**
+     * Drops every entity and component, then recreates live entities with exactly the
+     * given ids (used by {@link ecs.io.WorldSnapshot}). Must not overlap {@link #update}.
+     */
+    public Entity[] restoreEntities(int[] ids) {
+        commandBuffer.clear();
+        componentManager.clear();
+        for (MotionColumns columns : columnStores) columns.clear();
+        Entity[] restored = entityManager.restore(ids, this);
+        logger.info("Restored " + restored.length + " entities");
+        return restored;
+    }
+
     /** Check whether an entity is currently alive. */
     public boolean isAlive(Entity e) {
         return entityManager.isAlive(e);
     }
 
+    /** Check whether an entity id is currently alive (O(1), lock-free). */
+    public boolean isAlive(int id) {
+        return entityManager.isAlive(id);
+    }
+
     /** Returns a lambda to safely check entity lifetime later. */
     public BooleanSupplier isEntityAlive(Entity e) {
         return () -> entityManager.isAlive(e);
@@ -78,24 +321,52 @@ public final class ECSManager {
         return new ArrayList<>(entityManager.getAllEntities());
     }
 
-    /** Returns all entities that have ALL specified component types. */
+    /**
+     * Returns all entities that have ALL specified component types.
+     * Backed by a cached {@link Query}; systems that run every frame should hold
+     * the query from {@link #query(Class[])} instead of building this list.
+     */
     @SafeVarargs
     public final List<Entity> getEntitiesWith(Class<? extends Component>... types) {
-        Collection<Entity> src = entityManager.getAllEntities();
-        if (src.isEmpty()) return Collections.emptyList();
-
-        List<Entity> out = new ArrayList<>(src.size());
-        outer:
-        for (Entity e : src) {
-            int id = e.getId();
-            for (Class<? extends Component> t : types) {
-                if (!componentManager.hasComponent(id, t)) continue outer;
-            }
-            out.add(e);
+        Query q = componentManager.query(types);
+        if (q.isEmpty()) return Collections.emptyList();
+
+        List<Entity> out = new ArrayList<>(q.size());
+        int[] ids = q.entities();
+        for (int i = 0, n = q.size(); i < n; i++) {
+            Entity e = entityManager.getEntity(ids[i]);
+            if (e != null) out.add(e);
         }
         return out;
     }
 
+    /** Registered query over entities having all the given component types. */
+    @SafeVarargs
+    public final Query query(Class<? extends Component>... types) {
+        return componentManager.query(types);
+    }
+
+    /** Runs {@code action} once per chunk of {@code query}'s matches; see {@link Query#forEachChunk}. */
+    public void forEachChunk(Query query, Query.ChunkAction action) {
+        query.forEachChunk(action);
+    }
+
+    /**
+     * Like {@link #forEachChunk}, with the chunks spread over this world's job system;
+     * returns when all are done. Chunks hold disjoint entities, so an action that only
+     * touches its own rows needs no locking. No structural changes meanwhile: record
+     * them on {@link #commands()}.
+     */
+    public void forEachChunkParallel(Query query, Query.ChunkAction action) {
+        List<ChunkRange> ranges = query.chunkRanges();
+        jobs.parallelFor(ranges.size(), 1, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                ChunkRange r = ranges.get(i);
+                action.accept(r.chunk(), r.start(), r.end());
+            }
+        });
+    }
+
     // -------------------------------------------------------------------------
     // Component API
     // -------------------------------------------------------------------------
@@ -115,11 +386,68 @@ public final class ECSManager {
         return componentManager.hasComponent(id, type);
     }
 
+    /** Sets a zero-size {@link Tag} on an entity right away. */
+    public void addTag(int id, Class<? extends Tag> tag) {
+        componentManager.addTag(id, tag);
+    }
+
+    public void removeTag(int id, Class<? extends Tag> tag) {
+        componentManager.removeTag(id, tag);
+    }
+
+    public boolean hasTag(int id, Class<? extends Tag> tag) {
+        return componentManager.hasTag(id, tag);
+    }
+
+    /** Visits every entity carrying all {@code tags}; see {@link ComponentManager#forEachTagged}. */
+    @SafeVarargs
+    public final int forEachTagged(IntConsumer action, Class<? extends Tag>... tags) {
+        return componentManager.forEachTagged(action, tags);
+    }
+
+    /** Returns the component and stamps it as changed (see {@link ComponentManager#getMut}). */
+    public <T extends Component> T getMut(int id, Class<T> type) {
+        return componentManager.getMut(id, type);
+    }
+
+    /** Stamps a component as changed after mutating it in place. */
+    public void markChanged(int id, Class<? extends Component> type) {
+        componentManager.markChanged(id, type);
+    }
+
+    /** Current world tick used for change detection. */
+    public int currentTick() {
+        return componentManager.currentTick();
+    }
+
+    /**
+     * Registers a struct-of-arrays store so destroyed entities are removed from it too.
+     * Returns the store for chaining, e.g. {@code new PhysicsSystem(ecs.attachColumns(new MotionColumns()))}.
+     */
+    public MotionColumns attachColumns(MotionColumns columns) {
+        columnStores.add(Objects.requireNonNull(columns, "columns"));
+        return columns;
+    }
+
     // -------------------------------------------------------------------------
     // Systems API
     // -------------------------------------------------------------------------
     public void addSystem(SystemBase system) {
+        addSystem(system, scheduler);
+    }
+
+    /**
+     * Adds a system to a named group. Grouped systems are not run by {@link #update};
+     * they run through {@link #updateGroup}, typically from a fixed-step driver such as
+     * {@code core.FixedStepScheduler} at a rate chosen per group.
+     */
+    public void addSystem(SystemBase system, String group) {
+        addSystem(system, groups.computeIfAbsent(group, g -> new SystemScheduler()));
+    }
+
+    private void addSystem(SystemBase system, SystemScheduler target) {
         systems.add(system);
+        target.add(system);
         systemManager.register(system);
         try {
             system.initialize(this);
@@ -128,34 +456,75 @@ public final class ECSManager {
         }
     }
 
+    /**
+     * Starts a system on its own thread (see {@link SystemBase#signalFrame}); each
+     * {@link #update} hands it one frame. It runs beside the scheduled systems, so it
+     * should only touch the world through thread-safe paths such as {@link #commands()}.
+     */
+    public void addAsyncSystem(SystemBase system) {
+        asyncSystems.add(system);
+        system.start(this, true);
+    }
+
     public void removeSystem(SystemBase system) {
+        if (asyncSystems.remove(system)) system.shutdown();
         systems.remove(system);
+        scheduler.remove(system);
+        for (SystemScheduler group : groups.values()) group.remove(system);
         systemManager.unregister(system);
+        system.removed(this);
     }
 
-    /** Runs all systems (parallel if possible), then flushes deferred commands. */
+    /**
+     * Runs all ungrouped systems stage by stage (see {@link SystemScheduler}), then flushes deferred commands,
+     * also in a world without systems.
+     * Systems whose declared component access does not conflict share a stage and run in parallel.
+     * The {@link FrameTime} resource is updated first.
+     */
     public void update(float dt) {
-        if (systems.isEmpty()) return;
-
-        List<Callable<Void>> tasks = new ArrayList<>(systems.size());
-        for (SystemBase s : systems) {
-            tasks.add(() -> {
-                try {
-                    s.update(this, dt);
-                } catch (Throwable t) {
-                    logger.error("System update failed: " + s.getClass().getSimpleName(), t);
-                }
-                return null;
-            });
+        FrameTime last = frameTime.get();
+        frameTime.set(last == null ? new FrameTime(1, dt, dt) : new FrameTime(last.frame() + 1, dt, last.elapsed() + dt));
+        for (SystemBase s : asyncSystems) s.signalFrame(dt);
+        run(scheduler, dt);
+        for (FrameListener l : frameListeners) {
+            try {
+                l.frameEnded(this, dt);
+            } catch (Throwable t) {
+                logger.error("Frame listener failed", t);
+            }
         }
+    }
 
-        try {
-            pool.invokeAll(tasks);
-        } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            logger.error("ECS update interrupted", ie);
-        }
+    /** Called at the end of every {@link #update}, after the deferred commands were flushed. */
+    @FunctionalInterface
+    public interface FrameListener {
+        void frameEnded(ECSManager world, float dt);
+    }
+
+    public void addFrameListener(FrameListener listener) {
+        frameListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeFrameListener(FrameListener listener) {
+        frameListeners.remove(listener);
+    }
+
+    /** Runs the systems of one group (see {@link #addSystem(SystemBase, String)}), then flushes. */
+    public void updateGroup(String group, float dt) {
+        SystemScheduler s = groups.get(group);
+        if (s != null) run(s, dt);
+    }
+
+    private void run(SystemScheduler stages, float dt) {
+        stages.run(pool, this, dt);
 
+        // Changes applied by the flush get a tick newer than every system's last run
+        componentManager.advanceTick();
+        if (cpuAccounting) accountCpu(this::flushCommands);
+        else flushCommands();
+    }
+
+    private void flushCommands() {
         try {
             commandBuffer.flush();
         } catch (Throwable t) {
@@ -163,8 +532,96 @@ public final class ECSManager {
         }
     }
 
+    // -------------------------------------------------------------------------
+    // CPU accounting
+    // -------------------------------------------------------------------------
+
+    /**
+     * Turns per-world CPU accounting on or off. When on, every system update and
+     * command flush is timed with the running thread's CPU clock (wall time where the
+     * JVM has none), whichever worker it lands on. Ranges a system spreads over other
+     * workers ({@link JobSystem#parallelFor}, {@link #forEachChunkParallel}, the
+     * {@code ParallelECSExecutor} helpers) are charged to the same world; see
+     * {@link #getCpuNanos()}.
+     */
+    public void setCpuAccounting(boolean enabled) {
+        if (enabled && THREAD_CPU.isThreadCpuTimeSupported() && !THREAD_CPU.isThreadCpuTimeEnabled()) {
+            THREAD_CPU.setThreadCpuTimeEnabled(true);
+        }
+        cpuAccounting = enabled;
+    }
+
+    public boolean isCpuAccounting() {
+        return cpuAccounting;
+    }
+
+    /** CPU time spent in this world's systems and flushes while accounting was on. */
+    public long getCpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    /**
+     * Runs {@code work} and charges its CPU time to this world. Time spent in work of
+     * another world that the thread picked up meanwhile (a worker helping while it
+     * joins) is charged to that world only.
+     */
+    public void accountCpu(Runnable work) {
+        long[] nested = NESTED_CPU.get();
+        long outer = nested[0];
+        nested[0] = 0;
+        ECSManager outerWorld = ACCOUNTED.get();
+        ACCOUNTED.set(this);
+        long start = threadCpuNow();
+        try {
+            work.run();
+        } finally {
+            long used = Math.max(0, threadCpuNow() - start);
+            cpuNanos.add(Math.max(0, used - nested[0]));
+            nested[0] = outer + used;
+            ACCOUNTED.set(outerWorld);
+        }
+    }
+
+    private static long threadCpuNow() {
+        long t = THREAD_CPU.isCurrentThreadCpuTimeSupported() ? THREAD_CPU.getCurrentThreadCpuTime() : -1;
+        return t >= 0 ? t : System.nanoTime(); // virtual threads report -1
+    }
+
+    /**
+     * Estimated heap cost of this world per component type, archetype and bookkeeping
+     * structure; export with {@link MemoryReport#toJson()}. Takes the structure lock,
+     * so call it between frames.
+     */
+    public MemoryReport memoryReport() {
+        MemoryReport report = new MemoryReport(componentManager.getStorageMode());
+        componentManager.reportMemory(report);
+        int high = entityManager.highWaterMark();
+        int free = entityManager.freeSlots();
+        report.setEntities(new MemoryReport.EntityStats(entityManager.count(), high, free,
+                entityManager.footprintBytes(), high == 0 ? 0 : free / (double) high));
+        report.finish();
+        return report;
+    }
+
+    /** Dump of the current system schedule, one line per stage. */
+    public String describeSchedule() {
+        StringBuilder sb = new StringBuilder(scheduler.describe());
+        for (Map.Entry<String, SystemScheduler> g : groups.entrySet()) {
+            sb.append("[").append(g.getKey()).append("]\n").append(g.getValue().describe());
+        }
+        return sb.toString();
+    }
+
     /** Gracefully shuts down all systems and worker threads. */
     public void shutdown() {
+        for (SystemBase s : asyncSystems) {
+            try {
+                s.shutdown();
+            } catch (Throwable t) {
+                logger.warn("System shutdown failed: " + s.getClass().getSimpleName(), t);
+            }
+        }
+        asyncSystems.clear();
         for (SystemBase s : systems) {
             try {
                 s.shutdown();
@@ -173,7 +630,9 @@ public final class ECSManager {
             }
         }
         systems.clear();
-        pool.shutdownNow();
+        scheduler.clear();
+        groups.clear();
+        systemManager.shutdown();
     }
 
     // -------------------------------------------------------------------------
@@ -187,12 +646,26 @@ public final class ECSManager {
         return entityManager;
     }
 
+    /** Job system the scheduler and systems run on. */
+    public JobSystem getJobs() {
+        return jobs;
+    }
+
     public SystemManager getSystemManager() {
         return systemManager;
     }
 
+    public SystemScheduler getScheduler() {
+        return scheduler;
+    }
+
     public DeferredCommandBuffer commands() {
         return commandBuffer;
     }
 
+    /** World-level singletons with O(1) typed access and change versions. */
+    public Resources resources() {
+        return resources;
+    }
+
 }
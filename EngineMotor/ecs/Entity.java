@@ -1,47 +1,87 @@
 package ecs;
 
-import engine.IdGenerator;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Entity represents a unique object in the ECS.
- * Each has an integer ID for fast lookup and serialization.
+ * Entity is a thin handle onto an object in an {@link ECSManager} world.
+ * Its integer ID packs a slot index and a generation (see {@link EntityId});
+ * components live in the world's {@link ComponentManager}, and the methods
+ * below simply forward to it.
  */
-public class Entity {
+public final class Entity {
     private final int id;
-    private final Map<Class<? extends Component>, Component> components = new ConcurrentHashMap<>();
+    private final ECSManager world;
 
-    public Entity() {
-        this.id = IdGenerator.nextId();
+    Entity(int id, ECSManager world) {
+        this.id = id;
+        this.world = world;
     }
 
     public int getId() {
         return id;
     }
 
+    /** Slot index part of the id. */
+    public int index() {
+        return EntityId.index(id);
+    }
+
+    /** Generation part of the id. */
+    public int generation() {
+        return EntityId.generation(id);
+    }
+
+    /** The world that created this handle. */
+    public ECSManager world() {
+        return world;
+    }
+
+    /** True while the entity exists in its world (O(1), lock-free). */
+    public boolean isAlive() {
+        return world.isAlive(id);
+    }
+
     public <T extends Component> void addComponent(T component) {
-        components.put(component.getClass(), component);
+        world.addComponentNow(id, component);
     }
 
     public <T extends Component> T getComponent(Class<T> type) {
-        return type.cast(components.get(type));
+        return world.getComponent(id, type);
     }
 
     public boolean hasComponent(Class<? extends Component> type) {
-        return components.containsKey(type);
+        return world.hasComponent(id, type);
     }
 
     public void removeComponent(Class<? extends Component> type) {
-        components.remove(type);
+        world.removeComponentNow(id, type);
     }
 
+    /** Components currently attached, resolved from the entity signature. */
+    @SuppressWarnings("unchecked")
     public Collection<Component> getAllComponents() {
-        return components.values();
+        ComponentManager cm = world.getComponentManager();
+        List<Component> out = new ArrayList<>();
+        for (int type : cm.getSignature(id).toIndices()) {
+            Component c = cm.getComponent(id, (Class<? extends Component>) ComponentTypes.typeOf(type));
+            if (c != null) out.add(c);
+        }
+        return out;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Entity e && e.id == id && e.world == world;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
     }
 
     @Override
     public String toString() {
-        return "Entity{id=" + id + ", components=" + components.keySet() + "}";
+        return "Entity{id=" + id + ", index=" + index() + ", gen=" + generation()
+                + ", components=" + world.getComponentManager().getSignature(id) + "}";
     }
 }
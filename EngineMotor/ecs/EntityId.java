@@ -0,0 +1,37 @@
+package ecs;
+
+/**
+ * Packing helpers for entity ids.
+ *
+ * An id is {@code generation << INDEX_BITS | index}: the index addresses a slot in
+ * every dense per-entity array, the generation is bumped each time that slot is
+ * recycled so stale ids stop resolving. First-generation ids equal their index.
+ * Ids always fit in a non-negative {@code int}.
+ */
+public final class EntityId {
+
+    public static final int INDEX_BITS = 22;
+    public static final int GENERATION_BITS = 9;
+    public static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    public static final int GENERATION_MASK = (1 << GENERATION_BITS) - 1;
+
+    /** Largest slot index; about four million live entities per world. */
+    public static final int MAX_INDEX = INDEX_MASK;
+
+    /** Id that never refers to an entity. */
+    public static final int NONE = -1;
+
+    private EntityId() {}
+
+    public static int pack(int index, int generation) {
+        return ((generation & GENERATION_MASK) << INDEX_BITS) | (index & INDEX_MASK);
+    }
+
+    public static int index(int id) {
+        return id & INDEX_MASK;
+    }
+
+    public static int generation(int id) {
+        return (id >>> INDEX_BITS) & GENERATION_MASK;
+    }
+}
@@ -0,0 +1,393 @@
+package ecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Generational slot table for entity handles.
+ *
+ * Each slot holds the live {@link Entity} handle for one index. Creating, reserving
+ * and destroying take the table lock and reuse indices through a free list;
+ * {@link #get(int)} and {@link #isAlive(int)} are lock-free O(1) reads that compare
+ * the full id, so a handle whose slot has been recycled is reported dead.
+ *
+ * Freed indices are reused oldest first, and only once at least
+ * {@link #MIN_FREE_INDICES} are waiting, so a slot's generation advances at most once
+ * per that many frees. A slot whose generation would wrap is retired instead, so an
+ * old id never resolves to a newer entity.
+ */
+public final class EntityTable {
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    // Pages are never moved once created, so readers only need the volatile outer array
+    private volatile AtomicReferenceArray<Entity>[] pages = newPages(16);
+
+    /** Freed indices are only reused while at least this many are waiting. */
+    public static final int MIN_FREE_INDICES = 1024;
+
+    private static final int NIL = -1;
+
+    private int[] generations = new int[PAGE_SIZE];
+    private final BitSet reserved = new BitSet();
+    private final BitSet retired = new BitSet();
+    // Free indices as a FIFO linked through the slots, so any one can be unlinked in O(1)
+    private int[] freeNext = new int[PAGE_SIZE];
+    private int[] freePrev = new int[PAGE_SIZE];
+    private int freeHead = NIL;
+    private int freeTail = NIL;
+    private int freeCount;
+    private int nextIndex;
+    private volatile int alive;
+
+    // -------------------------------------------------------------------------
+    // Writers
+    // -------------------------------------------------------------------------
+
+    /** Creates a live entity. */
+    public synchronized Entity create(ECSManager world) {
+        Entity e = reserve(world);
+        commit(e);
+        return e;
+    }
+
+    /**
+     * Creates {@code count} live entities under a single lock acquisition. Free indices
+     * are reused as by {@link #reserve}; the index space for the rest is grown once.
+     */
+    public synchronized Entity[] createBatch(int count, ECSManager world) {
+        int fresh = reserveCapacity(count);
+        if (fresh > 0) page(nextIndex + fresh - 1, true); // grow the page table once
+
+        Entity[] out = new Entity[count];
+        for (int i = 0; i < count; i++) {
+            int index = takeIndex();
+            Entity e = new Entity(EntityId.pack(index, generations[index]), world);
+            page(index, true).set(index & PAGE_MASK, e);
+            out[i] = e;
+        }
+        alive += count;
+        return out;
+    }
+
+    /**
+     * Allocates an id without making it live yet. The handle can be stored and passed
+     * around immediately; it becomes alive on {@link #commit(Entity)}.
+     */
+    public synchronized Entity reserve(ECSManager world) {
+        reserveCapacity(1);
+        int index = takeIndex();
+        reserved.set(index);
+        return new Entity(EntityId.pack(index, generations[index]), world);
+    }
+
+    /**
+     * Reserves exactly {@code id} (index and generation), e.g. to replay a recorded
+     * create. The index must not be live, reserved or retired; indices skipped below it
+     * go to the free list. Taking an index off the free list is O(1).
+     */
+    public synchronized Entity reserveExact(int id, ECSManager world) {
+        if (id < 0) throw new IllegalArgumentException("Invalid entity id " + id);
+        int index = EntityId.index(id);
+        if (index < nextIndex) {
+            AtomicReferenceArray<Entity> page = page(index, false);
+            if (reserved.get(index) || retired.get(index) || (page != null && page.get(index & PAGE_MASK) != null)) {
+                throw new IllegalStateException("Entity index " + index + " is in use");
+            }
+            unlinkFree(index);
+        } else {
+            ensureSlots(index + 1);
+            for (int skipped = nextIndex; skipped < index; skipped++) pushFree(skipped);
+            nextIndex = index + 1;
+        }
+        generations[index] = EntityId.generation(id);
+        reserved.set(index);
+        return new Entity(id, world);
+    }
+
+    /** Reserves {@code count} ids under a single lock acquisition; see {@link #reserve}. */
+    public synchronized Entity[] reserveBatch(int count, ECSManager world) {
+        reserveCapacity(count);
+        Entity[] out = new Entity[count];
+        for (int i = 0; i < count; i++) {
+            int index = takeIndex();
+            reserved.set(index);
+            out[i] = new Entity(EntityId.pack(index, generations[index]), world);
+        }
+        return out;
+    }
+
+    /**
+     * Makes reserved handles live under a single lock acquisition. The ids of those
+     * that were committed are written to the front of {@code committedIds}; returns how many.
+     */
+    public synchronized int commitBatch(Entity[] handles, int[] committedIds) {
+        int n = 0;
+        for (Entity e : handles) {
+            if (commit(e)) committedIds[n++] = e.getId();
+        }
+        return n;
+    }
+
+    /** Makes a reserved handle live. Returns false if it is stale or already live. */
+    public synchronized boolean commit(Entity e) {
+        int id = e.getId();
+        int index = EntityId.index(id);
+        if (!reserved.get(index) || generations[index] != EntityId.generation(id)) return false;
+        reserved.clear(index);
+        page(index, true).set(index & PAGE_MASK, e);
+        alive++;
+        return true;
+    }
+
+    /**
+     * Destroys a live entity and recycles its index. Returns false for stale ids and for
+     * reserved handles that were never committed; release those with {@link #cancel}.
+     */
+    public synchronized boolean destroy(int id) {
+        return destroyLocked(id);
+    }
+
+    /** Releases a reserved handle that will not be committed. Returns false if it is stale or live. */
+    public synchronized boolean cancel(Entity e) {
+        int id = e.getId();
+        int index = EntityId.index(id);
+        if (!reserved.get(index) || generations[index] != EntityId.generation(id)) return false;
+        reserved.clear(index);
+        recycle(index);
+        return true;
+    }
+
+    /**
+     * Destroys the first {@code count} ids under a single lock acquisition. Ids that were
+     * actually destroyed are compacted to the front of {@code ids}; returns how many.
+     */
+    public synchronized int destroyBatch(int[] ids, int count) {
+        int destroyed = 0;
+        for (int i = 0; i < count; i++) {
+            if (destroyLocked(ids[i])) ids[destroyed++] = ids[i];
+        }
+        return destroyed;
+    }
+
+    private boolean destroyLocked(int id) {
+        if (id < 0) return false;
+        int index = EntityId.index(id);
+        if (index >= nextIndex || generations[index] != EntityId.generation(id)) return false;
+
+        AtomicReferenceArray<Entity> page = page(index, false);
+        if (page == null || page.get(index & PAGE_MASK) == null) return false;
+        page.set(index & PAGE_MASK, null);
+        alive--;
+        recycle(index);
+        return true;
+    }
+
+    /**
+     * Bumps the generation of a freed index, so outstanding handles go stale, and queues
+     * it for reuse; an index whose generation would wrap is retired instead.
+     */
+    private void recycle(int index) {
+        if (generations[index] == EntityId.GENERATION_MASK) {
+            retired.set(index);
+            return;
+        }
+        generations[index]++;
+        pushFree(index);
+    }
+
+    /** Drops every entity; outstanding handles become stale. */
+    public synchronized void clear() {
+        pages = newPages(16);
+        reserved.clear();
+        freeHead = freeTail = NIL;
+        freeCount = 0;
+        for (int index = 0; index < nextIndex; index++) {
+            if (!retired.get(index)) recycle(index);
+        }
+        alive = 0;
+    }
+
+    /**
+     * Replaces the contents with live entities carrying exactly the given ids (index and
+     * generation), e.g. when loading a snapshot. Unused indices below the highest one
+     * (or below the high-water mark) go to the free list. Returns the handles in the order of {@code ids}.
+     */
+    public synchronized Entity[] restore(int[] ids, ECSManager world) {
+        clear();
+        int top = 0;
+        for (int id : ids) top = Math.max(top, EntityId.index(id) + 1);
+        if (top - 1 > EntityId.MAX_INDEX) throw new IllegalArgumentException("Entity index out of range");
+        int high = Math.max(top, nextIndex); // indices used before stay out of the fresh range
+        ensureSlots(high);
+        freeHead = freeTail = NIL;
+        freeCount = 0;
+        nextIndex = high;
+
+        Entity[] out = new Entity[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            int index = EntityId.index(ids[i]);
+            if (page(index, false) != null && page(index, false).get(index & PAGE_MASK) != null) {
+                throw new IllegalArgumentException("Duplicate entity index " + index);
+            }
+            generations[index] = EntityId.generation(ids[i]);
+            retired.clear(index);
+            out[i] = new Entity(ids[i], world);
+            page(index, true).set(index & PAGE_MASK, out[i]);
+        }
+        alive = ids.length;
+
+        for (int index = 0; index < high; index++) {
+            AtomicReferenceArray<Entity> page = page(index, false);
+            if (retired.get(index) || (page != null && page.get(index & PAGE_MASK) != null)) continue;
+            pushFree(index);
+        }
+        return out;
+    }
+
+    // -------------------------------------------------------------------------
+    // Lock-free readers
+    // -------------------------------------------------------------------------
+
+    /** Live handle for the id, or null if it was never created or has been destroyed. */
+    public Entity get(int id) {
+        if (id < 0) return null;
+        int index = EntityId.index(id);
+        AtomicReferenceArray<Entity>[] p = pages;
+        int pi = index >>> PAGE_SHIFT;
+        if (pi >= p.length || p[pi] == null) return null;
+        Entity e = p[pi].get(index & PAGE_MASK);
+        return e != null && e.getId() == id ? e : null;
+    }
+
+    public boolean isAlive(int id) {
+        return get(id) != null;
+    }
+
+    /** Number of live entities. */
+    public int size() {
+        return alive;
+    }
+
+    /** Copy of all live handles in index order. */
+    public List<Entity> snapshot() {
+        List<Entity> out = new ArrayList<>(alive);
+        AtomicReferenceArray<Entity>[] p = pages;
+        for (AtomicReferenceArray<Entity> page : p) {
+            if (page == null) continue;
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                Entity e = page.get(i);
+                if (e != null) out.add(e);
+            }
+        }
+        return out;
+    }
+
+    /** Indices freed and waiting for reuse. */
+    public synchronized int freeSlots() {
+        return freeCount;
+    }
+
+    /** Estimated bytes of the table and the live handles. */
+    public synchronized long footprintBytes() {
+        AtomicReferenceArray<Entity>[] p = pages;
+        long bytes = Footprint.refArray(p) + Footprint.intArray(generations)
+                + Footprint.intArray(freeNext) + Footprint.intArray(freePrev)
+                + Footprint.array(long.class, (reserved.size() + retired.size()) / 64)
+                + (long) alive * Footprint.shallow(Entity.class);
+        for (AtomicReferenceArray<Entity> page : p) {
+            if (page != null) bytes += Footprint.shallow(AtomicReferenceArray.class) + Footprint.array(Object.class, PAGE_SIZE);
+        }
+        return bytes;
+    }
+
+    /** Highest index handed out so far, plus one. */
+    public synchronized int highWaterMark() {
+        return nextIndex;
+    }
+
+    // -------------------------------------------------------------------------
+    // Internals
+    // -------------------------------------------------------------------------
+
+    /**
+     * Checks that {@code count} more indices can be handed out and grows the per-slot
+     * arrays once for them. Returns how many will be fresh indices.
+     */
+    private int reserveCapacity(int count) {
+        if (count < 0) throw new IllegalArgumentException("Negative count: " + count);
+        int reused = Math.min(count, Math.max(0, freeCount - MIN_FREE_INDICES + 1));
+        int fresh = count - reused;
+        int room = EntityId.MAX_INDEX + 1 - nextIndex;
+        if (fresh > room) {
+            // Out of fresh indices: every free one is reused
+            if (count > freeCount + room) {
+                throw new IllegalStateException("Entity table full (" + (EntityId.MAX_INDEX + 1) + " slots)");
+            }
+            fresh = room;
+        }
+        ensureSlots(nextIndex + fresh);
+        return fresh;
+    }
+
+    /** Next index to hand out; {@link #reserveCapacity} must have been called for it. */
+    private int takeIndex() {
+        if (freeCount >= MIN_FREE_INDICES || (nextIndex > EntityId.MAX_INDEX && freeCount > 0)) {
+            int index = freeHead;
+            unlinkFree(index);
+            return index;
+        }
+        return nextIndex++;
+    }
+
+    private void pushFree(int index) {
+        freeNext[index] = NIL;
+        freePrev[index] = freeTail;
+        if (freeTail == NIL) freeHead = index;
+        else freeNext[freeTail] = index;
+        freeTail = index;
+        freeCount++;
+    }
+
+    private void unlinkFree(int index) {
+        int prev = freePrev[index], next = freeNext[index];
+        if (prev == NIL) freeHead = next;
+        else freeNext[prev] = next;
+        if (next == NIL) freeTail = prev;
+        else freePrev[next] = prev;
+        freeCount--;
+    }
+
+    private void ensureSlots(int size) {
+        if (size <= generations.length) return;
+        int cap = Math.max(size, generations.length * 2);
+        generations = Arrays.copyOf(generations, cap);
+        freeNext = Arrays.copyOf(freeNext, cap);
+        freePrev = Arrays.copyOf(freePrev, cap);
+    }
+
+    private AtomicReferenceArray<Entity> page(int index, boolean create) {
+        int pi = index >>> PAGE_SHIFT;
+        AtomicReferenceArray<Entity>[] p = pages;
+        if (pi >= p.length) {
+            if (!create) return null;
+            p = Arrays.copyOf(p, Math.max(pi + 1, p.length * 2));
+            pages = p;
+        }
+        if (p[pi] == null && create) {
+            p[pi] = new AtomicReferenceArray<>(PAGE_SIZE);
+            pages = p; // republish so readers see the new page
+        }
+        return p[pi];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Entity>[] newPages(int n) {
+        return (AtomicReferenceArray<Entity>[]) new AtomicReferenceArray<?>[n];
+    }
+}
@@ -0,0 +1,122 @@
+package ecs;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Heap size estimates for {@link MemoryReport}, assuming a 64-bit JVM with compressed
+ * oops: 12-byte object headers, 16-byte array headers, 4-byte references, 8-byte
+ * alignment. Estimates, not measurements; good for comparing storage layouts.
+ */
+final class Footprint {
+
+    static final int REF = 4;
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+
+    /** Approximate cost of one ConcurrentHashMap entry: node plus boxed Integer key. */
+    static final int HASH_ENTRY = 32 + 16;
+
+    private static final int MAX_DEEP_OBJECTS = 256;
+
+    private static final ClassValue<Long> shallowSizes = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER;
+            for (Class<?> k = type; k != null && k != Object.class; k = k.getSuperclass()) {
+                for (Field f : k.getDeclaredFields()) {
+                    if (!Modifier.isStatic(f.getModifiers())) size += fieldSize(f.getType());
+                }
+            }
+            return align(size);
+        }
+    };
+
+    private Footprint() {}
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /** Instance size of {@code type} without the objects it references. */
+    static long shallow(Class<?> type) {
+        return shallowSizes.get(type);
+    }
+
+    static long array(Class<?> componentType, long length) {
+        return align(ARRAY_HEADER + length * fieldSize(componentType));
+    }
+
+    static long intArray(int[] a) {
+        return a == null ? 0 : array(int.class, a.length);
+    }
+
+    static long refArray(Object[] a) {
+        return a == null ? 0 : array(Object.class, a.length);
+    }
+
+    /** ConcurrentHashMap table capacity for {@code size} entries at the default load factor. */
+    static int hashCapacity(int size) {
+        int needed = (int) Math.ceil(size / 0.75);
+        return needed <= 16 ? 16 : Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /**
+     * Size of {@code root} plus everything reachable from it through instance fields,
+     * each object counted once. JDK objects whose fields cannot be read are counted
+     * shallow; strings and arrays are sized exactly.
+     */
+    static long deep(Object root) {
+        if (root == null) return 0;
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<Object> todo = new ArrayDeque<>();
+        todo.push(root);
+        long total = 0;
+        while (!todo.isEmpty() && seen.size() < MAX_DEEP_OBJECTS) {
+            Object o = todo.pop();
+            if (!seen.add(o)) continue;
+            Class<?> type = o.getClass();
+            if (type.isArray()) {
+                int length = Array.getLength(o);
+                total += array(type.getComponentType(), length);
+                if (!type.getComponentType().isPrimitive()) {
+                    for (Object e : (Object[]) o) if (e != null) todo.push(e);
+                }
+                continue;
+            }
+            if (o instanceof String s) {
+                total += shallow(String.class) + array(byte.class, s.length());
+                continue;
+            }
+            total += shallow(type);
+            if (type.getModule() != Footprint.class.getModule()) continue; // JDK internals: shallow only
+            for (Class<?> k = type; k != null && k != Object.class; k = k.getSuperclass()) {
+                for (Field f : k.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers()) || f.getType().isPrimitive()) continue;
+                    if (f.getType() == ECSManager.class || f.getType() == Entity.class) continue; // world links
+                    try {
+                        f.setAccessible(true);
+                        Object v = f.get(o);
+                        if (v != null) todo.push(v);
+                    } catch (ReflectiveOperationException | RuntimeException e) {
+                        // unreadable field: the reference itself is already counted
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    private static int fieldSize(Class<?> t) {
+        if (t == long.class || t == double.class) return 8;
+        if (t == int.class || t == float.class) return 4;
+        if (t == short.class || t == char.class) return 2;
+        if (t == byte.class || t == boolean.class) return 1;
+        return REF;
+    }
+}
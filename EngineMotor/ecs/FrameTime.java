@@ -0,0 +1,12 @@
+package ecs;
+
+/**
+ * Timing of the frame being updated, published as a {@link Resources resource} at the
+ * start of every {@link ECSManager#update}.
+ *
+ * @param frame     number of the frame, starting at 1
+ * @param deltaTime seconds since the previous frame
+ * @param elapsed   seconds summed over all frames so far, this one included
+ */
+public record FrameTime(long frame, float deltaTime, double elapsed) {
+}
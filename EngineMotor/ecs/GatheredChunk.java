@@ -0,0 +1,53 @@
+package ecs;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * {@link ColumnView} over pooled storage, or over a tag-filtered query: up to {@link ArchetypeChunk#CAPACITY} query
+ * matches whose component references are gathered into typed arrays on first access
+ * to each column. One instance is only used by one thread at a time.
+ */
+final class GatheredChunk implements ColumnView {
+
+    private final ComponentManager owner;
+    private final int[] ids;
+    private Component[][] columns = new Component[4][];
+    private int[] columnTypes = new int[4];
+    private int columnCount;
+
+    GatheredChunk(ComponentManager owner, int[] ids) {
+        this.owner = owner;
+        this.ids = ids;
+    }
+
+    @Override
+    public int[] entityIds() {
+        return ids;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Component> T[] column(Class<T> type) {
+        int typeIndex = ComponentTypes.indexOf(type);
+        for (int c = 0; c < columnCount; c++) {
+            if (columnTypes[c] == typeIndex) return (T[]) columns[c];
+        }
+        ComponentPool<T> pool = owner.getStorageMode() == StorageMode.POOLED ? owner.getPool(type) : null;
+        T[] out = (T[]) Array.newInstance(type, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            T component = pool != null ? pool.get(ids[i]) : owner.getComponent(ids[i], type);
+            if (component == null) {
+                throw new IllegalArgumentException("Entity " + ids[i] + " has no " + type.getSimpleName());
+            }
+            out[i] = component;
+        }
+        if (columnCount == columns.length) {
+            columns = Arrays.copyOf(columns, columnCount * 2);
+            columnTypes = Arrays.copyOf(columnTypes, columnCount * 2);
+        }
+        columns[columnCount] = out;
+        columnTypes[columnCount++] = typeIndex;
+        return out;
+    }
+}
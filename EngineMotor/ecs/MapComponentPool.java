@@ -0,0 +1,53 @@
+package ecs;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash-map backed pool ({@link PoolType#HASH}).
+ * Provides O(1) access by entityId and tolerates concurrent adds and removes.
+ */
+public class MapComponentPool<T extends Component> implements ComponentPool<T> {
+    private final Map<Integer, T> components = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(int entityId, T component) {
+        components.put(entityId, component);
+    }
+
+    @Override
+    public void remove(int entityId) {
+        components.remove(entityId);
+    }
+
+    @Override
+    public T get(int entityId) {
+        return components.get(entityId);
+    }
+
+    @Override
+    public boolean has(int entityId) {
+        return components.containsKey(entityId);
+    }
+
+    @Override
+    public Collection<Entry<Integer, T>> entries() {
+        return components.entrySet();
+    }
+
+    @Override
+    public Collection<T> values() {
+        return components.values();
+    }
+
+    @Override
+    public int size() {
+        return components.size();
+    }
+
+    @Override
+    public PoolType type() {
+        return PoolType.HASH;
+    }
+}
@@ -0,0 +1,241 @@
+package ecs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Estimated heap cost of one world, from {@link ECSManager#memoryReport()}.
+ *
+ * Split into component types (how many, what the instances cost, what their storage
+ * adds on top), archetypes (ARCHETYPE mode), the entity table and the bookkeeping
+ * arrays (signatures, change ticks, queries, tags). Fragmentation is the share of
+ * allocated slots that hold nothing: empty chunk rows, spare dense capacity, empty
+ * hash buckets, freed entity indices.
+ *
+ * Byte counts are estimates (see {@code Footprint}): component instances are sized by
+ * walking a few samples per type. Use them to compare storage layouts in the same
+ * JVM, e.g. by diffing two {@link #toJson()} snapshots.
+ */
+public final class MemoryReport {
+
+    /** Samples per type used to estimate component instance size. */
+    static final int SAMPLES = 8;
+
+    /**
+     * One component type.
+     *
+     * @param componentBytes estimated size of the component instances themselves
+     * @param storageBytes   what the storage adds: arrays, hash entries, tag bits
+     */
+    public record TypeStats(String type, String storage, int count, long componentBytes,
+                            long storageBytes, double fragmentation) {
+        public long totalBytes() {
+            return componentBytes + storageBytes;
+        }
+    }
+
+    /**
+     * One archetype (ARCHETYPE mode). Bytes cover the chunk objects and their id arrays;
+     * the component columns are counted under their {@link TypeStats}.
+     */
+    public record ArchetypeStats(String mask, int entities, int chunks, long bytes, double fragmentation) {}
+
+    /** Entity handles and the generational id table. */
+    public record EntityStats(int alive, int highWaterMark, int freeSlots, long bytes, double fragmentation) {}
+
+    private final String storageMode;
+    private final Instant capturedAt = Instant.now();
+    private final List<TypeStats> types = new ArrayList<>();
+    private final List<ArchetypeStats> archetypes = new ArrayList<>();
+    private EntityStats entities;
+    private long signatureBytes;
+    private long changeTickBytes;
+    private long queryBytes;
+    private int queryCount;
+
+    MemoryReport(StorageMode mode) {
+        this.storageMode = mode.name();
+    }
+
+    // -------------------------------------------------------------------------
+    // Filled by ECSManager / ComponentManager
+    // -------------------------------------------------------------------------
+
+    void addType(TypeStats t) {
+        types.add(t);
+    }
+
+    void addArchetype(ArchetypeStats a) {
+        archetypes.add(a);
+    }
+
+    void setEntities(EntityStats e) {
+        entities = e;
+    }
+
+    void setOverhead(long signatures, long changeTicks, long queries, int queryCount) {
+        this.signatureBytes = signatures;
+        this.changeTickBytes = changeTicks;
+        this.queryBytes = queries;
+        this.queryCount = queryCount;
+    }
+
+    void finish() {
+        types.sort(Comparator.comparingLong(TypeStats::totalBytes).reversed());
+        archetypes.sort(Comparator.comparingLong(ArchetypeStats::bytes).reversed());
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors
+    // -------------------------------------------------------------------------
+
+    /** Per-type stats, largest first. */
+    public List<TypeStats> types() {
+        return Collections.unmodifiableList(types);
+    }
+
+    /** Per-archetype stats, largest first (empty in POOLED mode). */
+    public List<ArchetypeStats> archetypes() {
+        return Collections.unmodifiableList(archetypes);
+    }
+
+    public EntityStats entities() {
+        return entities;
+    }
+
+    public TypeStats type(Class<? extends Component> type) {
+        for (TypeStats t : types) {
+            if (t.type().equals(type.getName())) return t;
+        }
+        return null;
+    }
+
+    /** Signatures, change ticks and query lists. */
+    public long bookkeepingBytes() {
+        return signatureBytes + changeTickBytes + queryBytes;
+    }
+
+    public long totalBytes() {
+        long total = entities.bytes() + bookkeepingBytes();
+        for (TypeStats t : types) total += t.totalBytes();
+        for (ArchetypeStats a : archetypes) total += a.bytes();
+        return total;
+    }
+
+    // -------------------------------------------------------------------------
+    // Export
+    // -------------------------------------------------------------------------
+
+    /** The whole report as one JSON object. */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(256 + 160 * (types.size() + archetypes.size()));
+        sb.append("{\n");
+        field(sb, 1, "capturedAt", capturedAt.toString()).append(",\n");
+        field(sb, 1, "storageMode", storageMode).append(",\n");
+        field(sb, 1, "totalBytes", totalBytes()).append(",\n");
+        indent(sb, 1).append("\"entities\": {");
+        field(sb, -1, "alive", entities.alive()).append(", ");
+        field(sb, -1, "highWaterMark", entities.highWaterMark()).append(", ");
+        field(sb, -1, "freeSlots", entities.freeSlots()).append(", ");
+        field(sb, -1, "bytes", entities.bytes()).append(", ");
+        field(sb, -1, "fragmentation", entities.fragmentation()).append("},\n");
+        indent(sb, 1).append("\"bookkeeping\": {");
+        field(sb, -1, "signatureBytes", signatureBytes).append(", ");
+        field(sb, -1, "changeTickBytes", changeTickBytes).append(", ");
+        field(sb, -1, "queryBytes", queryBytes).append(", ");
+        field(sb, -1, "queries", queryCount).append("},\n");
+
+        indent(sb, 1).append("\"types\": [");
+        for (int i = 0; i < types.size(); i++) {
+            TypeStats t = types.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            indent(sb, 2).append('{');
+            field(sb, -1, "type", t.type()).append(", ");
+            field(sb, -1, "storage", t.storage()).append(", ");
+            field(sb, -1, "count", t.count()).append(", ");
+            field(sb, -1, "componentBytes", t.componentBytes()).append(", ");
+            field(sb, -1, "storageBytes", t.storageBytes()).append(", ");
+            field(sb, -1, "fragmentation", t.fragmentation()).append('}');
+        }
+        sb.append(types.isEmpty() ? "],\n" : "\n  ],\n");
+
+        indent(sb, 1).append("\"archetypes\": [");
+        for (int i = 0; i < archetypes.size(); i++) {
+            ArchetypeStats a = archetypes.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            indent(sb, 2).append('{');
+            field(sb, -1, "mask", a.mask()).append(", ");
+            field(sb, -1, "entities", a.entities()).append(", ");
+            field(sb, -1, "chunks", a.chunks()).append(", ");
+            field(sb, -1, "bytes", a.bytes()).append(", ");
+            field(sb, -1, "fragmentation", a.fragmentation()).append('}');
+        }
+        sb.append(archetypes.isEmpty() ? "]\n" : "\n  ]\n");
+        return sb.append("}\n").toString();
+    }
+
+    /** Writes {@link #toJson()} to {@code file}, replacing it. */
+    public void writeJson(Path file) throws IOException {
+        Files.writeString(file, toJson(), StandardCharsets.UTF_8);
+    }
+
+    /** One summary line plus the five largest types. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "World memory ~%.1f KB (%s): %d entities, %d types, %d archetypes",
+                totalBytes() / 1024.0, storageMode, entities.alive(), types.size(), archetypes.size()));
+        for (int i = 0; i < Math.min(5, types.size()); i++) {
+            TypeStats t = types.get(i);
+            sb.append(String.format(Locale.ROOT, "%n  %-28s %-10s %8d x  %8.1f KB  frag %.0f%%",
+                    simpleName(t.type()), t.storage(), t.count(), t.totalBytes() / 1024.0, t.fragmentation() * 100));
+        }
+        return sb.toString();
+    }
+
+    private static String simpleName(String type) {
+        return type.substring(Math.max(type.lastIndexOf('.'), type.lastIndexOf('$')) + 1);
+    }
+
+    // -------------------------------------------------------------------------
+    // JSON helpers (no external dependency)
+    // -------------------------------------------------------------------------
+
+    private static StringBuilder indent(StringBuilder sb, int level) {
+        for (int i = 0; i < level; i++) sb.append("  ");
+        return sb;
+    }
+
+    private static StringBuilder field(StringBuilder sb, int level, String name, String value) {
+        indent(sb, level).append('"').append(name).append("\": \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    private static StringBuilder field(StringBuilder sb, int level, String name, long value) {
+        return indent(sb, level).append('"').append(name).append("\": ").append(value);
+    }
+
+    private static StringBuilder field(StringBuilder sb, int level, String name, double value) {
+        return indent(sb, level).append('"').append(name).append("\": ")
+                .append(String.format(Locale.ROOT, "%.4f", value));
+    }
+}
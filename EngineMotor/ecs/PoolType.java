@@ -0,0 +1,11 @@
+package ecs;
+
+/**
+ * Component pool implementation used for a component class in {@link StorageMode#POOLED} mode.
+ */
+public enum PoolType {
+    /** Concurrent hash map keyed by entity id. Safe for concurrent structural changes. */
+    HASH,
+    /** Dense component array plus a paged sparse index. No boxing, dense iteration. */
+    SPARSE_SET
+}
@@ -0,0 +1,171 @@
+package ecs;
+
+import ecs.ComponentCopiers.Copier;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template for spawning many entities with the same component set.
+ *
+ * A prefab lists one prototype per component type. {@link Builder#build()} compiles it
+ * into a fixed copy plan for its archetype: the component types in signature order,
+ * each with its {@link ComponentCopiers copier}. Spawning {@code n} instances then fills
+ * one typed array per type and hands them to {@link ComponentManager#spawn} in a
+ * single structural step (see {@link ECSManager#spawnPrefab} and
+ * {@link DeferredCommandBuffer#spawnPrefab}).
+ *
+ * Immutable prototypes ({@link ComponentCopiers#isImmutable}) and prototypes added with
+ * {@link Builder#shared} are not copied: every instance references the same object.
+ * They are copy-on-write by convention. To change one for a single entity, add a new
+ * instance to it rather than editing the shared one.
+ */
+public final class Prefab {
+
+    private final String name;
+    private final ComponentMask signature;
+    private final Entry<?>[] entries; // in signature order
+
+    private Prefab(String name, ComponentMask signature, Entry<?>[] entries) {
+        this.name = name;
+        this.signature = signature;
+        this.entries = entries;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /** One component type of the prefab and how its instances are made. */
+    private static final class Entry<T extends Component> {
+        final Class<T> type;
+        final int typeIndex;
+        final T prototype;
+        final Copier<T> copier; // null: the prototype itself is shared
+
+        Entry(Class<T> type, T prototype, Copier<T> copier) {
+            this.type = type;
+            this.typeIndex = ComponentTypes.indexOf(type);
+            this.prototype = prototype;
+            this.copier = copier;
+        }
+
+        Component[] column(int count) {
+            @SuppressWarnings("unchecked")
+            T[] out = (T[]) Array.newInstance(type, count);
+            if (copier == null) Arrays.fill(out, prototype);
+            else copier.copy(prototype, out, 0, count);
+            return out;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Instantiation
+    // -------------------------------------------------------------------------
+
+    /** Fresh component columns for {@code count} instances, in {@link #signature()} order. */
+    Component[][] instantiate(int count) {
+        Component[][] columns = new Component[entries.length][];
+        for (int c = 0; c < entries.length; c++) columns[c] = entries[c].column(count);
+        return columns;
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors
+    // -------------------------------------------------------------------------
+
+    public String name() {
+        return name;
+    }
+
+    /** Component set every instance gets. */
+    public ComponentMask signature() {
+        return signature;
+    }
+
+    public List<Class<? extends Component>> types() {
+        List<Class<? extends Component>> out = new ArrayList<>(entries.length);
+        for (Entry<?> e : entries) out.add(e.type);
+        return Collections.unmodifiableList(out);
+    }
+
+    /** True if every instance shares the prototype of {@code type} instead of getting a copy. */
+    public boolean isShared(Class<? extends Component> type) {
+        for (Entry<?> e : entries) {
+            if (e.type == type) return e.copier == null;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "Prefab{" + name + ", " + signature + "}";
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    public static final class Builder {
+        private final String name;
+        private final Map<Class<?>, Entry<?>> byType = new LinkedHashMap<>();
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Adds a prototype, copied into every instance with the type's copier, or
+         * shared if the type is immutable. The prototype is copied here, so later
+         * changes to it do not leak into the prefab.
+         *
+         * @throws IllegalArgumentException if the type has no copier and cannot be compiled
+         */
+        @SuppressWarnings("unchecked")
+        public <T extends Component> Builder with(T prototype) {
+            Class<T> type = (Class<T>) prototype.getClass();
+            if (ComponentCopiers.isImmutable(type)) return put(new Entry<>(type, prototype, null));
+            return with(prototype, ComponentCopiers.get(type));
+        }
+
+        /** Adds a prototype with a custom copy routine. */
+        @SuppressWarnings("unchecked")
+        public <T extends Component> Builder with(T prototype, Copier<T> copier) {
+            Class<T> type = (Class<T>) prototype.getClass();
+            T[] own = (T[]) Array.newInstance(type, 1);
+            copier.copy(prototype, own, 0, 1);
+            return put(new Entry<>(type, own[0], copier));
+        }
+
+        /** Adds one instance that every spawned entity references; treat it as read-only. */
+        @SuppressWarnings("unchecked")
+        public <T extends Component> Builder shared(T instance) {
+            return put(new Entry<>((Class<T>) instance.getClass(), instance, null));
+        }
+
+        private Builder put(Entry<?> e) {
+            if (Tag.class.isAssignableFrom(e.type)) {
+                throw new IllegalArgumentException("Prefab '" + name + "': tag " + e.type.getSimpleName()
+                        + " has no data; add it after spawning");
+            }
+            if (byType.putIfAbsent(e.type, e) != null) {
+                throw new IllegalArgumentException("Prefab '" + name + "' already has a " + e.type.getSimpleName());
+            }
+            return this;
+        }
+
+        public Prefab build() {
+            Entry<?>[] entries = byType.values().toArray(new Entry<?>[0]);
+            Arrays.sort(entries, Comparator.comparingInt(e -> e.typeIndex));
+            ComponentMask mask = ComponentMask.EMPTY;
+            for (Entry<?> e : entries) mask = mask.with(e.typeIndex);
+            return new Prefab(name, mask, entries);
+        }
+    }
+}
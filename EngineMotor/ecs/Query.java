@@ -0,0 +1,203 @@
+package ecs;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Registered, incrementally maintained entity query.
+ *
+ * A query matches every entity whose component signature contains all of
+ * {@link #all()} and none of {@link #none()}. The {@link ComponentManager}
+ * updates the match list whenever a relevant component is added or removed,
+ * so reading it costs nothing per frame. Obtain one through
+ * {@link ECSManager#query(Class[])} or {@link ComponentManager#query(ComponentMask, ComponentMask)}.
+ *
+ * Matches can be walked one id at a time ({@link #forEach}, {@link #stream()}) or in
+ * chunks with direct column arrays ({@link #forEachChunk}, {@link #chunks()}); both
+ * streams split evenly for {@code .parallel()}.
+ *
+ * Like the storages, the list must not be read while structural changes are applied.
+ */
+public final class Query {
+
+    private final ComponentManager owner;
+    private final ComponentMask all;
+    private final ComponentMask none;
+
+    private int[] entities = new int[64];
+    private int[] positions = new int[64]; // entity slot index -> position + 1, 0 when absent
+    private int size;
+
+    Query(ComponentManager owner, ComponentMask all, ComponentMask none) {
+        this.owner = owner;
+        this.all = all;
+        this.none = none;
+    }
+
+    // -------------------------------------------------------------------------
+    // Public API
+    // -------------------------------------------------------------------------
+
+    /** True if an entity with the given signature belongs to this query. */
+    public boolean matches(ComponentMask signature) {
+        return signature.containsAll(all) && !signature.intersects(none);
+    }
+
+    /** Number of matching entities. */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Entity id at a position in {@code [0, size())}. */
+    public int entityAt(int index) {
+        return entities[index];
+    }
+
+    /** Backing id array; only the first {@link #size()} entries are valid. */
+    public int[] entities() {
+        return entities;
+    }
+
+    public boolean contains(int entityId) {
+        if (entityId < 0) return false;
+        int index = EntityId.index(entityId);
+        int[] pos = positions;
+        return index < pos.length && pos[index] != 0 && entities[pos[index] - 1] == entityId;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(entities[i]);
+        }
+    }
+
+    /** Splittable view of the matching ids; sized, so parallel streams split it evenly. */
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(entities, 0, size,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    // -------------------------------------------------------------------------
+    // Chunked iteration
+    // -------------------------------------------------------------------------
+
+    /** Receives the rows {@code [start, end)} of one chunk of matches. */
+    @FunctionalInterface
+    public interface ChunkAction {
+        void accept(ColumnView chunk, int start, int end);
+    }
+
+    /**
+     * Matches as ranges of at most {@link ArchetypeChunk#CAPACITY} rows with direct
+     * column arrays, so a loop over one range touches no maps. The list is built now;
+     * use it before the next structural change.
+     */
+    public Stream<ChunkRange> chunks() {
+        return owner.chunkRanges(this).stream();
+    }
+
+    /**
+     * Runs {@code action} once per chunk of matches, on this thread. For example:
+     * <pre>{@code
+     * query.forEachChunk((chunk, start, end) -> {
+     *     TransformComponent[] tf = chunk.column(TransformComponent.class);
+     *     VelocityComponent[] v = chunk.column(VelocityComponent.class);
+     *     for (int i = start; i < end; i++) tf[i].position.add(v[i].velocity);
+     * });
+     * }</pre>
+     * See {@link ECSManager#forEachChunkParallel} to spread the chunks over the job system.
+     */
+    public void forEachChunk(ChunkAction action) {
+        for (ChunkRange r : owner.chunkRanges(this)) action.accept(r.chunk(), r.start(), r.end());
+    }
+
+    /** Chunk ranges as a list, for callers that schedule them themselves. */
+    List<ChunkRange> chunkRanges() {
+        return owner.chunkRanges(this);
+    }
+
+    /**
+     * Visits matching entities whose {@code type} component was added or changed after
+     * {@code sinceTick}, typically {@link SystemBase#getLastRunTick()}. Walks the change
+     * log of that type, so static entities cost nothing.
+     *
+     * @return number of entities visited
+     */
+    public int forEachChanged(Class<? extends Component> type, int sinceTick, IntConsumer action) {
+        return owner.forEachChanged(type, sinceTick, this, action);
+    }
+
+    public ComponentMask all() {
+        return all;
+    }
+
+    public ComponentMask none() {
+        return none;
+    }
+
+    @Override
+    public String toString() {
+        return "Query{all=" + all + ", none=" + none + ", size=" + size + "}";
+    }
+
+    // -------------------------------------------------------------------------
+    // Maintenance (called by ComponentManager under its structure lock)
+    // -------------------------------------------------------------------------
+
+    void onSignatureChanged(int entityId, ComponentMask before, ComponentMask after) {
+        boolean was = matches(before);
+        boolean now = matches(after);
+        if (was == now) return;
+        if (now) insert(entityId);
+        else erase(entityId);
+    }
+
+    void insert(int entityId) {
+        if (contains(entityId)) return;
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, size * 2);
+        }
+        int slot = EntityId.index(entityId);
+        if (slot >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(slot + 1, positions.length * 2));
+        }
+        entities[size] = entityId;
+        positions[slot] = ++size;
+    }
+
+    void erase(int entityId) {
+        if (!contains(entityId)) return;
+        int slot = EntityId.index(entityId);
+        int index = positions[slot] - 1;
+        int last = --size;
+        if (index != last) {
+            int moved = entities[last];
+            entities[index] = moved;
+            positions[EntityId.index(moved)] = index + 1;
+        }
+        positions[slot] = 0;
+    }
+
+    long footprintBytes() {
+        return Footprint.shallow(Query.class) + Footprint.intArray(entities) + Footprint.intArray(positions);
+    }
+
+    void clear() {
+        Arrays.fill(positions, 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,94 @@
+package ecs;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Resumable round-robin cursor over a {@link Query}: each call visits about
+ * {@code 1/frames} of the matches, continuing where the previous call stopped, so the
+ * whole set is covered every {@code frames} calls. A call also stops at the owning
+ * system's time budget (see {@link SystemBase#setTimeBudgetMicros}) and the next one
+ * resumes from there.
+ *
+ * The query's order changes when entities leave it, so within one pass an entity may
+ * be visited twice or skipped until the next pass. Create through
+ * {@link SystemBase#slice(Query, int)} and run with {@link SystemBase#forEachSlice}.
+ */
+public final class QuerySlice {
+
+    private static final int CLOCK_STRIDE = 32; // entities between deadline checks
+
+    private final Query query;
+    private final int frames;
+    private int cursor;
+    private long passes;
+    private int lastVisited;
+    private boolean lastCutShort;
+
+    QuerySlice(Query query, int frames) {
+        if (frames < 1) throw new IllegalArgumentException("frames must be >= 1: " + frames);
+        this.query = query;
+        this.frames = frames;
+    }
+
+    /** Visits the next slice, stopping early once {@code System.nanoTime()} passes {@code deadlineNanos}. */
+    int forEach(IntConsumer action, long deadlineNanos) {
+        int size = query.size();
+        lastVisited = 0;
+        lastCutShort = false;
+        if (size == 0) return 0;
+        if (cursor >= size) cursor = 0;
+        int quota = (size + frames - 1) / frames;
+        int[] ids = query.entities();
+        int i = cursor;
+        int visited = 0;
+        while (visited < quota) {
+            action.accept(ids[i]);
+            visited++;
+            if (++i == size) {
+                i = 0;
+                passes++;
+            }
+            if (visited % CLOCK_STRIDE == 0 && visited < quota && System.nanoTime() > deadlineNanos) {
+                lastCutShort = true;
+                break;
+            }
+        }
+        cursor = i;
+        lastVisited = visited;
+        return visited;
+    }
+
+    public Query query() {
+        return query;
+    }
+
+    /** Frames one full pass is spread over. */
+    public int frames() {
+        return frames;
+    }
+
+    /** Position the next slice starts at. */
+    public int cursor() {
+        return cursor;
+    }
+
+    /** Completed passes over the whole query. */
+    public long passes() {
+        return passes;
+    }
+
+    /** Entities visited by the latest slice. */
+    public int lastVisited() {
+        return lastVisited;
+    }
+
+    /** True if the latest slice stopped at the time budget before its quota. */
+    public boolean wasCutShort() {
+        return lastCutShort;
+    }
+
+    @Override
+    public String toString() {
+        return "QuerySlice{" + cursor + "/" + query.size() + ", 1/" + frames + ", passes=" + passes + "}";
+    }
+}
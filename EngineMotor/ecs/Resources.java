@@ -0,0 +1,159 @@
+package ecs;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * World-level singletons (active listener, camera, config, {@link FrameTime}) kept in
+ * an array indexed by a dense per-class index, so a lookup is one array read.
+ *
+ * Every resource has a version counter bumped on {@link #set} and
+ * {@link #markChanged}. A consumer on another thread (mixer, renderer) remembers the
+ * version it last saw and compares: no scan, no lock. Hold the {@link Resource} handle
+ * from {@link #resource(Class)} to skip even the class lookup.
+ *
+ * Values are published through volatile fields: a reader that sees a version also
+ * sees the value set before it. Mutating a value in place is not visible to other
+ * threads by itself: edit, then call {@link #markChanged}, so a reader that sees the
+ * new version also sees the edit.
+ */
+public final class Resources {
+
+    private static final AtomicInteger nextIndex = new AtomicInteger();
+    private static final ClassValue<Integer> indices = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return nextIndex.getAndIncrement();
+        }
+    };
+
+    private volatile Resource<?>[] slots = new Resource<?>[16];
+
+    /** Handle to one resource slot; stays valid for the lifetime of the world. */
+    public static final class Resource<T> {
+        private final Class<T> type;
+        private final AtomicLong version = new AtomicLong();
+        private volatile T value;
+
+        private Resource(Class<T> type) {
+            this.type = type;
+        }
+
+        /** Current value, or null if unset. */
+        public T get() {
+            return value;
+        }
+
+        public void set(T newValue) {
+            value = newValue == null ? null : type.cast(newValue);
+            version.incrementAndGet();
+        }
+
+        /** Bumps the version after the value was edited in place; call once the edit is done. */
+        public void markChanged() {
+            version.incrementAndGet();
+        }
+
+        /** Times the resource was set or marked changed; 0 if never. */
+        public long version() {
+            return version.get();
+        }
+
+        public boolean changedSince(long seenVersion) {
+            return version.get() != seenVersion;
+        }
+
+        public boolean isPresent() {
+            return value != null;
+        }
+
+        public Class<T> type() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return type.getSimpleName() + "@v" + version.get() + "=" + value;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Public API
+    // -------------------------------------------------------------------------
+
+    /** Handle for {@code type}, creating an empty slot on first use. */
+    @SuppressWarnings("unchecked")
+    public <T> Resource<T> resource(Class<T> type) {
+        int index = indices.get(type);
+        Resource<?>[] s = slots;
+        if (index < s.length && s[index] != null) return (Resource<T>) s[index];
+        return (Resource<T>) createSlot(index, Objects.requireNonNull(type, "type"));
+    }
+
+    private synchronized Resource<?> createSlot(int index, Class<?> type) {
+        Resource<?>[] s = slots;
+        if (index >= s.length) s = Arrays.copyOf(s, Math.max(index + 1, s.length * 2));
+        if (s[index] == null) {
+            s[index] = new Resource<>(type);
+            slots = s; // republish so readers see the new slot
+        }
+        return s[index];
+    }
+
+    public <T> void set(Class<T> type, T value) {
+        resource(type).set(value);
+    }
+
+    /** Current value, or null if unset. */
+    public <T> T get(Class<T> type) {
+        return resource(type).get();
+    }
+
+    /**
+     * Current value.
+     * @throws IllegalStateException if the resource is unset
+     */
+    public <T> T require(Class<T> type) {
+        T value = get(type);
+        if (value == null) throw new IllegalStateException("No " + type.getSimpleName() + " resource");
+        return value;
+    }
+
+    /** Bumps the version of {@code type} after its value was edited in place. */
+    public void markChanged(Class<?> type) {
+        resource(type).markChanged();
+    }
+
+    /** Version of {@code type}; see {@link Resource#version()}. */
+    public long version(Class<?> type) {
+        return resource(type).version();
+    }
+
+    /** Unsets a resource and returns its last value; the version is bumped so readers notice. */
+    public <T> T remove(Class<T> type) {
+        Resource<T> r = resource(type);
+        T old = r.get();
+        if (old != null) r.set(null);
+        return old;
+    }
+
+    /** Number of resources currently set. */
+    public int size() {
+        int n = 0;
+        for (Resource<?> r : slots) {
+            if (r != null && r.isPresent()) n++;
+        }
+        return n;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Resources{");
+        for (Resource<?> r : slots) {
+            if (r != null && r.isPresent()) sb.append(sb.length() > 10 ? ", " : "").append(r);
+        }
+        return sb.append('}').toString();
+    }
+}
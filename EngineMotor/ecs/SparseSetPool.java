@@ -0,0 +1,201 @@
+package ecs;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * Sparse-set pool ({@link PoolType#SPARSE_SET}).
+ *
+ * Components live in a dense array with a parallel dense {@code int[]} of entity ids;
+ * a paged sparse index maps an entity slot index to its dense slot. Add, remove and get are
+ * O(1) without boxing, and systems can loop over {@link #denseComponents()} directly.
+ *
+ * Adds and removes are serialized on the pool; reads are lock-free and must not
+ * overlap structural changes (defer those through {@link ECSManager#commands()}).
+ */
+public final class SparseSetPool<T extends Component> implements ComponentPool<T> {
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final Class<T> componentType;
+
+    // Sparse pages hold (dense slot + 1); 0 means absent so fresh pages need no fill
+    private int[][] sparse = new int[16][];
+    private T[] dense;
+    private int[] entities;
+    private int size;
+
+    public SparseSetPool(Class<T> componentType) {
+        this(componentType, 64);
+    }
+
+    @SuppressWarnings("unchecked")
+    public SparseSetPool(Class<T> componentType, int initialCapacity) {
+        this.componentType = Objects.requireNonNull(componentType, "componentType");
+        int cap = Math.max(1, initialCapacity);
+        this.dense = (T[]) Array.newInstance(componentType, cap);
+        this.entities = new int[cap];
+    }
+
+    // -------------------------------------------------------------------------
+    // ComponentPool
+    // -------------------------------------------------------------------------
+
+    @Override
+    public synchronized void add(int entityId, T component) {
+        if (entityId < 0) throw new IllegalArgumentException("Negative entity id: " + entityId);
+        int slot = slotOf(entityId);
+        if (slot >= 0) {
+            dense[slot] = component;
+            return;
+        }
+        int stale = rawSlot(EntityId.index(entityId));
+        if (stale >= 0) remove(entities[stale]); // left behind by an earlier generation
+        if (size == dense.length) {
+            int cap = dense.length * 2;
+            dense = Arrays.copyOf(dense, cap);
+            entities = Arrays.copyOf(entities, cap);
+        }
+        dense[size] = component;
+        entities[size] = entityId;
+        setSlot(entityId, size + 1);
+        size++;
+    }
+
+    @Override
+    public synchronized void remove(int entityId) {
+        int slot = slotOf(entityId);
+        if (slot < 0) return;
+        int last = --size;
+        if (slot != last) {
+            dense[slot] = dense[last];
+            entities[slot] = entities[last];
+            setSlot(entities[slot], slot + 1);
+        }
+        dense[last] = null;
+        setSlot(entityId, 0);
+    }
+
+    @Override
+    public T get(int entityId) {
+        int slot = slotOf(entityId);
+        return slot < 0 ? null : dense[slot];
+    }
+
+    @Override
+    public boolean has(int entityId) {
+        return slotOf(entityId) >= 0;
+    }
+
+    /** Compatibility view; allocates one entry per element while iterating. */
+    @Override
+    public Collection<Entry<Integer, T>> entries() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Entry<Integer, T>> iterator() {
+                return new Iterator<>() {
+                    private int i;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < size;
+                    }
+
+                    @Override
+                    public Entry<Integer, T> next() {
+                        if (i >= size) throw new NoSuchElementException();
+                        Entry<Integer, T> e = new AbstractMap.SimpleImmutableEntry<>(entities[i], dense[i]);
+                        i++;
+                        return e;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Collection<T> values() {
+        return Collections.unmodifiableList(Arrays.asList(dense).subList(0, size));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public PoolType type() {
+        return PoolType.SPARSE_SET;
+    }
+
+    // -------------------------------------------------------------------------
+    // Dense iteration
+    // -------------------------------------------------------------------------
+
+    /** Backing component array; only the first {@link #size()} entries are valid. */
+    public T[] denseComponents() {
+        return dense;
+    }
+
+    /** Backing entity id array, parallel to {@link #denseComponents()}. */
+    public int[] denseEntities() {
+        return entities;
+    }
+
+    /** Dense slot of the entity, or -1 if it has no component here. */
+    public int slotOf(int entityId) {
+        if (entityId < 0) return -1;
+        int slot = rawSlot(EntityId.index(entityId));
+        return slot >= 0 && entities[slot] == entityId ? slot : -1;
+    }
+
+    public Class<T> componentType() {
+        return componentType;
+    }
+
+    /** Allocated dense slots. */
+    public int capacity() {
+        return dense.length;
+    }
+
+    /** Estimated bytes of the dense and sparse arrays, not counting the components. */
+    synchronized long footprintBytes() {
+        long bytes = Footprint.refArray(dense) + Footprint.intArray(entities) + Footprint.refArray(sparse);
+        for (int[] page : sparse) bytes += Footprint.intArray(page);
+        return bytes;
+    }
+
+    // -------------------------------------------------------------------------
+    // Internals
+    // -------------------------------------------------------------------------
+
+    private int rawSlot(int index) {
+        int[][] pages = sparse;
+        int p = index >>> PAGE_SHIFT;
+        if (p >= pages.length || pages[p] == null) return -1;
+        return pages[p][index & PAGE_MASK] - 1;
+    }
+
+    private void setSlot(int entityId, int value) {
+        int index = EntityId.index(entityId);
+        int p = index >>> PAGE_SHIFT;
+        if (p >= sparse.length) {
+            if (value == 0) return;
+            sparse = Arrays.copyOf(sparse, Math.max(p + 1, sparse.length * 2));
+        }
+        int[] page = sparse[p];
+        if (page == null) {
+            if (value == 0) return;
+            page = sparse[p] = new int[PAGE_SIZE];
+        }
+        page[index & PAGE_MASK] = value;
+    }
+}
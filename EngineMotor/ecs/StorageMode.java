@@ -0,0 +1,11 @@
+package ecs;
+
+/**
+ * Component storage layout used by a {@link ComponentManager}.
+ */
+public enum StorageMode {
+    /** One pool per component type, keyed by entity id. Good for sparse or frequently changing data. */
+    POOLED,
+    /** Entities grouped by component set into fixed-size chunks of parallel arrays. Good for bulk iteration. */
+    ARCHETYPE
+}
@@ -1,8 +1,13 @@
 package ecs;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.Condition;
+import java.util.function.IntConsumer;
 import utils.Logger;
 
 /**
@@ -10,19 +15,67 @@ import utils.Logger;
  * Provides safe lifecycle management, pause/resume, and blocking shutdown.
  * Systems should override {@link #update(ECSManager, float)} for logic,
  * and optionally {@link #onInit(ECSManager)} / {@link #onShutdown()} for setup/cleanup.
+ *
+ * <p>Async mode ({@code start(ecs, true)}) runs the system on its own thread, woken by
+ * {@link #signalFrame(float)}: one update per signalled frame, with that frame's dt.
+ * The thread is virtual unless the system is {@linkplain #setLatencyCritical latency
+ * critical}. Up to {@code maxPendingFrames} frames may queue while the system is busy;
+ * beyond that the {@link BackPressure} policy decides what the frame driver does.
+ *
+ * <p>Run criteria for scheduled systems: {@link #setRunRate} runs the system at most
+ * at a fixed frequency, {@link #setTimeBudgetMicros} gives it a per-run time budget,
+ * and {@link #slice} spreads a query over several frames. The {@code SystemScheduler}
+ * applies them; async systems ignore them.
  */
 public abstract class SystemBase implements Runnable {
 
+    /** What {@link #signalFrame} does when the async worker is a full queue behind. */
+    public enum BackPressure {
+        /** Adds the frame's dt to the newest queued frame: one update fewer, no time lost. */
+        COALESCE,
+        /** Blocks the frame driver until the worker has taken a frame. */
+        BLOCK
+    }
+
     protected final Logger log = new Logger(getClass());
 
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean paused  = new AtomicBoolean(false);
     private final ReentrantLock lock = new ReentrantLock();
-    private final Condition resumeCondition = lock.newCondition();
+    private final Condition frameReady = lock.newCondition();  // frame queued, resumed or stopped
+    private final Condition frameTaken = lock.newCondition();  // queue space freed or worker idle
 
-    private Thread workerThread;
+    private volatile Thread workerThread;
     private ECSManager ecsRef;
-    private float deltaTime;
+
+    // Async frame queue (ring of dt values), guarded by lock
+    private float[] frames = new float[2];
+    private int frameHead;
+    private int frameCount;
+    private boolean busy;
+    private BackPressure backPressure = BackPressure.COALESCE;
+    private boolean latencyCritical;
+    private long framesRun;
+    private long coalescedFrames;
+
+    // Component access declared for the scheduler
+    private final Set<Class<? extends Component>> readTypes = new LinkedHashSet<>();
+    private final Set<Class<? extends Component>> writeTypes = new LinkedHashSet<>();
+    private volatile boolean accessDeclared;
+
+    // World tick of the last completed scheduled update, for change filters
+    private volatile int lastRunTick;
+
+    // Run criteria, applied by the scheduler (runs of one system never overlap)
+    private float runPeriod;        // seconds between runs, 0 = every frame
+    private long budgetNanos;       // 0 = unlimited
+    private float pendingDt;        // frame time not yet handed to update()
+    private float runPhase;         // time toward the next rate-limited run, kept across runs
+    private long debtNanos;         // time spent beyond the budget, paid back by skipping frames
+    private long deadlineNanos = Long.MAX_VALUE;
+    private long lastRunNanos;
+    private volatile long overruns;
+    private volatile long skippedFrames;
 
     // -------------------------------------------------------------------------
     // Lifecycle hooks (for subclass override)
@@ -34,13 +87,190 @@ public abstract class SystemBase implements Runnable {
     /** Called when the system shuts down. Override for cleanup logic. */
     protected void onShutdown() {}
 
+    /** Called by {@link ECSManager#removeSystem} once the world no longer runs this system. */
+    protected void onRemoved(ECSManager ecs) {}
+
     /** Called every frame (or tick) to perform the system's main logic. */
     public abstract void update(ECSManager ecs, float deltaTime);
 
+    // -------------------------------------------------------------------------
+    // Component access (used by the SystemScheduler)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Declares component types this system only reads. Call from the constructor.
+     * Systems that never declare access are scheduled exclusively, after everything
+     * registered before them and before everything registered after them.
+     */
+    @SafeVarargs
+    protected final void reads(Class<? extends Component>... types) {
+        for (Class<? extends Component> type : types) {
+            readTypes.add(type);
+        }
+        accessDeclared = true;
+    }
+
+    /** Declares component types this system writes. Call from the constructor. */
+    @SafeVarargs
+    protected final void writes(Class<? extends Component>... types) {
+        for (Class<? extends Component> type : types) {
+            writeTypes.add(type);
+        }
+        accessDeclared = true;
+    }
+
+    public Set<Class<? extends Component>> getReadTypes() {
+        return Collections.unmodifiableSet(readTypes);
+    }
+
+    public Set<Class<? extends Component>> getWriteTypes() {
+        return Collections.unmodifiableSet(writeTypes);
+    }
+
+    /** True once {@link #reads} or {@link #writes} has been called. */
+    public boolean hasDeclaredAccess() {
+        return accessDeclared;
+    }
+
+    /**
+     * Tick at which this system last ran under the scheduler (0 before the first run).
+     * Pass it to {@link Query#forEachChanged} to only visit what changed since then.
+     */
+    public int getLastRunTick() {
+        return lastRunTick;
+    }
+
+    /** Set by the scheduler after each update. */
+    public void setLastRunTick(int tick) {
+        this.lastRunTick = tick;
+    }
+
+    // -------------------------------------------------------------------------
+    // Run criteria (applied by the SystemScheduler)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs the system {@code hz} times per second on average, never more than once per
+     * frame; skipped frames' dt is added to the next run's. Time past each period is kept,
+     * so a frame rate that is not a multiple of {@code hz} does not lower the rate.
+     * {@code 0} runs it every frame.
+     */
+    public void setRunRate(float hz) {
+        if (hz < 0) throw new IllegalArgumentException("hz must be >= 0: " + hz);
+        this.runPeriod = hz == 0 ? 0f : 1f / hz;
+        this.runPhase = 0f;
+    }
+
+    /** Run frequency in Hz, 0 if the system runs every frame. */
+    public float getRunRate() {
+        return runPeriod == 0 ? 0f : 1f / runPeriod;
+    }
+
+    /**
+     * Limits each run to {@code micros} microseconds ({@code 0}: no limit). Slices stop
+     * at the budget and {@link #isOverBudget()} turns true for custom loops. A run that
+     * still overruns is reported, and the excess is paid back by skipping later frames.
+     */
+    public void setTimeBudgetMicros(long micros) {
+        if (micros < 0) throw new IllegalArgumentException("micros must be >= 0: " + micros);
+        this.budgetNanos = micros * 1_000L;
+    }
+
+    public long getTimeBudgetMicros() {
+        return budgetNanos / 1_000L;
+    }
+
+    /** True once the current run has used up its time budget; poll it in long loops. */
+    protected final boolean isOverBudget() {
+        return System.nanoTime() > deadlineNanos;
+    }
+
+    /** Round-robin cursor covering {@code query} once every {@code frames} runs. */
+    protected final QuerySlice slice(Query query, int frames) {
+        return new QuerySlice(query, frames);
+    }
+
+    /**
+     * Visits the next slice of {@code slice}'s query, stopping early at the time budget.
+     * @return entities visited
+     */
+    protected final int forEachSlice(QuerySlice slice, IntConsumer action) {
+        return slice.forEach(action, deadlineNanos);
+    }
+
+    /**
+     * Called by the scheduler before a run: adds {@code dt} to the pending frame time and
+     * returns it if the system should run now, or {@code -1} to skip this frame.
+     */
+    public float beginScheduledRun(float dt) {
+        pendingDt += dt;
+        if (runPeriod > 0) {
+            runPhase += dt;
+            if (runPhase < runPeriod) return -1f;
+        }
+        if (budgetNanos > 0 && debtNanos > 0) {
+            debtNanos = Math.max(0, debtNanos - budgetNanos);
+            skippedFrames++;
+            return -1f;
+        }
+        // Carry the overshoot; after a stall at most one catch-up run follows, not a burst
+        if (runPeriod > 0) runPhase = Math.min(runPhase - runPeriod, runPeriod);
+        float runDt = pendingDt;
+        pendingDt = 0f;
+        deadlineNanos = budgetNanos > 0 ? System.nanoTime() + budgetNanos : Long.MAX_VALUE;
+        return runDt;
+    }
+
+    /** Called by the scheduler after a run; returns true if it overran the budget. */
+    public boolean endScheduledRun(long elapsedNanos) {
+        deadlineNanos = Long.MAX_VALUE;
+        lastRunNanos = elapsedNanos;
+        if (budgetNanos == 0 || elapsedNanos <= budgetNanos) return false;
+        debtNanos += elapsedNanos - budgetNanos;
+        overruns++;
+        return true;
+    }
+
+    /** Wall time of the latest scheduled run. */
+    public long getLastRunNanos() {
+        return lastRunNanos;
+    }
+
+    /** Scheduled runs that exceeded the time budget. */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /** Frames skipped to pay back budget overruns (rate limiting not included). */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /** True if the two systems must not run at the same time. */
+    public boolean conflictsWith(SystemBase other) {
+        if (!accessDeclared || !other.accessDeclared) return true;
+        for (Class<? extends Component> t : writeTypes) {
+            if (other.writeTypes.contains(t) || other.readTypes.contains(t)) return true;
+        }
+        for (Class<? extends Component> t : other.writeTypes) {
+            if (readTypes.contains(t)) return true;
+        }
+        return false;
+    }
+
     // -------------------------------------------------------------------------
     // Initialization / start
     // -------------------------------------------------------------------------
 
+    /** Runs {@link #onRemoved}, logging instead of throwing on failure. */
+    public void removed(ECSManager ecs) {
+        try {
+            onRemoved(ecs);
+        } catch (Throwable t) {
+            log.error("System removal hook failed: " + getClass().getSimpleName(), t);
+        }
+    }
+
     public void initialize(ECSManager ecs) {
         try {
             onInit(ecs);
@@ -50,10 +280,42 @@ public abstract class SystemBase implements Runnable {
         }
     }
     
+    // -------------------------------------------------------------------------
+    // Async configuration (call before start)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Sets how many frames may wait while the async worker is busy, and what happens
+     * to further frames. Default: 2 frames, {@link BackPressure#COALESCE}.
+     */
+    public void configureAsync(int maxPendingFrames, BackPressure policy) {
+        lock.lock();
+        try {
+            if (frameCount > 0) throw new IllegalStateException("Frames pending: " + getClass().getSimpleName());
+            frames = new float[Math.max(1, maxPendingFrames)];
+            frameHead = 0;
+            backPressure = policy != null ? policy : BackPressure.COALESCE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the async worker on a dedicated max-priority platform thread instead of a
+     * virtual thread, so it is never queued behind other virtual threads for a carrier.
+     */
+    public void setLatencyCritical(boolean latencyCritical) {
+        this.latencyCritical = latencyCritical;
+    }
+
+    public boolean isLatencyCritical() {
+        return latencyCritical;
+    }
+
     /**
      * Initializes and starts the system.
      * @param ecs the ECSManager reference
-     * @param async if true, runs in a dedicated background thread
+     * @param async if true, runs on its own thread, one update per {@link #signalFrame}
      */
     public synchronized void start(ECSManager ecs, boolean async) {
         if (running.get()) {
@@ -73,8 +335,10 @@ public abstract class SystemBase implements Runnable {
         }
 
         if (async) {
-            workerThread = new Thread(this, getClass().getSimpleName() + "-Thread");
-            workerThread.start();
+            String name = getClass().getSimpleName() + "-Thread";
+            workerThread = latencyCritical
+                    ? Thread.ofPlatform().name(name).daemon(true).priority(Thread.MAX_PRIORITY).start(this)
+                    : Thread.ofVirtual().name(name).start(this);
         }
     }
 
@@ -101,12 +365,20 @@ public abstract class SystemBase implements Runnable {
     @Override
     public void run() {
         log.info("System thread running: " + getClass().getSimpleName());
-        while (running.get()) {
+        DeferredCommandBuffer.setSource(DeferredCommandBuffer.ASYNC_SOURCE); // the thread is this system's alone
+        while (true) {
+            float dt;
             lock.lock();
             try {
-                while (paused.get()) {
-                    resumeCondition.await();
+                while (running.get() && (paused.get() || frameCount == 0)) {
+                    frameReady.await();
                 }
+                if (!running.get()) break;
+                dt = frames[frameHead];
+                frameHead = (frameHead + 1) % frames.length;
+                frameCount--;
+                busy = true;
+                frameTaken.signalAll();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 log.warn("System thread interrupted: " + getClass().getSimpleName());
@@ -115,23 +387,101 @@ public abstract class SystemBase implements Runnable {
                 lock.unlock();
             }
 
-            if (ecsRef != null) tick(ecsRef, deltaTime);
+            if (ecsRef != null) tick(ecsRef, dt);
 
+            lock.lock();
             try {
-                Thread.sleep(1); // prevent CPU spin
-            } catch (InterruptedException ignored) {}
+                busy = false;
+                framesRun++;
+                frameTaken.signalAll();
+            } finally {
+                lock.unlock();
+            }
         }
         log.info("System thread exiting: " + getClass().getSimpleName());
     }
 
+    /**
+     * Queues one frame for the async worker. Ignored if the system is not running
+     * asynchronously or is paused. When {@code maxPendingFrames} are already queued
+     * the {@link BackPressure} policy applies.
+     */
+    public void signalFrame(float dt) {
+        if (workerThread == null || !running.get()) return;
+        lock.lock();
+        try {
+            if (paused.get()) return;
+            if (frameCount == frames.length) {
+                if (backPressure == BackPressure.COALESCE) {
+                    frames[(frameHead + frameCount - 1) % frames.length] += dt;
+                    coalescedFrames++;
+                    return;
+                }
+                while (frameCount == frames.length && running.get() && !paused.get()) {
+                    frameTaken.await();
+                }
+                if (!running.get() || paused.get()) return;
+            }
+            frames[(frameHead + frameCount) % frames.length] = dt;
+            frameCount++;
+            frameReady.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every queued frame has been processed, e.g. as an end-of-frame barrier.
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while ((frameCount > 0 || busy) && running.get() && workerThread != null) {
+                if (nanos <= 0) return false;
+                nanos = frameTaken.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Frames processed by the async worker. */
+    public long getFramesRun() {
+        lock.lock();
+        try { return framesRun; } finally { lock.unlock(); }
+    }
+
+    /** Frames folded into an earlier one by {@link BackPressure#COALESCE}. */
+    public long getCoalescedFrames() {
+        lock.lock();
+        try { return coalescedFrames; } finally { lock.unlock(); }
+    }
+
+    /** Frames queued but not yet started. */
+    public int getPendingFrames() {
+        lock.lock();
+        try { return frameCount; } finally { lock.unlock(); }
+    }
+
     // -------------------------------------------------------------------------
     // Thread control
     // -------------------------------------------------------------------------
 
-    /** Pause system execution safely. */
+    /** Pause system execution safely. Frames signalled while paused are ignored. */
     public void pause() {
-        if (paused.compareAndSet(false, true)) {
-            log.info("System paused: " + getClass().getSimpleName());
+        lock.lock();
+        try {
+            if (paused.compareAndSet(false, true)) {
+                frameTaken.signalAll(); // release a blocked frame driver
+                log.info("System paused: " + getClass().getSimpleName());
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -140,7 +490,7 @@ public abstract class SystemBase implements Runnable {
         lock.lock();
         try {
             if (paused.compareAndSet(true, false)) {
-                resumeCondition.signalAll();
+                frameReady.signalAll();
                 log.info("System resumed: " + getClass().getSimpleName());
             }
         } finally {
@@ -162,9 +512,16 @@ public abstract class SystemBase implements Runnable {
     public synchronized void shutdown() {
         if (!running.get()) return;
 
-        running.set(false);
-        paused.set(false);
-        resume(); // wake any waiting threads
+        lock.lock();
+        try {
+            running.set(false);
+            paused.set(false);
+            frameCount = 0;
+            frameReady.signalAll();  // wake the worker and any blocked frame driver
+            frameTaken.signalAll();
+        } finally {
+            lock.unlock();
+        }
 
         if (workerThread != null && workerThread.isAlive()) {
             try {
@@ -196,8 +553,8 @@ public abstract class SystemBase implements Runnable {
         }
     }
 
-    /** Update the delta time for threaded systems. */
-    public void setDeltaTime(float dt) { this.deltaTime = dt; }
+    /** Update the delta time for threaded systems; same as {@link #signalFrame(float)}. */
+    public void setDeltaTime(float dt) { signalFrame(dt); }
 
     /** Optional explicit ECS reference getter. */
     public ECSManager getECS() { return ecsRef; }
@@ -0,0 +1,14 @@
+package ecs;
+
+/**
+ * Zero-size marker component ("Player", "Static", "Dirty").
+ *
+ * A tag is not stored as an object: {@link ComponentManager#addTag} sets its bit in
+ * the entity signature and in a per-tag {@link TagSet}, so set, clear and test are
+ * O(1) and queries mentioning the tag work as for any component. Declare tags as
+ * empty classes implementing this interface. Adding an instance through
+ * {@code addComponent} (e.g. from the command buffer) is the same as
+ * {@code addTag}; {@code getComponent} returns null for tags.
+ */
+public interface Tag extends Component {
+}
@@ -0,0 +1,62 @@
+package ecs;
+
+import java.util.Arrays;
+
+/**
+ * Bitset of entity slot indices ({@link EntityId#index}) carrying one {@link Tag}.
+ * Written under the component manager's structure lock; reads are unsynchronized
+ * like the other storages.
+ */
+public final class TagSet {
+
+    private long[] words = new long[16];
+    private int count;
+
+    TagSet() {}
+
+    public boolean get(int index) {
+        int w = index >>> 6;
+        long[] a = words;
+        return w < a.length && (a[w] & (1L << index)) != 0;
+    }
+
+    /** Sets the bit; returns false if it was already set. */
+    boolean set(int index) {
+        int w = index >>> 6;
+        if (w >= words.length) words = Arrays.copyOf(words, Math.max(w + 1, words.length * 2));
+        long bit = 1L << index;
+        if ((words[w] & bit) != 0) return false;
+        words[w] |= bit;
+        count++;
+        return true;
+    }
+
+    /** Clears the bit; returns false if it was not set. */
+    boolean clear(int index) {
+        int w = index >>> 6;
+        long bit = 1L << index;
+        if (w >= words.length || (words[w] & bit) == 0) return false;
+        words[w] &= ~bit;
+        count--;
+        return true;
+    }
+
+    long footprintBytes() {
+        return Footprint.shallow(TagSet.class) + Footprint.array(long.class, words.length);
+    }
+
+    void clearAll() {
+        Arrays.fill(words, 0L);
+        count = 0;
+    }
+
+    /** Number of tagged entities. */
+    public int size() {
+        return count;
+    }
+
+    /** Backing words; bit {@code i} of word {@code w} is slot index {@code w * 64 + i}. */
+    public long[] words() {
+        return words;
+    }
+}
@@ -0,0 +1,276 @@
+package ecs;
+
+import core.JobSystem;
+import core.JobSystem.Job;
+import core.JobSystem.Priority;
+import utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs many isolated ECS worlds (matches, shards, instances) on one shared
+ * {@link JobSystem}, e.g. for server-side simulation.
+ *
+ * Each world is a plain {@link ECSManager} with its own entities, id space, components,
+ * systems and command buffer; nothing is shared between worlds except the worker pool,
+ * so hosting more worlds never adds threads.
+ *
+ * {@link #tick(float)} advances every world by exactly one step: a heavy world cannot
+ * take a second step while a light one waits, and a world never runs concurrently with
+ * itself. Worlds are submitted most expensive first (by a moving average of their step
+ * time) so the long ones do not end up last and stretch the tick. Inside its step a
+ * world still runs its stages in parallel on the same pool.
+ *
+ * Per-world CPU time is measured on whichever worker runs each system or one of its
+ * parallel ranges (see {@link ECSManager#setCpuAccounting}); {@link #describe()} lists
+ * every world's share.
+ */
+public final class WorldHost implements AutoCloseable {
+    private static final Logger logger = new Logger(WorldHost.class);
+
+    /** Weight of the newest step in the expected step time. */
+    private static final double COST_SMOOTHING = 0.2;
+
+    /** One hosted world and its accounting. */
+    public static final class World {
+        private final String name;
+        private final ECSManager ecs;
+        private volatile long frames;
+        private volatile long wallNanos;
+        private volatile long lastStepNanos;
+        private volatile double expectedNanos;
+
+        private World(String name, ECSManager ecs) {
+            this.name = name;
+            this.ecs = ecs;
+        }
+
+        public String name() { return name; }
+
+        public ECSManager ecs() { return ecs; }
+
+        /** Steps run so far. */
+        public long getFrames() { return frames; }
+
+        /** CPU time of this world's systems and flushes. */
+        public long getCpuNanos() { return ecs.getCpuNanos(); }
+
+        /** Wall time of all steps, parallel stages included once. */
+        public long getWallNanos() { return wallNanos; }
+
+        public long getLastStepNanos() { return lastStepNanos; }
+
+        /** Moving average of the step time, used to order the next tick. */
+        public double getExpectedStepNanos() { return expectedNanos; }
+
+        private void step(float dt) {
+            long start = System.nanoTime();
+            try {
+                ecs.update(dt);
+            } catch (Throwable t) {
+                logger.error("World '" + name + "' step failed", t);
+            } finally {
+                long took = System.nanoTime() - start;
+                lastStepNanos = took;
+                wallNanos += took;
+                expectedNanos = frames == 0 ? took : expectedNanos + COST_SMOOTHING * (took - expectedNanos);
+                frames++;
+            }
+        }
+    }
+
+    private final JobSystem jobs;
+    private final List<World> worlds = new CopyOnWriteArrayList<>();
+    private final ReentrantLock tickLock = new ReentrantLock(); // one tick at a time; guards removal
+
+    private volatile long ticks;
+    private volatile long lateTicks;
+    private volatile boolean running;
+    private Thread loop;
+
+    public WorldHost() {
+        this(JobSystem.shared());
+    }
+
+    public WorldHost(JobSystem jobs) {
+        this.jobs = jobs;
+    }
+
+    // -------------------------------------------------------------------------
+    // Worlds
+    // -------------------------------------------------------------------------
+
+    public World createWorld(String name) {
+        return createWorld(name, StorageMode.POOLED);
+    }
+
+    /** Creates and hosts a new world; it takes its first step on the next tick. */
+    public World createWorld(String name, StorageMode storageMode) {
+        ECSManager ecs = new ECSManager(storageMode, jobs);
+        ecs.setCpuAccounting(true);
+        World w = new World(name, ecs);
+        tickLock.lock();
+        try {
+            if (getWorld(name) != null) {
+                ecs.shutdown();
+                throw new IllegalArgumentException("World '" + name + "' already exists");
+            }
+            worlds.add(w);
+        } finally {
+            tickLock.unlock();
+        }
+        logger.info("Hosting world '" + name + "' (" + worlds.size() + " worlds)");
+        return w;
+    }
+
+    /** Stops hosting {@code w} and shuts down its systems; waits for a running tick to finish. */
+    public boolean removeWorld(World w) {
+        tickLock.lock();
+        try {
+            if (!worlds.remove(w)) return false;
+        } finally {
+            tickLock.unlock();
+        }
+        w.ecs.shutdown();
+        logger.info("Removed world '" + w.name + "' after " + w.frames + " steps");
+        return true;
+    }
+
+    public World getWorld(String name) {
+        for (World w : worlds) {
+            if (w.name.equals(name)) return w;
+        }
+        return null;
+    }
+
+    public List<World> getWorlds() {
+        return Collections.unmodifiableList(new ArrayList<>(worlds));
+    }
+
+    public int size() {
+        return worlds.size();
+    }
+
+    // -------------------------------------------------------------------------
+    // Ticking
+    // -------------------------------------------------------------------------
+
+    /**
+     * Advances every world by one step of {@code dt} and returns when all are done.
+     * Each world is one job on the shared pool; failures are logged per world.
+     */
+    public void tick(float dt) {
+        tickLock.lock();
+        try {
+            World[] order = worlds.toArray(new World[0]);
+            Arrays.sort(order, Comparator.comparingDouble(World::getExpectedStepNanos).reversed());
+            Job[] steps = new Job[order.length];
+            for (int i = 0; i < order.length; i++) {
+                World w = order[i];
+                steps[i] = jobs.submit(Priority.NORMAL, () -> w.step(dt));
+            }
+            for (Job j : steps) j.join();
+            ticks++;
+        } finally {
+            tickLock.unlock();
+        }
+    }
+
+    /**
+     * Ticks all worlds {@code hz} times per second on a dedicated thread until
+     * {@link #stop()}. A tick that overruns its slot is not made up for; see
+     * {@link #getLateTicks()}.
+     */
+    public synchronized void start(float hz) {
+        if (running) return;
+        float dt = 1f / hz;
+        long period = (long) (1_000_000_000L / hz);
+        running = true;
+        loop = Thread.ofPlatform().name("world-host").daemon().start(() -> {
+            long next = System.nanoTime();
+            while (running) {
+                tick(dt);
+                next += period;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else {
+                    lateTicks++;
+                    next = System.nanoTime();
+                }
+            }
+        });
+        logger.info("World host ticking " + worlds.size() + " worlds at " + hz + " Hz");
+    }
+
+    /** Stops the {@link #start} loop after its current tick. */
+    public synchronized void stop() {
+        running = false;
+        Thread t = loop;
+        loop = null;
+        if (t == null) return;
+        LockSupport.unpark(t);
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Stops the loop and shuts down every world. The job system is left running. */
+    @Override
+    public void close() {
+        stop();
+        for (World w : getWorlds()) removeWorld(w);
+    }
+
+    // -------------------------------------------------------------------------
+    // Accounting
+    // -------------------------------------------------------------------------
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /** Ticks of the {@link #start} loop that took longer than their slot. */
+    public long getLateTicks() {
+        return lateTicks;
+    }
+
+    /** Share of the CPU time of all hosted worlds spent in {@code w}, 0..1. */
+    public double getCpuShare(World w) {
+        long total = 0;
+        for (World o : worlds) total += o.getCpuNanos();
+        return total == 0 ? 0 : (double) w.getCpuNanos() / total;
+    }
+
+    /** One line per world, most CPU first: steps, CPU time and share, average step time. */
+    public String describe() {
+        List<World> list = new ArrayList<>(worlds);
+        list.sort(Comparator.comparingLong(World::getCpuNanos).reversed());
+        long total = 0;
+        for (World w : list) total += w.getCpuNanos();
+
+        StringBuilder sb = new StringBuilder(String.format("%d worlds, %d ticks on %d workers%n",
+                list.size(), ticks, jobs.getParallelism()));
+        for (World w : list) {
+            long frames = w.getFrames();
+            sb.append(String.format("  %s: %d steps, cpu %.2f ms (%.1f%%), avg step %.3f ms%n",
+                    w.name, frames, w.getCpuNanos() / 1e6,
+                    total == 0 ? 0.0 : 100.0 * w.getCpuNanos() / total,
+                    frames == 0 ? 0.0 : w.getWallNanos() / 1e6 / frames));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package ecs.components;
+
+import ecs.Component;
+import ecs.Entity;
+import ecs.EntityId;
+
+/**
+ * Attaches an entity under another in the transform hierarchy; its
+ * {@link TransformComponent} is then relative to the parent.
+ * Reparent through {@code ecs.getMut(id, ParentComponent.class)} so the change is seen.
+ */
+public class ParentComponent implements Component {
+    public int parent = EntityId.NONE;
+
+    public ParentComponent() {}
+
+    public ParentComponent(int parent) {
+        this.parent = parent;
+    }
+
+    public ParentComponent(Entity parent) {
+        this(parent.getId());
+    }
+}
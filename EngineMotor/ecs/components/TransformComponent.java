@@ -5,12 +5,45 @@ import math.Mat4;
 import math.Quat;
 import math.Vec3;
 
-/** ECS transform with TRS data and ready-to-upload model matrix builders. */
+/**
+ * ECS transform with TRS data and ready-to-upload model matrix builders.
+ * Under a {@link ParentComponent} the TRS is local to the parent; world matrices are
+ * then produced by {@link ecs.systems.TransformHierarchySystem}.
+ */
 public final class TransformComponent implements Component {
     public final Vec3 position = new Vec3();
     public final Vec3 scale    = new Vec3(1,1,1);
     public final Quat rotation = Quat.identity(); // (w=1,x=y=z=0)
 
+    /**
+     * Writes the local TRS matrix column-major into {@code dst[offset .. offset+15]}
+     * without allocating. Assumes a unit rotation quaternion.
+     */
+    public void writeLocalMatrix(float[] dst, int offset) {
+        float w = rotation.getW(), x = rotation.getX(), y = rotation.getY(), z = rotation.getZ();
+        float xx = x*x, yy = y*y, zz = z*z;
+        float xy = x*y, xz = x*z, yz = y*z;
+        float wx = w*x, wy = w*y, wz = w*z;
+        float sx = scale.getX(), sy = scale.getY(), sz = scale.getZ();
+
+        dst[offset]      = (1 - 2*(yy + zz)) * sx;
+        dst[offset + 1]  = 2*(xy + wz) * sx;
+        dst[offset + 2]  = 2*(xz - wy) * sx;
+        dst[offset + 3]  = 0f;
+        dst[offset + 4]  = 2*(xy - wz) * sy;
+        dst[offset + 5]  = (1 - 2*(xx + zz)) * sy;
+        dst[offset + 6]  = 2*(yz + wx) * sy;
+        dst[offset + 7]  = 0f;
+        dst[offset + 8]  = 2*(xz + wy) * sz;
+        dst[offset + 9]  = 2*(yz - wx) * sz;
+        dst[offset + 10] = (1 - 2*(xx + yy)) * sz;
+        dst[offset + 11] = 0f;
+        dst[offset + 12] = position.getX();
+        dst[offset + 13] = position.getY();
+        dst[offset + 14] = position.getZ();
+        dst[offset + 15] = 1f;
+    }
+
     /** Row-major model matrix (engine side). */
     public Mat4 model() {
         return Mat4.fromTRS(position, rotation, scale);
@@ -26,6 +26,8 @@ public class ECSManagerDemo {
             ecs.addComponentNow(e.getId(), new VelocityComponent(1 + i, 0.5f * i));
         }
 
+        log.info("Schedule:\n" + ecs.describeSchedule());
+
         // Run a few update frames
         for (int frame = 0; frame < 5; frame++) {
             log.info("--- Frame " + frame + " ---");
@@ -36,8 +38,7 @@ public class ECSManagerDemo {
         // Demonstrate deferred command buffer
         log.info("Queueing deferred commands...");
         for (Entity e : ecs.getAllEntities()) {
-            ecs.commands().add(() ->
-                ecs.addComponentNow(e.getId(), new TagComponent("UpdatedEntity")));
+            ecs.commands().addComponent(e.getId(), new TagComponent("UpdatedEntity"));
         }
 
         ecs.update(0.016f); // flushes deferred commands
@@ -88,7 +89,12 @@ public class ECSManagerDemo {
     // -------------------------------------------------------------------------
     // Example system: Moves entities by velocity * deltaTime
     // -------------------------------------------------------------------------
-    public static class MovementSystem extends SystemBase {
+    public static final class MovementSystem extends SystemBase {
+        public MovementSystem() {
+            reads(VelocityComponent.class);
+            writes(PositionComponent.class);
+        }
+
         @Override
         protected void onInit(ECSManager ecs) {
             log.info("MovementSystem initialized");
@@ -0,0 +1,106 @@
+package ecs.io;
+
+import math.Vec3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the columns written by {@link ColumnWriter}, usually straight out of a
+ * memory-mapped snapshot. Numeric columns are bulk-copied through typed buffer views.
+ */
+public final class ColumnReader {
+
+    private final ByteBuffer buf;
+
+    public ColumnReader(ByteBuffer buf) {
+        this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // -------------------------------------------------------------------------
+    // Columns
+    // -------------------------------------------------------------------------
+
+    public float[] floats(int count) {
+        align();
+        float[] out = new float[count];
+        buf.asFloatBuffer().get(out);
+        buf.position(buf.position() + 4 * count);
+        return out;
+    }
+
+    public int[] ints(int count) {
+        align();
+        int[] out = new int[count];
+        buf.asIntBuffer().get(out);
+        buf.position(buf.position() + 4 * count);
+        return out;
+    }
+
+    public boolean[] booleans(int count) {
+        align();
+        boolean[] out = new boolean[count];
+        for (int i = 0; i < count; i++) out[i] = buf.get() != 0;
+        return out;
+    }
+
+    public String[] strings(int count) {
+        int[] lengths = ints(count);
+        align();
+        String[] out = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (lengths[i] < 0) continue;
+            byte[] b = new byte[lengths[i]];
+            buf.get(b);
+            out[i] = new String(b, StandardCharsets.UTF_8);
+        }
+        return out;
+    }
+
+    /** Reads three float columns into the given vectors (which must exist). */
+    public void vec3(Vec3[] targets, int count) {
+        float[] x = floats(count), y = floats(count), z = floats(count);
+        for (int i = 0; i < count; i++) targets[i].set(x[i], y[i], z[i]);
+    }
+
+    // -------------------------------------------------------------------------
+    // Raw values (headers)
+    // -------------------------------------------------------------------------
+
+    public int getInt() {
+        align();
+        return buf.getInt();
+    }
+
+    public long getLong() {
+        int pad = (8 - (buf.position() & 7)) & 7;
+        buf.position(buf.position() + pad);
+        return buf.getLong();
+    }
+
+    public String getString() {
+        byte[] b = new byte[getInt()];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    public byte[] getBytes() {
+        byte[] b = new byte[getInt()];
+        buf.get(b);
+        return b;
+    }
+
+    public int position() {
+        return buf.position();
+    }
+
+    public void skip(long bytes) {
+        buf.position(Math.toIntExact(buf.position() + bytes));
+    }
+
+    private void align() {
+        int pad = (4 - (buf.position() & 3)) & 3;
+        buf.position(buf.position() + pad);
+    }
+}
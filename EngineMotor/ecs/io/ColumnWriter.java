@@ -0,0 +1,151 @@
+package ecs.io;
+
+import math.Vec3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Growable little-endian buffer that {@link ComponentCodec}s append columns to.
+ * Every column starts on a 4-byte boundary so readers can bulk-copy it.
+ */
+public final class ColumnWriter {
+
+    private ByteBuffer buf;
+
+    public ColumnWriter(int initialCapacity) {
+        buf = ByteBuffer.allocate(Math.max(64, initialCapacity)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // -------------------------------------------------------------------------
+    // Columns
+    // -------------------------------------------------------------------------
+
+    public void floats(float[] values, int count) {
+        align(4L * count);
+        buf.asFloatBuffer().put(values, 0, count);
+        buf.position(buf.position() + 4 * count);
+    }
+
+    public void ints(int[] values, int count) {
+        align(4L * count);
+        buf.asIntBuffer().put(values, 0, count);
+        buf.position(buf.position() + 4 * count);
+    }
+
+    public void booleans(boolean[] values, int count) {
+        align(count);
+        for (int i = 0; i < count; i++) buf.put(values[i] ? (byte) 1 : (byte) 0);
+    }
+
+    /** Writes a length column (-1 for null) followed by the UTF-8 bytes. */
+    public void strings(String[] values, int count) {
+        byte[][] encoded = new byte[count][];
+        int[] lengths = new int[count];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[i] == null) {
+                lengths[i] = -1;
+            } else {
+                encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+                lengths[i] = encoded[i].length;
+                total += lengths[i];
+            }
+        }
+        ints(lengths, count);
+        align(total);
+        for (int i = 0; i < count; i++) {
+            if (encoded[i] != null) buf.put(encoded[i]);
+        }
+    }
+
+    /** Writes three float columns (x, y, z). */
+    public void vec3(Vec3[] values, int count) {
+        float[] col = new float[count];
+        for (int i = 0; i < count; i++) col[i] = values[i].getX();
+        floats(col, count);
+        for (int i = 0; i < count; i++) col[i] = values[i].getY();
+        floats(col, count);
+        for (int i = 0; i < count; i++) col[i] = values[i].getZ();
+        floats(col, count);
+    }
+
+    // -------------------------------------------------------------------------
+    // Raw values (headers)
+    // -------------------------------------------------------------------------
+
+    public void putInt(int v) {
+        align(4);
+        buf.putInt(v);
+    }
+
+    public void putLong(long v) {
+        int pad = (8 - (buf.position() & 7)) & 7;
+        ensure(pad + 8L);
+        for (int i = 0; i < pad; i++) buf.put((byte) 0);
+        buf.putLong(v);
+    }
+
+    public void putString(String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        putInt(b.length);
+        ensure(b.length);
+        buf.put(b);
+    }
+
+    /** Writes a length followed by the raw bytes. */
+    public void putBytes(byte[] b) {
+        putInt(b.length);
+        ensure(b.length);
+        buf.put(b);
+    }
+
+    /**
+     * Writes {@code block}'s length as a long, then its bytes. The block starts on an
+     * 8-byte boundary, so columns inside it keep the alignment they were written with.
+     */
+    void putBlock(ByteBuffer block) {
+        putLong(block.remaining());
+        ensure(block.remaining());
+        buf.put(block.duplicate());
+    }
+
+    /** Overwrites a long previously written at {@code position}. */
+    void patchLong(int position, long v) {
+        buf.putLong(position, v);
+    }
+
+    public int position() {
+        return buf.position();
+    }
+
+    /** Flipped read-only view of everything written so far. */
+    public ByteBuffer toBuffer() {
+        ByteBuffer view = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        view.flip();
+        return view.asReadOnlyBuffer();
+    }
+
+    // -------------------------------------------------------------------------
+    // Internals
+    // -------------------------------------------------------------------------
+
+    /** Pads to the next 4-byte boundary and makes room for {@code bytes} more. */
+    private void align(long bytes) {
+        int pad = (4 - (buf.position() & 3)) & 3;
+        ensure(pad + bytes);
+        for (int i = 0; i < pad; i++) buf.put((byte) 0);
+    }
+
+    private void ensure(long bytes) {
+        if (buf.remaining() >= bytes) return;
+        long needed = buf.position() + bytes;
+        if (needed > Integer.MAX_VALUE - 8) throw new IllegalStateException("Snapshot exceeds 2 GB");
+        int cap = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, (long) buf.capacity() * 2));
+        ByteBuffer grown = ByteBuffer.allocate(cap).order(ByteOrder.LITTLE_ENDIAN);
+        buf.flip();
+        grown.put(buf);
+        buf = grown;
+    }
+}
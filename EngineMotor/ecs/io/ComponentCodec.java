@@ -0,0 +1,25 @@
+package ecs.io;
+
+import ecs.Component;
+
+/**
+ * Encodes one component type as columns for {@link WorldSnapshot}.
+ *
+ * A codec writes every field of the {@code count} components as its own column
+ * (all x values, then all y values, ...) and reads them back in the same order,
+ * so loading is a handful of bulk copies per type rather than per-field reflection.
+ */
+public interface ComponentCodec<T extends Component> {
+
+    Class<T> type();
+
+    /** Name stored in the snapshot; must stay stable across releases. */
+    default String id() {
+        return type().getName();
+    }
+
+    void encode(T[] components, int count, ColumnWriter out);
+
+    /** Fills {@code out[0, count)} with new components read from {@code in}. */
+    void decode(ColumnReader in, int count, T[] out);
+}
@@ -0,0 +1,307 @@
+package ecs.io;
+
+import ecs.Component;
+import ecs.components.*;
+import math.Vec3;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link ComponentCodec}s used by {@link WorldSnapshot}.
+ * Component types without a codec are left out of snapshots.
+ */
+public final class ComponentCodecs {
+
+    private final Map<Class<? extends Component>, ComponentCodec<?>> byType = new ConcurrentHashMap<>();
+    private final Map<String, ComponentCodec<?>> byId = new ConcurrentHashMap<>();
+
+    /** Empty registry. */
+    public ComponentCodecs() {}
+
+    /** Registry with codecs for the plain-data components in {@code ecs.components}. */
+    public static ComponentCodecs defaults() {
+        ComponentCodecs c = new ComponentCodecs();
+        c.register(TRANSFORM);
+        c.register(RIGIDBODY);
+        c.register(VELOCITY);
+        c.register(LISTENER);
+        c.register(SOUND_ZONE);
+        c.register(AUDIO_SOURCE);
+        c.register(SOUND);
+        c.register(MIDI);
+        c.register(PARENT);
+        return c;
+    }
+
+    public ComponentCodecs register(ComponentCodec<?> codec) {
+        byType.put(codec.type(), codec);
+        byId.put(codec.id(), codec);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Component> ComponentCodec<T> get(Class<T> type) {
+        return (ComponentCodec<T>) byType.get(type);
+    }
+
+    public ComponentCodec<?> get(String id) {
+        return byId.get(id);
+    }
+
+    /** Registered codecs ordered by id, so snapshots of equal worlds are byte-identical. */
+    public List<ComponentCodec<?>> all() {
+        List<ComponentCodec<?>> out = new ArrayList<>(byType.values());
+        out.sort(Comparator.comparing(ComponentCodec::id));
+        return out;
+    }
+
+    // -------------------------------------------------------------------------
+    // Built-in codecs
+    // -------------------------------------------------------------------------
+
+    public static final ComponentCodec<TransformComponent> TRANSFORM = new ComponentCodec<>() {
+        public Class<TransformComponent> type() { return TransformComponent.class; }
+
+        public void encode(TransformComponent[] c, int n, ColumnWriter out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = c[i].position;
+            out.vec3(v, n);
+            for (int i = 0; i < n; i++) v[i] = c[i].scale;
+            out.vec3(v, n);
+            float[] q = new float[n];
+            for (int i = 0; i < n; i++) q[i] = c[i].rotation.getW();
+            out.floats(q, n);
+            for (int i = 0; i < n; i++) q[i] = c[i].rotation.getX();
+            out.floats(q, n);
+            for (int i = 0; i < n; i++) q[i] = c[i].rotation.getY();
+            out.floats(q, n);
+            for (int i = 0; i < n; i++) q[i] = c[i].rotation.getZ();
+            out.floats(q, n);
+        }
+
+        public void decode(ColumnReader in, int n, TransformComponent[] out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = (out[i] = new TransformComponent()).position;
+            in.vec3(v, n);
+            for (int i = 0; i < n; i++) v[i] = out[i].scale;
+            in.vec3(v, n);
+            float[] w = in.floats(n), x = in.floats(n), y = in.floats(n), z = in.floats(n);
+            for (int i = 0; i < n; i++) out[i].rotation.set(w[i], x[i], y[i], z[i]);
+        }
+    };
+
+    public static final ComponentCodec<RigidbodyComponent> RIGIDBODY = new ComponentCodec<>() {
+        public Class<RigidbodyComponent> type() { return RigidbodyComponent.class; }
+
+        public void encode(RigidbodyComponent[] c, int n, ColumnWriter out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = c[i].velocity;
+            out.vec3(v, n);
+            for (int i = 0; i < n; i++) v[i] = c[i].acceleration;
+            out.vec3(v, n);
+            float[] drag = new float[n];
+            boolean[] gravity = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                drag[i] = c[i].drag;
+                gravity[i] = c[i].useGravity;
+            }
+            out.floats(drag, n);
+            out.booleans(gravity, n);
+        }
+
+        public void decode(ColumnReader in, int n, RigidbodyComponent[] out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = (out[i] = new RigidbodyComponent()).velocity;
+            in.vec3(v, n);
+            for (int i = 0; i < n; i++) v[i] = out[i].acceleration;
+            in.vec3(v, n);
+            float[] drag = in.floats(n);
+            boolean[] gravity = in.booleans(n);
+            for (int i = 0; i < n; i++) {
+                out[i].drag = drag[i];
+                out[i].useGravity = gravity[i];
+            }
+        }
+    };
+
+    public static final ComponentCodec<VelocityComponent> VELOCITY = new ComponentCodec<>() {
+        public Class<VelocityComponent> type() { return VelocityComponent.class; }
+
+        public void encode(VelocityComponent[] c, int n, ColumnWriter out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = c[i].velocity;
+            out.vec3(v, n);
+        }
+
+        public void decode(ColumnReader in, int n, VelocityComponent[] out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = (out[i] = new VelocityComponent()).velocity;
+            in.vec3(v, n);
+        }
+    };
+
+    public static final ComponentCodec<ListenerComponent> LISTENER = new ComponentCodec<>() {
+        public Class<ListenerComponent> type() { return ListenerComponent.class; }
+
+        public void encode(ListenerComponent[] c, int n, ColumnWriter out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = c[i].position;
+            out.vec3(v, n);
+            for (int i = 0; i < n; i++) v[i] = c[i].forward;
+            out.vec3(v, n);
+            float[] max = new float[n];
+            for (int i = 0; i < n; i++) max[i] = c[i].maxDistance;
+            out.floats(max, n);
+        }
+
+        public void decode(ColumnReader in, int n, ListenerComponent[] out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = (out[i] = new ListenerComponent()).position;
+            in.vec3(v, n);
+            for (int i = 0; i < n; i++) v[i] = out[i].forward;
+            in.vec3(v, n);
+            float[] max = in.floats(n);
+            for (int i = 0; i < n; i++) out[i].maxDistance = max[i];
+        }
+    };
+
+    public static final ComponentCodec<SoundZoneComponent> SOUND_ZONE = new ComponentCodec<>() {
+        public Class<SoundZoneComponent> type() { return SoundZoneComponent.class; }
+
+        public void encode(SoundZoneComponent[] c, int n, ColumnWriter out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = c[i].center;
+            out.vec3(v, n);
+            float[] col = new float[n];
+            for (int i = 0; i < n; i++) col[i] = c[i].radius;
+            out.floats(col, n);
+            for (int i = 0; i < n; i++) col[i] = c[i].zoneReverb;
+            out.floats(col, n);
+            for (int i = 0; i < n; i++) col[i] = c[i].zoneLowPass;
+            out.floats(col, n);
+        }
+
+        public void decode(ColumnReader in, int n, SoundZoneComponent[] out) {
+            Vec3[] v = new Vec3[n];
+            for (int i = 0; i < n; i++) v[i] = (out[i] = new SoundZoneComponent()).center;
+            in.vec3(v, n);
+            float[] radius = in.floats(n), reverb = in.floats(n), lowPass = in.floats(n);
+            for (int i = 0; i < n; i++) {
+                out[i].radius = radius[i];
+                out[i].zoneReverb = reverb[i];
+                out[i].zoneLowPass = lowPass[i];
+            }
+        }
+    };
+
+    public static final ComponentCodec<AudioSourceComponent> AUDIO_SOURCE = new ComponentCodec<>() {
+        public Class<AudioSourceComponent> type() { return AudioSourceComponent.class; }
+
+        public void encode(AudioSourceComponent[] c, int n, ColumnWriter out) {
+            String[] paths = new String[n];
+            float[] volume = new float[n];
+            boolean[] looping = new boolean[n], playing = new boolean[n];
+            Vec3[] pos = new Vec3[n];
+            for (int i = 0; i < n; i++) {
+                paths[i] = c[i].filePath;
+                volume[i] = c[i].volume;
+                looping[i] = c[i].looping;
+                playing[i] = c[i].playing;
+                pos[i] = c[i].position;
+            }
+            out.strings(paths, n);
+            out.floats(volume, n);
+            out.vec3(pos, n);
+            out.booleans(looping, n);
+            out.booleans(playing, n);
+        }
+
+        public void decode(ColumnReader in, int n, AudioSourceComponent[] out) {
+            String[] paths = in.strings(n);
+            float[] volume = in.floats(n);
+            Vec3[] pos = new Vec3[n];
+            for (int i = 0; i < n; i++) {
+                out[i] = new AudioSourceComponent(paths[i]);
+                out[i].volume = volume[i];
+                pos[i] = out[i].position;
+            }
+            in.vec3(pos, n);
+            boolean[] looping = in.booleans(n), playing = in.booleans(n);
+            for (int i = 0; i < n; i++) {
+                out[i].looping = looping[i];
+                out[i].playing = playing[i];
+            }
+        }
+    };
+
+    public static final ComponentCodec<SoundComponent> SOUND = new ComponentCodec<>() {
+        public Class<SoundComponent> type() { return SoundComponent.class; }
+
+        public void encode(SoundComponent[] c, int n, ColumnWriter out) {
+            String[] paths = new String[n];
+            float[] volume = new float[n];
+            boolean[] loop = new boolean[n], playOnAdd = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                paths[i] = c[i].wavPath;
+                volume[i] = c[i].volume;
+                loop[i] = c[i].loop;
+                playOnAdd[i] = c[i].playOnAdd;
+            }
+            out.strings(paths, n);
+            out.floats(volume, n);
+            out.booleans(loop, n);
+            out.booleans(playOnAdd, n);
+        }
+
+        public void decode(ColumnReader in, int n, SoundComponent[] out) {
+            String[] paths = in.strings(n);
+            float[] volume = in.floats(n);
+            boolean[] loop = in.booleans(n), playOnAdd = in.booleans(n);
+            for (int i = 0; i < n; i++) {
+                out[i] = new SoundComponent(paths[i]);
+                out[i].volume = volume[i];
+                out[i].loop = loop[i];
+                out[i].playOnAdd = playOnAdd[i];
+            }
+        }
+    };
+
+    /** Parent ids stay valid because snapshots keep entity ids and generations. */
+    public static final ComponentCodec<ParentComponent> PARENT = new ComponentCodec<>() {
+        public Class<ParentComponent> type() { return ParentComponent.class; }
+
+        public void encode(ParentComponent[] c, int n, ColumnWriter out) {
+            int[] parents = new int[n];
+            for (int i = 0; i < n; i++) parents[i] = c[i].parent;
+            out.ints(parents, n);
+        }
+
+        public void decode(ColumnReader in, int n, ParentComponent[] out) {
+            int[] parents = in.ints(n);
+            for (int i = 0; i < n; i++) out[i] = new ParentComponent(parents[i]);
+        }
+    };
+
+    /** Saves the file and auto-play flag; the transient player is recreated by MidiPlayerSystem. */
+    public static final ComponentCodec<MidiComponent> MIDI = new ComponentCodec<>() {
+        public Class<MidiComponent> type() { return MidiComponent.class; }
+
+        public void encode(MidiComponent[] c, int n, ColumnWriter out) {
+            String[] paths = new String[n];
+            boolean[] autoPlay = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                paths[i] = c[i].filePath;
+                autoPlay[i] = c[i].autoPlay;
+            }
+            out.strings(paths, n);
+            out.booleans(autoPlay, n);
+        }
+
+        public void decode(ColumnReader in, int n, MidiComponent[] out) {
+            String[] paths = in.strings(n);
+            boolean[] autoPlay = in.booleans(n);
+            for (int i = 0; i < n; i++) out[i] = new MidiComponent(paths[i], autoPlay[i]);
+        }
+    };
+}
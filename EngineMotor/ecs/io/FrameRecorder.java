@@ -0,0 +1,416 @@
+package ecs.io;
+
+import ecs.Component;
+import ecs.ComponentManager;
+import ecs.ComponentTypes;
+import ecs.DeferredCommandBuffer;
+import ecs.DeferredCommandBuffer.Kind;
+import ecs.ECSManager;
+import ecs.Entity;
+import ecs.Tag;
+import utils.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records a world's frames to a compact binary log for {@link FrameReplay}.
+ *
+ * The log starts with a {@link WorldSnapshot} of the world at construction, then holds
+ * one record per {@link ECSManager#update}: the frame's dt, the inputs passed to
+ * {@link #recordInput(byte[])} since the previous frame, and one block per command
+ * flush since the previous frame (the update's own, plus any from
+ * {@link ECSManager#updateGroup} or explicit flushes) holding every command that flush
+ * applied, seen through a {@link DeferredCommandBuffer.Tap}. Components are
+ * stored column-wise per type with their {@link ComponentCodec}, like snapshot sections;
+ * {@link Tag} adds and removes are stored as id lists under the tag's class name.
+ *
+ * Only the net effect of a flush is recorded: superseded and failed commands are left
+ * out, and a prefab spawn is recorded as its creates and component adds. Within a
+ * block a replay may apply ops in any order, which is safe because one flush never
+ * applies two ops to the same entity and component type. Plain
+ * {@link Runnable} commands and component types without a codec cannot be
+ * recorded and are counted in {@link #getSkippedCommands()}. Changes made outside the
+ * command buffer (in-place component edits, immediate creates) are not recorded.
+ *
+ * Frames are encoded on the frame thread and written to disk in order through the
+ * world's {@link core.JobSystem#submitBlocking}. Construct and {@link #close()} at a
+ * frame boundary.
+ *
+ * Layout (little-endian):
+ * <pre>
+ * int magic, int version, int scope, int snapshotBytes, snapshot
+ * per frame: int frameBytes, then
+ *   int frame, float dt, int inputCount, per input: int length, bytes
+ *   int blocks, per block: long blockBytes, then
+ *     int creates, int[] ids, int destroys, int[] ids
+ *     int sections, per section: string codecId, int adds, int[] ids, long payloadBytes, payload,
+ *                                int removes, int[] ids
+ *     int tags, per tag: string className, int adds, int[] ids, int removes, int[] ids
+ *   int skippedCommands
+ * </pre>
+ */
+public final class FrameRecorder implements AutoCloseable {
+
+    private static final Logger logger = new Logger(FrameRecorder.class);
+
+    static final int MAGIC = 0x52534553; // "SESR"
+    static final int VERSION = 1;
+
+    /** Which commands are recorded. */
+    public enum Scope {
+        /** Every applied command; replay into a world without systems. */
+        ALL,
+        /**
+         * Only commands recorded outside systems (input, network, scripts), i.e. with
+         * {@link DeferredCommandBuffer#NO_SOURCE}; commands of scheduled systems, their
+         * parallel helpers and async systems carry a source and are left out. Replay into
+         * a world running the same systems, which re-create the rest.
+         */
+        EXTERNAL
+    }
+
+    private final ECSManager world;
+    private final ComponentCodecs codecs;
+    private final Scope scope;
+    private final FileChannel channel;
+    private final Executor io;
+    private final Object writeLock = new Object();
+    private CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null); // guarded by writeLock
+    private final DeferredCommandBuffer.Tap tap = new DeferredCommandBuffer.Tap() {
+        @Override
+        public void applied(Kind kind, int entity, Object payload, int source) {
+            FrameRecorder.this.applied(kind, entity, payload, source);
+        }
+
+        @Override
+        public void flushed() {
+            endBlock();
+        }
+    };
+    private final ECSManager.FrameListener frameListener = (w, dt) -> endFrame(dt);
+
+    // Current frame and its open block (guarded by this)
+    private final List<byte[]> inputs = new ArrayList<>();
+    private final List<ByteBuffer> blocks = new ArrayList<>();
+    private final Ids creates = new Ids();
+    private final Ids destroys = new Ids();
+    private final Map<Class<?>, TypeOps> byType = new HashMap<>();
+    private final Map<Class<?>, TagOps> byTag = new HashMap<>();
+    private int skippedInFrame;
+
+    private final Set<Class<?>> warnedTypes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private long frames;
+    private long skipped;
+    private boolean closed;
+
+    /** Snapshots {@code world} into a new log at {@code file} and starts recording its frames. */
+    public FrameRecorder(ECSManager world, ComponentCodecs codecs, Path file, Scope scope) throws IOException {
+        this.world = world;
+        this.codecs = codecs;
+        this.scope = scope;
+        this.io = world.getJobs()::submitBlocking;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, codecs);
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(scope.ordinal()).putInt(snapshot.sizeBytes()).flip();
+        write(header, snapshot.buffer());
+
+        world.commands().setTap(tap);
+        world.addFrameListener(frameListener);
+        logger.info("Recording frames to " + file + " (" + scope + ", " + snapshot.entityCount() + " entities)");
+    }
+
+    /** Attaches opaque input bytes to the next recorded frame; replay hands them back in order. */
+    public synchronized void recordInput(byte[] data) {
+        if (!closed) inputs.add(data.clone());
+    }
+
+    // -------------------------------------------------------------------------
+    // Capture
+    // -------------------------------------------------------------------------
+
+    private synchronized void applied(Kind kind, int entity, Object payload, int source) {
+        if (closed || (scope == Scope.EXTERNAL && source != DeferredCommandBuffer.NO_SOURCE)) return;
+        switch (kind) {
+            case CREATE -> creates.add(entity);
+            case DESTROY -> destroys.add(entity);
+            case ADD -> {
+                if (payload instanceof Class<?> tag) { // DeferredCommandBuffer.addTag
+                    tagOps(tag).addIds.add(entity);
+                    return;
+                }
+                if (payload instanceof Tag) {
+                    tagOps(payload.getClass()).addIds.add(entity);
+                    return;
+                }
+                TypeOps ops = typeOps(payload.getClass());
+                if (ops == null) return;
+                ops.addIds.add(entity);
+                ops.adds.add((Component) payload);
+            }
+            case REMOVE -> {
+                if (Tag.class.isAssignableFrom((Class<?>) payload)) {
+                    tagOps((Class<?>) payload).removeIds.add(entity);
+                    return;
+                }
+                TypeOps ops = typeOps((Class<?>) payload);
+                if (ops != null) ops.removeIds.add(entity);
+            }
+            case RUN -> skip(Runnable.class);
+            case SPAWN -> {
+                ComponentManager cm = world.getComponentManager();
+                for (Entity e : (Entity[]) payload) {
+                    if (!world.isAlive(e)) continue;
+                    creates.add(e.getId());
+                    for (int type : cm.getSignature(e.getId()).toIndices()) {
+                        @SuppressWarnings("unchecked")
+                        Class<? extends Component> k = (Class<? extends Component>) ComponentTypes.typeOf(type);
+                        if (Tag.class.isAssignableFrom(k)) {
+                            tagOps(k).addIds.add(e.getId());
+                            continue;
+                        }
+                        TypeOps ops = typeOps(k);
+                        if (ops == null) continue;
+                        ops.addIds.add(e.getId());
+                        ops.adds.add(cm.getComponent(e.getId(), k));
+                    }
+                }
+            }
+        }
+    }
+
+    private TypeOps typeOps(Class<?> type) {
+        TypeOps ops = byType.get(type);
+        if (ops != null) return ops;
+        @SuppressWarnings("unchecked")
+        ComponentCodec<?> codec = codecs.get((Class<? extends Component>) type);
+        if (codec == null) {
+            skip(type);
+            return null;
+        }
+        ops = new TypeOps(codec);
+        byType.put(type, ops);
+        return ops;
+    }
+
+    private TagOps tagOps(Class<?> tag) {
+        return byTag.computeIfAbsent(tag, TagOps::new);
+    }
+
+    private void skip(Class<?> type) {
+        skippedInFrame++;
+        if (warnedTypes.add(type)) {
+            logger.warn("Cannot record " + (type == Runnable.class ? "Runnable commands" : type.getSimpleName() + " (no codec)"));
+        }
+    }
+
+    /** Closes the block of the flush that just ended; a flush that recorded nothing adds none. */
+    private synchronized void endBlock() {
+        if (closed || (creates.n == 0 && destroys.n == 0 && byType.isEmpty() && byTag.isEmpty())) return;
+        ColumnWriter out = new ColumnWriter(128);
+        encodeBlock(out);
+        blocks.add(out.toBuffer());
+        creates.n = 0;
+        destroys.n = 0;
+        byType.clear();
+        byTag.clear();
+    }
+
+    private void endFrame(float dt) {
+        ByteBuffer record;
+        synchronized (this) {
+            if (closed) return;
+            endBlock(); // the update's flush already ended it unless the tap was replaced
+            record = encodeFrame(dt);
+            frames++;
+            skipped += skippedInFrame;
+            inputs.clear();
+            blocks.clear();
+            skippedInFrame = 0;
+        }
+        ByteBuffer length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        length.putInt(record.remaining()).flip();
+        write(length, record);
+    }
+
+    private ByteBuffer encodeFrame(float dt) {
+        ColumnWriter out = new ColumnWriter(128);
+        out.putInt((int) frames);
+        out.putInt(Float.floatToRawIntBits(dt));
+        out.putInt(inputs.size());
+        for (byte[] b : inputs) out.putBytes(b);
+        out.putInt(blocks.size());
+        for (ByteBuffer block : blocks) out.putBlock(block);
+        out.putInt(skippedInFrame);
+        return out.toBuffer();
+    }
+
+    private void encodeBlock(ColumnWriter out) {
+        out.putInt(creates.n);
+        out.ints(creates.a, creates.n);
+        out.putInt(destroys.n);
+        out.ints(destroys.a, destroys.n);
+
+        List<TypeOps> sections = new ArrayList<>(byType.values());
+        sections.sort(Comparator.comparing(t -> t.codec.id()));
+        out.putInt(sections.size());
+        for (TypeOps ops : sections) writeSection(ops, ops.codec, out);
+
+        List<TagOps> tags = new ArrayList<>(byTag.values());
+        tags.sort(Comparator.comparing(t -> t.name));
+        out.putInt(tags.size());
+        for (TagOps ops : tags) {
+            out.putString(ops.name);
+            out.putInt(ops.addIds.n);
+            out.ints(ops.addIds.a, ops.addIds.n);
+            out.putInt(ops.removeIds.n);
+            out.ints(ops.removeIds.a, ops.removeIds.n);
+        }
+    }
+
+    private static <T extends Component> void writeSection(TypeOps ops, ComponentCodec<T> codec, ColumnWriter out) {
+        int n = ops.addIds.n;
+        @SuppressWarnings("unchecked")
+        T[] components = (T[]) Array.newInstance(codec.type(), n);
+        for (int i = 0; i < n; i++) components[i] = codec.type().cast(ops.adds.get(i));
+
+        out.putString(codec.id());
+        out.putInt(n);
+        out.ints(ops.addIds.a, n);
+        out.putLong(0L);
+        int lengthAt = out.position() - Long.BYTES;
+        int start = out.position();
+        codec.encode(components, n, out);
+        out.patchLong(lengthAt, out.position() - start);
+        out.putInt(ops.removeIds.n);
+        out.ints(ops.removeIds.a, ops.removeIds.n);
+    }
+
+    /** Queues {@code parts} behind every earlier write, so records reach the file in order. */
+    private void write(ByteBuffer... parts) {
+        Runnable task = () -> {
+            try {
+                for (ByteBuffer b : parts) {
+                    bytesWritten.addAndGet(b.remaining());
+                    while (b.hasRemaining()) channel.write(b);
+                }
+            } catch (IOException e) {
+                logger.error("Frame log write failed", e);
+            }
+        };
+        synchronized (writeLock) {
+            pendingWrite = pendingWrite.thenRunAsync(task, io).exceptionally(t -> {
+                logger.error("Frame log write rejected", t);
+                return null;
+            });
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors / lifecycle
+    // -------------------------------------------------------------------------
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /** Frames recorded so far. */
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    /** Commands that could not be recorded (Runnables, types without a codec). */
+    public synchronized long getSkippedCommands() {
+        return skipped;
+    }
+
+    /** Bytes handed to the file so far, header and snapshot included. */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /** Stops recording, waits for pending writes and closes the file. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        world.removeFrameListener(frameListener);
+        world.commands().setTap(null);
+        CompletableFuture<Void> last;
+        synchronized (writeLock) {
+            last = pendingWrite;
+        }
+        try {
+            last.get(10, TimeUnit.SECONDS);
+        } catch (TimeoutException te) {
+            logger.warn("Frame log did not finish in time");
+        } catch (ExecutionException ignored) {
+            // write failures are logged by the write itself
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Closing frame log failed", e);
+        }
+        logger.info("Recorded " + frames + " frames, " + bytesWritten.get() + " bytes");
+    }
+
+    // -------------------------------------------------------------------------
+    // Internals
+    // -------------------------------------------------------------------------
+
+    /** Growable int list. */
+    private static final class Ids {
+        int[] a = new int[16];
+        int n;
+
+        void add(int id) {
+            if (n == a.length) a = Arrays.copyOf(a, n * 2);
+            a[n++] = id;
+        }
+    }
+
+    /** Sets and clears of one tag within the current block. */
+    private static final class TagOps {
+        final String name;
+        final Ids addIds = new Ids();
+        final Ids removeIds = new Ids();
+
+        TagOps(Class<?> tag) {
+            this.name = tag.getName();
+        }
+    }
+
+    /** Adds and removes of one component type within the current block. */
+    private static final class TypeOps {
+        final ComponentCodec<?> codec;
+        final Ids addIds = new Ids();
+        final List<Component> adds = new ArrayList<>();
+        final Ids removeIds = new Ids();
+
+        TypeOps(ComponentCodec<?> codec) {
+            this.codec = codec;
+        }
+    }
+}
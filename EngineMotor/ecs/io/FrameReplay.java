@@ -0,0 +1,381 @@
+package ecs.io;
+
+import ecs.Component;
+import ecs.DeferredCommandBuffer;
+import ecs.ECSManager;
+import ecs.Entity;
+import ecs.Tag;
+import utils.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Plays back a {@link FrameRecorder} log into a headless {@link ECSManager} as fast as
+ * it can, timing every frame.
+ *
+ * The world is first restored from the log's snapshot. Each frame then hands its
+ * recorded inputs to the input handler, queues its recorded commands on the world's
+ * {@link DeferredCommandBuffer} (creates keep their recorded ids) and runs
+ * {@link ECSManager#update} with the recorded dt, so the flush takes the same path
+ * as in the field. A frame whose commands were applied by several flushes replays
+ * them the same way: every block but the last is flushed on its own first. For an {@link FrameRecorder.Scope#ALL ALL} log the world should run
+ * no systems; for an {@code EXTERNAL} log it should run the same systems as the
+ * recorded game.
+ *
+ * Every frame is also emitted as a {@code stryck.ecs.ReplayFrame} JFR event. To profile
+ * one slow frame, {@link #rerun} plays up to it once and then repeats just that frame
+ * from the same starting state under a JFR recording.
+ */
+public final class FrameReplay {
+
+    private static final Logger logger = new Logger(FrameReplay.class);
+
+    private final FrameRecorder.Scope scope;
+    private final ByteBuffer snapshot;
+    private final List<ByteBuffer> frames;
+    private BiConsumer<ECSManager, byte[]> inputHandler = (world, input) -> {};
+
+    private FrameReplay(FrameRecorder.Scope scope, ByteBuffer snapshot, List<ByteBuffer> frames) {
+        this.scope = scope;
+        this.snapshot = snapshot;
+        this.frames = frames;
+    }
+
+    // -------------------------------------------------------------------------
+    // Load
+    // -------------------------------------------------------------------------
+
+    /** Memory-maps a recorded log. A frame cut off at the end (crash while recording) is dropped. */
+    public static FrameReplay load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    public static FrameReplay read(ByteBuffer data) throws IOException {
+        ByteBuffer in = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < 16 || in.getInt() != FrameRecorder.MAGIC) throw new IOException("Not an ECS frame log");
+        int version = in.getInt();
+        if (version != FrameRecorder.VERSION) throw new IOException("Unsupported frame log version " + version);
+        FrameRecorder.Scope scope = FrameRecorder.Scope.values()[in.getInt()];
+        ByteBuffer snapshot = slice(in, in.getInt());
+        if (snapshot == null) throw new IOException("Frame log truncated inside the snapshot");
+
+        List<ByteBuffer> frames = new ArrayList<>();
+        while (in.remaining() >= 4) {
+            ByteBuffer frame = slice(in, in.getInt());
+            if (frame == null) {
+                logger.warn("Frame log ends inside frame " + frames.size() + ", dropped");
+                break;
+            }
+            frames.add(frame);
+        }
+        return new FrameReplay(scope, snapshot, frames);
+    }
+
+    private static ByteBuffer slice(ByteBuffer in, int length) {
+        if (length < 0 || length > in.remaining()) return null;
+        ByteBuffer part = in.slice(in.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+        in.position(in.position() + length);
+        return part;
+    }
+
+    // -------------------------------------------------------------------------
+    // Playback
+    // -------------------------------------------------------------------------
+
+    /** Receives each frame's recorded inputs, in order, before its commands are queued. */
+    public FrameReplay onInput(BiConsumer<ECSManager, byte[]> handler) {
+        this.inputHandler = handler;
+        return this;
+    }
+
+    /** Restores the snapshot into {@code world} and plays every frame. */
+    public Report play(ECSManager world, ComponentCodecs codecs) throws IOException {
+        WorldSnapshot.load(snapshot.duplicate(), world, codecs);
+        Report report = new Report(frames.size());
+        for (int i = 0; i < frames.size(); i++) playFrame(world, codecs, i, 0, report);
+        logger.info("Replayed " + frames.size() + " frames: " + report.summary());
+        return report;
+    }
+
+    /**
+     * Plays frames {@code [0, frame)} once, then plays {@code frame} {@code times} times,
+     * restoring the world to the state before it each time. Only the repeats are in the
+     * report. System-internal caches are not reset between repeats.
+     */
+    public Report rerun(ECSManager world, ComponentCodecs codecs, int frame, int times) throws IOException {
+        if (frame < 0 || frame >= frames.size()) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of " + frames.size());
+        }
+        WorldSnapshot.load(snapshot.duplicate(), world, codecs);
+        Report warmup = new Report(frame);
+        for (int i = 0; i < frame; i++) playFrame(world, codecs, i, 0, warmup);
+
+        WorldSnapshot before = WorldSnapshot.capture(world, codecs);
+        Report report = new Report(times);
+        report.mismatches = warmup.mismatches;
+        for (int r = 0; r < times; r++) {
+            if (r > 0) before.restoreInto(world, codecs);
+            playFrame(world, codecs, frame, r, report);
+        }
+        logger.info("Re-ran frame " + frame + " x" + times + ": " + report.summary());
+        return report;
+    }
+
+    private void playFrame(ECSManager world, ComponentCodecs codecs, int index, int repeat, Report report) throws IOException {
+        Frame f = decode(frames.get(index), codecs);
+        ReplayFrameEvent event = new ReplayFrameEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        for (byte[] input : f.inputs) inputHandler.accept(world, input);
+        DeferredCommandBuffer commands = world.commands();
+        int mismatches = 0;
+        for (int b = 0; b < f.blocks.size(); b++) {
+            mismatches += queue(world, f.blocks.get(b));
+            if (b < f.blocks.size() - 1) commands.flush(); // an earlier flush, e.g. from updateGroup
+        }
+        world.update(f.dt);
+
+        report.add(index, System.nanoTime() - start);
+        report.mismatches += mismatches;
+        event.frame = index;
+        event.commands = f.commandCount();
+        event.repeat = repeat;
+        event.commit();
+    }
+
+    /** Queues one block's commands; returns how many could not be (ids that diverged from the recording). */
+    private static int queue(ECSManager world, Block f) {
+        DeferredCommandBuffer commands = world.commands();
+        int mismatches = 0;
+        Map<Integer, Entity> created = new HashMap<>();
+        for (int id : f.creates) {
+            try {
+                Entity e = world.reserveEntity(id);
+                commands.addEntity(e);
+                created.put(id, e);
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                mismatches++;
+            }
+        }
+        for (Section s : f.sections) {
+            for (int i = 0; i < s.addIds.length; i++) commands.addComponent(s.addIds[i], s.adds[i]);
+            for (int id : s.removeIds) commands.removeComponent(id, s.type);
+        }
+        for (TagSection t : f.tags) {
+            for (int id : t.addIds) commands.addTag(id, t.tag);
+            for (int id : t.removeIds) commands.removeTag(id, t.tag);
+        }
+        for (int id : f.destroys) {
+            Entity e = created.get(id);
+            if (e == null) e = world.getEntity(id);
+            if (e == null) mismatches++;
+            else commands.destroyEntity(e);
+        }
+        return mismatches;
+    }
+
+    // -------------------------------------------------------------------------
+    // Decoding
+    // -------------------------------------------------------------------------
+
+    private record Section(Class<? extends Component> type, int[] addIds, Component[] adds, int[] removeIds) {}
+
+    private record TagSection(Class<? extends Tag> tag, int[] addIds, int[] removeIds) {}
+
+    /** Commands applied by one flush. */
+    private record Block(int[] creates, int[] destroys, List<Section> sections, List<TagSection> tags) {
+        int commandCount() {
+            int n = creates.length + destroys.length;
+            for (Section s : sections) n += s.addIds.length + s.removeIds.length;
+            for (TagSection t : tags) n += t.addIds.length + t.removeIds.length;
+            return n;
+        }
+    }
+
+    private record Frame(float dt, List<byte[]> inputs, List<Block> blocks) {
+        int commandCount() {
+            int n = 0;
+            for (Block b : blocks) n += b.commandCount();
+            return n;
+        }
+    }
+
+    private static Frame decode(ByteBuffer data, ComponentCodecs codecs) throws IOException {
+        ColumnReader in = new ColumnReader(data.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+        in.getInt(); // frame number
+        float dt = Float.intBitsToFloat(in.getInt());
+        int inputCount = in.getInt();
+        List<byte[]> inputs = new ArrayList<>(inputCount);
+        for (int i = 0; i < inputCount; i++) inputs.add(in.getBytes());
+        int blockCount = in.getInt();
+        List<Block> blocks = new ArrayList<>(blockCount);
+        for (int b = 0; b < blockCount; b++) {
+            in.getLong(); // block length
+            blocks.add(decodeBlock(in, codecs));
+        }
+        in.getInt(); // commands skipped while recording
+        return new Frame(dt, inputs, blocks);
+    }
+
+    private static Block decodeBlock(ColumnReader in, ComponentCodecs codecs) throws IOException {
+        int[] creates = in.ints(in.getInt());
+        int[] destroys = in.ints(in.getInt());
+
+        int sectionCount = in.getInt();
+        List<Section> sections = new ArrayList<>(sectionCount);
+        for (int s = 0; s < sectionCount; s++) {
+            String id = in.getString();
+            int[] addIds = in.ints(in.getInt());
+            long length = in.getLong();
+            ComponentCodec<?> codec = codecs.get(id);
+            if (codec == null) {
+                logger.warn("No codec for '" + id + "', skipping its commands");
+                in.skip(length);
+                in.ints(in.getInt());
+                continue;
+            }
+            long end = in.position() + length;
+            Component[] adds = decodeAdds(codec, in, addIds.length);
+            if (in.position() != end) throw new IOException("Codec '" + id + "' misread a frame section");
+            sections.add(new Section(codec.type(), addIds, adds, in.ints(in.getInt())));
+        }
+        int tagCount = in.getInt();
+        List<TagSection> tags = new ArrayList<>(tagCount);
+        for (int t = 0; t < tagCount; t++) {
+            String name = in.getString();
+            int[] addIds = in.ints(in.getInt());
+            int[] removeIds = in.ints(in.getInt());
+            Class<? extends Tag> tag = WorldSnapshot.tagClass(name);
+            if (tag == null) {
+                logger.warn("Unknown tag '" + name + "', skipping its commands");
+                continue;
+            }
+            tags.add(new TagSection(tag, addIds, removeIds));
+        }
+        return new Block(creates, destroys, sections, tags);
+    }
+
+    private static <T extends Component> Component[] decodeAdds(ComponentCodec<T> codec, ColumnReader in, int count) {
+        @SuppressWarnings("unchecked")
+        T[] out = (T[]) Array.newInstance(codec.type(), count);
+        codec.decode(in, count, out);
+        return out;
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors
+    // -------------------------------------------------------------------------
+
+    public int frameCount() {
+        return frames.size();
+    }
+
+    public FrameRecorder.Scope getScope() {
+        return scope;
+    }
+
+    /** Recorded dt of a frame. */
+    public float frameDt(int frame) {
+        ByteBuffer b = frames.get(frame).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        return Float.intBitsToFloat(b.getInt(4));
+    }
+
+    // -------------------------------------------------------------------------
+    // Report
+    // -------------------------------------------------------------------------
+
+    /** Per-frame wall times of a playback. */
+    public static final class Report {
+        private int[] frames;
+        private long[] nanos;
+        private int count;
+        private int mismatches;
+
+        Report(int capacity) {
+            frames = new int[Math.max(1, capacity)];
+            nanos = new long[Math.max(1, capacity)];
+        }
+
+        void add(int frame, long took) {
+            if (count == nanos.length) {
+                frames = Arrays.copyOf(frames, count * 2);
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            frames[count] = frame;
+            nanos[count++] = took;
+        }
+
+        /** Frames played (repeats count separately). */
+        public int size() {
+            return count;
+        }
+
+        /** Recorded frame number of the {@code i}-th played frame. */
+        public int frame(int i) {
+            return frames[i];
+        }
+
+        public long nanos(int i) {
+            return nanos[i];
+        }
+
+        public long totalNanos() {
+            long sum = 0;
+            for (int i = 0; i < count; i++) sum += nanos[i];
+            return sum;
+        }
+
+        public long meanNanos() {
+            return count == 0 ? 0 : totalNanos() / count;
+        }
+
+        public long maxNanos() {
+            return percentileNanos(100);
+        }
+
+        /** Nearest-rank percentile, {@code p} in 0..100. */
+        public long percentileNanos(double p) {
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(p / 100.0 * count);
+            return sorted[Math.min(count - 1, Math.max(0, rank - 1))];
+        }
+
+        /** Recorded frame numbers of the {@code n} slowest played frames, slowest first. */
+        public int[] slowestFrames(int n) {
+            Integer[] idx = new Integer[count];
+            for (int i = 0; i < count; i++) idx[i] = i;
+            Arrays.sort(idx, (a, b) -> Long.compare(nanos[b], nanos[a]));
+            int[] out = new int[Math.min(n, count)];
+            for (int i = 0; i < out.length; i++) out[i] = frames[idx[i]];
+            return out;
+        }
+
+        /** Commands that could not be replayed because the world diverged from the recording. */
+        public int getMismatches() {
+            return mismatches;
+        }
+
+        public String summary() {
+            return String.format("%d frames, mean %.3f ms, p99 %.3f ms, max %.3f ms%s",
+                    count, meanNanos() / 1e6, percentileNanos(99) / 1e6, maxNanos() / 1e6,
+                    mismatches > 0 ? ", " + mismatches + " mismatched commands" : "");
+        }
+    }
+}
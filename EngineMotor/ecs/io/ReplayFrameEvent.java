@@ -0,0 +1,26 @@
+package ecs.io;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JFR event spanning one replayed frame, so a recording can be cut to the slow ones. */
+@Name("stryck.ecs.ReplayFrame")
+@Label("ECS Replay Frame")
+@Category({"Stryck", "ECS"})
+@Description("One frame played back by FrameReplay: recorded inputs, commands and the world update")
+@StackTrace(false)
+final class ReplayFrameEvent extends Event {
+
+    @Label("Frame")
+    int frame;
+
+    @Label("Commands")
+    int commands;
+
+    @Label("Repeat")
+    int repeat;
+}
@@ -0,0 +1,108 @@
+package ecs.io;
+
+import ecs.ECSManager;
+import utils.Logger;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Background snapshot writer for autosaves.
+ *
+ * {@link #request(Path)} queues the capture on the world's deferred command buffer,
+ * so it runs at the end of the next {@link ECSManager#update} when no system is
+ * mutating the world, with or without systems. The file is written through the world's
+ * {@link core.JobSystem#submitBlocking}, one write after the other in request order,
+ * and the returned future completes once it is in place.
+ *
+ * The in-memory encode stays on the frame and costs time in proportion to the world
+ * size. Components are mutable and only their codecs know how to copy them, so the
+ * encode is the copy: keeping references and encoding later would race with the next
+ * frame's systems.
+ */
+public final class SnapshotWriter implements AutoCloseable {
+
+    private static final Logger logger = new Logger(SnapshotWriter.class);
+
+    private final ECSManager world;
+    private final ComponentCodecs codecs;
+    private final Executor io;
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null); // last queued write
+    private boolean closed;
+
+    public SnapshotWriter(ECSManager world, ComponentCodecs codecs) {
+        this.world = world;
+        this.codecs = codecs;
+        this.io = world.getJobs()::submitBlocking;
+    }
+
+    /** Captures at the next frame boundary and writes {@code file} in the background. */
+    public CompletableFuture<Path> request(Path file) {
+        CompletableFuture<Path> done = new CompletableFuture<>();
+        world.commands().add(() -> submit(file, done));
+        return done;
+    }
+
+    /** Captures now on the calling thread (which must be at a frame boundary), writes in the background. */
+    public CompletableFuture<Path> captureNow(Path file) {
+        CompletableFuture<Path> done = new CompletableFuture<>();
+        submit(file, done);
+        return done;
+    }
+
+    private void submit(Path file, CompletableFuture<Path> done) {
+        WorldSnapshot snapshot;
+        try {
+            snapshot = WorldSnapshot.capture(world, codecs);
+        } catch (Throwable t) {
+            logger.error("Snapshot capture failed", t);
+            done.completeExceptionally(t);
+            return;
+        }
+        Runnable write = () -> {
+            try {
+                snapshot.writeTo(file);
+                logger.info("Snapshot written: " + file + " (" + snapshot.entityCount() + " entities, "
+                        + snapshot.sizeBytes() + " bytes)");
+                done.complete(file);
+            } catch (Throwable t) {
+                logger.error("Snapshot write failed: " + file, t);
+                done.completeExceptionally(t);
+            }
+        };
+        synchronized (this) {
+            if (closed) {
+                done.completeExceptionally(new IllegalStateException("Snapshot writer is closed"));
+                return;
+            }
+            // Each write starts once the previous one is done, so files land in request order
+            tail = tail.thenRunAsync(write, io).exceptionally(t -> {
+                done.completeExceptionally(t); // job system rejected the write
+                return null;
+            });
+        }
+    }
+
+    /** Waits for pending writes; later requests fail. */
+    @Override
+    public void close() {
+        CompletableFuture<Void> last;
+        synchronized (this) {
+            closed = true;
+            last = tail;
+        }
+        try {
+            last.get(10, TimeUnit.SECONDS);
+        } catch (TimeoutException te) {
+            logger.warn("Snapshot writer did not finish in time");
+        } catch (ExecutionException ignored) {
+            // already reported through the failed request's future
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
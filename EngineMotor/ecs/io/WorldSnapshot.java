@@ -0,0 +1,332 @@
+package ecs.io;
+
+import ecs.Component;
+import ecs.ComponentManager;
+import ecs.ComponentMask;
+import ecs.ComponentTypes;
+import ecs.ECSManager;
+import ecs.Entity;
+import ecs.Tag;
+import utils.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Binary copy of an {@link ECSManager} world: entity ids (with generations), every
+ * component that has a registered {@link ComponentCodec}, and every {@link Tag}.
+ *
+ * Layout (little-endian, columns 4-byte aligned):
+ * <pre>
+ * int magic, int version, int tick, int entityCount, int[entityCount] ids, int sectionCount
+ * per section: string codecId, int count, int[count] entity ids, long payloadBytes, payload
+ * int tagCount, per tag: string className, int count, int[count] entity ids
+ * </pre>
+ * Sections are ordered by codec id, tags by class name and rows by entity id, so
+ * equal worlds give equal bytes. Tags need no codec: they are restored by class
+ * name, and tags whose class cannot be loaded are skipped. Loading memory-maps the
+ * file and lets each codec bulk-copy its columns; sections without a registered
+ * codec are skipped using their length. Decoded components are then placed one
+ * archetype at a time through {@link ComponentManager#spawn}.
+ *
+ * Capture and load must happen at a frame boundary (outside {@link ECSManager#update});
+ * {@link SnapshotWriter} arranges that and moves the file write off the frame.
+ */
+public final class WorldSnapshot {
+
+    private static final Logger logger = new Logger(WorldSnapshot.class);
+
+    static final int MAGIC = 0x57534553; // "SESW"
+    static final int VERSION = 1;
+
+    private final ByteBuffer data;
+    private final int entityCount;
+
+    private WorldSnapshot(ByteBuffer data, int entityCount) {
+        this.data = data;
+        this.entityCount = entityCount;
+    }
+
+    // -------------------------------------------------------------------------
+    // Capture
+    // -------------------------------------------------------------------------
+
+    /** Encodes the world as it is now. Components are copied, so the world may change afterwards. */
+    public static WorldSnapshot capture(ECSManager world, ComponentCodecs codecs) {
+        ComponentManager cm = world.getComponentManager();
+        Collection<Entity> entities = world.getEntityManager().getAllEntities();
+        int[] ids = new int[entities.size()];
+        int n = 0;
+        for (Entity e : entities) ids[n++] = e.getId();
+        Arrays.sort(ids, 0, n);
+
+        ColumnWriter out = new ColumnWriter(64 + 64 * n);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(world.currentTick());
+        out.putInt(n);
+        out.ints(ids, n);
+
+        List<ComponentCodec<?>> all = codecs.all();
+        out.putInt(all.size());
+        for (ComponentCodec<?> codec : all) writeSection(cm, codec, out);
+        writeTags(cm, out);
+
+        return new WorldSnapshot(out.toBuffer(), n);
+    }
+
+    private static <T extends Component> void writeSection(ComponentManager cm, ComponentCodec<T> codec, ColumnWriter out) {
+        Collection<Entry<Integer, T>> entries = cm.entriesForType(codec.type());
+        int count = entries.size();
+        long[] keyed = new long[count]; // (entity id << 32 | row) sorts rows by entity
+        @SuppressWarnings("unchecked")
+        T[] unsorted = (T[]) Array.newInstance(codec.type(), count);
+        int row = 0;
+        for (Entry<Integer, T> e : entries) {
+            keyed[row] = ((long) e.getKey() << 32) | row;
+            unsorted[row++] = e.getValue();
+        }
+        Arrays.sort(keyed);
+
+        int[] ids = new int[count];
+        @SuppressWarnings("unchecked")
+        T[] components = (T[]) Array.newInstance(codec.type(), count);
+        for (int i = 0; i < count; i++) {
+            ids[i] = (int) (keyed[i] >>> 32);
+            components[i] = unsorted[(int) keyed[i]];
+        }
+
+        out.putString(codec.id());
+        out.putInt(count);
+        out.ints(ids, count);
+        out.putLong(0L);
+        int lengthAt = out.position() - Long.BYTES;
+        int start = out.position();
+        codec.encode(components, count, out);
+        out.patchLong(lengthAt, out.position() - start);
+    }
+
+    private static void writeTags(ComponentManager cm, ColumnWriter out) {
+        List<Class<? extends Tag>> tags = cm.tagTypes();
+        tags.removeIf(tag -> cm.tagSet(tag).size() == 0);
+        tags.sort(Comparator.comparing(Class::getName));
+        out.putInt(tags.size());
+        for (Class<? extends Tag> tag : tags) {
+            int[] tagged = new int[cm.tagSet(tag).size()];
+            int[] n = {0};
+            cm.forEachTagged(id -> tagged[n[0]++] = id, tag);
+            int count = n[0];
+            Arrays.sort(tagged, 0, count); // slot order -> entity id order, as for components
+            out.putString(tag.getName());
+            out.putInt(count);
+            out.ints(tagged, count);
+        }
+    }
+
+    /** Writes the snapshot to a temporary file next to {@code file}, then moves it into place. */
+    public void writeTo(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer src = data.duplicate();
+            while (src.hasRemaining()) ch.write(src);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException atomicUnsupported) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public int entityCount() {
+        return entityCount;
+    }
+
+    public int sizeBytes() {
+        return data.remaining();
+    }
+
+    /** Read-only view of the encoded bytes. */
+    public ByteBuffer buffer() {
+        return data.duplicate();
+    }
+
+    /** Replaces the contents of {@code world} with this snapshot. */
+    public Entity[] restoreInto(ECSManager world, ComponentCodecs codecs) throws IOException {
+        return load(buffer(), world, codecs);
+    }
+
+    // -------------------------------------------------------------------------
+    // Load
+    // -------------------------------------------------------------------------
+
+    /** Memory-maps {@code file} and replaces the contents of {@code world} with it. */
+    public static Entity[] load(Path file, ECSManager world, ComponentCodecs codecs) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return load(mapped, world, codecs);
+        }
+    }
+
+    /** Replaces the contents of {@code world} with the snapshot in {@code data}. */
+    public static Entity[] load(ByteBuffer data, ECSManager world, ComponentCodecs codecs) throws IOException {
+        ColumnReader in = new ColumnReader(data.duplicate());
+        if (in.getInt() != MAGIC) throw new IOException("Not an ECS world snapshot");
+        int version = in.getInt();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+        in.getInt(); // tick at capture, informational
+        int n = in.getInt();
+        int[] entityIds = in.ints(n);
+        Entity[] entities = world.restoreEntities(entityIds);
+
+        int sections = in.getInt();
+        List<Section> decoded = new ArrayList<>(sections);
+        Set<Integer> typesSeen = new HashSet<>();
+        for (int s = 0; s < sections; s++) {
+            String id = in.getString();
+            int count = in.getInt();
+            int[] ids = in.ints(count);
+            long length = in.getLong();
+            int end = Math.toIntExact(in.position() + length);
+
+            ComponentCodec<?> codec = codecs.get(id);
+            if (codec == null) {
+                logger.warn("No codec for '" + id + "', skipping " + count + " components");
+                in.skip(length);
+                continue;
+            }
+            Section section = readSection(codec, in, ids, count);
+            if (in.position() != end) {
+                throw new IOException("Codec '" + id + "' read " + (in.position() - (end - length))
+                        + " bytes, section has " + length);
+            }
+            if (!typesSeen.add(section.typeIndex())) {
+                logger.warn("Second section for " + section.type().getSimpleName() + " ('" + id + "') ignored");
+                continue;
+            }
+            decoded.add(section);
+        }
+        ComponentManager cm = world.getComponentManager();
+        spawnAll(cm, entityIds, decoded);
+        readTags(cm, in);
+        return entities;
+    }
+
+    private static void readTags(ComponentManager cm, ColumnReader in) {
+        int tags = in.getInt();
+        for (int t = 0; t < tags; t++) {
+            String name = in.getString();
+            int count = in.getInt();
+            int[] ids = in.ints(count);
+            Class<? extends Tag> tag = tagClass(name);
+            if (tag == null) {
+                logger.warn("Unknown tag '" + name + "', skipping " + count + " entities");
+                continue;
+            }
+            cm.addTags(ids, count, tag);
+        }
+    }
+
+    /** Loads a tag class by name without initializing it; null if it is missing or not a {@link Tag}. */
+    static Class<? extends Tag> tagClass(String name) {
+        try {
+            Class<?> c = Class.forName(name, false, WorldSnapshot.class.getClassLoader());
+            return Tag.class.isAssignableFrom(c) ? c.asSubclass(Tag.class) : null;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /** One decoded section: {@code components[i]} belongs to {@code ids[i]}. */
+    private record Section(int typeIndex, Class<? extends Component> type, int[] ids, Component[] components) {}
+
+    private static <T extends Component> Section readSection(ComponentCodec<T> codec, ColumnReader in,
+                                                             int[] ids, int count) {
+        @SuppressWarnings("unchecked")
+        T[] components = (T[]) Array.newInstance(codec.type(), count);
+        codec.decode(in, count, components);
+        return new Section(ComponentTypes.indexOf(codec.type()), codec.type(), ids, components);
+    }
+
+    /**
+     * Groups the restored entities by their full component set and gives each group its
+     * components through {@link ComponentManager#spawn}: one structural step per
+     * archetype instead of one add per entity and component.
+     */
+    private static void spawnAll(ComponentManager cm, int[] entityIds, List<Section> sections) {
+        int n = entityIds.length;
+        int[] sorted = entityIds.clone(); // ids are written sorted; do not rely on it
+        Arrays.sort(sorted);
+        sections.sort(Comparator.comparingInt(Section::typeIndex)); // spawn wants signature order
+
+        // row of each component in its section, per entity (-1: entity lacks the type)
+        int[][] rowOf = new int[sections.size()][];
+        ComponentMask[] masks = new ComponentMask[n];
+        Arrays.fill(masks, ComponentMask.EMPTY);
+        for (int s = 0; s < sections.size(); s++) {
+            Section section = sections.get(s);
+            int[] rows = new int[n];
+            Arrays.fill(rows, -1);
+            for (int i = 0; i < section.ids().length; i++) {
+                int e = Arrays.binarySearch(sorted, section.ids()[i]);
+                if (e < 0) continue; // component of an entity that is not in the snapshot
+                rows[e] = i;
+                masks[e] = masks[e].with(section.typeIndex());
+            }
+            rowOf[s] = rows;
+        }
+
+        // counting sort of entity positions by component set
+        Map<ComponentMask, Integer> groupIndex = new LinkedHashMap<>();
+        int[] groupOf = new int[n];
+        for (int e = 0; e < n; e++) {
+            groupOf[e] = masks[e].isEmpty() ? -1 : groupIndex.computeIfAbsent(masks[e], m -> groupIndex.size());
+        }
+        int[] starts = new int[groupIndex.size() + 1];
+        for (int e = 0; e < n; e++) {
+            if (groupOf[e] >= 0) starts[groupOf[e] + 1]++;
+        }
+        for (int g = 0; g < groupIndex.size(); g++) starts[g + 1] += starts[g];
+        int[] byGroup = new int[starts[groupIndex.size()]];
+        int[] fill = Arrays.copyOf(starts, groupIndex.size());
+        for (int e = 0; e < n; e++) {
+            if (groupOf[e] >= 0) byGroup[fill[groupOf[e]]++] = e;
+        }
+
+        for (Entry<ComponentMask, Integer> g : groupIndex.entrySet()) {
+            ComponentMask mask = g.getKey();
+            int from = starts[g.getValue()];
+            int count = starts[g.getValue() + 1] - from;
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) ids[i] = sorted[byGroup[from + i]];
+
+            Component[][] columns = new Component[mask.cardinality()][];
+            int c = 0;
+            for (int s = 0; s < sections.size(); s++) {
+                Section section = sections.get(s);
+                if (!mask.has(section.typeIndex())) continue;
+                Component[] column = (Component[]) Array.newInstance(section.type(), count);
+                for (int i = 0; i < count; i++) column[i] = section.components()[rowOf[s][byGroup[from + i]]];
+                columns[c++] = column;
+            }
+            cm.spawn(ids, count, mask, columns);
+        }
+    }
+}
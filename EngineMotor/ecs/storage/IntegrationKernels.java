@@ -0,0 +1,105 @@
+package ecs.storage;
+
+import utils.Logger;
+
+/**
+ * Integration kernels over {@link MotionColumns}.
+ *
+ * When the {@code jdk.incubator.vector} module is present (run with
+ * {@code --add-modules jdk.incubator.vector}) the kernels use the Vector API at the
+ * platform's preferred SIMD width; otherwise, or with {@code -Decs.vector=false},
+ * they fall back to plain scalar loops. Both paths are allocation-free.
+ */
+public final class IntegrationKernels {
+
+    private static final Logger logger = new Logger(IntegrationKernels.class);
+
+    /** Gravity along Y, in m/s², shared with the component path of PhysicsSystem. */
+    public static final float GRAVITY = -9.81f;
+
+    private static final boolean VECTORIZED = detectVectorSupport();
+
+    private IntegrationKernels() {}
+
+    private static boolean detectVectorSupport() {
+        if (!Boolean.parseBoolean(System.getProperty("ecs.vector", "true"))) return false;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+        try {
+            int lanes = VectorIntegration.lanes();
+            logger.info("Vector API kernels enabled (" + lanes + " float lanes)");
+            return lanes > 1;
+        } catch (Throwable t) {
+            logger.warn("Vector API unavailable, using scalar kernels: " + t);
+            return false;
+        }
+    }
+
+    /** True if the SIMD kernels are in use. */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    // -------------------------------------------------------------------------
+    // Rigid bodies (PhysicsSystem)
+    // -------------------------------------------------------------------------
+
+    /**
+     * v += a·dt; p += v·dt; p.y += g·gravity·dt; v *= 1 - drag·dt.
+     * Same step as PhysicsSystem applies to component-based bodies.
+     */
+    public static void integrateBodies(MotionColumns c, float dt) {
+        if (VECTORIZED) {
+            VectorIntegration.integrateBodies(c, dt);
+        } else {
+            integrateBodiesScalar(c, dt, 0, c.size());
+        }
+    }
+
+    /** Scalar form of {@link #integrateBodies} over slots {@code [from, to)}. */
+    public static void integrateBodiesScalar(MotionColumns c, float dt, int from, int to) {
+        float[] px = c.px(), py = c.py(), pz = c.pz();
+        float[] vx = c.vx(), vy = c.vy(), vz = c.vz();
+        float[] ax = c.ax(), ay = c.ay(), az = c.az();
+        float[] drag = c.drag(), gravity = c.gravity();
+        float gdt = GRAVITY * dt;
+
+        for (int i = from; i < to; i++) {
+            float nvx = vx[i] + ax[i] * dt;
+            float nvy = vy[i] + ay[i] * dt;
+            float nvz = vz[i] + az[i] * dt;
+
+            px[i] += nvx * dt;
+            py[i] += nvy * dt + gravity[i] * gdt;
+            pz[i] += nvz * dt;
+
+            float damp = 1f - drag[i] * dt;
+            vx[i] = nvx * damp;
+            vy[i] = nvy * damp;
+            vz[i] = nvz * damp;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Kinematic movement (MovementSystem)
+    // -------------------------------------------------------------------------
+
+    /** p += v·scale for every slot. */
+    public static void applyVelocity(MotionColumns c, float scale) {
+        if (VECTORIZED) {
+            VectorIntegration.applyVelocity(c, scale);
+        } else {
+            applyVelocityScalar(c, scale, 0, c.size());
+        }
+    }
+
+    /** Scalar form of {@link #applyVelocity} over slots {@code [from, to)}. */
+    public static void applyVelocityScalar(MotionColumns c, float scale, int from, int to) {
+        float[] px = c.px(), py = c.py(), pz = c.pz();
+        float[] vx = c.vx(), vy = c.vy(), vz = c.vz();
+        for (int i = from; i < to; i++) {
+            px[i] += vx[i] * scale;
+            py[i] += vy[i] * scale;
+            pz[i] += vz[i] * scale;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package ecs.storage;
+
+import ecs.EntityId;
+import ecs.components.RigidbodyComponent;
+import ecs.components.TransformComponent;
+import math.Vec3;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage for hot motion data (position, velocity, acceleration,
+ * drag and gravity), one float column per scalar. This is the optional layout for
+ * bodies that {@link ecs.systems.PhysicsSystem} and {@link ecs.systems.MovementSystem}
+ * integrate through {@link IntegrationKernels}; entities stored here do not need
+ * Transform/Rigidbody component objects.
+ *
+ * Slots {@code [0, size())} are dense. Adds and removes are serialized; column reads
+ * and kernel passes must not overlap them.
+ */
+public final class MotionColumns {
+
+    private int[] entities;
+    private int[] slots = new int[0]; // entity id -> slot + 1, 0 when absent
+    private int size;
+
+    private float[] px, py, pz;
+    private float[] vx, vy, vz;
+    private float[] ax, ay, az;
+    private float[] drag;
+    private float[] gravity; // 1 = affected by gravity, 0 = not; a multiplier keeps kernels branch-free
+
+    public MotionColumns() {
+        this(256);
+    }
+
+    public MotionColumns(int initialCapacity) {
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    // -------------------------------------------------------------------------
+    // Structure
+    // -------------------------------------------------------------------------
+
+    /** Adds a body at rest with {@link RigidbodyComponent}'s defaults and returns its slot. */
+    public synchronized int add(int entityId) {
+        if (entityId < 0) throw new IllegalArgumentException("Negative entity id: " + entityId);
+        int slot = slotOf(entityId);
+        if (slot >= 0) return slot;
+
+        ensureCapacity(size + 1);
+        int index = EntityId.index(entityId);
+        if (index >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(index + 1, slots.length * 2));
+        } else if (slots[index] != 0) {
+            remove(entities[slots[index] - 1]); // stale body from an earlier generation
+        }
+        slot = size++;
+        entities[slot] = entityId;
+        slots[index] = slot + 1;
+        px[slot] = py[slot] = pz[slot] = 0f;
+        vx[slot] = vy[slot] = vz[slot] = 0f;
+        ax[slot] = ay[slot] = az[slot] = 0f;
+        drag[slot] = 0.05f;
+        gravity[slot] = 1f;
+        return slot;
+    }
+
+    /** Adds a body initialized from existing components (values are copied, not shared). */
+    public int add(int entityId, TransformComponent tf, RigidbodyComponent rb) {
+        int slot = add(entityId);
+        Vec3 p = tf.position;
+        px[slot] = p.getX(); py[slot] = p.getY(); pz[slot] = p.getZ();
+        if (rb != null) {
+            vx[slot] = rb.velocity.getX(); vy[slot] = rb.velocity.getY(); vz[slot] = rb.velocity.getZ();
+            ax[slot] = rb.acceleration.getX(); ay[slot] = rb.acceleration.getY(); az[slot] = rb.acceleration.getZ();
+            drag[slot] = rb.drag;
+            gravity[slot] = rb.useGravity ? 1f : 0f;
+        }
+        return slot;
+    }
+
+    /** Removes a body, moving the last slot into its place. */
+    public synchronized void remove(int entityId) {
+        int slot = slotOf(entityId);
+        if (slot < 0) return;
+        int last = --size;
+        if (slot != last) {
+            int moved = entities[last];
+            entities[slot] = moved;
+            slots[EntityId.index(moved)] = slot + 1;
+            px[slot] = px[last]; py[slot] = py[last]; pz[slot] = pz[last];
+            vx[slot] = vx[last]; vy[slot] = vy[last]; vz[slot] = vz[last];
+            ax[slot] = ax[last]; ay[slot] = ay[last]; az[slot] = az[last];
+            drag[slot] = drag[last];
+            gravity[slot] = gravity[last];
+        }
+        slots[EntityId.index(entityId)] = 0;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    /** Grows every column to hold at least {@code capacity} bodies. */
+    public synchronized void ensureCapacity(int capacity) {
+        if (capacity <= entities.length) return;
+        int cap = Math.max(capacity, entities.length * 2);
+        entities = Arrays.copyOf(entities, cap);
+        px = Arrays.copyOf(px, cap); py = Arrays.copyOf(py, cap); pz = Arrays.copyOf(pz, cap);
+        vx = Arrays.copyOf(vx, cap); vy = Arrays.copyOf(vy, cap); vz = Arrays.copyOf(vz, cap);
+        ax = Arrays.copyOf(ax, cap); ay = Arrays.copyOf(ay, cap); az = Arrays.copyOf(az, cap);
+        drag = Arrays.copyOf(drag, cap);
+        gravity = Arrays.copyOf(gravity, cap);
+    }
+
+    private void allocate(int cap) {
+        entities = new int[cap];
+        px = new float[cap]; py = new float[cap]; pz = new float[cap];
+        vx = new float[cap]; vy = new float[cap]; vz = new float[cap];
+        ax = new float[cap]; ay = new float[cap]; az = new float[cap];
+        drag = new float[cap];
+        gravity = new float[cap];
+    }
+
+    // -------------------------------------------------------------------------
+    // Per-entity access
+    // -------------------------------------------------------------------------
+
+    /** Slot of the entity, or -1 if it is not stored here. */
+    public int slotOf(int entityId) {
+        if (entityId < 0) return -1;
+        int index = EntityId.index(entityId);
+        int[] s = slots;
+        int slot = index < s.length ? s[index] - 1 : -1;
+        return slot >= 0 && entities[slot] == entityId ? slot : -1;
+    }
+
+    public boolean contains(int entityId) {
+        return slotOf(entityId) >= 0;
+    }
+
+    /** Copies the entity's position into {@code out}; returns null if absent. */
+    public Vec3 getPosition(int entityId, Vec3 out) {
+        int s = slotOf(entityId);
+        return s < 0 ? null : out.set(px[s], py[s], pz[s]);
+    }
+
+    /** Copies the entity's velocity into {@code out}; returns null if absent. */
+    public Vec3 getVelocity(int entityId, Vec3 out) {
+        int s = slotOf(entityId);
+        return s < 0 ? null : out.set(vx[s], vy[s], vz[s]);
+    }
+
+    public void setPosition(int entityId, float x, float y, float z) {
+        int s = require(entityId);
+        px[s] = x; py[s] = y; pz[s] = z;
+    }
+
+    public void setVelocity(int entityId, float x, float y, float z) {
+        int s = require(entityId);
+        vx[s] = x; vy[s] = y; vz[s] = z;
+    }
+
+    public void setAcceleration(int entityId, float x, float y, float z) {
+        int s = require(entityId);
+        ax[s] = x; ay[s] = y; az[s] = z;
+    }
+
+    public void setDrag(int entityId, float value) {
+        drag[require(entityId)] = value;
+    }
+
+    public void setUseGravity(int entityId, boolean useGravity) {
+        gravity[require(entityId)] = useGravity ? 1f : 0f;
+    }
+
+    private int require(int entityId) {
+        int s = slotOf(entityId);
+        if (s < 0) throw new IllegalArgumentException("Entity " + entityId + " has no motion columns");
+        return s;
+    }
+
+    // -------------------------------------------------------------------------
+    // Columns (valid in [0, size()))
+    // -------------------------------------------------------------------------
+
+    public int size() { return size; }
+    public int capacity() { return entities.length; }
+    public int[] entities() { return entities; }
+
+    public float[] px() { return px; }
+    public float[] py() { return py; }
+    public float[] pz() { return pz; }
+    public float[] vx() { return vx; }
+    public float[] vy() { return vy; }
+    public float[] vz() { return vz; }
+    public float[] ax() { return ax; }
+    public float[] ay() { return ay; }
+    public float[] az() { return az; }
+    public float[] drag() { return drag; }
+    public float[] gravity() { return gravity; }
+}
@@ -0,0 +1,450 @@
+package ecs.storage;
+
+import ecs.EntityId;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Uniform hash grid over entity positions for radius, box and k-nearest queries.
+ *
+ * Each entity sits in the cell containing its point; cells are kept in an
+ * open-addressing table keyed by packed cell coordinates, and the entities of a cell
+ * form an intrusive linked list over per-slot arrays, so moving an entity is O(1) and
+ * nothing is allocated per update or per query. Queries write entity ids into
+ * caller-provided arrays and return the total number of matches (which may exceed
+ * the array length; only the first {@code out.length} are written).
+ *
+ * Any number of threads may query at once; updates take a write lock.
+ */
+public final class SpatialHashGrid {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int COORD_BITS = 21;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    private final float cellSize;
+    private final float inverseCell;
+
+    private final ReentrantReadWriteLock rw = new ReentrantReadWriteLock();
+    private final Lock read = rw.readLock();
+    private final Lock write = rw.writeLock();
+
+    // Per entity slot (EntityId.index)
+    private int[] ids = new int[0];     // full id, -1 when absent
+    private float[] px = new float[0], py = new float[0], pz = new float[0];
+    private int[] cellOf = new int[0];  // table position of the entity's cell
+    private int[] next = new int[0], prev = new int[0];
+    private int size;
+
+    // Cell table: packed cell key -> first slot of its list (-1 when the list is empty)
+    private long[] keys;
+    private int[] heads;
+    private int usedCells;
+
+    // Bounds of every cell used since the last rehash, to stop ring searches
+    private int minX, minY, minZ, maxX, maxY, maxZ;
+
+    public SpatialHashGrid(float cellSize) {
+        if (!(cellSize > 0)) throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        this.cellSize = cellSize;
+        this.inverseCell = 1f / cellSize;
+        allocateTable(64);
+    }
+
+    // -------------------------------------------------------------------------
+    // Updates
+    // -------------------------------------------------------------------------
+
+    /** Inserts the entity or moves it to a new position. */
+    public void update(int id, float x, float y, float z) {
+        write.lock();
+        try {
+            put(id, x, y, z);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /** Updates {@code count} entities under one lock; positions are {@code xyz[3i .. 3i+2]}. */
+    public void update(int[] entityIds, float[] xyz, int count) {
+        write.lock();
+        try {
+            for (int i = 0; i < count; i++) put(entityIds[i], xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2]);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    public boolean remove(int id) {
+        write.lock();
+        try {
+            int slot = slotOf(id);
+            if (slot < 0) return false;
+            unlink(slot);
+            ids[slot] = -1;
+            size--;
+            return true;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /** Removes every entity for which {@code drop} is true; returns how many. */
+    public int removeIf(IntPredicate drop) {
+        write.lock();
+        try {
+            int removed = 0;
+            for (int slot = 0; slot < ids.length; slot++) {
+                if (ids[slot] < 0 || !drop.test(ids[slot])) continue;
+                unlink(slot);
+                ids[slot] = -1;
+                removed++;
+            }
+            size -= removed;
+            return removed;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    public void clear() {
+        write.lock();
+        try {
+            Arrays.fill(ids, -1);
+            size = 0;
+            allocateTable(64);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    private void put(int id, float x, float y, float z) {
+        if (id < 0) throw new IllegalArgumentException("Negative entity id: " + id);
+        int slot = EntityId.index(id);
+        ensureSlot(slot);
+        int cx = cell(x), cy = cell(y), cz = cell(z);
+        if (ids[slot] >= 0) {
+            if (ids[slot] == id && keys[cellOf[slot]] == key(cx, cy, cz)) {
+                px[slot] = x; py[slot] = y; pz[slot] = z;
+                return;
+            }
+            unlink(slot); // moved cell, or a stale id left in a recycled slot
+            ids[slot] = -1; // keep it out of a rehash triggered below
+        } else {
+            size++;
+        }
+        int c = findOrAddCell(cx, cy, cz);
+        ids[slot] = id;
+        px[slot] = x; py[slot] = y; pz[slot] = z;
+        cellOf[slot] = c;
+        prev[slot] = -1;
+        next[slot] = heads[c];
+        if (heads[c] >= 0) prev[heads[c]] = slot;
+        heads[c] = slot;
+    }
+
+    private void unlink(int slot) {
+        int p = prev[slot], n = next[slot];
+        if (p >= 0) next[p] = n;
+        else heads[cellOf[slot]] = n;
+        if (n >= 0) prev[n] = p;
+    }
+
+    private void ensureSlot(int slot) {
+        if (slot < ids.length) return;
+        int cap = Math.max(slot + 1, Math.max(16, ids.length * 2));
+        int old = ids.length;
+        ids = Arrays.copyOf(ids, cap);
+        Arrays.fill(ids, old, cap, -1);
+        px = Arrays.copyOf(px, cap);
+        py = Arrays.copyOf(py, cap);
+        pz = Arrays.copyOf(pz, cap);
+        cellOf = Arrays.copyOf(cellOf, cap);
+        next = Arrays.copyOf(next, cap);
+        prev = Arrays.copyOf(prev, cap);
+    }
+
+    // -------------------------------------------------------------------------
+    // Queries (allocation-free, concurrent)
+    // -------------------------------------------------------------------------
+
+    /** Entities within {@code radius} of the point. */
+    public int queryRadius(float x, float y, float z, float radius, int[] out) {
+        float r2 = radius * radius;
+        read.lock();
+        try {
+            int x0 = cell(x - radius), x1 = cell(x + radius);
+            int y0 = cell(y - radius), y1 = cell(y + radius);
+            int z0 = cell(z - radius), z1 = cell(z + radius);
+            int found = 0;
+            if (cellsIn(x0, x1, y0, y1, z0, z1) > size) {
+                for (int slot = 0; slot < ids.length; slot++) {
+                    if (ids[slot] >= 0 && dist2(slot, x, y, z) <= r2) found = emit(out, found, ids[slot]);
+                }
+                return found;
+            }
+            for (int cx = Math.max(x0, minX); cx <= Math.min(x1, maxX); cx++) {
+                for (int cy = Math.max(y0, minY); cy <= Math.min(y1, maxY); cy++) {
+                    for (int cz = Math.max(z0, minZ); cz <= Math.min(z1, maxZ); cz++) {
+                        int c = findCell(cx, cy, cz);
+                        if (c < 0) continue;
+                        for (int s = heads[c]; s >= 0; s = next[s]) {
+                            if (dist2(s, x, y, z) <= r2) found = emit(out, found, ids[s]);
+                        }
+                    }
+                }
+            }
+            return found;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /** Entities inside the axis-aligned box (bounds inclusive). */
+    public int queryBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] out) {
+        read.lock();
+        try {
+            int x0 = cell(minX), x1 = cell(maxX);
+            int y0 = cell(minY), y1 = cell(maxY);
+            int z0 = cell(minZ), z1 = cell(maxZ);
+            int found = 0;
+            if (cellsIn(x0, x1, y0, y1, z0, z1) > size) {
+                for (int slot = 0; slot < ids.length; slot++) {
+                    if (ids[slot] >= 0 && inBox(slot, minX, minY, minZ, maxX, maxY, maxZ)) found = emit(out, found, ids[slot]);
+                }
+                return found;
+            }
+            for (int cx = Math.max(x0, this.minX); cx <= Math.min(x1, this.maxX); cx++) {
+                for (int cy = Math.max(y0, this.minY); cy <= Math.min(y1, this.maxY); cy++) {
+                    for (int cz = Math.max(z0, this.minZ); cz <= Math.min(z1, this.maxZ); cz++) {
+                        int c = findCell(cx, cy, cz);
+                        if (c < 0) continue;
+                        for (int s = heads[c]; s >= 0; s = next[s]) {
+                            if (inBox(s, minX, minY, minZ, maxX, maxY, maxZ)) found = emit(out, found, ids[s]);
+                        }
+                    }
+                }
+            }
+            return found;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code k} entities nearest to the point, nearest first, with their squared
+     * distances in {@code outDist2}. Both arrays need room for {@code k} entries.
+     *
+     * @return number of entities written ({@code min(k, size())})
+     */
+    public int nearest(float x, float y, float z, int k, int[] outIds, float[] outDist2) {
+        if (k <= 0) return 0;
+        if (outIds.length < k || outDist2.length < k) throw new IllegalArgumentException("Output arrays shorter than k");
+        read.lock();
+        try {
+            int n = 0;
+            if (size == 0) return 0;
+            int cx = cell(x), cy = cell(y), cz = cell(z);
+            int reach = Math.max(Math.max(Math.max(cx - minX, maxX - cx), Math.max(cy - minY, maxY - cy)),
+                    Math.max(cz - minZ, maxZ - cz));
+            for (int d = 0; d <= reach; d++) {
+                long ringCells = (long) (2 * d + 1) * (2 * d + 1) * (2 * d + 1) - (d == 0 ? 0 : (long) (2 * d - 1) * (2 * d - 1) * (2 * d - 1));
+                if (ringCells > size) {
+                    // Sparse world: cheaper to look at every entity than at every cell left
+                    n = 0;
+                    for (int slot = 0; slot < ids.length; slot++) {
+                        if (ids[slot] >= 0) n = offer(outIds, outDist2, n, k, ids[slot], dist2(slot, x, y, z));
+                    }
+                    break;
+                }
+                for (int dx = -d; dx <= d; dx++) {
+                    for (int dy = -d; dy <= d; dy++) {
+                        boolean shell = Math.abs(dx) == d || Math.abs(dy) == d;
+                        for (int dz = -d; dz <= d; dz += shell ? 1 : Math.max(1, 2 * d)) {
+                            int c = findCell(cx + dx, cy + dy, cz + dz);
+                            if (c < 0) continue;
+                            for (int s = heads[c]; s >= 0; s = next[s]) {
+                                n = offer(outIds, outDist2, n, k, ids[s], dist2(s, x, y, z));
+                            }
+                        }
+                    }
+                }
+                // Anything in ring d + 1 is at least d cells away from the point
+                float bound = d * cellSize;
+                if (n == k && outDist2[0] <= bound * bound) break;
+            }
+            sortHeap(outIds, outDist2, n);
+            return n;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    public int size() {
+        read.lock();
+        try {
+            return size;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    public boolean contains(int id) {
+        read.lock();
+        try {
+            return slotOf(id) >= 0;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    // -------------------------------------------------------------------------
+    // Internals
+    // -------------------------------------------------------------------------
+
+    private int slotOf(int id) {
+        if (id < 0) return -1;
+        int slot = EntityId.index(id);
+        return slot < ids.length && ids[slot] == id ? slot : -1;
+    }
+
+    private int cell(float v) {
+        return (int) Math.floor(v * inverseCell);
+    }
+
+    private long cellsIn(int x0, int x1, int y0, int y1, int z0, int z1) {
+        return (long) (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+    }
+
+    private float dist2(int slot, float x, float y, float z) {
+        float dx = px[slot] - x, dy = py[slot] - y, dz = pz[slot] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private boolean inBox(int s, float x0, float y0, float z0, float x1, float y1, float z1) {
+        return px[s] >= x0 && px[s] <= x1 && py[s] >= y0 && py[s] <= y1 && pz[s] >= z0 && pz[s] <= z1;
+    }
+
+    private static int emit(int[] out, int found, int id) {
+        if (found < out.length) out[found] = id;
+        return found + 1;
+    }
+
+    /** Bounded max-heap on distance: keeps the k smallest seen so far. */
+    private static int offer(int[] ids, float[] d2, int n, int k, int id, float dist) {
+        if (n < k) {
+            int i = n++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (d2[parent] >= dist) break;
+                ids[i] = ids[parent];
+                d2[i] = d2[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            d2[i] = dist;
+            return n;
+        }
+        if (dist >= d2[0]) return n;
+        siftDown(ids, d2, 0, n, id, dist);
+        return n;
+    }
+
+    private static void siftDown(int[] ids, float[] d2, int i, int n, int id, float dist) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && d2[child + 1] > d2[child]) child++;
+            if (d2[child] <= dist) break;
+            ids[i] = ids[child];
+            d2[i] = d2[child];
+            i = child;
+        }
+        ids[i] = id;
+        d2[i] = dist;
+    }
+
+    /** In-place heap sort: max-heap in, ascending distances out. */
+    private static void sortHeap(int[] ids, float[] d2, int n) {
+        for (int end = n - 1; end > 0; end--) {
+            int topId = ids[0];
+            float top = d2[0];
+            siftDown(ids, d2, 0, end, ids[end], d2[end]);
+            ids[end] = topId;
+            d2[end] = top;
+        }
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((cx & COORD_MASK) << (2 * COORD_BITS)) | ((cy & COORD_MASK) << COORD_BITS) | (cz & COORD_MASK);
+    }
+
+    private int bucket(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (keys.length - 1);
+    }
+
+    private int findCell(int cx, int cy, int cz) {
+        long k = key(cx, cy, cz);
+        for (int i = bucket(k); ; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == k) return heads[i] >= 0 ? i : -1;
+            if (keys[i] == EMPTY) return -1;
+        }
+    }
+
+    private int findOrAddCell(int cx, int cy, int cz) {
+        long k = key(cx, cy, cz);
+        int i = bucket(k);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == k) return i;
+            i = (i + 1) & (keys.length - 1);
+        }
+        if ((usedCells + 1) * 2 > keys.length) {
+            rehash();
+            return findOrAddCell(cx, cy, cz);
+        }
+        keys[i] = k;
+        heads[i] = -1;
+        usedCells++;
+        if (usedCells == 1) {
+            minX = maxX = cx; minY = maxY = cy; minZ = maxZ = cz;
+        } else {
+            minX = Math.min(minX, cx); maxX = Math.max(maxX, cx);
+            minY = Math.min(minY, cy); maxY = Math.max(maxY, cy);
+            minZ = Math.min(minZ, cz); maxZ = Math.max(maxZ, cz);
+        }
+        return i;
+    }
+
+    /** Rebuilds the cell table from the live entities, dropping cells that emptied. */
+    private void rehash() {
+        int live = 0;
+        for (int slot = 0; slot < ids.length; slot++) if (ids[slot] >= 0) live++;
+        int cap = 64;
+        while (cap < live * 4) cap <<= 1;
+        allocateTable(cap);
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] < 0) continue;
+            int c = findOrAddCell(cell(px[slot]), cell(py[slot]), cell(pz[slot]));
+            cellOf[slot] = c;
+            prev[slot] = -1;
+            next[slot] = heads[c];
+            if (heads[c] >= 0) prev[heads[c]] = slot;
+            heads[c] = slot;
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        keys = new long[capacity];
+        heads = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        usedCells = 0;
+    }
+}
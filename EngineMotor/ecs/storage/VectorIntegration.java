@@ -0,0 +1,68 @@
+package ecs.storage;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API bodies of the {@link IntegrationKernels}. Only loaded after the
+ * kernels have checked that {@code jdk.incubator.vector} is resolvable, so the
+ * rest of the engine never links against the incubator module.
+ *
+ * Every lane computes exactly what the scalar kernels compute for its slot: separate
+ * multiply and add (no fma), associated the same way, so a body's result does not
+ * depend on its slot or on the host's vector width.
+ */
+final class VectorIntegration {
+
+    private static final VectorSpecies<Float> S = FloatVector.SPECIES_PREFERRED;
+
+    private VectorIntegration() {}
+
+    static int lanes() {
+        return S.length();
+    }
+
+    static void integrateBodies(MotionColumns c, float dt) {
+        float[] px = c.px(), py = c.py(), pz = c.pz();
+        float[] vx = c.vx(), vy = c.vy(), vz = c.vz();
+        float[] ax = c.ax(), ay = c.ay(), az = c.az();
+        float[] drag = c.drag(), gravity = c.gravity();
+        int n = c.size();
+        FloatVector dtv = FloatVector.broadcast(S, dt);
+        FloatVector gdt = FloatVector.broadcast(S, IntegrationKernels.GRAVITY * dt);
+        FloatVector one = FloatVector.broadcast(S, 1f);
+
+        int i = 0;
+        for (int upper = S.loopBound(n); i < upper; i += S.length()) {
+            FloatVector nvx = FloatVector.fromArray(S, vx, i).add(FloatVector.fromArray(S, ax, i).mul(dtv));
+            FloatVector nvy = FloatVector.fromArray(S, vy, i).add(FloatVector.fromArray(S, ay, i).mul(dtv));
+            FloatVector nvz = FloatVector.fromArray(S, vz, i).add(FloatVector.fromArray(S, az, i).mul(dtv));
+
+            FloatVector.fromArray(S, px, i).add(nvx.mul(dtv)).intoArray(px, i);
+            FloatVector.fromArray(S, py, i).add(nvy.mul(dtv).add(FloatVector.fromArray(S, gravity, i).mul(gdt)))
+                       .intoArray(py, i);
+            FloatVector.fromArray(S, pz, i).add(nvz.mul(dtv)).intoArray(pz, i);
+
+            FloatVector damp = one.sub(FloatVector.fromArray(S, drag, i).mul(dtv));
+            nvx.mul(damp).intoArray(vx, i);
+            nvy.mul(damp).intoArray(vy, i);
+            nvz.mul(damp).intoArray(vz, i);
+        }
+        IntegrationKernels.integrateBodiesScalar(c, dt, i, n);
+    }
+
+    static void applyVelocity(MotionColumns c, float scale) {
+        float[] px = c.px(), py = c.py(), pz = c.pz();
+        float[] vx = c.vx(), vy = c.vy(), vz = c.vz();
+        int n = c.size();
+        FloatVector sv = FloatVector.broadcast(S, scale);
+
+        int i = 0;
+        for (int upper = S.loopBound(n); i < upper; i += S.length()) {
+            FloatVector.fromArray(S, px, i).add(FloatVector.fromArray(S, vx, i).mul(sv)).intoArray(px, i);
+            FloatVector.fromArray(S, py, i).add(FloatVector.fromArray(S, vy, i).mul(sv)).intoArray(py, i);
+            FloatVector.fromArray(S, pz, i).add(FloatVector.fromArray(S, vz, i).mul(sv)).intoArray(pz, i);
+        }
+        IntegrationKernels.applyVelocityScalar(c, scale, i, n);
+    }
+}
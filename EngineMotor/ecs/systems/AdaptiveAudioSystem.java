@@ -5,6 +5,7 @@ import ecs.components.*;
 import audio.dsp.AudioDSPProcessor;
 import audio.dsp.Spatializer;
 import audio.config.*;
+import ecs.storage.SpatialHashGrid;
 import math.Vec3;
 
 import javax.sound.sampled.*;
@@ -18,10 +19,9 @@ import java.util.concurrent.*;
  * - supports per-source spatialization, per-zone DSP overrides, and streaming reverb
  * - integrates AudioConfigManager for adaptive mix and environment behavior
  */
-public class AdaptiveAudioSystem extends SystemBase {
+public final class AdaptiveAudioSystem extends SystemBase {
 
     private final ECSManager ecs;
-    private final ExecutorService sourcePool;
     private final AudioFormat audioFormat = new AudioFormat(44100f, 16, 2, true, false);
     private final int bufferFrames = 1024;
     private final int bufferBytes = bufferFrames * audioFormat.getFrameSize();
@@ -33,12 +33,41 @@ public class AdaptiveAudioSystem extends SystemBase {
 
     // 🔊 New: Adaptive configuration system
     private AudioConfigManager configManager;
-    private Vec3 lastListenerPos = new Vec3(0, 0, 0);
+    private final Vec3 lastListenerPos = new Vec3(0, 0, 0);
+
+    // Listener changes are picked up in update() from change ticks; the active listener
+    // is published as a world resource so the mixer reads it without scanning
+    private final Query listeners;
+    private final Resources.Resource<ListenerComponent> activeListener;
+
+    // Zones shared with the mixer, rebuilt only when a zone is added, changed or removed.
+    // The grid holds zone list indices at their centers so the mixer only visits nearby zones.
+    // placed keeps the center and radius each zone was indexed with (x, y, z, r per zone),
+    // so zones edited in place without a change stamp are still noticed.
+    private record ZoneIndex(List<SoundZoneComponent> zones, SpatialHashGrid grid, float maxRadius, float[] placed) {
+        boolean moved() {
+            for (int i = 0; i < zones.size(); i++) {
+                SoundZoneComponent z = zones.get(i);
+                int p = i * 4;
+                if (z.center.getX() != placed[p] || z.center.getY() != placed[p + 1]
+                        || z.center.getZ() != placed[p + 2] || z.radius != placed[p + 3]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private volatile ZoneIndex zoneIndex =
+            new ZoneIndex(Collections.emptyList(), new SpatialHashGrid(16f), 0f, new float[0]);
+    private int zonesTick = -1;
 
     public AdaptiveAudioSystem(ECSManager ecs, AudioConfigManager configManager) throws LineUnavailableException {
         this.ecs = ecs;
         this.configManager = configManager;
-        this.sourcePool = Executors.newCachedThreadPool();
+        reads(ListenerComponent.class, AudioSourceComponent.class, SoundZoneComponent.class);
+        this.listeners = ecs.query(ListenerComponent.class);
+        this.activeListener = ecs.resources().resource(ListenerComponent.class);
         DataLine.Info info = new DataLine.Info(SourceDataLine.class, audioFormat);
         outputLine = (SourceDataLine) AudioSystem.getLine(info);
         outputLine.open(audioFormat, bufferBytes * 4);
@@ -54,26 +83,34 @@ public class AdaptiveAudioSystem extends SystemBase {
 
     private void mixerLoop() {
         byte[] mixBuffer = new byte[bufferBytes];
+        int[] nearZones = new int[16];
         while (running) {
             Arrays.fill(mixBuffer, (byte) 0);
 
             ComponentManager cm = ecs.getComponentManager();
             Collection<Map.Entry<Integer, AudioSourceComponent>> sources = cm.entriesForType(AudioSourceComponent.class);
-            ListenerComponent listener = findListener(cm);
+            ListenerComponent listener = activeListener.get();
+            SoundConfig currentConfig = configManager.getCurrentConfig();
 
-            // Update configuration based on listener
+            // Zone modifiers depend only on the listener, so gather them once per buffer
+            float zoneReverb = 0f;
+            float zoneLP = Float.MAX_VALUE;
             if (listener != null) {
-                if (!listener.position.equals(lastListenerPos)) {
-                    configManager.updateListenerPosition(listener.position);
-                    lastListenerPos = listener.position;
+                ZoneIndex zi = this.zoneIndex;
+                Vec3 lp = listener.position;
+                int found = zi.grid.queryRadius(lp.getX(), lp.getY(), lp.getZ(), zi.maxRadius, nearZones);
+                if (found > nearZones.length) {
+                    nearZones = new int[Integer.highestOneBit(found) << 1];
+                    found = zi.grid.queryRadius(lp.getX(), lp.getY(), lp.getZ(), zi.maxRadius, nearZones);
+                }
+                for (int i = 0; i < found; i++) {
+                    SoundZoneComponent z = zi.zones.get(nearZones[i]);
+                    float att = Spatializer.distanceAttenuation(lp, z.center, z.radius);
+                    if (att > 0.01f) {
+                        zoneReverb = Math.max(zoneReverb, z.zoneReverb * att);
+                        zoneLP = Math.min(zoneLP, z.zoneLowPass);
+                    }
                 }
-            }
-            SoundConfig currentConfig = configManager.getCurrentConfig();
-
-            // Gather zones
-            List<SoundZoneComponent> zones = new ArrayList<>();
-            for (Map.Entry<Integer, SoundZoneComponent> e : cm.entriesForType(SoundZoneComponent.class)) {
-                zones.add(e.getValue());
             }
 
             for (Map.Entry<Integer, AudioSourceComponent> e : sources) {
@@ -90,19 +127,6 @@ public class AdaptiveAudioSystem extends SystemBase {
                     else continue;
                 }
 
-                // compute spatialization and zone modifiers
-                float zoneReverb = 0f;
-                float zoneLP = Float.MAX_VALUE;
-                if (listener != null) {
-                    for (SoundZoneComponent z : zones) {
-                        float att = Spatializer.distanceAttenuation(listener.position, z.center, z.radius);
-                        if (att > 0.01f) {
-                            zoneReverb = Math.max(zoneReverb, z.zoneReverb * att);
-                            zoneLP = Math.min(zoneLP, z.zoneLowPass);
-                        }
-                    }
-                }
-
                 // compute distance attenuation and pan
                 float pan = 0f;
                 float gain = asc.volume * currentConfig.getSfxVolume() * currentConfig.getMasterVolume();
@@ -133,14 +157,6 @@ public class AdaptiveAudioSystem extends SystemBase {
         }
     }
 
-    private ListenerComponent findListener(ComponentManager cm) {
-        Collection<Map.Entry<Integer, ListenerComponent>> listeners = cm.entriesForType(ListenerComponent.class);
-        for (Map.Entry<Integer, ListenerComponent> e : listeners) {
-            return e.getValue();
-        }
-        return null;
-    }
-
     private void mixAddInPlace(byte[] dest, byte[] src) {
         for (int i = 0; i < dest.length; i += 2) {
             int lo = dest[i] & 0xFF;
@@ -160,9 +176,49 @@ public class AdaptiveAudioSystem extends SystemBase {
         }
     }
 
+    /**
+     * Publishes the first listener as the active-listener resource for the mixer.
+     * Pushes its position to the config manager when it becomes active or has changed
+     * since the last run. Rebuilds the zone index when zones were added, removed or
+     * changed, including a center or radius edited in place without a stamp. Move the
+     * listener through {@link ECSManager#getMut} (or call {@link ECSManager#markChanged})
+     * so it is seen.
+     */
     @Override
     public void update(ECSManager ecs, float deltaTime) {
-        // configManager automatically handled inside mixerLoop
+        ComponentManager cm = ecs.getComponentManager();
+        int firstId = listeners.isEmpty() ? -1 : listeners.entityAt(0);
+        ListenerComponent first = firstId < 0 ? null : cm.getComponent(firstId, ListenerComponent.class);
+        boolean switched = first != activeListener.get();
+        if (switched) activeListener.set(first);
+        if (first != null && (switched || cm.isChanged(firstId, ListenerComponent.class, getLastRunTick()))
+                && !first.position.equals(lastListenerPos)) {
+            lastListenerPos.set(first.position);
+            configManager.updateListenerPosition(lastListenerPos.cpy());
+        }
+
+        int zoneTick = cm.lastChangedTick(SoundZoneComponent.class);
+        if (zoneTick != zonesTick || zoneIndex.moved()) {
+            List<SoundZoneComponent> gathered = new ArrayList<>();
+            float maxRadius = 0f;
+            for (Map.Entry<Integer, SoundZoneComponent> e : cm.entriesForType(SoundZoneComponent.class)) {
+                gathered.add(e.getValue());
+                maxRadius = Math.max(maxRadius, e.getValue().radius);
+            }
+            SpatialHashGrid grid = new SpatialHashGrid(Math.max(1f, maxRadius));
+            float[] placed = new float[gathered.size() * 4];
+            for (int i = 0; i < gathered.size(); i++) {
+                SoundZoneComponent z = gathered.get(i);
+                Vec3 c = z.center;
+                grid.update(i, c.getX(), c.getY(), c.getZ());
+                placed[i * 4] = c.getX();
+                placed[i * 4 + 1] = c.getY();
+                placed[i * 4 + 2] = c.getZ();
+                placed[i * 4 + 3] = z.radius;
+            }
+            zoneIndex = new ZoneIndex(gathered, grid, maxRadius, placed);
+            zonesTick = zoneTick;
+        }
     }
 
     public void setConfigManager(AudioConfigManager manager) {
@@ -177,7 +233,6 @@ public class AdaptiveAudioSystem extends SystemBase {
         outputLine.drain();
         outputLine.stop();
         outputLine.close();
-        sourcePool.shutdownNow();
         sourceStates.values().forEach(SourceState::close);
     }
 
@@ -1,5 +1,6 @@
 package ecs.systems;
 
+import core.JobSystem;
 import ecs.*;
 import ecs.components.AudioLayerComponent;
 
@@ -11,17 +12,14 @@ import java.util.concurrent.*;
  * Adaptive music system supporting multiple layers per entity.
  * Smoothly crossfades between active layers using multithreading.
  */
-public class AdaptiveMusicSystem extends SystemBase {
+public final class AdaptiveMusicSystem extends SystemBase {
 
-    private final ExecutorService executor;
+    private final JobSystem jobs;
     private final ConcurrentHashMap<Integer, Future<?>> activeTasks = new ConcurrentHashMap<>();
 
     public AdaptiveMusicSystem() {
-        this.executor = Executors.newCachedThreadPool(r -> {
-            Thread t = new Thread(r, "AudioLayerWorker");
-            t.setDaemon(true);
-            return t;
-        });
+        writes(AudioLayerComponent.class);
+        this.jobs = JobSystem.shared();
     }
 
     @Override
@@ -33,7 +31,7 @@ public class AdaptiveMusicSystem extends SystemBase {
             AudioLayerComponent comp = entry.getValue();
 
             if (!activeTasks.containsKey(entity)) {
-                Future<?> task = executor.submit(() -> updateLayers(entity, comp, deltaTime));
+                Future<?> task = jobs.submitBlocking(() -> updateLayers(entity, comp, deltaTime));
                 activeTasks.put(entity, task);
             }
         }
@@ -83,6 +81,6 @@ public class AdaptiveMusicSystem extends SystemBase {
         for (Future<?> f : activeTasks.values()) {
             f.cancel(true);
         }
-        executor.shutdownNow();
+        activeTasks.clear();
     }
 }
@@ -1,48 +1,115 @@
 package ecs.systems;
 
+import ecs.ECSManager;
 import ecs.Entity;
-import engine.IdRegistry;
+import ecs.EntityTable;
 import java.util.*;
 
 /**
  * Manages all entity instances and their IDs.
- * Provides creation, removal, and alive-state checks.
+ * Provides creation, removal, and alive-state checks on top of a generational
+ * {@link EntityTable}: lookups and liveness checks are O(1) and lock-free.
  */
 public class EntityManager {
-    private final IdRegistry<Entity> registry = new IdRegistry<>();
+    private final EntityTable table = new EntityTable();
 
-    /** Register an entity by its own ID. */
-    public void addEntity(Entity e) {
-        registry.register(e.getId(), e);
+    /** Create a live entity owned by the given world. */
+    public Entity create(ECSManager world) {
+        return table.create(world);
     }
 
-    /** Remove an entity by object. */
-    public void removeEntity(Entity e) {
-        registry.unregister(e);
+    /** Create {@code count} live entities in one step. */
+    public Entity[] createBatch(int count, ECSManager world) {
+        return table.createBatch(count, world);
     }
 
-    /** Check if an entity is alive (by object reference). */
+    /** Allocate an entity id that becomes alive on {@link #addEntity(Entity)}. */
+    public Entity reserve(ECSManager world) {
+        return table.reserve(world);
+    }
+
+    /** Allocate {@code count} ids at once that become alive on {@link #addEntities}. */
+    public Entity[] reserveBatch(int count, ECSManager world) {
+        return table.reserveBatch(count, world);
+    }
+
+    /** Make reserved entities live; the committed ids go to the front of {@code committedIds}. Returns how many. */
+    public int addEntities(Entity[] handles, int[] committedIds) {
+        return table.commitBatch(handles, committedIds);
+    }
+
+    /** Highest slot index handed out so far, plus one. */
+    public int highWaterMark() {
+        return table.highWaterMark();
+    }
+
+    /** Freed slot indices waiting for reuse. */
+    public int freeSlots() {
+        return table.freeSlots();
+    }
+
+    /** Estimated heap bytes of the id table and entity handles. */
+    public long footprintBytes() {
+        return table.footprintBytes();
+    }
+
+    /** Reserve exactly {@code id}, e.g. when replaying a recorded create. */
+    public Entity reserveExact(int id, ECSManager world) {
+        return table.reserveExact(id, world);
+    }
+
+    /** Make a reserved entity live. Returns false if it is stale or already live. */
+    public boolean addEntity(Entity e) {
+        return table.commit(e);
+    }
+
+    /** Remove an entity by object. Returns false if it was not alive, including reserved handles. */
+    public boolean removeEntity(Entity e) {
+        return table.destroy(e.getId());
+    }
+
+    /** Release a reserved entity that will not be made live. Returns false if it is stale or live. */
+    public boolean cancelReservation(Entity e) {
+        return table.cancel(e);
+    }
+
+    /** Remove the first {@code count} ids; the ones that were alive end up at the front. Returns how many. */
+    public int removeBatch(int[] ids, int count) {
+        return table.destroyBatch(ids, count);
+    }
+
+    /** Check if an entity is alive (by handle). */
     public boolean isAlive(Entity e) {
-        return registry.contains(e);
+        return e != null && table.isAlive(e.getId());
+    }
+
+    /** Check if an entity id is alive. */
+    public boolean isAlive(int id) {
+        return table.isAlive(id);
     }
 
     /** Retrieve an entity by ID. */
     public Entity getEntity(int id) {
-        return registry.get(id);
+        return table.get(id);
     }
 
     /** Retrieve all active entities. */
     public Collection<Entity> getAllEntities() {
-        return new ArrayList<>(registry.values());
+        return table.snapshot();
     }
 
     /** Number of active entities. */
     public int count() {
-        return registry.size();
+        return table.size();
+    }
+
+    /** Replace all entities with live ones carrying exactly the given ids. */
+    public Entity[] restore(int[] ids, ECSManager world) {
+        return table.restore(ids, world);
     }
 
     /** Clear all registered entities. */
     public void clear() {
-        registry.clear();
+        table.clear();
     }
 }
@@ -1,5 +1,6 @@
 package ecs.systems;
 
+import core.JobSystem;
 import ecs.*;
 import audio.MidiPlayer;
 import ecs.components.MidiComponent;
@@ -12,21 +13,15 @@ import java.util.concurrent.*;
  * Multithreaded system for handling MIDI playback.
  * Each entity with a MidiComponent is processed concurrently.
  */
-public class MidiPlayerSystem extends SystemBase {
+public final class MidiPlayerSystem extends SystemBase {
 
-    // Thread pool to manage MIDI playback threads
-    private final ExecutorService executor;
+    // Playback blocks until the song ends, so it runs on the job system's virtual threads
+    private final JobSystem jobs;
     private final ConcurrentHashMap<Integer, Future<?>> activeTasks;
 
     public MidiPlayerSystem() {
-        this.executor = Executors.newFixedThreadPool(
-                Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
-                r -> {
-                    Thread t = new Thread(r, "MidiPlayerWorker");
-                    t.setDaemon(true);
-                    return t;
-                }
-        );
+        writes(MidiComponent.class);
+        this.jobs = JobSystem.shared();
         this.activeTasks = new ConcurrentHashMap<>();
     }
 
@@ -49,7 +44,7 @@ public class MidiPlayerSystem extends SystemBase {
 
             // Schedule new playback task if needed
             if (mc.autoPlay && !mc.isPlaying()) {
-                Future<?> future = executor.submit(() -> playMidiForEntity(entity, mc));
+                Future<?> future = jobs.submitBlocking(() -> playMidiForEntity(entity, mc));
                 activeTasks.put(entity, future);
             }
         }
@@ -82,7 +77,5 @@ public class MidiPlayerSystem extends SystemBase {
             f.cancel(true);
         }
         activeTasks.clear();
-
-        executor.shutdownNow();
     }
 }
@@ -2,37 +2,68 @@ package ecs.systems;
 
 import ecs.*;
 import ecs.components.*;
+import ecs.storage.IntegrationKernels;
+import ecs.storage.MotionColumns;
 import ecs.utils.ParallelECSExecutor;
-
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import math.Vec3;
 
 /**
  * Parallelized movement system.
  * Updates entity transforms based on velocity using dt.
+ * Kinematic bodies kept in {@link MotionColumns} are moved by a SIMD kernel instead.
  * Designed to be thread-safe and allocation-free.
  */
 public final class MovementSystem extends SystemBase {
 
     private ParallelECSExecutor executor;
-    private ExecutorService pool;
+    private Query query;
+    private final MotionColumns columns;
+
+    public MovementSystem() {
+        this(null);
+    }
+
+    /** Also moves the given SoA kinematic bodies each update. */
+    public MovementSystem(MotionColumns columns) {
+        this.columns = columns;
+        reads(VelocityComponent.class);
+        writes(TransformComponent.class);
+    }
+
+    public MotionColumns getColumns() {
+        return columns;
+    }
+
+    /** Executor used for the component path; its {@code report()} shows achieved parallel efficiency. */
+    public ParallelECSExecutor getExecutor() {
+        return executor;
+    }
 
     public void initialize(ECSManager ecs) {
-        // Initialize thread pool once
-        pool = Executors.newWorkStealingPool(); // better parallelism than cached pool
-        executor = new ParallelECSExecutor(pool);
+        // Chunks run on the world's shared job workers
+        executor = new ParallelECSExecutor(ecs.getJobs().executor());
+        // Registered once; the ECS keeps it up to date as components come and go
+        query = ecs.query(TransformComponent.class, VelocityComponent.class);
     }
 
     @Override
     public void update(ECSManager ecs, float dt) {
-        // Gather all entities with required components
-        List<Entity> entities = ecs.getEntitiesWith(TransformComponent.class, VelocityComponent.class);
-        if (entities.isEmpty()) return;
+        // Same step as the component path below: p += v
+        if (columns != null && columns.size() > 0) {
+            IntegrationKernels.applyVelocity(columns, 1f);
+        }
 
-        executor.forEachParallel(entities, 64, entity -> {
-            TransformComponent t = entity.getComponent(TransformComponent.class);
-            VelocityComponent v = entity.getComponent(VelocityComponent.class);
+        if (query == null) initialize(ecs);
+        if (query.isEmpty()) return;
+
+        ComponentManager cm = ecs.getComponentManager();
+        int tfType = ComponentTypes.indexOf(TransformComponent.class);
+        executor.forEachParallel(this, query.entities(), query.size(), id -> {
+            VelocityComponent v = cm.getComponent(id, VelocityComponent.class);
+            Vec3 vel = v.velocity;
+            if (vel.getX() == 0f && vel.getY() == 0f && vel.getZ() == 0f) return; // keep the change stamp
+            TransformComponent t = cm.getComponent(id, TransformComponent.class);
+            cm.markChanged(id, tfType);
 
             // No need to synchronize; each transform is unique to the entity
             // Perform in-place position update (no allocations)
@@ -40,11 +71,13 @@ public final class MovementSystem extends SystemBase {
         });
     }
 
+    @Override
+    protected void onRemoved(ECSManager ecs) {
+        if (executor != null) executor.forget(this);
+    }
+
     public void shutdown() {
-        if (pool != null) {
-            pool.shutdownNow();
-            pool = null;
-            executor = null;
-        }
+        executor = null;
+        query = null;
     }
 }
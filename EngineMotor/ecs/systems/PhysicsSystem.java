@@ -2,24 +2,77 @@ package ecs.systems;
 
 import ecs.*;
 import ecs.components.*;
+import ecs.storage.IntegrationKernels;
+import ecs.storage.MotionColumns;
 import math.Vec3;
 import java.util.Collection;
 import java.util.Map;
 
 /**
  * Physics system:
- * Updates all entities that have both TransformComponent and RigidbodyComponent.
+ * Updates all entities that have both TransformComponent and RigidbodyComponent,
+ * plus any bodies stored in struct-of-arrays {@link MotionColumns}.
  * Fully typed, no use of 'var' for older compiler compatibility.
  */
-public class PhysicsSystem extends SystemBase {
+public final class PhysicsSystem extends SystemBase {
+
+    private final MotionColumns columns;
+
+    public PhysicsSystem() {
+        this(null);
+    }
+
+    /** Also integrates the given SoA bodies with the SIMD kernels each update. */
+    public PhysicsSystem(MotionColumns columns) {
+        this.columns = columns;
+        writes(TransformComponent.class, RigidbodyComponent.class);
+    }
+
+    public MotionColumns getColumns() {
+        return columns;
+    }
 
     @Override
     public void update(ECSManager ecs, float deltaTime) {
+        if (columns != null && columns.size() > 0) {
+            IntegrationKernels.integrateBodies(columns, deltaTime);
+        }
+
         ComponentManager cm = ecs.getComponentManager();
+        int tfType = ComponentTypes.indexOf(TransformComponent.class);
+        int rbType = ComponentTypes.indexOf(RigidbodyComponent.class);
+
+        // Archetype storage: linear scan over matching chunks, no per-entity lookups
+        if (cm.getStorageMode() == StorageMode.ARCHETYPE) {
+            for (ArchetypeChunk chunk : cm.chunksWith(TransformComponent.class, RigidbodyComponent.class)) {
+                TransformComponent[] transforms = chunk.column(TransformComponent.class);
+                RigidbodyComponent[] rigidbodies = chunk.column(RigidbodyComponent.class);
+                int[] ids = chunk.entityIds();
+                for (int i = 0, n = chunk.size(); i < n; i++) {
+                    if (integrate(transforms[i], rigidbodies[i], deltaTime)) {
+                        cm.markChanged(ids[i], tfType);
+                        cm.markChanged(ids[i], rbType);
+                    }
+                }
+            }
+            return;
+        }
+
+        // Sparse-set pool: walk the dense rigidbody array, one transform lookup each
+        if (cm.getPool(RigidbodyComponent.class) instanceof SparseSetPool<RigidbodyComponent> sparse) {
+            RigidbodyComponent[] bodies = sparse.denseComponents();
+            int[] ids = sparse.denseEntities();
+            for (int i = 0, n = sparse.size(); i < n; i++) {
+                TransformComponent tf = cm.getComponent(ids[i], TransformComponent.class);
+                if (tf != null && integrate(tf, bodies[i], deltaTime)) {
+                    cm.markChanged(ids[i], tfType);
+                    cm.markChanged(ids[i], rbType);
+                }
+            }
+            return;
+        }
 
         // Get component pools
-        Collection<Map.Entry<Integer, TransformComponent>> transforms =
-                cm.entriesForType(TransformComponent.class);
         Collection<Map.Entry<Integer, RigidbodyComponent>> rigidbodies =
                 cm.entriesForType(RigidbodyComponent.class);
 
@@ -31,22 +84,36 @@ public class PhysicsSystem extends SystemBase {
             TransformComponent tf = cm.getComponent(entityId, TransformComponent.class);
             if (tf == null) continue; // Only update entities with both components
 
-            // --- Physics Integration ---
-            // Update velocity: v += a * dt
-            Vec3 deltaVel = Vec3.scl(rb.acceleration, deltaTime);
-            rb.velocity.add(deltaVel);
+            if (integrate(tf, rb, deltaTime)) {
+                cm.markChanged(entityId, tfType);
+                cm.markChanged(entityId, rbType);
+            }
+        }
+    }
 
-            // Update position: p += v * dt
-            Vec3 deltaPos = Vec3.scl(rb.velocity, deltaTime);
-            tf.position.add(deltaPos);
+    /** Integrates one body; returns false (and touches nothing) if it is at rest. */
+    private static boolean integrate(TransformComponent tf, RigidbodyComponent rb, float deltaTime) {
+        // Bodies at rest keep their change stamps, so change filters skip them
+        if (!rb.useGravity && isExactlyZero(rb.velocity) && isExactlyZero(rb.acceleration)) return false;
 
-            // Apply gravity if enabled
-            if (rb.useGravity) {
-                tf.position.add(new Vec3(0f,-9.81f * deltaTime, 0f));
-            }
+        // --- Physics Integration (in place, no temporaries) ---
+        // Update velocity: v += a * dt
+        rb.velocity.mulAdd(rb.acceleration, deltaTime);
+
+        // Update position: p += v * dt
+        tf.position.mulAdd(rb.velocity, deltaTime);
 
-            // Apply drag (exponential decay)
-            rb.velocity.scl(1.0f - rb.drag * deltaTime);
+        // Apply gravity if enabled
+        if (rb.useGravity) {
+            tf.position.add(0f, IntegrationKernels.GRAVITY * deltaTime, 0f);
         }
+
+        // Apply drag (exponential decay)
+        rb.velocity.scl(1.0f - rb.drag * deltaTime);
+        return true;
+    }
+
+    private static boolean isExactlyZero(Vec3 v) {
+        return v.getX() == 0f && v.getY() == 0f && v.getZ() == 0f;
     }
 }
@@ -7,11 +7,12 @@ import audio.SoundManager;
 import java.io.File;
 import java.util.Map;
 
-public class SoundSystem extends SystemBase {
+public final class SoundSystem extends SystemBase {
     private final SoundManager soundManager;
 
     public SoundSystem(SoundManager soundManager) {
         this.soundManager = soundManager;
+        writes(SoundComponent.class); // clears playOnAdd
     }
 
     @Override
@@ -0,0 +1,68 @@
+package ecs.systems;
+
+import ecs.*;
+import ecs.components.TransformComponent;
+import ecs.storage.SpatialHashGrid;
+import math.Vec3;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a {@link SpatialHashGrid} of every entity's {@link TransformComponent#position}.
+ *
+ * Only transforms added or changed since the last run are re-inserted (see
+ * {@link ECSManager#getMut}), and entities that lost their transform are swept out
+ * when the grid holds more entries than the query. Other systems, the audio mixer or
+ * AI threads query {@link #grid()} directly, from any number of threads.
+ */
+public final class SpatialIndexSystem extends SystemBase {
+
+    private final SpatialHashGrid grid;
+    private Query transforms;
+
+    // Scratch for the batched grid update
+    private int[] changedIds = new int[256];
+    private float[] changedXyz = new float[3 * 256];
+    private int changedCount;
+
+    public SpatialIndexSystem() {
+        this(8f);
+    }
+
+    /** @param cellSize grid cell edge; about the typical query radius works well */
+    public SpatialIndexSystem(float cellSize) {
+        this.grid = new SpatialHashGrid(cellSize);
+        reads(TransformComponent.class);
+    }
+
+    public SpatialHashGrid grid() {
+        return grid;
+    }
+
+    @Override
+    public void update(ECSManager ecs, float deltaTime) {
+        ComponentManager cm = ecs.getComponentManager();
+        if (transforms == null) transforms = ecs.query(TransformComponent.class);
+
+        changedCount = 0;
+        transforms.forEachChanged(TransformComponent.class, getLastRunTick(), id -> {
+            Vec3 p = cm.getComponent(id, TransformComponent.class).position;
+            if (changedCount == changedIds.length) {
+                changedIds = Arrays.copyOf(changedIds, changedCount * 2);
+                changedXyz = Arrays.copyOf(changedXyz, changedCount * 6);
+            }
+            changedIds[changedCount] = id;
+            changedXyz[3 * changedCount] = p.getX();
+            changedXyz[3 * changedCount + 1] = p.getY();
+            changedXyz[3 * changedCount + 2] = p.getZ();
+            changedCount++;
+        });
+        if (changedCount > 0) grid.update(changedIds, changedXyz, changedCount);
+
+        // Every member was added at some point and is in the grid, so extras are removals
+        if (grid.size() > transforms.size()) {
+            Query q = transforms;
+            grid.removeIf(id -> !q.contains(id));
+        }
+    }
+}
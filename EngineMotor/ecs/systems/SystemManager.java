@@ -1,5 +1,6 @@
 package ecs.systems;
 
+import core.JobSystem;
 import utils.Logger;
 
 import java.util.*;
@@ -10,7 +11,7 @@ import ecs.SystemBase;
 
 /**
  * Manages all ECS systems.
- * Executes updates in parallel using a thread pool and supports a deferred command buffer.
+ * Executes updates in parallel on the engine {@link JobSystem} and supports a deferred command buffer.
  */
 public class SystemManager {
 
@@ -20,9 +21,23 @@ public class SystemManager {
     private final ExecutorService executor;
     private final Queue<Runnable> deferredCommands = new ConcurrentLinkedQueue<>();
 
+    public SystemManager(JobSystem jobs) {
+        this.executor = jobs.executor();
+        logger.info("SystemManager initialized on " + jobs.getParallelism() + " job workers.");
+    }
+
+    /**
+     * @deprecated worker threads are shared engine-wide; set their count with
+     *             {@link JobSystem#configure(int)} and use {@link #SystemManager(JobSystem)}.
+     *             {@code threadCount} is ignored.
+     */
+    @Deprecated
     public SystemManager(int threadCount) {
-        this.executor = Executors.newFixedThreadPool(threadCount);
-        logger.info("SystemManager initialized with " + threadCount + " threads.");
+        this(JobSystem.shared());
+        if (threadCount != JobSystem.shared().getParallelism()) {
+            logger.warn("SystemManager(" + threadCount + ") ignores its thread count; the shared job system has "
+                    + JobSystem.shared().getParallelism() + " workers (see JobSystem.configure)");
+        }
     }
 
     // -----------------------------
@@ -103,8 +118,8 @@ public class SystemManager {
         return systems.size();
     }
 
+    /** Drops all systems and pending commands; the shared workers keep running. */
     public void shutdown() {
-        executor.shutdownNow();
         systems.clear();
         deferredCommands.clear();
         logger.info("SystemManager shut down cleanly.");
@@ -0,0 +1,234 @@
+package ecs.systems;
+
+import ecs.Component;
+import ecs.DeferredCommandBuffer;
+import ecs.ECSManager;
+import ecs.SystemBase;
+import utils.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Builds a stage graph from the component access each system declares
+ * ({@link SystemBase#reads} / {@link SystemBase#writes}) and runs it.
+ *
+ * A system is placed one stage after the latest earlier-registered system it
+ * conflicts with, so conflicting systems always run in registration order while
+ * everything inside a stage runs concurrently. The graph is rebuilt lazily
+ * whenever the system set changes.
+ *
+ * Per-system run criteria ({@link SystemBase#setRunRate},
+ * {@link SystemBase#setTimeBudgetMicros}) are applied on every run. Overruns are
+ * logged, with the 1st, 2nd, 4th, 8th... overrun of each system reported.
+ */
+public final class SystemScheduler {
+
+    private static final Logger logger = new Logger(SystemScheduler.class);
+
+    /** One parallel step of the schedule. */
+    public static final class Stage {
+        private final int index;
+        private final List<SystemBase> systems = new ArrayList<>();
+        private final List<Integer> ordinals = new ArrayList<>(); // registration index per system
+
+        Stage(int index) {
+            this.index = index;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public List<SystemBase> systems() {
+            return Collections.unmodifiableList(systems);
+        }
+    }
+
+    private final List<SystemBase> systems = new ArrayList<>();
+    private final Map<SystemBase, List<SystemBase>> dependencies = new IdentityHashMap<>();
+    private volatile List<Stage> stages = Collections.emptyList();
+    private boolean dirty;
+
+    // -------------------------------------------------------------------------
+    // Registration
+    // -------------------------------------------------------------------------
+
+    public synchronized void add(SystemBase system) {
+        systems.add(Objects.requireNonNull(system, "system"));
+        dirty = true;
+    }
+
+    public synchronized void remove(SystemBase system) {
+        if (systems.remove(system)) dirty = true;
+    }
+
+    public synchronized void clear() {
+        systems.clear();
+        dirty = true;
+    }
+
+    /** Forces a rebuild on next use, e.g. after a system changed its declared access. */
+    public synchronized void invalidate() {
+        dirty = true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Graph
+    // -------------------------------------------------------------------------
+
+    /** Current stages in execution order. */
+    public synchronized List<Stage> getStages() {
+        if (dirty) rebuild();
+        return stages;
+    }
+
+    /** Earlier-registered systems that {@code system} waits for. */
+    public synchronized List<SystemBase> getDependencies(SystemBase system) {
+        if (dirty) rebuild();
+        return Collections.unmodifiableList(dependencies.getOrDefault(system, Collections.emptyList()));
+    }
+
+    private void rebuild() {
+        dependencies.clear();
+        List<Stage> built = new ArrayList<>();
+        Map<SystemBase, Integer> level = new IdentityHashMap<>();
+
+        for (int i = 0; i < systems.size(); i++) {
+            SystemBase s = systems.get(i);
+            List<SystemBase> deps = new ArrayList<>();
+            int stage = 0;
+            for (int j = 0; j < i; j++) {
+                SystemBase earlier = systems.get(j);
+                if (s.conflictsWith(earlier)) {
+                    deps.add(earlier);
+                    stage = Math.max(stage, level.get(earlier) + 1);
+                }
+            }
+            level.put(s, stage);
+            dependencies.put(s, deps);
+            while (built.size() <= stage) built.add(new Stage(built.size()));
+            built.get(stage).systems.add(s);
+            built.get(stage).ordinals.add(i);
+        }
+
+        stages = Collections.unmodifiableList(built);
+        dirty = false;
+        logger.info("System schedule rebuilt: " + systems.size() + " systems in " + built.size() + " stages");
+    }
+
+    // -------------------------------------------------------------------------
+    // Execution
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs every stage in order. Single-system stages run on the calling thread;
+     * larger stages are spread over {@code pool} and joined before the next stage.
+     * Each stage gets its own world tick, so a system's change filter sees writes made
+     * by every stage after its own, including in the previous frame.
+     */
+    public void run(ExecutorService pool, ECSManager ecs, float dt) {
+        for (Stage stage : getStages()) {
+            List<SystemBase> group = stage.systems;
+            int tick = ecs.getComponentManager().advanceTick();
+            if (group.size() == 1) {
+                runSystem(group.get(0), stage.ordinals.get(0), tick, ecs, dt);
+                continue;
+            }
+
+            List<Callable<Void>> tasks = new ArrayList<>(group.size());
+            for (int i = 0; i < group.size(); i++) {
+                SystemBase s = group.get(i);
+                int ordinal = stage.ordinals.get(i);
+                tasks.add(() -> {
+                    runSystem(s, ordinal, tick, ecs, dt);
+                    return null;
+                });
+            }
+            try {
+                pool.invokeAll(tasks);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                logger.error("Stage " + stage.index + " interrupted", ie);
+                return;
+            }
+        }
+    }
+
+    /** Runs one system with deferred commands tagged by its registration index. */
+    private static void runSystem(SystemBase s, int ordinal, int tick, ECSManager ecs, float dt) {
+        if (ecs.isCpuAccounting()) ecs.accountCpu(() -> updateSystem(s, ordinal, tick, ecs, dt));
+        else updateSystem(s, ordinal, tick, ecs, dt);
+    }
+
+    /**
+     * Applies the system's run criteria: a rate-limited or in-debt system is skipped
+     * (its dt carries over), and a run over its time budget is reported.
+     */
+    private static void updateSystem(SystemBase s, int ordinal, int tick, ECSManager ecs, float dt) {
+        float runDt = s.beginScheduledRun(dt);
+        if (runDt < 0) return;
+        // A worker joining a stage may run a sibling system inside another one's update
+        int[] outer = DeferredCommandBuffer.enterSource(ordinal);
+        long start = System.nanoTime();
+        try {
+            s.update(ecs, runDt);
+            s.setLastRunTick(tick);
+        } catch (Throwable t) {
+            logger.error("System update failed: " + s.getClass().getSimpleName(), t);
+        } finally {
+            DeferredCommandBuffer.exitSource(outer);
+            long elapsed = System.nanoTime() - start;
+            if (s.endScheduledRun(elapsed)) reportOverrun(s, elapsed);
+        }
+    }
+
+    private static void reportOverrun(SystemBase s, long elapsed) {
+        long n = s.getOverruns();
+        if ((n & (n - 1)) != 0) return; // 1st, 2nd, 4th, 8th... overrun only
+        logger.warn(String.format("System %s overran its %d us budget: %d us (overrun #%d)",
+                name(s), s.getTimeBudgetMicros(), elapsed / 1_000, n));
+    }
+
+    // -------------------------------------------------------------------------
+    // Inspection
+    // -------------------------------------------------------------------------
+
+    /** Human-readable dump of the schedule, one line per stage. */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : getStages()) {
+            sb.append("Stage ").append(stage.index).append(':');
+            for (SystemBase s : stage.systems) {
+                sb.append("\n  ").append(name(s));
+                if (s.getRunRate() > 0) sb.append(String.format(" [%.4g Hz]", s.getRunRate()));
+                if (s.getTimeBudgetMicros() > 0) sb.append(" [budget ").append(s.getTimeBudgetMicros()).append(" us]");
+                if (!s.hasDeclaredAccess()) {
+                    sb.append(" [exclusive]");
+                } else {
+                    sb.append(" [R: ").append(typeNames(s.getReadTypes()))
+                      .append(" | W: ").append(typeNames(s.getWriteTypes())).append(']');
+                }
+                List<SystemBase> deps = getDependencies(s);
+                if (!deps.isEmpty()) {
+                    StringJoiner after = new StringJoiner(", ", " after ", "");
+                    for (SystemBase d : deps) after.add(name(d));
+                    sb.append(after);
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String name(SystemBase s) {
+        String n = s.getClass().getSimpleName();
+        return n.isEmpty() ? s.getClass().getName() : n;
+    }
+
+    private static String typeNames(Set<Class<? extends Component>> types) {
+        StringJoiner j = new StringJoiner(", ");
+        for (Class<? extends Component> t : types) j.add(t.getSimpleName());
+        return j.toString();
+    }
+}
@@ -0,0 +1,255 @@
+package ecs.systems;
+
+import core.JobSystem;
+import ecs.*;
+import ecs.components.ParentComponent;
+import ecs.components.TransformComponent;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * World matrices for parent/child transform hierarchies.
+ *
+ * Every entity with a {@link TransformComponent} gets a row; with a
+ * {@link ParentComponent} its transform is local to the parent. Rows are ordered
+ * breadth-first by depth, so parents always precede their children, and the levels are
+ * processed one after another with each level split over the job system. A row is only
+ * recomputed when its own transform changed since the last run (see
+ * {@link ECSManager#getMut}) or its parent's row was recomputed in this run, so static
+ * subtrees cost nothing.
+ *
+ * Results are column-major 4x4 matrices packed back to back in {@link #worldMatrices()},
+ * ready for a single buffer upload. Read them between updates.
+ */
+public final class TransformHierarchySystem extends SystemBase {
+
+    public static final int FLOATS_PER_MATRIX = 16;
+
+    /** Rows per parallel chunk; smaller levels run on the calling thread. */
+    private static final int GRAIN = 256;
+
+    private Query transforms;
+    private int parentTick = -1;
+
+    private int count;
+    private int levels;
+    private int[] order = new int[0];          // row -> entity id
+    private int[] parentRow = new int[0];      // row -> parent row, -1 for roots
+    private int[] levelStart = {0};            // depth -> first row; levelStart[levels] == count
+    private int[] rowByIndex = new int[0];     // entity slot index -> row, -1 if none
+    private TransformComponent[] local = new TransformComponent[0];
+    private boolean[] dirty = new boolean[0];
+    private float[] world = new float[0];
+
+    private final LongAdder recomputed = new LongAdder();
+    private long lastRecomputed;
+    private long rebuilds;
+
+    public TransformHierarchySystem() {
+        reads(TransformComponent.class, ParentComponent.class);
+    }
+
+    @Override
+    public void update(ECSManager ecs, float deltaTime) {
+        ComponentManager cm = ecs.getComponentManager();
+        if (transforms == null) transforms = ecs.query(TransformComponent.class);
+
+        int pTick = cm.lastChangedTick(ParentComponent.class);
+        boolean rebuild = pTick != parentTick || transforms.size() != count;
+        if (!rebuild) {
+            boolean[] unknown = {false};
+            transforms.forEachChanged(TransformComponent.class, getLastRunTick(), id -> {
+                int row = rowOf(id);
+                if (row < 0) {
+                    unknown[0] = true; // added since the last run
+                    return;
+                }
+                local[row] = cm.getComponent(id, TransformComponent.class); // may have been replaced
+                dirty[row] = true;
+            });
+            rebuild = unknown[0];
+        }
+        if (rebuild) {
+            rebuild(cm);
+            parentTick = pTick;
+        }
+
+        recomputed.reset();
+        JobSystem jobs = ecs.getJobs();
+        for (int level = 0; level < levels; level++) {
+            int first = levelStart[level];
+            jobs.parallelFor(levelStart[level + 1] - first, GRAIN, (from, to) -> propagate(first + from, first + to));
+        }
+        Arrays.fill(dirty, 0, count, false);
+        lastRecomputed = recomputed.sum();
+    }
+
+    private void propagate(int from, int to) {
+        float[] tmp = null;
+        int n = 0;
+        for (int row = from; row < to; row++) {
+            int p = parentRow[row];
+            if (!dirty[row] && (p < 0 || !dirty[p])) continue;
+            int o = row * FLOATS_PER_MATRIX;
+            if (p < 0) {
+                local[row].writeLocalMatrix(world, o);
+            } else {
+                if (tmp == null) tmp = new float[FLOATS_PER_MATRIX];
+                local[row].writeLocalMatrix(tmp, 0);
+                mulAffine(world, p * FLOATS_PER_MATRIX, tmp, world, o);
+            }
+            dirty[row] = true; // children of this row must follow
+            n++;
+        }
+        recomputed.add(n);
+    }
+
+    /** {@code out = parent * local} for column-major matrices whose local bottom row is (0, 0, 0, 1). */
+    private static void mulAffine(float[] a, int ao, float[] l, float[] out, int oo) {
+        for (int r = 0; r < 4; r++) {
+            float p0 = a[ao + r], p1 = a[ao + 4 + r], p2 = a[ao + 8 + r], p3 = a[ao + 12 + r];
+            out[oo + r]      = p0 * l[0] + p1 * l[1] + p2 * l[2];
+            out[oo + 4 + r]  = p0 * l[4] + p1 * l[5] + p2 * l[6];
+            out[oo + 8 + r]  = p0 * l[8] + p1 * l[9] + p2 * l[10];
+            out[oo + 12 + r] = p0 * l[12] + p1 * l[13] + p2 * l[14] + p3;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Topology
+    // -------------------------------------------------------------------------
+
+    /** Re-sorts all rows by depth; every row is recomputed afterwards. */
+    private void rebuild(ComponentManager cm) {
+        int n = transforms.size();
+        int[] ids = Arrays.copyOf(transforms.entities(), n);
+        int maxIndex = 0;
+        for (int i = 0; i < n; i++) maxIndex = Math.max(maxIndex, EntityId.index(ids[i]));
+
+        // Position of each id in ids[], for parent lookups
+        int[] slot = new int[maxIndex + 1];
+        Arrays.fill(slot, -1);
+        for (int i = 0; i < n; i++) slot[EntityId.index(ids[i])] = i;
+
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            ParentComponent pc = cm.getComponent(ids[i], ParentComponent.class);
+            int p = pc != null ? find(slot, ids, pc.parent) : -1;
+            parent[i] = p != i ? p : -1;
+        }
+
+        // Depths, walking up each chain once; a chain that loops is cut where it repeats
+        int[] depth = new int[n];
+        Arrays.fill(depth, -1);
+        int[] path = new int[n];
+        int maxDepth = 0;
+        for (int i = 0; i < n; i++) {
+            while (depth[i] < 0) {
+                int len = 0, cur = i;
+                while (cur >= 0 && depth[cur] == -1) {
+                    depth[cur] = -2; // on the current path
+                    path[len++] = cur;
+                    cur = parent[cur];
+                }
+                if (cur >= 0 && depth[cur] == -2) {
+                    log.warn("Transform parent cycle at entity " + ids[cur] + ", detached");
+                    parent[cur] = -1;
+                    for (int k = 0; k < len; k++) depth[path[k]] = -1;
+                    continue;
+                }
+                int base = cur >= 0 ? depth[cur] : -1;
+                for (int k = len - 1; k >= 0; k--) depth[path[k]] = ++base;
+                maxDepth = Math.max(maxDepth, base);
+            }
+        }
+
+        // Counting sort by depth
+        levels = n == 0 ? 0 : maxDepth + 1;
+        levelStart = new int[levels + 1];
+        for (int i = 0; i < n; i++) levelStart[depth[i] + 1]++;
+        for (int d = 0; d < levels; d++) levelStart[d + 1] += levelStart[d];
+        int[] fill = Arrays.copyOf(levelStart, levels);
+        int[] rowOfSlot = new int[n];
+        order = new int[n];
+        for (int i = 0; i < n; i++) {
+            int row = fill[depth[i]]++;
+            order[row] = ids[i];
+            rowOfSlot[i] = row;
+        }
+
+        parentRow = new int[n];
+        local = new TransformComponent[n];
+        for (int i = 0; i < n; i++) {
+            int row = rowOfSlot[i];
+            parentRow[row] = parent[i] >= 0 ? rowOfSlot[parent[i]] : -1;
+            local[row] = cm.getComponent(ids[i], TransformComponent.class);
+        }
+        rowByIndex = new int[maxIndex + 1];
+        Arrays.fill(rowByIndex, -1);
+        for (int row = 0; row < n; row++) rowByIndex[EntityId.index(order[row])] = row;
+
+        dirty = new boolean[n];
+        Arrays.fill(dirty, true);
+        if (world.length < n * FLOATS_PER_MATRIX) world = new float[n * FLOATS_PER_MATRIX];
+        count = n;
+        rebuilds++;
+    }
+
+    private static int find(int[] slot, int[] ids, int id) {
+        if (id == EntityId.NONE) return -1;
+        int idx = EntityId.index(id);
+        if (idx >= slot.length) return -1;
+        int s = slot[idx];
+        return s >= 0 && ids[s] == id ? s : -1;
+    }
+
+    // -------------------------------------------------------------------------
+    // Output
+    // -------------------------------------------------------------------------
+
+    /** Packed column-major world matrices; row {@code r} starts at {@code r * 16}. Valid up to {@link #count()} rows. */
+    public float[] worldMatrices() {
+        return world;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /** Row of an entity, or -1 if it has no transform (as of the last update). */
+    public int rowOf(int id) {
+        int idx = EntityId.index(id);
+        if (idx >= rowByIndex.length) return -1;
+        int row = rowByIndex[idx];
+        return row >= 0 && order[row] == id ? row : -1;
+    }
+
+    /** Entity id of each row, in upload order. */
+    public int[] rowEntities() {
+        return Arrays.copyOf(order, count);
+    }
+
+    /** Copies an entity's world matrix into {@code out}; false if it has no row. */
+    public boolean getWorldMatrix(int id, float[] out) {
+        int row = rowOf(id);
+        if (row < 0) return false;
+        System.arraycopy(world, row * FLOATS_PER_MATRIX, out, 0, FLOATS_PER_MATRIX);
+        return true;
+    }
+
+    /** Depth levels of the hierarchy (1 when nothing is parented). */
+    public int depthLevels() {
+        return levels;
+    }
+
+    /** Rows recomputed by the last update. */
+    public long getLastRecomputed() {
+        return lastRecomputed;
+    }
+
+    /** Times the row order was rebuilt because the hierarchy changed. */
+    public long getRebuilds() {
+        return rebuilds;
+    }
+}
@@ -1,41 +1,288 @@
 package ecs.utils;
 
+import core.JobSystem;
 import ecs.Entity;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
- * Splits entity iteration into parallel chunks.
+ * Splits entity iteration into parallel index ranges, sized from measured cost.
+ *
+ * Every call carries a key (usually the calling system). Per key the executor keeps a
+ * running average of the cost per item and of the dispatch overhead, and from those
+ * picks a grain so each chunk runs for about {@link #TARGET_CHUNK_NANOS}. Work too
+ * small to pay for the hand-off runs inline on the caller. Chunks are claimed from a
+ * shared counter by the caller plus at most {@code parallelism - 1} helper tasks, so
+ * the number of submitted tasks does not grow with the entity count and nothing is copied.
+ *
+ * {@link #report()} gives each key's achieved parallel efficiency
+ * (busy time / (wall time x threads used)). Statistics live until {@link #forget}
+ * is called for their key, e.g. when the system behind it is removed.
  */
 public class ParallelECSExecutor {
+
+    /** Snapshot of the statistics gathered for one key. */
+    public record Report(String key, long calls, long inlineCalls, int lastCount, int lastChunks,
+                         double nanosPerItem, double efficiency) {
+        @Override
+        public String toString() {
+            return String.format("%s: calls=%d inline=%d n=%d chunks=%d cost=%.1fns/item efficiency=%.0f%%",
+                    key, calls, inlineCalls, lastCount, lastChunks, nanosPerItem, efficiency * 100);
+        }
+    }
+
+    /** Each chunk should run at least this long so hand-off cost stays small. */
+    public static final long TARGET_CHUNK_NANOS = 50_000L;
+
+    private static final double SMOOTHING = 0.2;             // EWMA weight of the newest frame
+    private static final long DEFAULT_TASK_OVERHEAD = 5_000L; // until measured
+    private static final int REPROBE_INTERVAL = 32;            // inline calls before retrying parallel
+
     private final ExecutorService executor;
+    private final int parallelism;
+    private final Map<Object, Stats> stats = new ConcurrentHashMap<>();
 
     public ParallelECSExecutor(ExecutorService executor) {
+        this(executor, executor instanceof ForkJoinPool fj ? fj.getParallelism()
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelECSExecutor(ExecutorService executor, int parallelism) {
         this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
     }
 
-    public void forEachParallel(Collection<Entity> entities, int chunkSize, java.util.function.Consumer<Entity> task) {
-        if (entities.isEmpty()) return;
+    // -------------------------------------------------------------------------
+    // Adaptive API
+    // -------------------------------------------------------------------------
 
-        List<Entity> entityList = new ArrayList<>(entities);
-        List<Callable<Void>> jobs = new ArrayList<>();
+    /** Runs {@code task} over {@code [0, count)} split into ranges sized from {@code key}'s history. */
+    public void forRange(Object key, int count, JobSystem.RangeTask task) {
+        if (count <= 0) return;
+        Stats s = stats.computeIfAbsent(key, Stats::new);
+        int chunks = s.chooseChunks(count, parallelism);
+        if (chunks <= 1) {
+            long t0 = System.nanoTime();
+            task.run(0, count);
+            s.recordInline(count, System.nanoTime() - t0);
+            return;
+        }
+        runChunked(s, count, chunks, task);
+    }
 
-        for (int i = 0; i < entityList.size(); i += chunkSize) {
-            int start = i;
-            int end = Math.min(i + chunkSize, entityList.size());
-            jobs.add(() -> {
-                for (int j = start; j < end; j++) {
-                    task.accept(entityList.get(j));
-                }
-                return null;
+    /** Runs {@code task} for the first {@code count} ids of the array, e.g. over {@link ecs.Query#entities()}. */
+    public void forEachParallel(Object key, int[] ids, int count, IntConsumer task) {
+        forRange(key, count, (from, to) -> {
+            for (int j = from; j < to; j++) task.accept(ids[j]);
+        });
+    }
+
+    /** Runs {@code task} for every entity; random-access lists are not copied. */
+    public void forEachParallel(Object key, Collection<Entity> entities, Consumer<Entity> task) {
+        if (entities.isEmpty()) return;
+        if (entities instanceof List<Entity> list && entities instanceof RandomAccess) {
+            forRange(key, list.size(), (from, to) -> {
+                for (int j = from; j < to; j++) task.accept(list.get(j));
+            });
+        } else {
+            Entity[] array = entities.toArray(new Entity[0]);
+            forRange(key, array.length, (from, to) -> {
+                for (int j = from; j < to; j++) task.accept(array[j]);
             });
         }
+    }
+
+    // -------------------------------------------------------------------------
+    // Fixed-chunk API (caller picks the chunk size)
+    // -------------------------------------------------------------------------
+
+    public void forEachParallel(Collection<Entity> entities, int chunkSize, Consumer<Entity> task) {
+        if (entities.isEmpty()) return;
+        List<Entity> list = entities instanceof List<Entity> l && entities instanceof RandomAccess
+                ? l : new ArrayList<>(entities);
+        int chunks = (list.size() + chunkSize - 1) / Math.max(1, chunkSize);
+        runChunked(null, list.size(), chunks, (from, to) -> {
+            for (int j = from; j < to; j++) task.accept(list.get(j));
+        });
+    }
+
+    /**
+     * Runs {@code task} for the first {@code count} ids of the array in chunks of
+     * {@code chunkSize}, without copying the ids.
+     */
+    public void forEachParallel(int[] ids, int count, int chunkSize, IntConsumer task) {
+        if (count <= 0) return;
+        int chunks = (count + chunkSize - 1) / Math.max(1, chunkSize);
+        runChunked(null, count, chunks, (from, to) -> {
+            for (int j = from; j < to; j++) task.accept(ids[j]);
+        });
+    }
+
+    // -------------------------------------------------------------------------
+    // Reporting
+    // -------------------------------------------------------------------------
+
+    /** Statistics of every key seen so far. */
+    public List<Report> report() {
+        List<Report> out = new ArrayList<>();
+        for (Stats s : stats.values()) out.add(s.toReport());
+        out.sort(Comparator.comparing(Report::key));
+        return out;
+    }
 
+    /** Statistics for one key, or null if it never ran. */
+    public Report report(Object key) {
+        Stats s = stats.get(key);
+        return s != null ? s.toReport() : null;
+    }
+
+    /** Drops the statistics of {@code key}; call when the system or batch behind it goes away. */
+    public void forget(Object key) {
+        stats.remove(key);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // -------------------------------------------------------------------------
+    // Execution
+    // -------------------------------------------------------------------------
+
+    private void runChunked(Stats s, int count, int chunks, JobSystem.RangeTask task) {
+        chunks = Math.max(1, Math.min(chunks, count));
+        int grain = (count + chunks - 1) / chunks;
+        int total = (count + grain - 1) / grain; // rounding the grain up can leave fewer chunks
+        int helpers = Math.min(total, parallelism) - 1;
+        AtomicInteger next = new AtomicInteger();
+        LongAdder busy = new LongAdder();
+        // Every chunk runs with the caller's thread context, e.g. its command source and
+        // the chunk's position, wherever it is claimed
+        JobSystem.RangeTask carried = JobSystem.carryContext(task);
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(helpers);
+        try {
+            for (int i = 0; i < helpers; i++) {
+                futures.add(executor.submit(() -> claimChunks(next, total, grain, count, busy, carried)));
+            }
+        } catch (RejectedExecutionException rejected) {
+            // Pool shut down: the caller finishes the remaining chunks alone
+        }
+        Throwable failure = null;
         try {
-            executor.invokeAll(jobs);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            claimChunks(next, total, grain, count, busy, carried);
+        } catch (Throwable t) {
+            failure = t;
+            next.set(total); // stop helpers from claiming more
+        }
+        // Every helper must finish before returning, even when interrupted: a chunk still
+        // running would race with the next stage or the command flush
+        boolean interrupted = false;
+        for (Future<?> f : futures) {
+            while (true) {
+                try {
+                    f.get();
+                    break;
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e.getCause();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    next.set(total); // stop new claims, then keep waiting
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        long wall = System.nanoTime() - start;
+
+        if (s != null) s.recordParallel(count, total, futures.size() + 1, busy.sum(), wall);
+        if (failure instanceof RuntimeException re) throw re;
+        if (failure instanceof Error err) throw err;
+        if (failure != null) throw new CompletionException(failure);
+    }
+
+    /** Runs chunks claimed from {@code next} until none are left. */
+    private static void claimChunks(AtomicInteger next, int total, int grain, int count, LongAdder busy,
+                                    JobSystem.RangeTask task) {
+        long t0 = System.nanoTime();
+        int c;
+        while ((c = next.getAndIncrement()) < total) {
+            int from = c * grain;
+            task.run(from, Math.min(from + grain, count));
+        }
+        busy.add(System.nanoTime() - t0);
+    }
+
+    /** Moving averages for one key. */
+    private static final class Stats {
+        private final String key;
+        private double nanosPerItem = -1;   // unknown until the first run
+        private double taskOverhead = DEFAULT_TASK_OVERHEAD;
+        private double efficiency = 1.0;
+        private long calls;
+        private long inlineCalls;
+        private int lastCount;
+        private int lastChunks;
+        private int sinceProbe;
+
+        Stats(Object key) {
+            this.key = key instanceof Class<?> c ? c.getSimpleName()
+                    : key instanceof String str ? str : key.getClass().getSimpleName();
+        }
+
+        synchronized int chooseChunks(int count, int parallelism) {
+            if (nanosPerItem < 0 || parallelism <= 1) return 1; // measure inline first
+            double work = nanosPerItem * count;
+            int grain = (int) Math.max(1, Math.min(count, TARGET_CHUNK_NANOS / Math.max(nanosPerItem, 1e-3)));
+            int chunks = (count + grain - 1) / grain;
+            chunks = Math.min(chunks, parallelism * 4);
+            if (chunks <= 1) return 1;
+
+            int threads = Math.min(chunks, parallelism);
+            double parallelWall = work / (threads * Math.max(efficiency, 0.1)) + taskOverhead * (threads - 1);
+            if (parallelWall < work * 0.9) return chunks;
+            // Estimates only improve by measuring, so retry parallel now and then
+            if (++sinceProbe >= REPROBE_INTERVAL) {
+                sinceProbe = 0;
+                return chunks;
+            }
+            return 1;
+        }
+
+        synchronized void recordInline(int count, long nanos) {
+            calls++;
+            inlineCalls++;
+            lastCount = count;
+            lastChunks = 1;
+            blendCost(nanos / (double) count);
+        }
+
+        synchronized void recordParallel(int count, int chunks, int threads, long busy, long wall) {
+            calls++;
+            lastCount = count;
+            lastChunks = chunks;
+            blendCost(busy / (double) count);
+            double eff = Math.min(1.0, busy / ((double) wall * threads));
+            efficiency = efficiency + SMOOTHING * (eff - efficiency);
+            if (threads > 1) {
+                // Time the threads spent not running chunks, spread over the hand-offs
+                double idle = Math.max(0, (double) wall * threads - busy) / (threads - 1);
+                taskOverhead = taskOverhead + SMOOTHING * (idle - taskOverhead);
+            }
+        }
+
+        private void blendCost(double perItem) {
+            nanosPerItem = nanosPerItem < 0 ? perItem : nanosPerItem + SMOOTHING * (perItem - nanosPerItem);
+        }
+
+        synchronized Report toReport() {
+            return new Report(key, calls, inlineCalls, lastCount, lastChunks, Math.max(0, nanosPerItem), efficiency);
         }
     }
 }
@@ -0,0 +1,63 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DeferredCommandBuffer#flush()} of one frame's worth of commands: component
+ * adds and removes on existing entities plus a tenth as many create/destroy pairs.
+ * The commands are recorded in an untimed per-invocation setup, so only the sort and
+ * apply are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandFlushBenchmark {
+
+    @Param({"1000", "100000"})
+    public int commands;
+
+    @Param({"POOLED", "ARCHETYPE"})
+    public StorageMode storage;
+
+    private ECSManager ecs;
+    private Entity[] targets;
+    private boolean adding;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ecs = new ECSManager(storage);
+        targets = ecs.createEntities(commands, TransformComponent::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ecs.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void record() {
+        DeferredCommandBuffer cmds = ecs.commands();
+        adding = !adding; // alternate so every flush changes the world
+        for (Entity e : targets) {
+            if (adding) cmds.addComponent(e.getId(), new VelocityComponent());
+            else cmds.removeComponent(e.getId(), VelocityComponent.class);
+        }
+        for (int i = 0; i < commands / 10; i++) {
+            Entity e = cmds.createEntity();
+            cmds.addComponent(e.getId(), new TransformComponent());
+            cmds.destroyEntity(e);
+        }
+    }
+
+    @Benchmark
+    public int flush() {
+        return ecs.commands().flush();
+    }
+}
@@ -0,0 +1,74 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ComponentManager#getComponent} at random entity ids, the access pattern of
+ * gameplay code following references between entities. Ids are shuffled once per trial
+ * so the cost includes cache misses on large worlds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ComponentAccessBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int entities;
+
+    @Param({"POOLED", "ARCHETYPE"})
+    public StorageMode storage;
+
+    private ECSManager ecs;
+    private ComponentManager cm;
+    private int[] randomIds;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ecs = new ECSManager(storage);
+        cm = ecs.getComponentManager();
+        Entity[] created = ecs.createEntities(entities, TransformComponent::new, VelocityComponent::new);
+
+        Random rnd = new Random(42);
+        randomIds = new int[LOOKUPS * 16];
+        for (int i = 0; i < randomIds.length; i++) randomIds[i] = created[rnd.nextInt(entities)].getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ecs.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void randomGet(Blackhole bh) {
+        int base = cursor;
+        cursor = (cursor + LOOKUPS) % randomIds.length;
+        for (int i = 0; i < LOOKUPS; i++) {
+            bh.consume(cm.getComponent(randomIds[base + i], TransformComponent.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void randomGetTwoTypes(Blackhole bh) {
+        int base = cursor;
+        cursor = (cursor + LOOKUPS) % randomIds.length;
+        for (int i = 0; i < LOOKUPS; i++) {
+            int id = randomIds[base + i];
+            bh.consume(cm.getComponent(id, TransformComponent.class));
+            bh.consume(cm.getComponent(id, VelocityComponent.class));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ecs;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the ECS benchmark suite with the GC profiler, so every result comes with its
+ * allocation rate ({@code gc.alloc.rate.norm} is bytes per operation).
+ *
+ * Extra arguments are regular JMH options and override the defaults here, e.g.
+ * {@code QueryBenchmark -p entities=1000000 -rf json -rff query.json}.
+ * See {@code benchmarks/README.md} for building the suite.
+ */
+public final class EcsBenchmarks {
+
+    private EcsBenchmarks() {}
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        OptionsBuilder defaults = new OptionsBuilder();
+        if (cli.getIncludes().isEmpty()) defaults.include("ecs\\..*Benchmark");
+        Options options = defaults
+                .addProfiler(GCProfiler.class)
+                .parent(cli)
+                .build();
+        new Runner(options).run();
+    }
+}
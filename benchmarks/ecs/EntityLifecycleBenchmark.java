@@ -0,0 +1,61 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity creation and destruction, one at a time and in batches.
+ *
+ * {@link ECSManager#createEntity()} and {@link ECSManager#destroyEntity} each write a log
+ * line, which is part of what a caller pays and shows up here; the batch variants log
+ * once per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityLifecycleBenchmark {
+
+    private static final int BATCH = 1_000;
+
+    private ECSManager ecs;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ecs = new ECSManager();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        ecs.shutdown();
+    }
+
+    /** Steady state: the slot freed by the destroy is reused by the next create. */
+    @Benchmark
+    public int createDestroy() {
+        Entity e = ecs.createEntity();
+        ecs.destroyEntity(e);
+        return e.getId();
+    }
+
+    @Benchmark
+    public int createDestroyWithComponents() {
+        Entity e = ecs.createEntity();
+        ecs.addComponentNow(e.getId(), new TransformComponent());
+        ecs.addComponentNow(e.getId(), new VelocityComponent());
+        ecs.destroyEntity(e);
+        return e.getId();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int createDestroyBatch() {
+        Entity[] created = ecs.createEntities(BATCH, TransformComponent::new, VelocityComponent::new);
+        return ecs.destroyEntities(created);
+    }
+}
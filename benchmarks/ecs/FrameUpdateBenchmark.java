@@ -0,0 +1,57 @@
+package ecs;
+
+import ecs.components.RigidbodyComponent;
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import ecs.systems.MovementSystem;
+import ecs.systems.PhysicsSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full {@link ECSManager#update} with {@link MovementSystem} and {@link PhysicsSystem}:
+ * scheduling, both systems on the shared job workers, change stamps and the flush.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FrameUpdateBenchmark {
+
+    private static final float DT = 1f / 60f;
+
+    @Param({"1000", "100000", "1000000"})
+    public int entities;
+
+    @Param({"POOLED", "ARCHETYPE"})
+    public StorageMode storage;
+
+    private ECSManager ecs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ecs = new ECSManager(storage);
+        Entity[] created = ecs.createEntities(entities, TransformComponent::new, VelocityComponent::new,
+                RigidbodyComponent::new);
+        ComponentManager cm = ecs.getComponentManager();
+        for (int i = 0; i < created.length; i++) {
+            cm.getComponent(created[i].getId(), VelocityComponent.class).velocity.set(i % 7, 0, 1);
+        }
+        ecs.addSystem(new MovementSystem());
+        ecs.addSystem(new PhysicsSystem());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ecs.shutdown();
+    }
+
+    @Benchmark
+    public int update() {
+        ecs.update(DT);
+        return ecs.currentTick();
+    }
+}
@@ -0,0 +1,63 @@
+package ecs;
+
+import ecs.components.RigidbodyComponent;
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ECSManager#getEntitiesWith} over worlds of 1k to 1M entities. Half of the
+ * entities carry a {@link RigidbodyComponent}, so the two-type query is selective and
+ * the three-type query has to intersect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QueryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int entities;
+
+    @Param({"POOLED", "ARCHETYPE"})
+    public StorageMode storage;
+
+    private ECSManager ecs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ecs = new ECSManager(storage);
+        ecs.createEntities(entities / 2, TransformComponent::new, VelocityComponent::new);
+        ecs.createEntities(entities - entities / 2, TransformComponent::new, VelocityComponent::new,
+                RigidbodyComponent::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ecs.shutdown();
+    }
+
+    @Benchmark
+    public List<Entity> transformVelocity() {
+        return ecs.getEntitiesWith(TransformComponent.class, VelocityComponent.class);
+    }
+
+    @Benchmark
+    public List<Entity> transformVelocityRigidbody() {
+        return ecs.getEntitiesWith(TransformComponent.class, VelocityComponent.class, RigidbodyComponent.class);
+    }
+
+    /** The registered query the systems use, for comparison: no list is built. */
+    @Benchmark
+    public void cachedQueryIteration(Blackhole bh) {
+        Query q = ecs.query(TransformComponent.class, VelocityComponent.class, RigidbodyComponent.class);
+        int[] ids = q.entities();
+        for (int i = 0, n = q.size(); i < n; i++) bh.consume(ids[i]);
+    }
+}
@@ -31,6 +31,12 @@ public final class Quat {
         return this;
     }
 
+    /** Set components (w, x, y, z) */
+    public Quat set(float w, float x, float y, float z) {
+        this.w = w; this.x = x; this.y = y; this.z = z;
+        return this;
+    }
+
     // --- Basic factory helpers ---
     public static Quat identity() {
         return new Quat(1.0f, 0f, 0f, 0f);
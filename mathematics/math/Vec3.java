@@ -61,6 +61,21 @@ public final class Vec3 {
         return this;
     }
 
+    public Vec3 add(float dx, float dy, float dz) {
+        x += dx;
+        y += dy;
+        z += dz;
+        return this;
+    }
+
+    /** this += v * s, without a temporary vector. */
+    public Vec3 mulAdd(Vec3 v, float s) {
+        x += v.x * s;
+        y += v.y * s;
+        z += v.z * s;
+        return this;
+    }
+
     public Vec3 sub(Vec3 v) {
         x -= v.x;
         y -= v.y;
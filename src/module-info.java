@@ -9,5 +9,8 @@ module SES {
 	requires junit;
 	requires org.junit.jupiter.api;
 	requires java.desktop;
+	requires java.management;
+	requires jdk.jfr;
 	requires jogl.all;
+	requires static jdk.incubator.vector;
 }
\ No newline at end of file
@@ -7,10 +7,13 @@ import ecs.systems.AdaptiveAudioSystem;
 import org.junit.jupiter.api.*;
 
 import audio.config.AudioConfigManager;
+import math.Vec3;
 
 import javax.sound.sampled.*;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -65,12 +68,54 @@ public class AdaptiveAudioSystemTest {
         ListenerComponent listener = new ListenerComponent();
         ecs.getComponentManager().addComponent(listenerId.getId(), listener);
 
-        var method = AdaptiveAudioSystem.class.getDeclaredMethod("findListener", ComponentManager.class);
-        method.setAccessible(true);
-        Object result = method.invoke(audioSystem, ecs.getComponentManager());
+        audioSystem.update(ecs, 0.016f);
+        Object result = ecs.resources().get(ListenerComponent.class);
 
         assertNotNull(result);
-        assertInstanceOf(ListenerComponent.class, result);
+        assertSame(listener, result);
+    }
+
+    @Test
+    void testOnlyActiveListenerPositionIsPushed() throws Exception {
+        List<Vec3> pushed = new ArrayList<>();
+        AudioConfigManager recording = new AudioConfigManager() {
+            @Override
+            public void updateListenerPosition(Vec3 listenerPos) {
+                pushed.add(listenerPos.cpy());
+                super.updateListenerPosition(listenerPos);
+            }
+        };
+        AdaptiveAudioSystem system = new AdaptiveAudioSystem(ecs, recording);
+        try {
+            int a = ecs.createEntity().getId();
+            int b = ecs.createEntity().getId();
+            ListenerComponent first = new ListenerComponent();
+            first.position.set(1, 0, 0);
+            ListenerComponent second = new ListenerComponent();
+            second.position.set(2, 0, 0);
+            ecs.getComponentManager().addComponent(a, first);
+            ecs.getComponentManager().addComponent(b, second);
+            ecs.getComponentManager().advanceTick();
+
+            system.update(ecs, 0.016f);
+            assertEquals(List.of(new Vec3(1, 0, 0)), pushed);
+
+            // Moving an inactive listener does not move the config
+            system.setLastRunTick(ecs.getComponentManager().currentTick());
+            ecs.getComponentManager().advanceTick();
+            ecs.getMut(b, ListenerComponent.class).position.set(5, 0, 0);
+            system.update(ecs, 0.016f);
+            assertEquals(1, pushed.size());
+
+            // The next listener becomes active and its position is pushed, though unchanged since
+            system.setLastRunTick(ecs.getComponentManager().currentTick());
+            ecs.getComponentManager().advanceTick();
+            ecs.getComponentManager().removeComponent(a, ListenerComponent.class);
+            system.update(ecs, 0.016f);
+            assertEquals(new Vec3(5, 0, 0), pushed.get(pushed.size() - 1));
+        } finally {
+            system.shutdown();
+        }
     }
 
     @Test
@@ -0,0 +1,88 @@
+package ecs;
+
+import ecs.components.*;
+import ecs.systems.PhysicsSystem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchetypeStorageTest {
+
+    @Test
+    void testAddMovesEntityBetweenArchetypes() {
+        ComponentManager cm = new ComponentManager(StorageMode.ARCHETYPE);
+        TransformComponent tf = new TransformComponent();
+        RigidbodyComponent rb = new RigidbodyComponent();
+
+        cm.addComponent(1, tf);
+        cm.addComponent(1, rb);
+
+        assertSame(tf, cm.getComponent(1, TransformComponent.class));
+        assertSame(rb, cm.getComponent(1, RigidbodyComponent.class));
+        assertEquals(2, cm.getArchetypes().size(), "{Transform} and {Transform, Rigidbody}");
+
+        cm.removeComponent(1, RigidbodyComponent.class);
+        assertFalse(cm.hasComponent(1, RigidbodyComponent.class));
+        assertSame(tf, cm.getComponent(1, TransformComponent.class), "Remaining component survives the move");
+    }
+
+    @Test
+    void testRemoveKeepsOtherEntitiesAddressable() {
+        ComponentManager cm = new ComponentManager(StorageMode.ARCHETYPE);
+        for (int id = 0; id < 1500; id++) {
+            TransformComponent tf = new TransformComponent();
+            tf.position.set(id, 0, 0);
+            cm.addComponent(id, tf);
+        }
+
+        // Swap-remove from the middle and the front
+        cm.removeAllComponents(0);
+        cm.removeAllComponents(700);
+
+        for (int id = 1; id < 1500; id++) {
+            if (id == 700) continue;
+            assertEquals(id, cm.getComponent(id, TransformComponent.class).position.getX());
+        }
+        assertNull(cm.getComponent(700, TransformComponent.class));
+    }
+
+    @Test
+    void testChunksWithScansOnlyMatchingArchetypes() {
+        ComponentManager cm = new ComponentManager(StorageMode.ARCHETYPE);
+        for (int id = 0; id < 1000; id++) {
+            cm.addComponent(id, new TransformComponent());
+            if (id % 2 == 0) cm.addComponent(id, new RigidbodyComponent());
+        }
+
+        List<ArchetypeChunk> chunks = cm.chunksWith(TransformComponent.class, RigidbodyComponent.class);
+        int total = 0;
+        for (ArchetypeChunk chunk : chunks) {
+            assertTrue(chunk.size() <= ArchetypeChunk.CAPACITY);
+            for (int i = 0; i < chunk.size(); i++) {
+                assertEquals(0, chunk.entityId(i) % 2);
+            }
+            total += chunk.size();
+        }
+        assertEquals(500, total);
+        assertEquals(1000, cm.entriesForType(TransformComponent.class).size());
+    }
+
+    @Test
+    void testPhysicsSystemUsesChunks() {
+        ECSManager ecs = new ECSManager(StorageMode.ARCHETYPE);
+        Entity e = ecs.createEntity();
+        TransformComponent tf = new TransformComponent();
+        RigidbodyComponent rb = new RigidbodyComponent();
+        rb.velocity.set(1, 0, 0);
+        ecs.addComponentNow(e.getId(), tf);
+        ecs.addComponentNow(e.getId(), rb);
+
+        new PhysicsSystem().update(ecs, 1.0f);
+
+        assertTrue(tf.position.getX() > 0);
+        assertTrue(tf.position.getY() < 0);
+        ecs.shutdown();
+    }
+}
@@ -0,0 +1,136 @@
+package ecs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncSystemTest {
+
+    /** Records every dt it is updated with; optionally waits on a gate first. */
+    private static class Recorder extends SystemBase {
+        final List<Float> dts = new CopyOnWriteArrayList<>();
+        final List<Boolean> virtual = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch gate;
+
+        @Override
+        public void update(ECSManager ecs, float deltaTime) {
+            CountDownLatch g = gate;
+            if (g != null) {
+                try {
+                    g.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            virtual.add(Thread.currentThread().isVirtual());
+            dts.add(deltaTime);
+        }
+    }
+
+    private ECSManager ecs;
+
+    @BeforeEach
+    void setUp() {
+        ecs = new ECSManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ecs.shutdown();
+    }
+
+    @Test
+    void testOneUpdatePerFrameWithThatFramesDt() throws Exception {
+        Recorder r = new Recorder();
+        ecs.addAsyncSystem(r);
+
+        for (int i = 1; i <= 5; i++) {
+            ecs.update(i / 100f);
+            assertTrue(r.awaitIdle(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(0.01f, 0.02f, 0.03f, 0.04f, 0.05f), r.dts);
+        assertEquals(5, r.getFramesRun());
+        assertTrue(r.virtual.stream().allMatch(v -> v), "runs on a virtual thread by default");
+
+        Thread.sleep(20); // no frames signalled: no further updates
+        assertEquals(5, r.dts.size());
+    }
+
+    @Test
+    void testLatencyCriticalUsesPlatformThread() throws Exception {
+        Recorder r = new Recorder();
+        r.setLatencyCritical(true);
+        ecs.addAsyncSystem(r);
+        ecs.update(0.016f);
+        assertTrue(r.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(List.of(false), r.virtual);
+    }
+
+    @Test
+    void testCoalesceKeepsTotalTime() throws Exception {
+        Recorder r = new Recorder();
+        r.configureAsync(2, SystemBase.BackPressure.COALESCE);
+        CountDownLatch gate = new CountDownLatch(1);
+        r.gate = gate;
+        ecs.addAsyncSystem(r);
+
+        r.signalFrame(1f);
+        while (r.getPendingFrames() > 0) Thread.onSpinWait(); // worker is now stuck in frame 1
+        for (int i = 0; i < 5; i++) r.signalFrame(1f);        // 2 queued, 3 folded into the last
+        assertEquals(2, r.getPendingFrames());
+        assertEquals(3, r.getCoalescedFrames());
+
+        gate.countDown();
+        assertTrue(r.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1f, 1f, 4f), r.dts);
+    }
+
+    @Test
+    void testBlockStallsDriverUntilWorkerCatchesUp() throws Exception {
+        Recorder r = new Recorder();
+        r.configureAsync(1, SystemBase.BackPressure.BLOCK);
+        CountDownLatch gate = new CountDownLatch(1);
+        r.gate = gate;
+        ecs.addAsyncSystem(r);
+
+        r.signalFrame(0.1f);
+        while (r.getPendingFrames() > 0) Thread.onSpinWait();
+        r.signalFrame(0.2f); // fills the queue
+
+        Thread driver = Thread.ofPlatform().start(() -> r.signalFrame(0.3f));
+        driver.join(50);
+        assertTrue(driver.isAlive(), "driver blocks while the queue is full");
+
+        gate.countDown();
+        driver.join(5000);
+        assertFalse(driver.isAlive());
+        assertTrue(r.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0.1f, 0.2f, 0.3f), r.dts);
+        assertEquals(0, r.getCoalescedFrames());
+    }
+
+    @Test
+    void testPausedSystemIgnoresFramesAndShutdownStopsThread() throws Exception {
+        Recorder r = new Recorder();
+        ecs.addAsyncSystem(r);
+        r.pause();
+        ecs.update(0.1f);
+        assertEquals(0, r.getPendingFrames());
+        r.resume();
+        ecs.update(0.2f);
+        assertTrue(r.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0.2f), r.dts);
+
+        r.shutdown();
+        assertFalse(r.isRunning());
+        r.signalFrame(0.3f);
+        assertEquals(0, r.getPendingFrames());
+    }
+}
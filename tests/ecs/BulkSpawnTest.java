@@ -0,0 +1,86 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkSpawnTest {
+
+    private ECSManager ecs;
+
+    @AfterEach
+    void tearDown() {
+        if (ecs != null) ecs.shutdown();
+    }
+
+    @Test
+    void testCreateEntitiesAddsFreshComponentsToEveryEntity() {
+        ecs = new ECSManager();
+        Query moving = ecs.query(TransformComponent.class, VelocityComponent.class);
+
+        Entity[] spawned = ecs.createEntities(50_000, TransformComponent::new, VelocityComponent::new);
+
+        assertEquals(50_000, spawned.length);
+        assertEquals(50_000, moving.size());
+        assertEquals(50_000, ecs.getEntityManager().count());
+        Set<Integer> ids = new HashSet<>();
+        Set<TransformComponent> transforms = new HashSet<>();
+        for (Entity e : spawned) {
+            assertTrue(ecs.isAlive(e));
+            assertTrue(ids.add(e.getId()));
+            assertTrue(transforms.add(ecs.getComponent(e.getId(), TransformComponent.class)),
+                    "each entity gets its own instance");
+            assertTrue(ecs.getComponentManager().isAdded(e.getId(), VelocityComponent.class, 0));
+        }
+    }
+
+    @Test
+    void testDestroyEntitiesIgnoresStaleHandlesAndRecyclesIds() {
+        ecs = new ECSManager();
+        Query q = ecs.query(TransformComponent.class);
+        int freedCount = EntityTable.MIN_FREE_INDICES + 50;
+        Entity[] spawned = ecs.createEntities(freedCount + 50, TransformComponent::new);
+        Entity[] freed = Arrays.copyOf(spawned, freedCount);
+
+        assertEquals(freedCount, ecs.destroyEntities(freed));
+        assertEquals(0, ecs.destroyEntities(freed), "already destroyed");
+        assertEquals(50, q.size());
+        for (Entity e : freed) {
+            assertFalse(ecs.isAlive(e));
+            assertFalse(ecs.hasComponent(e.getId(), TransformComponent.class));
+        }
+
+        // Oldest freed slots are reused while at least MIN_FREE_INDICES are waiting
+        Entity[] again = ecs.createEntities(60, TransformComponent::new);
+        Set<Integer> reusedIndices = new HashSet<>();
+        for (Entity e : again) reusedIndices.add(EntityId.index(e.getId()));
+        for (int i = 0; i < freedCount; i++) {
+            assertEquals(i <= 50, reusedIndices.contains(freed[i].index()), "slot " + i);
+        }
+        for (int i = 0; i <= 50; i++) assertNotNull(ecs.getEntity(EntityId.pack(freed[i].index(),
+                freed[i].generation() + 1)));
+        assertEquals(110, q.size());
+
+        assertEquals(110, ecs.destroyEntities(List.copyOf(ecs.getAllEntities())));
+        assertEquals(0, ecs.getEntityManager().count());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    void testArchetypeStorageBatch() {
+        ecs = new ECSManager(StorageMode.ARCHETYPE);
+        Entity[] spawned = ecs.createEntities(1000, TransformComponent::new, VelocityComponent::new);
+        assertEquals(1000, ecs.getEntitiesWith(TransformComponent.class, VelocityComponent.class).size());
+        assertEquals(1, ecs.getComponentManager().getArchetypes().size(), "no intermediate archetypes");
+        assertEquals(1000, ecs.destroyEntities(spawned));
+        assertTrue(ecs.getEntitiesWith(TransformComponent.class).isEmpty());
+    }
+}
@@ -0,0 +1,118 @@
+package ecs;
+
+import ecs.components.RigidbodyComponent;
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import ecs.systems.PhysicsSystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeDetectionTest {
+
+    private ECSManager ecs;
+    private ComponentManager cm;
+
+    @BeforeEach
+    void setUp() {
+        ecs = new ECSManager();
+        cm = ecs.getComponentManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ecs.shutdown();
+    }
+
+    private static List<Integer> changed(Query q, int since) {
+        List<Integer> out = new ArrayList<>();
+        q.forEachChanged(TransformComponent.class, since, out::add);
+        return out;
+    }
+
+    @Test
+    void testAddStampsAddedAndChanged() {
+        int before = cm.currentTick();
+        Entity e = ecs.createEntity();
+        e.addComponent(new TransformComponent());
+
+        assertTrue(cm.isAdded(e.getId(), TransformComponent.class, before - 1));
+        assertTrue(cm.isChanged(e.getId(), TransformComponent.class, before - 1));
+        assertFalse(cm.isChanged(e.getId(), TransformComponent.class, before));
+    }
+
+    @Test
+    void testGetMutOnlyReportsTouchedEntities() {
+        Query q = ecs.query(TransformComponent.class);
+        Entity a = ecs.createEntity();
+        Entity b = ecs.createEntity();
+        a.addComponent(new TransformComponent());
+        b.addComponent(new TransformComponent());
+
+        int since = cm.advanceTick() - 1;
+        ecs.getMut(b.getId(), TransformComponent.class).position.set(1, 0, 0);
+
+        assertEquals(List.of(b.getId()), changed(q, since));
+        assertTrue(changed(q, cm.currentTick()).isEmpty());
+    }
+
+    @Test
+    void testRemovedComponentIsNotReported() {
+        Query q = ecs.query(TransformComponent.class);
+        Entity e = ecs.createEntity();
+        e.addComponent(new TransformComponent());
+        int since = cm.currentTick() - 1;
+        e.removeComponent(TransformComponent.class);
+
+        assertTrue(changed(q, since).isEmpty());
+        assertTrue(cm.lastChangedTick(TransformComponent.class) > since);
+    }
+
+    @Test
+    void testLogOverflowFallsBackToScan() {
+        Query q = ecs.query(TransformComponent.class);
+        List<Entity> all = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Entity e = ecs.createEntity();
+            e.addComponent(new TransformComponent());
+            all.add(e);
+        }
+        int since = cm.advanceTick() - 1;
+        for (Entity e : all) cm.markChanged(e.getId(), TransformComponent.class);
+        assertEquals(1000, changed(q, since).size());
+
+        cm.advanceTick();
+        int later = cm.currentTick() - 1;
+        cm.markChanged(all.get(3).getId(), TransformComponent.class);
+        assertEquals(List.of(all.get(3).getId()), changed(q, later));
+    }
+
+    @Test
+    void testSystemSeesOnlyMovedBodies() {
+        Entity moving = ecs.createEntity();
+        moving.addComponent(new TransformComponent());
+        RigidbodyComponent rb = new RigidbodyComponent();
+        rb.velocity.set(1, 0, 0);
+        moving.addComponent(rb);
+
+        Entity resting = ecs.createEntity();
+        resting.addComponent(new TransformComponent());
+        RigidbodyComponent still = new RigidbodyComponent();
+        still.useGravity = false;
+        resting.addComponent(still);
+        resting.addComponent(new VelocityComponent());
+
+        PhysicsSystem physics = new PhysicsSystem();
+        ecs.addSystem(physics);
+        ecs.update(0.016f);
+
+        Query q = ecs.query(TransformComponent.class);
+        int since = physics.getLastRunTick() - 1;
+        assertEquals(List.of(moving.getId()), changed(q, since));
+    }
+}
@@ -0,0 +1,223 @@
+package ecs;
+
+import core.JobSystem;
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import ecs.utils.ParallelECSExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeferredCommandBufferTest {
+
+    private ECSManager ecs;
+    private DeferredCommandBuffer cmds;
+
+    @BeforeEach
+    void setUp() {
+        ecs = new ECSManager();
+        cmds = ecs.commands();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ecs.shutdown();
+    }
+
+    @Test
+    void testDeferredCreateIsLiveAfterFlush() {
+        Entity e = cmds.createEntity();
+        cmds.addComponent(e.getId(), new TransformComponent());
+
+        assertFalse(e.isAlive());
+        assertEquals(2, cmds.flush());
+        assertTrue(e.isAlive());
+        assertTrue(e.hasComponent(TransformComponent.class));
+        assertTrue(cmds.isEmpty());
+    }
+
+    @Test
+    void testLastOpPerTypeWinsBySource() {
+        Entity e = ecs.createEntity();
+        TransformComponent late = new TransformComponent();
+
+        DeferredCommandBuffer.setSource(1);
+        cmds.addComponent(e.getId(), late);
+        DeferredCommandBuffer.setSource(0);
+        cmds.removeComponent(e.getId(), TransformComponent.class);
+        DeferredCommandBuffer.setSource(DeferredCommandBuffer.NO_SOURCE);
+
+        assertEquals(2, cmds.flush());
+        assertSame(late, e.getComponent(TransformComponent.class));
+    }
+
+    @Test
+    void testDestroySkipsComponentOps() {
+        Entity e = ecs.createEntity();
+        cmds.destroyEntity(e);
+        cmds.addComponent(e.getId(), new VelocityComponent());
+
+        cmds.flush();
+        assertFalse(e.isAlive());
+        assertTrue(ecs.getComponentManager().getSignature(e.getId()).isEmpty());
+    }
+
+    @Test
+    void testThreadsMergeDeterministically() throws Exception {
+        Entity e = ecs.createEntity();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int source = t;
+            threads.add(new Thread(() -> {
+                DeferredCommandBuffer.setSource(source);
+                TransformComponent tf = new TransformComponent();
+                tf.position.set(source, 0, 0);
+                cmds.addComponent(e.getId(), tf);
+            }));
+        }
+        // start in reverse so recording order differs from source order
+        for (int t = threads.size() - 1; t >= 0; t--) {
+            threads.get(t).start();
+            threads.get(t).join();
+        }
+
+        assertEquals(4, cmds.size());
+        assertEquals(4, cmds.flush());
+        assertEquals(3, e.getComponent(TransformComponent.class).position.getX());
+    }
+
+    @Test
+    void testFailingCommandIsNotCounted() {
+        cmds.add(() -> { throw new IllegalStateException("boom"); });
+        cmds.add(() -> {});
+        assertEquals(1, cmds.flush());
+    }
+
+    @Test
+    void testCreatesAndDestroysApplyInBatches() {
+        Entity doomed = ecs.createEntity();
+        Entity a = cmds.createEntity();
+        Entity b = cmds.createEntity();
+        cmds.addComponent(b.getId(), new VelocityComponent());
+        cmds.destroyEntity(b);
+        cmds.destroyEntity(doomed);
+        cmds.destroyEntity(doomed); // stale by then, not counted
+
+        List<DeferredCommandBuffer.Kind> seen = new ArrayList<>();
+        cmds.setTap((kind, entity, payload, source) -> seen.add(kind));
+
+        assertEquals(5, cmds.flush());
+        assertTrue(a.isAlive());
+        assertFalse(b.isAlive());
+        assertFalse(doomed.isAlive());
+        assertEquals(List.of(DeferredCommandBuffer.Kind.CREATE, DeferredCommandBuffer.Kind.CREATE,
+                DeferredCommandBuffer.Kind.DESTROY, DeferredCommandBuffer.Kind.DESTROY), seen);
+    }
+
+    @Test
+    void testExitedThreadsDoNotKeepRecorders() throws Exception {
+        Entity e = ecs.createEntity();
+        for (int t = 0; t < 200; t++) {
+            Thread thread = new Thread(() -> cmds.addComponent(e.getId(), new TransformComponent()));
+            thread.start();
+            thread.join();
+        }
+        assertEquals(200, cmds.size());
+        assertEquals(200, cmds.flush());
+        assertEquals(0, cmds.recorderCount());
+
+        Thread late = new Thread(() -> cmds.addComponent(e.getId(), new VelocityComponent()));
+        late.start();
+        late.join();
+        assertEquals(1, cmds.recorderCount());
+        assertEquals(1, cmds.size());
+        assertEquals(1, cmds.flush());
+        assertTrue(e.hasComponent(VelocityComponent.class));
+    }
+
+    @Test
+    void testParallelHelpersRecordWithSystemSource() {
+        JobSystem jobs = new JobSystem(4);
+        ECSManager world = new ECSManager(StorageMode.POOLED, jobs);
+        ParallelECSExecutor executor = new ParallelECSExecutor(jobs.executor());
+        try {
+            int[] ids = new int[256];
+            for (int i = 0; i < ids.length; i++) ids[i] = world.createEntity().getId();
+
+            // Same stage; the later-registered system's transform must win on every entity
+            world.addSystem(new SystemBase() {
+                { reads(VelocityComponent.class); }
+
+                @Override
+                public void update(ECSManager ecs, float dt) {
+                    executor.forEachParallel(ids, ids.length, 8, id -> {
+                        ecs.commands().addComponent(id, at(1));
+                        ecs.commands().addComponent(id, new VelocityComponent());
+                    });
+                }
+            });
+            world.addSystem(new SystemBase() {
+                { reads(VelocityComponent.class); }
+
+                @Override
+                public void update(ECSManager ecs, float dt) {
+                    ecs.getJobs().parallelFor(ids.length, 8, (from, to) -> {
+                        for (int i = from; i < to; i++) ecs.commands().addComponent(ids[i], at(2));
+                    });
+                }
+            });
+            Set<Integer> sources = ConcurrentHashMap.newKeySet();
+            world.commands().setTap((kind, entity, payload, source) -> sources.add(source));
+
+            world.update(0.016f);
+
+            assertEquals(Set.of(0, 1), sources);
+            for (int id : ids) {
+                assertEquals(2, world.getComponent(id, TransformComponent.class).position.getX());
+            }
+        } finally {
+            world.shutdown();
+            jobs.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelLoopAppliesInIndexOrder() {
+        JobSystem jobs = new JobSystem(4);
+        try {
+            Entity e = ecs.createEntity();
+            List<Integer> ran = new ArrayList<>();
+            DeferredCommandBuffer.setSource(0);
+            cmds.add(() -> ran.add(-1));
+            jobs.parallelFor(1_000, 7, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int index = i;
+                    cmds.addComponent(e.getId(), at(i));
+                    cmds.add(() -> ran.add(index));
+                }
+            });
+            cmds.add(() -> ran.add(1_000));
+            DeferredCommandBuffer.setSource(DeferredCommandBuffer.NO_SOURCE);
+
+            cmds.flush();
+            assertEquals(999, e.getComponent(TransformComponent.class).position.getX());
+            assertEquals(1_002, ran.size());
+            for (int i = 0; i < ran.size(); i++) assertEquals(i - 1, ran.get(i));
+        } finally {
+            jobs.shutdown();
+        }
+    }
+
+    private static TransformComponent at(float x) {
+        TransformComponent tf = new TransformComponent();
+        tf.position.set(x, 0, 0);
+        return tf;
+    }
+}
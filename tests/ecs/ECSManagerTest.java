@@ -54,6 +54,46 @@ public class ECSManagerTest {
         assertFalse(ecs.hasComponent(e.getId(), PositionComponent.class));
     }
 
+    @Test
+    public void testConcurrentCreateDestroyPooled() throws Exception {
+        assertConcurrentCreateDestroyKeepsComponents(StorageMode.POOLED);
+    }
+
+    @Test
+    public void testConcurrentCreateDestroyArchetype() throws Exception {
+        assertConcurrentCreateDestroyKeepsComponents(StorageMode.ARCHETYPE);
+    }
+
+    /**
+     * A destroy racing a create that reuses the freed index: the destroying thread is
+     * held at the structure lock while another thread creates an entity and adds to it.
+     */
+    private static void assertConcurrentCreateDestroyKeepsComponents(StorageMode mode) throws Exception {
+        ECSManager world = new ECSManager(mode);
+        try {
+            Entity old = world.createEntity();
+            world.addComponentNow(old.getId(), new PositionComponent(1, 1));
+
+            Thread destroyer = new Thread(() -> world.destroyEntity(old));
+            Entity fresh;
+            PositionComponent freshPos = new PositionComponent(2, 2);
+            synchronized (world.getComponentManager().structureLock()) {
+                destroyer.start();
+                while (destroyer.getState() != Thread.State.BLOCKED) Thread.onSpinWait();
+                fresh = world.createEntity();
+                world.addComponentNow(fresh.getId(), freshPos);
+            }
+            destroyer.join();
+
+            assertFalse(world.isAlive(old));
+            assertNull(world.getComponent(old.getId(), PositionComponent.class));
+            assertSame(freshPos, world.getComponent(fresh.getId(), PositionComponent.class));
+            assertEquals(1, world.query(PositionComponent.class).size());
+        } finally {
+            world.shutdown();
+        }
+    }
+
     // -------------------------------------------------------------------------
     // 3. System management
     // -------------------------------------------------------------------------
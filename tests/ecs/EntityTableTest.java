@@ -0,0 +1,127 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityTableTest {
+
+    @Test
+    void testRecycledIndexBumpsGeneration() {
+        ECSManager ecs = new ECSManager();
+        Entity a = ecs.createEntity();
+        ecs.destroyEntity(a);
+        ecs.destroyEntities(ecs.createEntities(EntityTable.MIN_FREE_INDICES)); // a is reused once enough are free
+        Entity b = ecs.createEntity();
+
+        assertEquals(a.index(), b.index());
+        assertEquals(a.generation() + 1, b.generation());
+        assertNotEquals(a.getId(), b.getId());
+        assertFalse(a.isAlive());
+        assertTrue(b.isAlive());
+        assertNull(ecs.getEntity(a.getId()));
+        assertSame(b, ecs.getEntity(b.getId()));
+        ecs.shutdown();
+    }
+
+    @Test
+    void testStaleHandleSeesNoComponents() {
+        ECSManager ecs = new ECSManager(StorageMode.ARCHETYPE);
+        Entity a = ecs.createEntity();
+        a.addComponent(new TransformComponent());
+        ecs.destroyEntity(a);
+
+        Entity b = ecs.createEntity();
+        b.addComponent(new TransformComponent());
+        b.addComponent(new VelocityComponent());
+
+        assertFalse(a.hasComponent(TransformComponent.class));
+        assertNull(a.getComponent(TransformComponent.class));
+        assertTrue(ecs.getComponentManager().getSignature(a.getId()).isEmpty());
+        assertEquals(2, b.getAllComponents().size());
+        assertFalse(ecs.query(TransformComponent.class).contains(a.getId()));
+        assertTrue(ecs.query(TransformComponent.class).contains(b.getId()));
+        ecs.shutdown();
+    }
+
+    @Test
+    void testChurnedSlotNeverRevivesOldHandle() {
+        EntityTable table = new EntityTable();
+        Entity first = table.create(null);
+        int firstId = first.getId();
+        Entity current = first;
+        int reuses = 0;
+        for (int i = 0; i < 600 * (EntityTable.MIN_FREE_INDICES + 1); i++) {
+            assertTrue(table.destroy(current.getId()));
+            current = table.create(null);
+            if (current.index() == first.index()) {
+                reuses++;
+                assertNotEquals(firstId, current.getId());
+            }
+            assertFalse(table.isAlive(firstId));
+        }
+        assertNull(table.get(firstId));
+        // Reused once per generation, then retired instead of wrapping back to generation 0
+        assertEquals(EntityId.GENERATION_MASK, reuses);
+    }
+
+    @Test
+    void testReserveThenRegister() {
+        ECSManager ecs = new ECSManager();
+        Entity e = ecs.reserveEntity();
+        assertFalse(e.isAlive());
+
+        ecs.registerEntity(e);
+        assertTrue(e.isAlive());
+        assertEquals(1, ecs.getEntityManager().count());
+
+        ecs.destroyEntity(e);
+        ecs.registerEntity(e); // stale handle cannot be revived
+        assertFalse(e.isAlive());
+        ecs.shutdown();
+    }
+
+    @Test
+    void testReservedHandleIsCancelledNotDestroyed() {
+        ECSManager ecs = new ECSManager();
+        Entity e = ecs.reserveEntity();
+
+        assertFalse(ecs.getEntityManager().removeEntity(e));
+        ecs.destroyEntity(e); // never existed: nothing to purge
+        ecs.registerEntity(e);
+        assertTrue(e.isAlive());
+        assertFalse(ecs.cancelReservation(e)); // already live
+
+        Entity r = ecs.reserveEntity();
+        assertTrue(ecs.cancelReservation(r));
+        assertFalse(ecs.cancelReservation(r));
+        assertEquals(1, ecs.getEntityManager().freeSlots());
+        Entity next = ecs.reserveEntity(EntityId.pack(r.index(), r.generation() + 1)); // the index is free again
+        assertFalse(next.isAlive());
+        ecs.shutdown();
+    }
+
+    @Test
+    void testSparsePoolIgnoresOlderGeneration() {
+        SparseSetPool<TransformComponent> pool = new SparseSetPool<>(TransformComponent.class);
+        int oldId = EntityId.pack(7, 0);
+        int newId = EntityId.pack(7, 1);
+        pool.add(oldId, new TransformComponent());
+        pool.add(newId, new TransformComponent());
+
+        assertEquals(1, pool.size());
+        assertFalse(pool.has(oldId));
+        assertTrue(pool.has(newId));
+    }
+
+    @Test
+    void testEntityIdPacking() {
+        int id = EntityId.pack(12345, 17);
+        assertEquals(12345, EntityId.index(id));
+        assertEquals(17, EntityId.generation(id));
+        assertEquals(42, EntityId.pack(42, 0));
+        assertTrue(id >= 0);
+    }
+}
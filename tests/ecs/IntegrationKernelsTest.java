@@ -0,0 +1,95 @@
+package ecs;
+
+import ecs.components.*;
+import ecs.storage.IntegrationKernels;
+import ecs.storage.MotionColumns;
+import ecs.systems.PhysicsSystem;
+import math.Vec3;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntegrationKernelsTest {
+
+    private static MotionColumns randomBodies(int n, long seed) {
+        java.util.Random rnd = new java.util.Random(seed);
+        MotionColumns c = new MotionColumns(n);
+        for (int id = 0; id < n; id++) {
+            c.add(id);
+            c.setPosition(id, rnd.nextFloat(), rnd.nextFloat(), rnd.nextFloat());
+            c.setVelocity(id, rnd.nextFloat(), rnd.nextFloat(), rnd.nextFloat());
+            c.setAcceleration(id, rnd.nextFloat(), rnd.nextFloat(), rnd.nextFloat());
+            c.setUseGravity(id, id % 3 != 0);
+        }
+        return c;
+    }
+
+    @Test
+    void testKernelMatchesScalarReference() {
+        int n = 1003; // not a multiple of any SIMD width, exercises the tail loop
+        MotionColumns fast = randomBodies(n, 42);
+        MotionColumns ref = randomBodies(n, 42);
+
+        IntegrationKernels.integrateBodies(fast, 0.016f);
+        IntegrationKernels.integrateBodiesScalar(ref, 0.016f, 0, n);
+        assertBitwiseEqual(ref, fast, n);
+
+        IntegrationKernels.applyVelocity(fast, 0.5f);
+        IntegrationKernels.applyVelocityScalar(ref, 0.5f, 0, n);
+        assertBitwiseEqual(ref, fast, n);
+    }
+
+    /** Replays rely on a body's step not depending on its slot or the SIMD width. */
+    private static void assertBitwiseEqual(MotionColumns ref, MotionColumns fast, int n) {
+        float[][] expected = { ref.px(), ref.py(), ref.pz(), ref.vx(), ref.vy(), ref.vz() };
+        float[][] actual = { fast.px(), fast.py(), fast.pz(), fast.vx(), fast.vy(), fast.vz() };
+        for (int col = 0; col < expected.length; col++) {
+            for (int i = 0; i < n; i++) {
+                assertEquals(Float.floatToRawIntBits(expected[col][i]), Float.floatToRawIntBits(actual[col][i]),
+                        "column " + col + ", slot " + i);
+            }
+        }
+    }
+
+    @Test
+    void testColumnsMatchComponentPath() {
+        TransformComponent tf = new TransformComponent();
+        RigidbodyComponent rb = new RigidbodyComponent();
+        rb.velocity.set(1, 2, 0);
+        rb.acceleration.set(0, 0, 3);
+
+        MotionColumns columns = new MotionColumns();
+        columns.add(9, tf, rb);
+
+        ECSManager ecs = new ECSManager();
+        Entity e = ecs.createEntity();
+        ecs.addComponentNow(e.getId(), tf);
+        ecs.addComponentNow(e.getId(), rb);
+
+        new PhysicsSystem(columns).update(ecs, 0.5f);
+
+        Vec3 p = columns.getPosition(9, new Vec3());
+        assertEquals(tf.position.getX(), p.getX(), 1e-5f);
+        assertEquals(tf.position.getY(), p.getY(), 1e-5f);
+        assertEquals(tf.position.getZ(), p.getZ(), 1e-5f);
+        ecs.shutdown();
+    }
+
+    @Test
+    void testRemoveAndDestroyKeepColumnsDense() {
+        ECSManager ecs = new ECSManager();
+        MotionColumns columns = ecs.attachColumns(new MotionColumns(2));
+        Entity a = ecs.createEntity();
+        Entity b = ecs.createEntity();
+        columns.add(a.getId());
+        columns.add(b.getId());
+        columns.setPosition(b.getId(), 5, 0, 0);
+
+        ecs.destroyEntity(a);
+
+        assertEquals(1, columns.size());
+        assertFalse(columns.contains(a.getId()));
+        assertEquals(5, columns.getPosition(b.getId(), new Vec3()).getX());
+        ecs.shutdown();
+    }
+}
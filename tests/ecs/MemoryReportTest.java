@@ -0,0 +1,82 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryReportTest {
+
+    static final class Flag implements Tag {}
+
+    @TempDir
+    Path dir;
+
+    private ECSManager ecs;
+
+    @AfterEach
+    void tearDown() {
+        if (ecs != null) ecs.shutdown();
+    }
+
+    @Test
+    void testPooledReportCountsTypesAndEntities() {
+        ecs = new ECSManager();
+        ecs.getComponentManager().usePool(VelocityComponent.class, PoolType.SPARSE_SET);
+        Entity[] spawned = ecs.createEntities(1000, TransformComponent::new, VelocityComponent::new);
+        for (int i = 0; i < 10; i++) ecs.addTag(spawned[i].getId(), Flag.class);
+        ecs.destroyEntities(Arrays.copyOf(spawned, 100));
+
+        MemoryReport r = ecs.memoryReport();
+        MemoryReport.TypeStats tf = r.type(TransformComponent.class);
+        assertEquals(900, tf.count());
+        assertEquals("HASH", tf.storage());
+        assertTrue(tf.componentBytes() >= 900L * 3 * 24, "transform owns three vectors");
+        assertTrue(tf.storageBytes() >= 900L * Footprint.HASH_ENTRY);
+
+        MemoryReport.TypeStats vel = r.type(VelocityComponent.class);
+        assertEquals("SPARSE_SET", vel.storage());
+        assertTrue(vel.fragmentation() > 0 && vel.fragmentation() < 1);
+        assertNull(r.type(Flag.class), "all tagged entities were destroyed");
+
+        assertEquals(900, r.entities().alive());
+        assertEquals(100, r.entities().freeSlots());
+        assertEquals(0.1, r.entities().fragmentation(), 1e-9);
+        assertTrue(r.archetypes().isEmpty());
+        assertTrue(r.totalBytes() > tf.totalBytes() + vel.totalBytes());
+    }
+
+    @Test
+    void testArchetypeReportAndJsonExport() throws Exception {
+        ecs = new ECSManager(StorageMode.ARCHETYPE);
+        ecs.createEntities(600, TransformComponent::new, VelocityComponent::new);
+        Entity tagged = ecs.createEntity();
+        ecs.addTag(tagged.getId(), Flag.class);
+
+        MemoryReport r = ecs.memoryReport();
+        MemoryReport.ArchetypeStats a = r.archetypes().get(0);
+        assertEquals(600, a.entities());
+        assertEquals(2, a.chunks());
+        assertEquals(1 - 600.0 / (2 * ArchetypeChunk.CAPACITY), a.fragmentation(), 1e-9);
+        assertEquals("ARCHETYPE", r.type(VelocityComponent.class).storage());
+        assertEquals(1, r.type(Flag.class).count());
+        assertEquals(0, r.type(Flag.class).componentBytes(), "tags store no object");
+
+        Path out = dir.resolve("world.json");
+        r.writeJson(out);
+        String json = Files.readString(out);
+        assertTrue(json.startsWith("{") && json.trim().endsWith("}"));
+        assertTrue(json.contains("\"storageMode\": \"ARCHETYPE\""));
+        assertTrue(json.contains("\"type\": \"" + TransformComponent.class.getName() + "\""));
+        assertTrue(json.contains("\"totalBytes\": " + r.totalBytes()));
+        assertEquals(json.chars().filter(c -> c == '{').count(), json.chars().filter(c -> c == '}').count());
+        assertTrue(r.toString().contains("601 entities"));
+    }
+}
@@ -0,0 +1,102 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import ecs.systems.MovementSystem;
+import ecs.utils.ParallelECSExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelECSExecutorTest {
+
+    private static volatile long sink;
+    private ExecutorService pool;
+    private ParallelECSExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+        executor = new ParallelECSExecutor(pool, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testEveryIndexVisitedOnce() {
+        int n = 10_007;
+        AtomicIntegerArray hits = new AtomicIntegerArray(n);
+        for (int frame = 0; frame < 5; frame++) {
+            executor.forRange("heavy", n, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    hits.incrementAndGet(i);
+                    sink += burn(2_000);
+                }
+            });
+        }
+        for (int i = 0; i < n; i++) assertEquals(5, hits.get(i), "index " + i);
+
+        ParallelECSExecutor.Report r = executor.report("heavy");
+        assertEquals(5, r.calls());
+        assertEquals(1, r.inlineCalls(), "only the first, measuring call runs inline");
+        assertTrue(r.lastChunks() > 1);
+        assertTrue(r.efficiency() > 0 && r.efficiency() <= 1);
+    }
+
+    @Test
+    void testCheapWorkStaysInline() {
+        int[] ids = new int[100];
+        AtomicLong sum = new AtomicLong();
+        for (int frame = 0; frame < 10; frame++) {
+            executor.forEachParallel("cheap", ids, ids.length, id -> sum.incrementAndGet());
+        }
+        assertEquals(1000, sum.get());
+        // A preempted measuring call can look expensive once; the estimate recovers after it
+        assertTrue(executor.report("cheap").inlineCalls() >= 8);
+    }
+
+    @Test
+    void testTaskFailurePropagates() {
+        executor.forRange("fail", 10, (from, to) -> {});
+        assertThrows(IllegalStateException.class, () ->
+                executor.forEachParallel(new int[1000], 1000, 10, id -> { throw new IllegalStateException(); }));
+    }
+
+    @Test
+    void testRemovedSystemStatsAreForgotten() {
+        ECSManager ecs = new ECSManager();
+        try {
+            for (int i = 0; i < 10; i++) {
+                Entity e = ecs.createEntity();
+                e.addComponent(new TransformComponent());
+                e.addComponent(new VelocityComponent());
+            }
+            MovementSystem movement = new MovementSystem();
+            ecs.addSystem(movement);
+            ecs.update(1f);
+            assertNotNull(movement.getExecutor().report(movement));
+
+            ecs.removeSystem(movement);
+            assertNull(movement.getExecutor().report(movement));
+            assertTrue(movement.getExecutor().report().isEmpty());
+        } finally {
+            ecs.shutdown();
+        }
+    }
+
+    private static long burn(int iterations) {
+        long x = 0;
+        for (int i = 0; i < iterations; i++) x += i * 31L ^ x;
+        return x;
+    }
+}
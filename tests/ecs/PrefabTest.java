@@ -0,0 +1,136 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefabTest {
+
+    /** Immutable: shared by every instance. */
+    record Team(int id, String name) implements Component {}
+
+    /** Mutable with no registered copier: compiled from its fields. */
+    static class Health implements Component {
+        float current = 100;
+        float[] resist = {0.1f, 0.2f};
+        transient Object cache = new Object();
+    }
+
+    static class Inventory implements Component {
+        List<String> items = new ArrayList<>();
+    }
+
+    private ECSManager ecs;
+
+    @AfterEach
+    void tearDown() {
+        if (ecs != null) ecs.shutdown();
+    }
+
+    private static Prefab soldier() {
+        TransformComponent tf = new TransformComponent();
+        tf.position.set(1, 2, 3);
+        Health hp = new Health();
+        hp.current = 75;
+        return Prefab.builder("soldier")
+                .with(tf)
+                .with(new VelocityComponent())
+                .with(hp)
+                .with(new Team(2, "blue"))
+                .build();
+    }
+
+    private void checkInstances(Entity[] spawned) {
+        Set<Object> transforms = new HashSet<>();
+        Set<Object> resists = new HashSet<>();
+        Team team = null;
+        for (Entity e : spawned) {
+            assertTrue(ecs.isAlive(e));
+            TransformComponent tf = ecs.getComponent(e.getId(), TransformComponent.class);
+            assertEquals(3, tf.position.getZ());
+            assertTrue(transforms.add(tf), "each entity gets its own copy");
+            Health hp = ecs.getComponent(e.getId(), Health.class);
+            assertEquals(75, hp.current);
+            assertTrue(resists.add(hp.resist), "primitive arrays are cloned");
+            Team t = ecs.getComponent(e.getId(), Team.class);
+            if (team == null) team = t;
+            assertSame(team, t, "immutable components are shared");
+        }
+    }
+
+    @Test
+    void testSpawnPrefabPooled() {
+        ecs = new ECSManager();
+        Query q = ecs.query(TransformComponent.class, Health.class);
+        Entity[] spawned = ecs.spawnPrefab(soldier(), 2000);
+        assertEquals(2000, q.size());
+        checkInstances(spawned);
+        assertTrue(ecs.getComponentManager().isAdded(spawned[0].getId(), Team.class, 0));
+    }
+
+    @Test
+    void testSpawnPrefabArchetype() {
+        ecs = new ECSManager(StorageMode.ARCHETYPE);
+        Query q = ecs.query(VelocityComponent.class, Team.class);
+        Entity[] spawned = ecs.spawnPrefab(soldier(), 1500); // spans several chunks
+        assertEquals(1500, q.size());
+        checkInstances(spawned);
+        assertEquals(1500, ecs.destroyEntities(spawned));
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    void testPrototypeIsCopiedAtBuildTime() {
+        TransformComponent tf = new TransformComponent();
+        Prefab p = Prefab.builder("p").with(tf).build();
+        tf.position.set(9, 9, 9);
+        ecs = new ECSManager();
+        Entity e = ecs.spawnPrefab(p, 1)[0];
+        assertEquals(0, ecs.getComponent(e.getId(), TransformComponent.class).position.getX());
+        assertFalse(p.isShared(TransformComponent.class));
+        assertTrue(soldier().isShared(Team.class));
+    }
+
+    @Test
+    void testDeferredSpawnAppliesAtFlush() {
+        ecs = new ECSManager(StorageMode.ARCHETYPE);
+        Query q = ecs.query(Health.class);
+        Entity[] handles = ecs.commands().spawnPrefab(soldier(), 300);
+        ecs.commands().removeComponent(handles[0].getId(), Health.class);
+        ecs.commands().destroyEntity(handles[1]);
+        assertFalse(ecs.isAlive(handles[2]));
+        assertTrue(q.isEmpty());
+
+        ecs.commands().flush();
+        assertEquals(298, q.size());
+        assertTrue(ecs.isAlive(handles[0]));
+        assertFalse(ecs.isAlive(handles[1]));
+        checkInstances(Arrays.copyOfRange(handles, 2, 300));
+    }
+
+    @Test
+    void testUncopyableTypeIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Prefab.builder("bag").with(new Inventory()));
+        assertTrue(e.getMessage().contains("items"));
+        ComponentCopiers.register(Inventory.class, (p, out, from, to) -> {
+            for (int i = from; i < to; i++) {
+                Inventory c = new Inventory();
+                c.items.addAll(p.items);
+                out[i] = c;
+            }
+        });
+        assertNotNull(Prefab.builder("bag").with(new Inventory()).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> Prefab.builder("dup").with(new VelocityComponent()).with(new VelocityComponent()));
+    }
+}
@@ -0,0 +1,92 @@
+package ecs;
+
+import ecs.components.RigidbodyComponent;
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryChunkTest {
+
+    private ECSManager ecs;
+
+    @AfterEach
+    void tearDown() {
+        if (ecs != null) ecs.shutdown();
+    }
+
+    private Query populate(StorageMode mode) {
+        ecs = new ECSManager(mode);
+        ecs.createEntities(1200, TransformComponent::new, VelocityComponent::new);
+        ecs.createEntities(300, TransformComponent::new, VelocityComponent::new, RigidbodyComponent::new);
+        ecs.createEntities(200, TransformComponent::new); // not matched
+        for (Entity e : ecs.getEntitiesWith(VelocityComponent.class)) {
+            ecs.getComponent(e.getId(), VelocityComponent.class).velocity.set(1, 2, 3);
+        }
+        return ecs.query(TransformComponent.class, VelocityComponent.class);
+    }
+
+    private void checkChunks(Query q) {
+        assertTrue(q.chunks().allMatch(r -> r.size() > 0 && r.size() <= ArchetypeChunk.CAPACITY));
+        assertEquals(1500, q.chunks().mapToInt(ChunkRange::size).sum());
+
+        q.forEachChunk((chunk, start, end) -> {
+            TransformComponent[] tf = chunk.column(TransformComponent.class);
+            VelocityComponent[] v = chunk.column(VelocityComponent.class);
+            for (int i = start; i < end; i++) tf[i].position.add(v[i].velocity);
+        });
+        ecs.forEachChunkParallel(q, (chunk, start, end) -> {
+            TransformComponent[] tf = chunk.column(TransformComponent.class);
+            int[] ids = chunk.entityIds();
+            for (int i = start; i < end; i++) {
+                assertSame(ecs.getComponent(ids[i], TransformComponent.class), tf[i], "rows line up with ids");
+                tf[i].position.add(tf[i].position);
+            }
+        });
+        q.forEach(id -> assertEquals(6, ecs.getComponent(id, TransformComponent.class).position.getZ()));
+
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        q.chunks().parallel().forEach(r -> {
+            int[] ids = r.chunk().entityIds();
+            for (int i = r.start(); i < r.end(); i++) assertTrue(seen.add(ids[i]));
+        });
+        assertEquals(1500, seen.size());
+    }
+
+    @Test
+    void testChunksPooled() {
+        checkChunks(populate(StorageMode.POOLED));
+    }
+
+    @Test
+    void testChunksArchetype() {
+        Query q = populate(StorageMode.ARCHETYPE);
+        assertTrue(q.chunks().allMatch(r -> r.chunk() instanceof ArchetypeChunk), "storage arrays, no copy");
+        checkChunks(q);
+    }
+
+    @Test
+    void testParallelIdStream() {
+        Query q = populate(StorageMode.POOLED);
+        AtomicInteger count = new AtomicInteger();
+        Set<Integer> ids = q.stream().parallel().peek(id -> count.incrementAndGet()).boxed().collect(Collectors.toSet());
+        assertEquals(1500, ids.size());
+        assertEquals(1500, count.get());
+        assertTrue(q.spliterator().trySplit() != null, "splits for parallel streams");
+        assertEquals(q.size(), q.spliterator().getExactSizeIfKnown());
+    }
+
+    @Test
+    void testMissingColumnIsRejected() {
+        Query q = populate(StorageMode.POOLED);
+        q.forEachChunk((chunk, start, end) ->
+                assertThrows(IllegalArgumentException.class, () -> chunk.column(RigidbodyComponent.class)));
+    }
+}
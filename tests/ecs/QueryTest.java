@@ -0,0 +1,83 @@
+package ecs;
+
+import ecs.components.*;
+import ecs.systems.MovementSystem;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryTest {
+
+    @Test
+    void testQueryTracksAddAndRemove() {
+        ComponentManager cm = new ComponentManager();
+        Query q = cm.query(TransformComponent.class, VelocityComponent.class);
+        assertTrue(q.isEmpty());
+
+        cm.addComponent(1, new TransformComponent());
+        assertFalse(q.contains(1));
+        cm.addComponent(1, new VelocityComponent());
+        assertTrue(q.contains(1));
+
+        cm.addComponent(2, new TransformComponent());
+        cm.addComponent(2, new VelocityComponent());
+        assertEquals(2, q.size());
+
+        cm.removeComponent(1, VelocityComponent.class);
+        assertFalse(q.contains(1));
+        assertEquals(2, q.entityAt(0), "Remaining match is swapped into place");
+
+        cm.removeAllComponents(2);
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    void testQueryIsPopulatedOnRegistrationAndCached() {
+        ComponentManager cm = new ComponentManager(StorageMode.ARCHETYPE);
+        cm.addComponent(5, new TransformComponent());
+        cm.addComponent(5, new RigidbodyComponent());
+
+        Query q = cm.query(TransformComponent.class);
+        assertTrue(q.contains(5));
+        assertSame(q, cm.query(TransformComponent.class));
+    }
+
+    @Test
+    void testExclusionMask() {
+        ComponentManager cm = new ComponentManager();
+        Query q = cm.query(ComponentMask.of(TransformComponent.class), ComponentMask.of(RigidbodyComponent.class));
+
+        cm.addComponent(1, new TransformComponent());
+        assertTrue(q.contains(1));
+        cm.addComponent(1, new RigidbodyComponent());
+        assertFalse(q.contains(1));
+    }
+
+    @Test
+    void testHasComponentDoesNotCreatePools() {
+        ComponentManager cm = new ComponentManager();
+        assertFalse(cm.hasComponent(1, SoundZoneComponent.class));
+        assertNull(cm.getComponent(1, SoundZoneComponent.class));
+        assertNull(cm.getPool(SoundZoneComponent.class));
+    }
+
+    @Test
+    void testMovementSystemUsesQuery() {
+        ECSManager ecs = new ECSManager();
+        MovementSystem movement = new MovementSystem();
+        ecs.addSystem(movement);
+
+        Entity e = ecs.createEntity();
+        TransformComponent t = new TransformComponent();
+        VelocityComponent v = new VelocityComponent();
+        v.velocity.set(1, 2, 3);
+        ecs.addComponentNow(e.getId(), t);
+        ecs.addComponentNow(e.getId(), v);
+
+        movement.update(ecs, 0.016f);
+
+        assertEquals(2, t.position.getY());
+        assertEquals(1, ecs.getEntitiesWith(TransformComponent.class, VelocityComponent.class).size());
+        ecs.shutdown();
+    }
+}
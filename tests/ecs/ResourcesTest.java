@@ -0,0 +1,82 @@
+package ecs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourcesTest {
+
+    static final class Config {
+        float volume = 1f;
+    }
+
+    private ECSManager ecs;
+
+    @AfterEach
+    void tearDown() {
+        if (ecs != null) ecs.shutdown();
+    }
+
+    @Test
+    void testSetGetAndVersions() {
+        Resources res = new Resources();
+        assertNull(res.get(Config.class));
+        assertEquals(0, res.version(Config.class));
+        assertThrows(IllegalStateException.class, () -> res.require(Config.class));
+
+        Config c = new Config();
+        res.set(Config.class, c);
+        assertSame(c, res.require(Config.class));
+        long seen = res.version(Config.class);
+        assertEquals(1, seen);
+
+        Resources.Resource<Config> handle = res.resource(Config.class);
+        assertSame(handle, res.resource(Config.class), "one slot per type");
+        assertFalse(handle.changedSince(seen));
+        res.get(Config.class).volume = 0.5f;
+        assertFalse(handle.changedSince(seen), "in-place edits are not seen until marked");
+        res.markChanged(Config.class);
+        assertTrue(handle.changedSince(seen));
+
+        assertSame(c, res.remove(Config.class));
+        assertFalse(handle.isPresent());
+        assertEquals(3, handle.version());
+        assertEquals(0, res.size());
+    }
+
+    @Test
+    void testFrameTimeIsPublishedEveryUpdate() {
+        ecs = new ECSManager();
+        assertNull(ecs.resources().get(FrameTime.class));
+        ecs.update(0.5f);
+        ecs.update(0.25f);
+        FrameTime t = ecs.resources().require(FrameTime.class);
+        assertEquals(2, t.frame());
+        assertEquals(0.25f, t.deltaTime());
+        assertEquals(0.75, t.elapsed(), 1e-9);
+    }
+
+    @Test
+    void testReaderThreadSeesChangesWithoutScanning() throws Exception {
+        Resources res = new Resources();
+        Resources.Resource<Config> handle = res.resource(Config.class);
+        AtomicLong lastSeen = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            long seen = 0;
+            while (seen < 1000) {
+                if (handle.changedSince(seen)) {
+                    seen = handle.version();
+                    assertNotNull(handle.get());
+                }
+            }
+            lastSeen.set(seen);
+        });
+        reader.start();
+        for (int i = 0; i < 1000; i++) handle.set(new Config());
+        reader.join(5000);
+        assertEquals(1000, lastSeen.get());
+    }
+}
@@ -0,0 +1,84 @@
+package ecs;
+
+import ecs.components.*;
+import ecs.systems.PhysicsSystem;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseSetPoolTest {
+
+    @Test
+    void testAddGetRemove() {
+        SparseSetPool<TransformComponent> pool = new SparseSetPool<>(TransformComponent.class);
+        TransformComponent a = new TransformComponent();
+        TransformComponent b = new TransformComponent();
+
+        pool.add(3, a);
+        pool.add(100_000, b); // lands on a distant sparse page
+
+        assertSame(a, pool.get(3));
+        assertSame(b, pool.get(100_000));
+        assertNull(pool.get(4));
+        assertEquals(2, pool.size());
+
+        pool.remove(3);
+        assertFalse(pool.has(3));
+        assertSame(b, pool.get(100_000), "Swapped entity must stay addressable");
+        assertEquals(100_000, pool.denseEntities()[0]);
+    }
+
+    @Test
+    void testDenseArraysStayPacked() {
+        SparseSetPool<RigidbodyComponent> pool = new SparseSetPool<>(RigidbodyComponent.class, 2);
+        for (int id = 0; id < 100; id++) pool.add(id, new RigidbodyComponent());
+        for (int id = 0; id < 100; id += 2) pool.remove(id);
+
+        assertEquals(50, pool.size());
+        for (int i = 0; i < pool.size(); i++) {
+            int id = pool.denseEntities()[i];
+            assertEquals(1, id % 2);
+            assertSame(pool.denseComponents()[i], pool.get(id));
+        }
+        assertEquals(50, pool.entries().size());
+    }
+
+    @Test
+    void testUsePoolMigratesExistingComponents() {
+        ComponentManager cm = new ComponentManager();
+        TransformComponent tf = new TransformComponent();
+        cm.addComponent(7, tf);
+
+        cm.usePool(TransformComponent.class, PoolType.SPARSE_SET);
+
+        assertEquals(PoolType.SPARSE_SET, cm.getPool(TransformComponent.class).type());
+        assertSame(tf, cm.getComponent(7, TransformComponent.class));
+        assertSame(tf, cm.getSparsePool(TransformComponent.class).denseComponents()[0]);
+    }
+
+    @Test
+    void testGetSparsePoolDoesNotMigrate() {
+        ComponentManager cm = new ComponentManager();
+        cm.addComponent(7, new TransformComponent());
+
+        assertNull(cm.getSparsePool(TransformComponent.class));
+        assertEquals(PoolType.HASH, cm.getPool(TransformComponent.class).type());
+    }
+
+    @Test
+    void testPhysicsSystemOnSparsePools() {
+        ECSManager ecs = new ECSManager();
+        ecs.getComponentManager().setDefaultPoolType(PoolType.SPARSE_SET);
+        Entity e = ecs.createEntity();
+        TransformComponent tf = new TransformComponent();
+        RigidbodyComponent rb = new RigidbodyComponent();
+        rb.velocity.set(1, 0, 0);
+        ecs.addComponentNow(e.getId(), tf);
+        ecs.addComponentNow(e.getId(), rb);
+
+        new PhysicsSystem().update(ecs, 1.0f);
+
+        assertTrue(tf.position.getX() > 0);
+        ecs.shutdown();
+    }
+}
@@ -0,0 +1,158 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.storage.SpatialHashGrid;
+import ecs.systems.SpatialIndexSystem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialIndexTest {
+
+    private static int[] sorted(int[] a, int n) {
+        int[] c = Arrays.copyOf(a, n);
+        Arrays.sort(c);
+        return c;
+    }
+
+    @Test
+    void testQueriesMatchBruteForce() {
+        Random rnd = new Random(7);
+        SpatialHashGrid grid = new SpatialHashGrid(4f);
+        int n = 2000;
+        float[] x = new float[n], y = new float[n], z = new float[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = rnd.nextFloat() * 200 - 100;
+            y[i] = rnd.nextFloat() * 20;
+            z[i] = rnd.nextFloat() * 200 - 100;
+            grid.update(i, x[i], y[i], z[i]);
+        }
+        // Move half of them, remove a tenth
+        for (int i = 0; i < n; i += 2) {
+            x[i] += rnd.nextFloat() * 30 - 15;
+            grid.update(i, x[i], y[i], z[i]);
+        }
+        boolean[] gone = new boolean[n];
+        for (int i = 0; i < n; i += 10) {
+            assertTrue(grid.remove(i));
+            gone[i] = true;
+        }
+        assertEquals(n - n / 10, grid.size());
+
+        int[] out = new int[n];
+        for (int q = 0; q < 50; q++) {
+            float qx = rnd.nextFloat() * 200 - 100, qy = rnd.nextFloat() * 20, qz = rnd.nextFloat() * 200 - 100;
+            float r = 1 + rnd.nextFloat() * 25;
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                float dx = x[i] - qx, dy = y[i] - qy, dz = z[i] - qz;
+                if (!gone[i] && dx * dx + dy * dy + dz * dz <= r * r) expected.add(i);
+            }
+            int found = grid.queryRadius(qx, qy, qz, r, out);
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), sorted(out, found));
+
+            expected.clear();
+            for (int i = 0; i < n; i++) {
+                if (!gone[i] && x[i] >= qx - r && x[i] <= qx + r && y[i] >= qy - r && y[i] <= qy + r
+                        && z[i] >= qz - r && z[i] <= qz + r) expected.add(i);
+            }
+            found = grid.queryBox(qx - r, qy - r, qz - r, qx + r, qy + r, qz + r, out);
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), sorted(out, found));
+
+            int k = 1 + rnd.nextInt(12);
+            int[] ids = new int[k];
+            float[] d2 = new float[k];
+            assertEquals(k, grid.nearest(qx, qy, qz, k, ids, d2));
+            float[] all = new float[n];
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                if (gone[i]) continue;
+                float dx = x[i] - qx, dy = y[i] - qy, dz = z[i] - qz;
+                all[m++] = dx * dx + dy * dy + dz * dz;
+            }
+            Arrays.sort(all, 0, m);
+            for (int i = 0; i < k; i++) assertEquals(all[i], d2[i], 1e-3f, "k-nearest distance " + i);
+        }
+    }
+
+    @Test
+    void testQueryReportsTotalBeyondOutputLength() {
+        SpatialHashGrid grid = new SpatialHashGrid(1f);
+        for (int i = 0; i < 10; i++) grid.update(i, 0, 0, i * 0.1f);
+        int[] small = new int[3];
+        assertEquals(10, grid.queryRadius(0, 0, 0, 5, small));
+        assertEquals(2, grid.nearest(100, 100, 100, 2, new int[2], new float[2]), "far point still finds the nearest");
+    }
+
+    @Test
+    void testConcurrentQueriesDuringUpdates() throws Exception {
+        SpatialHashGrid grid = new SpatialHashGrid(2f);
+        for (int i = 0; i < 500; i++) grid.update(i, i % 50, 0, i / 50);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                int[] out = new int[600];
+                int[] ids = new int[5];
+                float[] d2 = new float[5];
+                try {
+                    while (!stop.get()) {
+                        int found = grid.queryRadius(25, 0, 5, 6, out);
+                        for (int i = 0; i < Math.min(found, out.length); i++) assertTrue(out[i] >= 0 && out[i] < 500);
+                        grid.nearest(10, 0, 3, 5, ids, d2);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        Random rnd = new Random(3);
+        for (int step = 0; step < 20_000; step++) {
+            grid.update(rnd.nextInt(500), rnd.nextFloat() * 60, 0, rnd.nextFloat() * 12);
+        }
+        stop.set(true);
+        for (Thread t : readers) t.join();
+        assertNull(failure.get());
+        assertEquals(500, grid.size());
+    }
+
+    @Test
+    void testSystemTracksChangedAndRemovedTransforms() {
+        ECSManager ecs = new ECSManager();
+        try {
+            SpatialIndexSystem index = new SpatialIndexSystem(5f);
+            ecs.addSystem(index);
+            Entity a = ecs.createEntity();
+            a.addComponent(new TransformComponent());
+            Entity b = ecs.createEntity();
+            TransformComponent tb = new TransformComponent();
+            tb.position.set(50, 0, 0);
+            b.addComponent(tb);
+            ecs.update(0.016f);
+
+            int[] out = new int[4];
+            assertEquals(1, index.grid().queryRadius(0, 0, 0, 1, out));
+            assertEquals(a.getId(), out[0]);
+
+            ecs.getMut(b.getId(), TransformComponent.class).position.set(0.5f, 0, 0);
+            ecs.update(0.016f);
+            assertEquals(2, index.grid().queryRadius(0, 0, 0, 1, out));
+
+            ecs.destroyEntity(a);
+            ecs.update(0.016f);
+            assertEquals(1, index.grid().queryRadius(0, 0, 0, 1, out));
+            assertEquals(b.getId(), out[0]);
+            assertFalse(index.grid().contains(a.getId()));
+        } finally {
+            ecs.shutdown();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ecs;
 
 import org.junit.jupiter.api.*;
 
+import core.JobSystem;
 import ecs.systems.SystemManager;
 
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -13,18 +14,21 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 public class SystemManagerTest {
 
+    private JobSystem jobs;
     private SystemManager manager;
     private ECSManager ecs;
 
     @BeforeEach
     void setup() {
-        manager = new SystemManager(4);
+        jobs = new JobSystem(4);
+        manager = new SystemManager(jobs);
         ecs = new ECSManager();
     }
 
     @AfterEach
     void cleanup() {
         manager.shutdown();
+        jobs.shutdown();
     }
 
     @Test
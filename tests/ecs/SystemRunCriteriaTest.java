@@ -0,0 +1,143 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SystemRunCriteriaTest {
+
+    private ECSManager ecs;
+
+    @AfterEach
+    void tearDown() {
+        if (ecs != null) ecs.shutdown();
+    }
+
+    /** Records the dt of every run. */
+    static class Recorder extends SystemBase {
+        final List<Float> runs = new ArrayList<>();
+
+        Recorder() {
+            reads(TransformComponent.class);
+        }
+
+        @Override
+        public void update(ECSManager ecs, float dt) {
+            runs.add(dt);
+        }
+    }
+
+    /** Visits a quarter of the transforms per run. */
+    static class Perception extends SystemBase {
+        final QuerySlice slice;
+        final Set<Integer> seen = new HashSet<>();
+        long spinNanos;
+
+        Perception(ECSManager ecs) {
+            reads(TransformComponent.class);
+            slice = slice(ecs.query(TransformComponent.class), 4);
+        }
+
+        @Override
+        public void update(ECSManager ecs, float dt) {
+            forEachSlice(slice, id -> {
+                seen.add(id);
+                long end = System.nanoTime() + spinNanos;
+                while (System.nanoTime() < end) Thread.onSpinWait();
+            });
+        }
+    }
+
+    @Test
+    void testRunRateCarriesSkippedTime() {
+        ecs = new ECSManager();
+        Recorder r = new Recorder();
+        r.setRunRate(10); // every 0.1 s
+        ecs.addSystem(r);
+        for (int i = 0; i < 10; i++) ecs.update(0.025f);
+
+        assertEquals(2, r.runs.size());
+        assertEquals(0.1f, r.runs.get(0), 1e-5f, "four frames of dt in one run");
+        assertTrue(ecs.describeSchedule().contains("Hz"));
+    }
+
+    @Test
+    void testRunRateHoldsWhenFramesDoNotDivideThePeriod() {
+        ecs = new ECSManager();
+        Recorder r = new Recorder();
+        r.setRunRate(25); // every 0.04 s, i.e. every 2.4 frames at 60 fps
+        ecs.addSystem(r);
+        float frame = 1f / 60;
+        for (int i = 0; i < 600; i++) ecs.update(frame);
+
+        assertEquals(250, r.runs.size(), 1, "10 s at 25 Hz");
+        float total = 0;
+        for (float dt : r.runs) {
+            assertTrue(dt > 1.5f * frame && dt < 3.5f * frame, "each run gets the full elapsed dt: " + dt);
+            total += dt;
+        }
+        assertEquals(10f, total, 2 * frame);
+    }
+
+    @Test
+    void testSlicesCoverTheQueryRoundRobin() {
+        ecs = new ECSManager();
+        ecs.createEntities(1000, TransformComponent::new);
+        Perception p = new Perception(ecs);
+        ecs.addSystem(p);
+
+        for (int i = 0; i < 3; i++) ecs.update(0.016f);
+        assertEquals(750, p.seen.size());
+        assertEquals(250, p.slice.lastVisited());
+        ecs.update(0.016f);
+        assertEquals(1000, p.seen.size(), "full pass after 4 frames");
+        assertEquals(1, p.slice.passes());
+        assertEquals(0, p.slice.cursor());
+    }
+
+    @Test
+    void testBudgetCutsSlicesAndReportsOverruns() {
+        ecs = new ECSManager();
+        ecs.createEntities(1000, TransformComponent::new);
+        Perception p = new Perception(ecs);
+        p.spinNanos = 20_000; // 250 entities would take 5 ms
+        p.setTimeBudgetMicros(1_000);
+        ecs.addSystem(p);
+
+        ecs.update(0.016f);
+        assertTrue(p.slice.wasCutShort());
+        assertTrue(p.slice.lastVisited() < 250);
+        assertEquals(p.slice.lastVisited(), p.slice.cursor(), "next slice resumes here");
+        assertTrue(ecs.describeSchedule().contains("budget 1000 us"));
+
+        // A run far over budget is paid back by skipping frames
+        p.setTimeBudgetMicros(0);
+        p.spinNanos = 0;
+        Recorder slow = new Recorder() {
+            @Override
+            public void update(ECSManager ecs, float dt) {
+                super.update(ecs, dt);
+                long end = System.nanoTime() + 3_000_000;
+                while (System.nanoTime() < end) Thread.onSpinWait();
+            }
+        };
+        slow.setTimeBudgetMicros(1_000);
+        ecs.addSystem(slow);
+        int frames = 0;
+        while (slow.runs.size() < 2 && frames < 100) {
+            ecs.update(0.01f);
+            frames++;
+        }
+        assertTrue(slow.getOverruns() >= 1);
+        assertTrue(slow.getSkippedFrames() >= 1);
+        assertTrue(frames > 2, "frames were skipped between the two runs");
+        assertEquals(0.01f * (frames - 1), slow.runs.get(1), 1e-4f, "skipped frames' dt is carried into the next run");
+    }
+}
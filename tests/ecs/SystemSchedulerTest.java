@@ -0,0 +1,90 @@
+package ecs;
+
+import ecs.components.*;
+import ecs.systems.MovementSystem;
+import ecs.systems.PhysicsSystem;
+import ecs.systems.SystemScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SystemSchedulerTest {
+
+    /** Minimal system with configurable access that records its run order. */
+    static class Probe extends SystemBase {
+        final String name;
+        final List<String> log;
+
+        Probe(String name, List<String> log) {
+            this.name = name;
+            this.log = log;
+        }
+
+        Probe r(Class<? extends Component> t) { reads(t); return this; }
+        Probe w(Class<? extends Component> t) { writes(t); return this; }
+
+        @Override
+        public void update(ECSManager ecs, float dt) {
+            log.add(name);
+        }
+    }
+
+    @Test
+    void testConflictingSystemsGetSeparateStages() {
+        SystemScheduler scheduler = new SystemScheduler();
+        PhysicsSystem physics = new PhysicsSystem();
+        MovementSystem movement = new MovementSystem();
+        scheduler.add(physics);
+        scheduler.add(movement);
+
+        List<SystemScheduler.Stage> stages = scheduler.getStages();
+        assertEquals(2, stages.size(), "Both write TransformComponent");
+        assertSame(physics, stages.get(0).systems().get(0));
+        assertEquals(List.of(physics), scheduler.getDependencies(movement));
+    }
+
+    @Test
+    void testReadersShareAStage() {
+        List<String> log = new CopyOnWriteArrayList<>();
+        SystemScheduler scheduler = new SystemScheduler();
+        scheduler.add(new Probe("a", log).r(TransformComponent.class));
+        scheduler.add(new Probe("b", log).r(TransformComponent.class));
+        scheduler.add(new Probe("c", log).w(VelocityComponent.class));
+
+        assertEquals(1, scheduler.getStages().size());
+        assertTrue(scheduler.describe().contains("Stage 0"));
+    }
+
+    @Test
+    void testUndeclaredSystemsAreExclusive() {
+        List<String> log = new CopyOnWriteArrayList<>();
+        SystemScheduler scheduler = new SystemScheduler();
+        scheduler.add(new Probe("a", log).r(TransformComponent.class));
+        scheduler.add(new Probe("legacy", log));
+        scheduler.add(new Probe("b", log).r(TransformComponent.class));
+
+        assertEquals(3, scheduler.getStages().size());
+        assertTrue(scheduler.describe().contains("[exclusive]"));
+    }
+
+    @Test
+    void testConflictingOrderIsDeterministic() {
+        List<String> log = new CopyOnWriteArrayList<>();
+        ECSManager ecs = new ECSManager();
+        ecs.addSystem(new Probe("writer", log).w(TransformComponent.class));
+        ecs.addSystem(new Probe("reader", log).r(TransformComponent.class));
+
+        for (int frame = 0; frame < 20; frame++) {
+            ecs.update(0.016f);
+        }
+
+        for (int i = 0; i < log.size(); i += 2) {
+            assertEquals("writer", log.get(i));
+            assertEquals("reader", log.get(i + 1));
+        }
+        ecs.shutdown();
+    }
+}
@@ -0,0 +1,101 @@
+package ecs;
+
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagTest {
+
+    static final class Player implements Tag {}
+    static final class Static implements Tag {}
+    static final class Dirty implements Tag {}
+
+    private ECSManager ecs;
+
+    @AfterEach
+    void tearDown() {
+        if (ecs != null) ecs.shutdown();
+    }
+
+    @Test
+    void testSetClearAndTest() {
+        ecs = new ECSManager();
+        Entity e = ecs.createEntity();
+        ecs.addTag(e.getId(), Player.class);
+        assertTrue(ecs.hasTag(e.getId(), Player.class));
+        assertTrue(ecs.hasComponent(e.getId(), Player.class), "tags live in the signature");
+        assertNull(ecs.getComponent(e.getId(), Player.class), "no stored object");
+        assertNull(ecs.getComponentManager().getPool(Player.class), "no pool");
+        assertFalse(ecs.hasTag(e.getId(), Static.class));
+
+        ecs.removeTag(e.getId(), Player.class);
+        assertFalse(ecs.hasTag(e.getId(), Player.class));
+        assertEquals(0, ecs.getComponentManager().tagSet(Player.class).size());
+
+        ecs.commands().addComponent(e.getId(), new Dirty());
+        ecs.commands().flush();
+        assertTrue(ecs.hasTag(e.getId(), Dirty.class));
+        ecs.destroyEntity(e);
+        assertFalse(ecs.hasTag(e.getId(), Dirty.class));
+        assertEquals(0, ecs.getComponentManager().tagSet(Dirty.class).size());
+    }
+
+    @Test
+    void testForEachTaggedAndsBitsets() {
+        ecs = new ECSManager();
+        Entity[] all = ecs.createEntities(40_000, TransformComponent::new);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < all.length; i++) {
+            int id = all[i].getId();
+            if (i % 2 == 0) ecs.addTag(id, Static.class);
+            if (i % 3 == 0) ecs.addTag(id, Dirty.class);
+            if (i % 6 == 0) expected.add(id);
+        }
+        Set<Integer> seen = new HashSet<>();
+        assertEquals(expected.size(), ecs.forEachTagged(seen::add, Static.class, Dirty.class));
+        assertEquals(expected, seen);
+        assertEquals(0, ecs.forEachTagged(id -> fail(), Player.class, Static.class));
+    }
+
+    @Test
+    void testQueriesFilterByTagInBothModes() {
+        for (StorageMode mode : StorageMode.values()) {
+            ecs = new ECSManager(mode);
+            Entity[] movers = ecs.createEntities(1000, TransformComponent::new, VelocityComponent::new);
+            Query players = ecs.query(TransformComponent.class, Player.class);
+            Query staticOnes = ecs.getComponentManager().query(ComponentMask.of(TransformComponent.class),
+                    ComponentMask.of(Player.class));
+            for (int i = 0; i < 10; i++) ecs.addTag(movers[i].getId(), Player.class);
+
+            assertEquals(10, players.size(), mode.name());
+            assertEquals(990, staticOnes.size(), mode.name());
+            int[] rows = {0};
+            players.forEachChunk((chunk, start, end) -> {
+                TransformComponent[] tf = chunk.column(TransformComponent.class);
+                for (int i = start; i < end; i++) {
+                    assertNotNull(tf[i]);
+                    assertTrue(ecs.hasTag(chunk.entityIds()[i], Player.class));
+                    rows[0]++;
+                }
+            });
+            assertEquals(10, rows[0], mode.name());
+
+            ecs.removeTag(movers[0].getId(), Player.class);
+            assertEquals(9, players.size());
+            assertNotNull(ecs.getComponent(movers[0].getId(), VelocityComponent.class), "components untouched");
+            ecs.shutdown();
+            ecs = null;
+        }
+    }
+
+    @Test
+    void testPrefabRejectsTags() {
+        assertThrows(IllegalArgumentException.class, () -> Prefab.builder("p").with(new Player()));
+    }
+}
@@ -0,0 +1,142 @@
+package ecs;
+
+import ecs.components.ParentComponent;
+import ecs.components.TransformComponent;
+import ecs.systems.TransformHierarchySystem;
+import math.Quat;
+import math.Vec3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformHierarchyTest {
+
+    private ECSManager ecs;
+    private TransformHierarchySystem hierarchy;
+
+    @BeforeEach
+    void setUp() {
+        ecs = new ECSManager();
+        hierarchy = new TransformHierarchySystem();
+        ecs.addSystem(hierarchy);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ecs.shutdown();
+    }
+
+    private Entity spawn(float x, float y, float z, Entity parent) {
+        Entity e = ecs.createEntity();
+        TransformComponent t = new TransformComponent();
+        t.position.set(x, y, z);
+        e.addComponent(t);
+        if (parent != null) e.addComponent(new ParentComponent(parent));
+        return e;
+    }
+
+    private float[] world(Entity e) {
+        float[] m = new float[16];
+        assertTrue(hierarchy.getWorldMatrix(e.getId(), m));
+        return m;
+    }
+
+    private static void assertTranslation(float x, float y, float z, float[] m) {
+        assertEquals(x, m[12], 1e-5f);
+        assertEquals(y, m[13], 1e-5f);
+        assertEquals(z, m[14], 1e-5f);
+    }
+
+    @Test
+    void testChildrenComposeWithParents() {
+        Entity root = spawn(1, 0, 0, null);
+        Entity child = spawn(0, 2, 0, root);
+        Entity grandchild = spawn(0, 0, 3, child);
+        ecs.update(0.016f);
+
+        assertEquals(3, hierarchy.depthLevels());
+        assertTranslation(1, 0, 0, world(root));
+        assertTranslation(1, 2, 0, world(child));
+        assertTranslation(1, 2, 3, world(grandchild));
+        assertTrue(hierarchy.rowOf(root.getId()) < hierarchy.rowOf(child.getId()));
+        assertTrue(hierarchy.rowOf(child.getId()) < hierarchy.rowOf(grandchild.getId()));
+
+        // Rotate the root 90 degrees about Z: the child's +Y offset becomes -X
+        ecs.getMut(root.getId(), TransformComponent.class).rotation
+                .set(Quat.fromAxisAngle(new Vec3(0, 0, 1), (float) (Math.PI / 2)));
+        ecs.update(0.016f);
+        assertTranslation(-1, 0, 0, world(child));
+        assertTranslation(-1, 0, 3, world(grandchild));
+    }
+
+    @Test
+    void testUnchangedSubtreesAreSkipped() {
+        Entity a = spawn(1, 0, 0, null);
+        Entity a1 = spawn(1, 0, 0, a);
+        spawn(1, 0, 0, a1);
+        Entity b = spawn(5, 0, 0, null);
+        spawn(0, 1, 0, b);
+        ecs.update(0.016f);
+        assertEquals(5, hierarchy.getLastRecomputed());
+
+        ecs.update(0.016f);
+        assertEquals(0, hierarchy.getLastRecomputed());
+
+        ecs.getMut(a.getId(), TransformComponent.class).position.set(2, 0, 0);
+        ecs.update(0.016f);
+        assertEquals(3, hierarchy.getLastRecomputed(), "a and its two descendants");
+
+        ecs.getMut(b.getId(), TransformComponent.class).scale.set(2, 2, 2);
+        ecs.update(0.016f);
+        assertEquals(2, hierarchy.getLastRecomputed());
+        assertEquals(1, hierarchy.getRebuilds());
+    }
+
+    @Test
+    void testReparentAndParentDestroyRebuild() {
+        Entity a = spawn(10, 0, 0, null);
+        Entity b = spawn(20, 0, 0, null);
+        Entity c = spawn(1, 0, 0, a);
+        ecs.update(0.016f);
+        assertTranslation(11, 0, 0, world(c));
+
+        ecs.getMut(c.getId(), ParentComponent.class).parent = b.getId();
+        ecs.update(0.016f);
+        assertTranslation(21, 0, 0, world(c));
+
+        ecs.destroyEntity(b);
+        ecs.update(0.016f);
+        assertTranslation(1, 0, 0, world(c));
+        assertEquals(-1, hierarchy.rowOf(b.getId()));
+        assertEquals(2, hierarchy.count());
+    }
+
+    @Test
+    void testCycleIsDetached() {
+        Entity a = spawn(1, 0, 0, null);
+        Entity b = spawn(2, 0, 0, a);
+        a.addComponent(new ParentComponent(b));
+        ecs.update(0.016f);
+        assertEquals(2, hierarchy.count());
+        assertEquals(2, hierarchy.depthLevels());
+    }
+
+    @Test
+    void testWideLevelsMatchSequentialResult() {
+        Entity root = spawn(0, 5, 0, null);
+        Entity[] kids = new Entity[2000];
+        for (int i = 0; i < kids.length; i++) kids[i] = spawn(i, 0, 0, root);
+        Entity[] leaves = new Entity[kids.length];
+        for (int i = 0; i < kids.length; i++) leaves[i] = spawn(0, 0, i, kids[i]);
+        ecs.update(0.016f);
+
+        float[] packed = hierarchy.worldMatrices();
+        for (int i = 0; i < kids.length; i++) {
+            assertTranslation(i, 5, i, world(leaves[i]));
+            int row = hierarchy.rowOf(leaves[i].getId());
+            assertEquals(i, packed[row * TransformHierarchySystem.FLOATS_PER_MATRIX + 14], 1e-5f);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package ecs;
+
+import core.JobSystem;
+import ecs.components.TransformComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldHostTest {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static volatile double sink;
+
+    /** Counts its updates and notes whether two of them ever overlapped. */
+    private static class Counter extends SystemBase {
+        final AtomicInteger updates = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        volatile boolean overlapped;
+        final int spin;
+
+        Counter(int spin) {
+            this.spin = spin;
+        }
+
+        @Override
+        public void update(ECSManager ecs, float deltaTime) {
+            if (running.incrementAndGet() > 1) overlapped = true;
+            double x = 0;
+            for (int i = 0; i < spin; i++) x += Math.sqrt(i);
+            sink = x;
+            updates.incrementAndGet();
+            running.decrementAndGet();
+        }
+    }
+
+    private JobSystem jobs;
+    private WorldHost host;
+
+    @BeforeEach
+    void setUp() {
+        jobs = new JobSystem(4);
+        host = new WorldHost(jobs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        host.close();
+        jobs.shutdown();
+    }
+
+    @Test
+    void testEveryWorldStepsOncePerTickWithoutGrowingThreads() {
+        host.createWorld("warmup").ecs().addSystem(new Counter(0));
+        host.tick(0.016f);
+        int threadsBefore = liveThreads();
+
+        Counter[] counters = new Counter[150];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new Counter(1_000);
+            host.createWorld("match-" + i).ecs().addSystem(counters[i]);
+        }
+        for (int t = 0; t < 10; t++) host.tick(0.016f);
+
+        for (Counter c : counters) {
+            assertEquals(10, c.updates.get());
+            assertFalse(c.overlapped, "a world never runs concurrently with itself");
+        }
+        assertEquals(11, host.getTicks());
+        // At most the pool finishing its own spin-up; nothing per world
+        assertTrue(liveThreads() <= threadsBefore + jobs.getParallelism(),
+                "threads grew from " + threadsBefore + " to " + liveThreads());
+    }
+
+    @Test
+    void testWorldsHaveIsolatedIdSpaces() {
+        ECSManager a = host.createWorld("a").ecs();
+        ECSManager b = host.createWorld("b").ecs();
+
+        Entity ea = a.createEntity();
+        Entity eb = b.createEntity();
+        assertEquals(ea.getId(), eb.getId(), "each world allocates from its own id space");
+
+        a.addComponentNow(ea.getId(), new TransformComponent());
+        assertNotNull(a.getComponentManager().getComponent(ea.getId(), TransformComponent.class));
+        assertNull(b.getComponentManager().getComponent(eb.getId(), TransformComponent.class));
+
+        assertThrows(IllegalArgumentException.class, () -> host.createWorld("a"));
+    }
+
+    @Test
+    void testCpuIsChargedToTheWorldThatSpentIt() {
+        WorldHost.World heavy = host.createWorld("heavy");
+        WorldHost.World light = host.createWorld("light");
+        heavy.ecs().addSystem(new Counter(2_000_000));
+        light.ecs().addSystem(new Counter(1_000));
+
+        for (int t = 0; t < 5; t++) host.tick(0.016f);
+
+        assertTrue(heavy.getCpuNanos() > light.getCpuNanos() * 10,
+                "heavy " + heavy.getCpuNanos() + " vs light " + light.getCpuNanos());
+        assertTrue(host.getCpuShare(heavy) > 0.9);
+        assertTrue(heavy.getExpectedStepNanos() > light.getExpectedStepNanos());
+
+        String report = host.describe();
+        assertTrue(report.indexOf("heavy") < report.indexOf("light"), report);
+        assertTrue(report.contains("5 steps"), report);
+    }
+
+    @Test
+    void testParallelRangesAreChargedToTheirWorld() {
+        WorldHost.World world = host.createWorld("parallel");
+        AtomicLong helperCpu = new AtomicLong();
+        world.ecs().addSystem(new SystemBase() {
+            @Override
+            public void update(ECSManager ecs, float deltaTime) {
+                CountDownLatch helped = new CountDownLatch(1);
+                ecs.getJobs().parallelFor(2, 1, (from, to) -> {
+                    if (from == 0) {
+                        // Keep the updating thread busy waiting so the other range goes to a helper
+                        try {
+                            helped.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return;
+                    }
+                    long start = THREADS.getCurrentThreadCpuTime();
+                    double x = 0;
+                    for (int i = 0; i < 2_000_000; i++) x += Math.sqrt(i);
+                    sink = x;
+                    helperCpu.addAndGet(THREADS.getCurrentThreadCpuTime() - start);
+                    helped.countDown();
+                });
+            }
+        });
+
+        for (int t = 0; t < 3; t++) host.tick(0.016f);
+
+        assertTrue(world.getCpuNanos() >= helperCpu.get() * 0.9,
+                "charged " + world.getCpuNanos() + " of " + helperCpu.get() + " helper ns");
+    }
+
+    @Test
+    void testRemovedWorldStopsStepping() {
+        Counter c = new Counter(0);
+        WorldHost.World w = host.createWorld("gone");
+        w.ecs().addSystem(c);
+        host.tick(0.016f);
+        assertTrue(host.removeWorld(w));
+        host.tick(0.016f);
+
+        assertEquals(1, c.updates.get());
+        assertNull(host.getWorld("gone"));
+        assertFalse(host.removeWorld(w));
+    }
+
+    @Test
+    void testStartTicksOnItsOwnLoop() throws Exception {
+        Counter c = new Counter(0);
+        host.createWorld("looped").ecs().addSystem(c);
+
+        host.start(200);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (c.updates.get() < 5 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        host.stop();
+
+        assertFalse(host.isRunning());
+        assertTrue(c.updates.get() >= 5);
+        int after = c.updates.get();
+        Thread.sleep(30);
+        assertEquals(after, c.updates.get(), "no ticks after stop");
+    }
+
+    private static int liveThreads() {
+        return Thread.getAllStackTraces().size();
+    }
+}
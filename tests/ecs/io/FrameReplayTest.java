@@ -0,0 +1,222 @@
+package ecs.io;
+
+import ecs.ECSManager;
+import ecs.Entity;
+import ecs.SystemBase;
+import ecs.Tag;
+import ecs.components.TransformComponent;
+import ecs.components.VelocityComponent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameReplayTest {
+
+    @TempDir
+    Path dir;
+
+    /** Every frame spawns an entity at x = frame and destroys the one spawned three frames ago. */
+    private static class Spawner extends SystemBase {
+        final List<Entity> spawned = new ArrayList<>();
+        int frame;
+
+        Spawner() {
+            writes(TransformComponent.class);
+        }
+
+        @Override
+        public void update(ECSManager ecs, float deltaTime) {
+            Entity e = ecs.commands().createEntity();
+            TransformComponent tf = new TransformComponent();
+            tf.position.set(frame, 0, 0);
+            ecs.commands().addComponent(e.getId(), tf);
+            spawned.add(e);
+            if (spawned.size() > 3) ecs.commands().destroyEntity(spawned.remove(0));
+            ecs.commands().add(() -> {}); // not recordable
+            frame++;
+        }
+    }
+
+    @Test
+    void testHeadlessReplayReproducesTheCommandStream() throws Exception {
+        ECSManager game = new ECSManager();
+        Entity pre = game.createEntity();
+        game.addComponentNow(pre.getId(), new VelocityComponent());
+        game.addSystem(new Spawner());
+
+        Path log = dir.resolve("frames.log");
+        FrameRecorder recorder = new FrameRecorder(game, ComponentCodecs.defaults(), log, FrameRecorder.Scope.ALL);
+        for (int i = 0; i < 10; i++) {
+            recorder.recordInput(new byte[] {(byte) i});
+            game.update(0.01f * (i + 1));
+        }
+        game.commands().removeComponent(pre.getId(), VelocityComponent.class);
+        game.update(0.5f);
+        recorder.close();
+        assertEquals(11, recorder.getFrames());
+        assertEquals(11, recorder.getSkippedCommands());
+        assertEquals(Files.size(log), recorder.getBytesWritten());
+
+        FrameReplay replay = FrameReplay.load(log);
+        assertEquals(11, replay.frameCount());
+        assertEquals(0.03f, replay.frameDt(2));
+
+        ECSManager headless = new ECSManager();
+        List<Byte> inputs = new ArrayList<>();
+        FrameReplay.Report report = replay.onInput((w, b) -> inputs.add(b[0]))
+                .play(headless, ComponentCodecs.defaults());
+
+        assertEquals(11, report.size());
+        assertEquals(0, report.getMismatches());
+        assertEquals(10, inputs.size());
+        assertEquals((byte) 9, inputs.get(9));
+        assertTrue(report.maxNanos() >= report.percentileNanos(50));
+        assertEquals(3, report.slowestFrames(3).length);
+
+        assertArrayEquals(ids(game), ids(headless), "same entities with the same ids");
+        assertNull(headless.getComponentManager().getComponent(pre.getId(), VelocityComponent.class));
+        for (int id : ids(game)) {
+            TransformComponent expected = game.getComponentManager().getComponent(id, TransformComponent.class);
+            TransformComponent actual = headless.getComponentManager().getComponent(id, TransformComponent.class);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertEquals(expected.position.getX(), actual.position.getX());
+            }
+        }
+        game.shutdown();
+        headless.shutdown();
+    }
+
+    static final class Marked implements Tag {}
+
+    @Test
+    void testTagCommandsAreRecordedAndReplayed() throws Exception {
+        ECSManager game = new ECSManager();
+        Entity kept = game.createEntity();
+        Entity cleared = game.createEntity();
+        game.addTag(cleared.getId(), Marked.class);
+
+        Path log = dir.resolve("tags.log");
+        FrameRecorder recorder = new FrameRecorder(game, ComponentCodecs.defaults(), log, FrameRecorder.Scope.ALL);
+        Entity created = game.commands().createEntity();
+        game.commands().addComponent(created.getId(), new Marked());
+        game.commands().addTag(kept.getId(), Marked.class);
+        game.update(0.01f);
+        game.commands().removeTag(cleared.getId(), Marked.class);
+        game.update(0.01f);
+        recorder.close();
+        assertEquals(0, recorder.getSkippedCommands());
+
+        ECSManager headless = new ECSManager();
+        FrameReplay.Report report = FrameReplay.load(log).play(headless, ComponentCodecs.defaults());
+        assertEquals(0, report.getMismatches());
+        assertTrue(headless.hasTag(kept.getId(), Marked.class));
+        assertTrue(headless.hasTag(created.getId(), Marked.class));
+        assertFalse(headless.hasTag(cleared.getId(), Marked.class));
+        game.shutdown();
+        headless.shutdown();
+    }
+
+    @Test
+    void testExternalScopeReplaysIntoTheSameSystems() throws Exception {
+        ECSManager game = new ECSManager();
+        Spawner gameSpawner = new Spawner();
+        game.addSystem(gameSpawner);
+
+        Path log = dir.resolve("external.log");
+        FrameRecorder recorder = new FrameRecorder(game, ComponentCodecs.defaults(), log, FrameRecorder.Scope.EXTERNAL);
+        Entity player = game.commands().createEntity(); // from "input", outside any system
+        game.commands().addComponent(player.getId(), new VelocityComponent());
+        for (int i = 0; i < 6; i++) game.update(0.016f);
+        recorder.close();
+
+        ECSManager replayWorld = new ECSManager();
+        replayWorld.addSystem(new Spawner());
+        FrameReplay.Report report = FrameReplay.load(log).play(replayWorld, ComponentCodecs.defaults());
+
+        assertEquals(0, report.getMismatches());
+        assertArrayEquals(ids(game), ids(replayWorld));
+        assertNotNull(replayWorld.getComponentManager().getComponent(player.getId(), VelocityComponent.class));
+        game.shutdown();
+        replayWorld.shutdown();
+    }
+
+    @Test
+    void testRerunRepeatsOneFrameFromTheSameState() throws Exception {
+        ECSManager game = new ECSManager();
+        game.addSystem(new Spawner());
+        Path log = dir.resolve("rerun.log");
+        try (FrameRecorder recorder = new FrameRecorder(game, ComponentCodecs.defaults(), log, FrameRecorder.Scope.ALL)) {
+            for (int i = 0; i < 8; i++) game.update(0.016f);
+            assertEquals(8, recorder.getFrames());
+        }
+
+        ECSManager headless = new ECSManager();
+        FrameReplay.Report report = FrameReplay.load(log).rerun(headless, ComponentCodecs.defaults(), 5, 4);
+        assertEquals(4, report.size());
+        for (int i = 0; i < 4; i++) assertEquals(5, report.frame(i));
+        assertEquals(0, report.getMismatches(), "every repeat starts from the same ids");
+        assertEquals(3, headless.getEntityManager().count());
+        game.shutdown();
+        headless.shutdown();
+    }
+
+    @Test
+    void testTruncatedTailIsDropped() throws Exception {
+        ECSManager game = new ECSManager();
+        game.addSystem(new Spawner());
+        Path log = dir.resolve("cut.log");
+        try (FrameRecorder recorder = new FrameRecorder(game, ComponentCodecs.defaults(), log, FrameRecorder.Scope.ALL)) {
+            for (int i = 0; i < 4; i++) game.update(0.016f);
+            assertEquals(4, recorder.getFrames());
+        }
+        byte[] bytes = Files.readAllBytes(log);
+        FrameReplay cut = FrameReplay.read(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 5)));
+        assertEquals(3, cut.frameCount());
+        assertThrows(java.io.IOException.class, () -> FrameReplay.read(ByteBuffer.wrap(new byte[32])));
+        game.shutdown();
+    }
+
+    @Test
+    void testEarlierFlushesOfAFrameReplayBeforeLaterOnes() throws Exception {
+        ECSManager game = new ECSManager();
+        game.addSystem(new SystemBase() {
+            @Override
+            public void update(ECSManager ecs, float deltaTime) {}
+        }, "input");
+        Entity e = game.createEntity();
+        game.addComponentNow(e.getId(), new TransformComponent());
+
+        Path log = dir.resolve("groups.log");
+        try (FrameRecorder recorder = new FrameRecorder(game, ComponentCodecs.defaults(), log, FrameRecorder.Scope.ALL)) {
+            game.commands().removeComponent(e.getId(), TransformComponent.class);
+            game.updateGroup("input", 0.016f); // flushes the remove
+            TransformComponent back = new TransformComponent();
+            back.position.set(7, 0, 0);
+            game.commands().addComponent(e.getId(), back);
+            game.update(0.016f);
+            assertEquals(1, recorder.getFrames());
+        }
+
+        ECSManager replayWorld = new ECSManager();
+        FrameReplay.load(log).play(replayWorld, ComponentCodecs.defaults());
+        TransformComponent replayed = replayWorld.getComponent(e.getId(), TransformComponent.class);
+        assertNotNull(replayed, "the add flushed after the remove must win");
+        assertEquals(7, replayed.position.getX());
+        game.shutdown();
+        replayWorld.shutdown();
+    }
+
+    private static int[] ids(ECSManager world) {
+        return world.getEntityManager().getAllEntities().stream().mapToInt(Entity::getId).sorted().toArray();
+    }
+}
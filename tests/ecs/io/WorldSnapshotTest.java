@@ -0,0 +1,179 @@
+package ecs.io;
+
+import ecs.ECSManager;
+import ecs.Entity;
+import ecs.EntityId;
+import ecs.StorageMode;
+import ecs.Tag;
+import ecs.components.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    // Ids produced by buildWorld: slot 0 at generation 1, slot 1 fresh
+    private static final int A = EntityId.pack(0, 1);
+    private static final int B = EntityId.pack(1, 0);
+
+    private static ECSManager buildWorld(StorageMode mode) {
+        ECSManager ecs = new ECSManager(mode);
+        Entity a = ecs.reserveEntity(A);
+        ecs.registerEntity(a);
+        TransformComponent tf = new TransformComponent();
+        tf.position.set(1, 2, 3);
+        tf.scale.set(2, 2, 2);
+        tf.rotation.set(0f, 1f, 0f, 0f);
+        a.addComponent(tf);
+        RigidbodyComponent rb = new RigidbodyComponent();
+        rb.velocity.set(4, 5, 6);
+        rb.drag = 0.5f;
+        rb.useGravity = false;
+        a.addComponent(rb);
+
+        Entity b = ecs.createEntity();
+        b.addComponent(new AudioSourceComponent("music/théme.wav"));
+        b.addComponent(new SoundComponent(null));
+        return ecs;
+    }
+
+    @Test
+    void testRoundTripThroughMappedFile() throws Exception {
+        for (StorageMode mode : StorageMode.values()) {
+            ECSManager src = buildWorld(mode);
+            Path file = dir.resolve("world-" + mode + ".ecs");
+            WorldSnapshot.capture(src, ComponentCodecs.defaults()).writeTo(file);
+
+            ECSManager dst = new ECSManager(mode);
+            dst.createEntity(); // replaced by the load
+            Entity[] loaded = WorldSnapshot.load(file, dst, ComponentCodecs.defaults());
+
+            assertEquals(2, loaded.length);
+            Entity a = dst.getEntity(A);
+            assertEquals(1, a.generation());
+            assertTrue(a.isAlive());
+            TransformComponent tf = a.getComponent(TransformComponent.class);
+            assertEquals(3, tf.position.getZ());
+            assertEquals(2, tf.scale.getX());
+            assertEquals(1f, tf.rotation.getX());
+            RigidbodyComponent rb = a.getComponent(RigidbodyComponent.class);
+            assertEquals(5, rb.velocity.getY());
+            assertEquals(0.5f, rb.drag);
+            assertFalse(rb.useGravity);
+
+            Entity b = dst.getEntity(B);
+            assertEquals("music/théme.wav", b.getComponent(AudioSourceComponent.class).filePath);
+            assertNull(b.getComponent(SoundComponent.class).wavPath);
+            if (mode == StorageMode.ARCHETYPE) {
+                // each entity was placed straight into its final archetype
+                assertEquals(2, dst.getComponentManager().getArchetypes().size());
+            }
+
+            // Recycled ids keep working after the load
+            assertNotEquals(a.getId(), dst.createEntity().getId());
+            src.shutdown();
+            dst.shutdown();
+        }
+    }
+
+    static final class Frozen implements Tag {}
+
+    @Test
+    void testTagsSurviveRoundTrip() throws Exception {
+        for (StorageMode mode : StorageMode.values()) {
+            ECSManager src = buildWorld(mode);
+            src.addTag(A, Frozen.class);
+            Entity tagOnly = src.createEntity();
+            src.addTag(tagOnly.getId(), Frozen.class);
+
+            ECSManager dst = new ECSManager(mode);
+            WorldSnapshot.capture(src, ComponentCodecs.defaults()).restoreInto(dst, ComponentCodecs.defaults());
+
+            assertTrue(dst.hasTag(A, Frozen.class), mode.toString());
+            assertFalse(dst.hasTag(B, Frozen.class));
+            assertTrue(dst.hasTag(tagOnly.getId(), Frozen.class));
+            assertNotNull(dst.getEntity(A).getComponent(TransformComponent.class));
+            assertEquals(2, dst.getComponentManager().tagSet(Frozen.class).size());
+            src.shutdown();
+            dst.shutdown();
+        }
+    }
+
+    @Test
+    void testEqualWorldsGiveEqualBytes() {
+        ECSManager a = buildWorld(StorageMode.POOLED);
+        ECSManager b = buildWorld(StorageMode.ARCHETYPE);
+        assertEquals(WorldSnapshot.capture(a, ComponentCodecs.defaults()).buffer(),
+                WorldSnapshot.capture(b, ComponentCodecs.defaults()).buffer());
+        a.shutdown();
+        b.shutdown();
+    }
+
+    @Test
+    void testUnknownSectionIsSkipped() throws Exception {
+        ECSManager src = buildWorld(StorageMode.POOLED);
+        WorldSnapshot snap = WorldSnapshot.capture(src, ComponentCodecs.defaults());
+
+        ComponentCodecs partial = new ComponentCodecs().register(ComponentCodecs.SOUND);
+        ECSManager dst = new ECSManager();
+        assertEquals(2, snap.restoreInto(dst, partial).length);
+
+        assertNull(dst.getEntity(A).getComponent(TransformComponent.class));
+        assertNotNull(dst.getEntity(B).getComponent(SoundComponent.class));
+        src.shutdown();
+        dst.shutdown();
+    }
+
+    @Test
+    void testBackgroundWriterCapturesAtFrameEnd() throws Exception {
+        ECSManager ecs = buildWorld(StorageMode.POOLED);
+        ecs.addSystem(new ecs.systems.PhysicsSystem());
+        Path file = dir.resolve("autosave.ecs");
+
+        try (SnapshotWriter writer = new SnapshotWriter(ecs, ComponentCodecs.defaults())) {
+            var done = writer.request(file);
+            assertFalse(done.isDone());
+            ecs.update(0.016f);
+            assertEquals(file, done.get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(Files.size(file) > 0);
+        ecs.shutdown();
+    }
+
+    @Test
+    void testBackgroundWriterCapturesInWorldWithoutSystems() throws Exception {
+        ECSManager ecs = buildWorld(StorageMode.POOLED);
+        Path file = dir.resolve("autosave.ecs");
+
+        try (SnapshotWriter writer = new SnapshotWriter(ecs, ComponentCodecs.defaults())) {
+            var done = writer.request(file);
+            ecs.update(0.016f);
+            assertEquals(file, done.get(5, TimeUnit.SECONDS));
+        }
+        ecs.shutdown();
+    }
+
+    @Test
+    void testBackgroundWritesLandInRequestOrder() throws Exception {
+        ECSManager ecs = buildWorld(StorageMode.POOLED);
+        Path file = dir.resolve("autosave.ecs");
+
+        try (SnapshotWriter writer = new SnapshotWriter(ecs, ComponentCodecs.defaults())) {
+            writer.captureNow(file);
+            ecs.createEntity();
+            writer.captureNow(file).get(5, TimeUnit.SECONDS);
+        }
+        ECSManager loaded = new ECSManager(StorageMode.POOLED);
+        assertEquals(3, WorldSnapshot.load(file, loaded, ComponentCodecs.defaults()).length);
+        loaded.shutdown();
+        ecs.shutdown();
+    }
+}
@@ -0,0 +1,66 @@
+package engineTest;
+
+import core.FixedStepScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedStepSchedulerTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void testStepsAtFixedRateWithConstantDt() {
+        FixedStepScheduler s = new FixedStepScheduler();
+        List<Float> dts = new ArrayList<>();
+        s.addGroup("physics", 100, dts::add);
+
+        assertEquals(0, s.advance(5 * MS));
+        assertEquals(0.5f, s.alpha("physics"), 1e-6f);
+        assertEquals(1, s.advance(7 * MS));
+        assertEquals(2, s.advance(20 * MS));
+
+        assertEquals(3, dts.size());
+        for (float dt : dts) assertEquals(0.01f, dt, 1e-9f);
+        assertEquals(0.2f, s.alpha("physics"), 1e-6f);
+    }
+
+    @Test
+    void testInterleavingDoesNotDependOnFrameSlicing() {
+        List<String> coarse = run(new long[] {100 * MS});
+        List<String> fine = run(new long[] {13 * MS, 29 * MS, 3 * MS, 41 * MS, 14 * MS});
+        assertEquals(coarse, fine);
+        assertEquals(12, coarse.stream().filter("physics"::equals).count());
+        assertEquals(2, coarse.stream().filter("ai"::equals).count());
+        assertEquals(1, coarse.stream().filter("audio"::equals).count());
+    }
+
+    private static List<String> run(long[] frames) {
+        FixedStepScheduler s = new FixedStepScheduler();
+        List<String> trace = new ArrayList<>();
+        s.addGroup("physics", 120, 64, dt -> trace.add("physics"));
+        s.addGroup("ai", 20, dt -> trace.add("ai"));
+        s.addGroup("audio", 10, dt -> trace.add("audio"));
+        for (long f : frames) s.advance(f);
+        return trace;
+    }
+
+    @Test
+    void testSpiralOfDeathIsClamped() {
+        FixedStepScheduler s = new FixedStepScheduler();
+        int[] steps = {0};
+        FixedStepScheduler.Group g = s.addGroup("physics", 120, 4, dt -> steps[0]++);
+
+        s.advance(5_000 * MS); // a 5 s hitch
+        assertEquals(4, steps[0]);
+        assertTrue(g.droppedSteps() > 0);
+        assertTrue(s.getClampedNanos() > 0);
+        assertTrue(s.alpha("physics") < 1f);
+
+        s.advance(9 * MS);
+        assertEquals(5, steps[0]); // back to normal pacing right away
+    }
+}
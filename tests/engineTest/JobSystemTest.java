@@ -0,0 +1,121 @@
+package engineTest;
+
+import core.JobGraph;
+import core.JobSystem;
+import core.JobSystem.Job;
+import core.JobSystem.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobSystemTest {
+
+    private final JobSystem jobs = new JobSystem(2);
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    @Test
+    void testHigherPriorityRunsFirst() throws Exception {
+        JobSystem single = new JobSystem(1);
+        try {
+            CountDownLatch gate = new CountDownLatch(1);
+            single.execute(Priority.NORMAL, () -> {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            List<String> order = new CopyOnWriteArrayList<>();
+            Job low = single.submit(Priority.LOW, () -> order.add("low"));
+            Job normal = single.submit(Priority.NORMAL, () -> order.add("normal"));
+            Job high = single.submit(Priority.HIGH, () -> order.add("high"));
+            gate.countDown();
+            low.join();
+            normal.join();
+            high.join();
+            assertEquals(List.of("high", "normal", "low"), order);
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void testDependenciesAndContinuations() {
+        List<String> order = new CopyOnWriteArrayList<>();
+        Job a = jobs.submit(() -> order.add("a"));
+        Job b = jobs.submit(() -> order.add("b"));
+        Job c = jobs.submit(Priority.NORMAL, () -> order.add("c"), a, b);
+        Job d = c.then(() -> order.add("d"));
+        d.join();
+        assertEquals(4, order.size());
+        assertTrue(order.indexOf("c") > order.indexOf("a"));
+        assertTrue(order.indexOf("c") > order.indexOf("b"));
+        assertEquals("d", order.get(3));
+    }
+
+    @Test
+    void testFailurePropagatesToDependents() {
+        AtomicInteger ran = new AtomicInteger();
+        Job bad = jobs.submit(() -> { throw new IllegalStateException("boom"); });
+        Job after = bad.then(ran::incrementAndGet);
+        IllegalStateException e = assertThrows(IllegalStateException.class, after::join);
+        assertEquals("boom", e.getMessage());
+        assertTrue(after.isFailed());
+        assertEquals(0, ran.get());
+    }
+
+    @Test
+    void testParallelForCoversEveryIndexOnce() {
+        int n = 10_000;
+        AtomicIntegerArray hits = new AtomicIntegerArray(n);
+        jobs.parallelFor(n, 64, (from, to) -> {
+            assertTrue(to - from <= 64);
+            for (int i = from; i < to; i++) hits.incrementAndGet(i);
+        });
+        for (int i = 0; i < n; i++) assertEquals(1, hits.get(i), "index " + i);
+
+        assertThrows(ArithmeticException.class,
+                () -> jobs.parallelFor(1000, 10, (from, to) -> { if (from >= 500) throw new ArithmeticException(); }));
+    }
+
+    @Test
+    void testGraphRunsEachFrameInDependencyOrder() {
+        List<String> order = new CopyOnWriteArrayList<>();
+        JobGraph frame = new JobGraph("frame");
+        JobGraph.Node input = frame.add("input", () -> order.add("input"));
+        JobGraph.Node physics = frame.add("physics", Priority.HIGH, () -> order.add("physics"), input);
+        JobGraph.Node ai = frame.add("ai", () -> order.add("ai"), input);
+        frame.add("audio", Priority.LOW, () -> order.add("audio"), physics, ai);
+
+        for (int f = 0; f < 3; f++) {
+            order.clear();
+            frame.run(jobs);
+            assertEquals(4, order.size());
+            assertEquals("input", order.get(0));
+            assertEquals("audio", order.get(3));
+        }
+        assertTrue(frame.describe().contains("audio [LOW] after physics ai"));
+
+        JobGraph other = new JobGraph("other");
+        assertThrows(IllegalArgumentException.class, () -> other.add("x", () -> {}, input));
+    }
+
+    @Test
+    void testBlockingWorkRunsOnVirtualThreads() throws Exception {
+        Future<?> f = jobs.submitBlocking(() -> assertTrue(Thread.currentThread().isVirtual()));
+        f.get(5, TimeUnit.SECONDS);
+    }
+}